@@ -3,6 +3,9 @@ package org.linghu.mybackend.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * go-judge评测服务配置
  */
@@ -10,11 +13,26 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "judge.service")
 public class JudgeConfig {
     
+    /**
+     * 访问go-judge的方式：http或grpc
+     */
+    private String transport = "http";
+    
     /**
      * go-judge服务HTTP API地址
      */
     private String url = "http://localhost:5050";
     
+    /**
+     * 多个go-judge节点的HTTP API地址，配置后取代url
+     */
+    private List<String> urls = new ArrayList<>();
+    
+    /**
+     * 评测节点池配置
+     */
+    private Pool pool = new Pool();
+    
     /**
      * go-judge服务gRPC地址
      */
@@ -30,6 +48,49 @@ public class JudgeConfig {
      */
     private int maxRetries = 3;
     
+    /**
+     * 建立连接超时时间（秒）
+     */
+    private int connectTimeout = 5;
+    
+    /**
+     * 重试退避的初始间隔（毫秒），每次重试翻倍
+     */
+    private long retryBackoff = 200;
+    
+    /**
+     * 熔断器配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    
+    /**
+     * 评测队列配置
+     */
+    private Queue queue = new Queue();
+    
+    /**
+     * 测试用例评测配置
+     */
+    private TestCase testCase = new TestCase();
+    
+    /**
+     * 评测前读取学生提交文件的配置
+     */
+    private Fetch fetch = new Fetch();
+    
+    /**
+     * 评测准入控制配置
+     */
+    private Admission admission = new Admission();
+    
+    public String getTransport() {
+        return transport;
+    }
+    
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+    
     public String getUrl() {
         return url;
     }
@@ -38,6 +99,22 @@ public class JudgeConfig {
         this.url = url;
     }
     
+    public List<String> getUrls() {
+        return urls;
+    }
+    
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+    
+    public Pool getPool() {
+        return pool;
+    }
+    
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+    
     public Grpc getGrpc() {
         return grpc;
     }
@@ -62,6 +139,62 @@ public class JudgeConfig {
         this.maxRetries = maxRetries;
     }
     
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    public long getRetryBackoff() {
+        return retryBackoff;
+    }
+    
+    public void setRetryBackoff(long retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+    
+    public Queue getQueue() {
+        return queue;
+    }
+    
+    public void setQueue(Queue queue) {
+        this.queue = queue;
+    }
+    
+    public TestCase getTestCase() {
+        return testCase;
+    }
+    
+    public void setTestCase(TestCase testCase) {
+        this.testCase = testCase;
+    }
+    
+    public Fetch getFetch() {
+        return fetch;
+    }
+    
+    public void setFetch(Fetch fetch) {
+        this.fetch = fetch;
+    }
+    
+    public Admission getAdmission() {
+        return admission;
+    }
+    
+    public void setAdmission(Admission admission) {
+        this.admission = admission;
+    }
+    
     /**
      * gRPC相关配置
      */
@@ -71,6 +204,21 @@ public class JudgeConfig {
          */
         private String url = "localhost:5051";
         
+        /**
+         * 多个go-judge节点的gRPC地址，配置后取代url
+         */
+        private List<String> urls = new ArrayList<>();
+        
+        /**
+         * 单条响应消息的最大字节数
+         */
+        private int maxMessageSize = 64 * 1024 * 1024;
+        
+        /**
+         * 连接空闲时发送keepalive探测的间隔（秒）
+         */
+        private long keepAliveSeconds = 60;
+        
         public String getUrl() {
             return url;
         }
@@ -78,6 +226,331 @@ public class JudgeConfig {
         public void setUrl(String url) {
             this.url = url;
         }
+        
+        public List<String> getUrls() {
+            return urls;
+        }
+        
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+        
+        public int getMaxMessageSize() {
+            return maxMessageSize;
+        }
+        
+        public void setMaxMessageSize(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+        }
+        
+        public long getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+        
+        public void setKeepAliveSeconds(long keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+    }
+    
+    /**
+     * 评测节点池相关配置
+     */
+    public static class Pool {
+        /**
+         * 每个节点同时进行的评测数上限
+         */
+        private int maxConcurrent = 4;
+        
+        /**
+         * 所有节点都满载时等待空闲节点的最长时间（秒）
+         */
+        private int acquireTimeout = 30;
+        
+        /**
+         * 节点健康检查间隔（毫秒）
+         */
+        private long healthCheckIntervalMs = 5000;
+        
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+        
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+        
+        public int getAcquireTimeout() {
+            return acquireTimeout;
+        }
+        
+        public void setAcquireTimeout(int acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+        
+        public long getHealthCheckIntervalMs() {
+            return healthCheckIntervalMs;
+        }
+        
+        public void setHealthCheckIntervalMs(long healthCheckIntervalMs) {
+            this.healthCheckIntervalMs = healthCheckIntervalMs;
+        }
+    }
+    
+    /**
+     * 熔断器相关配置
+     */
+    public static class CircuitBreaker {
+        /**
+         * 连续失败多少次后熔断
+         */
+        private int failureThreshold = 5;
+        
+        /**
+         * 熔断持续时间（秒），到期后放行一次试探请求
+         */
+        private int openSeconds = 30;
+        
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+        
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+        
+        public int getOpenSeconds() {
+            return openSeconds;
+        }
+        
+        public void setOpenSeconds(int openSeconds) {
+            this.openSeconds = openSeconds;
+        }
+    }
+    
+    /**
+     * 评测队列相关配置
+     */
+    public static class Queue {
+        /**
+         * 评测工作线程数
+         */
+        private int workers = 4;
+        
+        /**
+         * 内存中等待执行的最大任务数，超出部分留在数据库中等待下次调度
+         */
+        private int capacity = 200;
+        
+        /**
+         * 运行中任务的超时回收时间（分钟），超时后重新排队
+         */
+        private int staleMinutes = 10;
+        
+        /**
+         * SSE推送连接的超时时间（秒）
+         */
+        private int streamTimeout = 120;
+        
+        public int getWorkers() {
+            return workers;
+        }
+        
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+        
+        public int getStaleMinutes() {
+            return staleMinutes;
+        }
+        
+        public void setStaleMinutes(int staleMinutes) {
+            this.staleMinutes = staleMinutes;
+        }
+        
+        public int getStreamTimeout() {
+            return streamTimeout;
+        }
+        
+        public void setStreamTimeout(int streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+    }
+    
+    /**
+     * 测试用例评测相关配置
+     */
+    public static class TestCase {
+        /**
+         * 单次提交同时运行的测试用例数，即每个go-judge请求中的命令数
+         */
+        private int parallelism = 4;
+        
+        /**
+         * 每个测试用例标准输出的最大字节数
+         */
+        private int outputLimit = 65536;
+        
+        public int getParallelism() {
+            return parallelism;
+        }
+        
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+        
+        public int getOutputLimit() {
+            return outputLimit;
+        }
+        
+        public void setOutputLimit(int outputLimit) {
+            this.outputLimit = outputLimit;
+        }
+    }
+    
+    /**
+     * 学生提交文件读取相关配置
+     */
+    public static class Fetch {
+        /**
+         * 同时从MinIO读取的文件数
+         */
+        private int parallelism = 8;
+        
+        /**
+         * 单次提交所有文件的总字节数上限
+         */
+        private long maxTotalBytes = 8 * 1024 * 1024;
+        
+        public int getParallelism() {
+            return parallelism;
+        }
+        
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+        
+        public long getMaxTotalBytes() {
+            return maxTotalBytes;
+        }
+        
+        public void setMaxTotalBytes(long maxTotalBytes) {
+            this.maxTotalBytes = maxTotalBytes;
+        }
+    }
+    
+    /**
+     * 评测准入控制配置，按用户和按实验分别使用令牌桶限制新建评测任务的速率
+     */
+    public static class Admission {
+        /**
+         * 是否启用准入控制
+         */
+        private boolean enabled = true;
+        
+        /**
+         * 每个用户的令牌桶容量，即允许的突发评测次数
+         */
+        private int userCapacity = 5;
+        
+        /**
+         * 每个用户每分钟补充的令牌数
+         */
+        private int userRefillPerMinute = 6;
+        
+        /**
+         * 每个实验的令牌桶容量
+         */
+        private int experimentCapacity = 60;
+        
+        /**
+         * 每个实验每分钟补充的令牌数
+         */
+        private int experimentRefillPerMinute = 120;
+        
+        /**
+         * 令牌桶闲置多少分钟后回收
+         */
+        private int idleMinutes = 30;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getUserCapacity() {
+            return userCapacity;
+        }
+        
+        public void setUserCapacity(int userCapacity) {
+            this.userCapacity = userCapacity;
+        }
+        
+        public int getUserRefillPerMinute() {
+            return userRefillPerMinute;
+        }
+        
+        public void setUserRefillPerMinute(int userRefillPerMinute) {
+            this.userRefillPerMinute = userRefillPerMinute;
+        }
+        
+        public int getExperimentCapacity() {
+            return experimentCapacity;
+        }
+        
+        public void setExperimentCapacity(int experimentCapacity) {
+            this.experimentCapacity = experimentCapacity;
+        }
+        
+        public int getExperimentRefillPerMinute() {
+            return experimentRefillPerMinute;
+        }
+        
+        public void setExperimentRefillPerMinute(int experimentRefillPerMinute) {
+            this.experimentRefillPerMinute = experimentRefillPerMinute;
+        }
+        
+        public int getIdleMinutes() {
+            return idleMinutes;
+        }
+        
+        public void setIdleMinutes(int idleMinutes) {
+            this.idleMinutes = idleMinutes;
+        }
+    }
+    
+    /**
+     * 是否通过gRPC访问go-judge
+     */
+    public boolean isGrpcTransport() {
+        return "grpc".equalsIgnoreCase(transport);
+    }
+    
+    /**
+     * 获取所有评测节点地址：HTTP方式为HTTP API地址，gRPC方式为gRPC地址；未配置urls时只使用url
+     */
+    public List<String> getNodeUrls() {
+        List<String> configured = isGrpcTransport() ? grpc.getUrls() : urls;
+        List<String> nodeUrls = new ArrayList<>();
+        for (String nodeUrl : configured) {
+            if (nodeUrl != null && !nodeUrl.isBlank()) {
+                nodeUrls.add(nodeUrl.trim());
+            }
+        }
+        if (nodeUrls.isEmpty()) {
+            nodeUrls.add(isGrpcTransport() ? grpc.getUrl() : url);
+        }
+        return nodeUrls;
     }
     
     /**
@@ -5,6 +5,7 @@ import lombok.Data;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /**
  * MinIO配置类
@@ -44,16 +45,51 @@ public class MinioConfig {
     @Value("${minio.secure:false}")
     private boolean secure;
 
+    /**
+     * 浏览器访问MinIO使用的地址，预签名URL按该地址签名；为空时使用endpoint
+     */
+    @Value("${minio.public-endpoint:}")
+    private String publicEndpoint;
+
+    /**
+     * MinIO区域，预签名时直接使用，不再向服务端查询
+     */
+    @Value("${minio.region:us-east-1}")
+    private String region;
+
     /**
      * 创建MinIO客户端
      * 
      * @return MinioClient
      */
     @Bean
+    @Primary
     public MinioClient minioClient() {
         return MinioClient.builder()
                 .endpoint(endpoint)
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    /**
+     * 创建只用于生成预签名URL的MinIO客户端，签名在本地完成，不访问MinIO
+     *
+     * @return MinioClient
+     */
+    @Bean
+    public MinioClient minioPresignClient() {
+        return MinioClient.builder()
+                .endpoint(getPresignEndpoint())
+                .credentials(accessKey, secretKey)
+                .region(region)
+                .build();
+    }
+
+    /**
+     * 获取预签名URL使用的地址
+     */
+    public String getPresignEndpoint() {
+        String url = publicEndpoint == null || publicEndpoint.isBlank() ? endpoint : publicEndpoint;
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
 }
@@ -2,9 +2,12 @@ package org.linghu.mybackend.config;
 
 import java.util.List;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.linghu.mybackend.security.BoundedPasswordEncoder;
 import org.linghu.mybackend.security.JwtAccessDeniedHandler;
 import org.linghu.mybackend.security.JwtAuthenticationEntryPoint;
 import org.linghu.mybackend.security.JwtRequestFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,7 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -50,6 +52,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // 允许公开访问的URL
                         .requestMatchers("/api/users/register", "/api/users/login",
+                                "/api/users/refresh", "/api/users/logout",
                                 "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/api/announcements/**").permitAll()
                         // 允许Actuator健康检查端点匿名访问
                         .requestMatchers("/actuator/health/**", "/actuator/health").permitAll()
@@ -96,8 +99,17 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
+    /**
+     * 密码编码器：BCrypt计算在专用有界线程池中执行，登录高峰时超出容量的请求快速返回429
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hash-threads:0}") int threads,
+            @Value("${security.password.queue-capacity:200}") int queueCapacity,
+            @Value("${security.password.max-queue-wait-ms:2000}") long maxQueueWaitMs) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, maxQueueWaitMs, meterRegistry);
     }
 }
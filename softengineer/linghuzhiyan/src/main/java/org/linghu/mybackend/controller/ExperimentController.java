@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.PageResult;
 import org.linghu.mybackend.dto.Result;
 import org.linghu.mybackend.dto.ExperimentDTO;
@@ -59,6 +60,15 @@ public class ExperimentController {
         return Result.success(pageResult);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "游标获取实验列表", description = "按创建时间从新到旧游标分页获取实验列表，withTotal为true时额外返回总数")
+    public Result<CursorPageResult<ExperimentDTO>> getExperimentsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return Result.success(experimentService.getExperimentsByCursor(cursor, pageSize, withTotal));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "获取实验详情", description = "根据ID获取实验详细信息")
     public Result<ExperimentDTO> getExperiment(@PathVariable String id) {
@@ -2,23 +2,30 @@ package org.linghu.mybackend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 
+import org.linghu.mybackend.dto.PresignedUploadCompleteDTO;
+import org.linghu.mybackend.dto.PresignedUploadDTO;
+import org.linghu.mybackend.dto.PresignedUploadRequestDTO;
 import org.linghu.mybackend.dto.ResourceDTO;
+import org.linghu.mybackend.dto.ResourceDownloadDTO;
 import org.linghu.mybackend.dto.ResourceRequestDTO;
 import org.linghu.mybackend.dto.Result;
 import org.linghu.mybackend.service.ResourceService;
 import org.linghu.mybackend.service.StudentExperimentService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -102,14 +109,71 @@ public class ResourceController {
 
     @GetMapping("/{id}/download")
     @Operation(summary = "下载资源文件", description = "下载指定资源的文件")
-    public ResponseEntity<Resource> downloadResource(@PathVariable String id) {
-        ResourceDTO resourceDTO = resourceService.getResourceById(id);
-        Resource fileResource = resourceService.downloadResource(id);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resourceDTO.getFileName() + "\"")
-                .contentType(MediaType.parseMediaType(resourceDTO.getMimeType()))
-                .body(fileResource);
+    public void downloadResource(@PathVariable String id,
+            @RequestHeader HttpHeaders requestHeaders,
+            HttpServletResponse response) throws IOException {
+        ResourceDownloadDTO download = resourceService.downloadResource(id, requestHeaders);
+
+        HttpHeaders headers = new HttpHeaders();
+        switch (download.getStatus()) {
+            case NOT_MODIFIED:
+                headers.setETag(download.getEtag());
+                headers.setLastModified(download.getLastModified());
+                writeHeaders(response, HttpStatus.NOT_MODIFIED, headers);
+                return;
+            case RANGE_NOT_SATISFIABLE:
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + download.getTotalSize());
+                writeHeaders(response, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, headers);
+                return;
+            case PARTIAL:
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + download.getRangeStart() + "-"
+                        + (download.getRangeStart() + download.getContentLength() - 1)
+                        + "/" + download.getTotalSize());
+                break;
+            default:
+                break;
+        }
+
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + download.getFileName() + "\"");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(download.getEtag());
+        headers.setLastModified(download.getLastModified());
+        headers.setContentType(MediaType.parseMediaType(download.getMimeType()));
+        // 显式给出Content-Length，让容器直接把MinIO响应流写入输出流而不是分块编码
+        headers.setContentLength(download.getContentLength());
+        writeHeaders(response, download.getStatus() == ResourceDownloadDTO.Status.PARTIAL
+                ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK, headers);
+
+        // 直接写出响应体：若以Resource返回200，请求带Range头时Spring会对MinIO流再次按Range处理，
+        // 而流式Resource无法截取区间，回退到完整响应的请求会被读完整个对象后返回416
+        try (InputStream body = download.getBody().getInputStream()) {
+            body.transferTo(response.getOutputStream());
+        }
+    }
+
+    private void writeHeaders(HttpServletResponse response, HttpStatus status, HttpHeaders headers) {
+        response.setStatus(status.value());
+        headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+    }
+
+    @GetMapping("/{id}/download-url")
+    @Operation(summary = "获取资源下载链接", description = "生成短期有效的预签名URL，客户端直接从对象存储下载")
+    public Result<String> getDownloadUrl(@PathVariable String id) {
+        return Result.success(resourceService.createDownloadUrl(id));
+    }
+
+    @PostMapping("/presigned-uploads")
+    @PreAuthorize("hasAnyRole('ROLE_TEACHER','ROLE_ADMIN','ROLE_ASSISTANT')")
+    @Operation(summary = "申请直传凭证", description = "生成浏览器直传对象存储的表单凭证，限定文件类型和大小")
+    public Result<PresignedUploadDTO> createPresignedUpload(@Valid @RequestBody PresignedUploadRequestDTO request) {
+        return Result.success(resourceService.createPresignedUpload(request));
+    }
+
+    @PostMapping("/presigned-uploads/complete")
+    @PreAuthorize("hasAnyRole('ROLE_TEACHER','ROLE_ADMIN','ROLE_ASSISTANT')")
+    @Operation(summary = "登记直传资源", description = "浏览器直传完成后校验对象并登记资源记录")
+    public Result<ResourceDTO> completePresignedUpload(@Valid @RequestBody PresignedUploadCompleteDTO request) {
+        return Result.success(resourceService.completePresignedUpload(request));
     }
 
     // @PostMapping(value = "/submissions/upload", consumes = MediaType.APPLICATION_JSON_VALUE)
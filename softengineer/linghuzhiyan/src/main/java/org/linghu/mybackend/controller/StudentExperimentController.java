@@ -8,14 +8,18 @@ import org.linghu.mybackend.dto.ExperimentDTO;
 import org.linghu.mybackend.dto.ExperimentTaskDTO;
 import org.linghu.mybackend.dto.ExperimentEvaluationDTO;
 import org.linghu.mybackend.dto.ExperimentSubmissionDTO;
+import org.linghu.mybackend.dto.JudgeJobDTO;
 import org.linghu.mybackend.dto.Result;
 import org.linghu.mybackend.dto.SubmissionRequestDTO;
+import org.linghu.mybackend.service.JudgeQueueService;
 import org.linghu.mybackend.service.StudentExperimentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -29,10 +33,13 @@ import java.util.List;
 public class StudentExperimentController {
 
     private final StudentExperimentService studentExperimentService;
+    private final JudgeQueueService judgeQueueService;
 
     @Autowired
-    public StudentExperimentController(StudentExperimentService studentExperimentService) {
+    public StudentExperimentController(StudentExperimentService studentExperimentService,
+                                       JudgeQueueService judgeQueueService) {
         this.studentExperimentService = studentExperimentService;
+        this.judgeQueueService = judgeQueueService;
     }
 
     @GetMapping
@@ -97,4 +104,21 @@ public class StudentExperimentController {
                 taskId, userDetails.getUsername());
         return Result.success(evaluationHistory);
     }
+
+    @GetMapping("/judge-jobs/{jobId}")
+    @Operation(summary = "查询评测任务", description = "轮询编程题评测任务的状态，任务结束后包含评测结果")
+    public Result<JudgeJobDTO> getJudgeJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        JudgeJobDTO job = judgeQueueService.getJob(jobId, userDetails.getUsername());
+        return Result.success(job);
+    }
+
+    @GetMapping(value = "/judge-jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅评测任务", description = "通过SSE推送编程题评测任务的状态变化")
+    public SseEmitter streamJudgeJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return judgeQueueService.streamJob(jobId, userDetails.getUsername());
+    }
 }
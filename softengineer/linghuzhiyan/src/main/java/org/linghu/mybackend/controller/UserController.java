@@ -4,10 +4,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.LoginRequestDTO;
 import org.linghu.mybackend.dto.LoginResponseDTO;
 import org.linghu.mybackend.dto.PageResult;
 import org.linghu.mybackend.dto.ProfileUpdateDTO;
+import org.linghu.mybackend.dto.RefreshTokenRequestDTO;
 import org.linghu.mybackend.dto.Result;
 import org.linghu.mybackend.dto.SetRoleRequestDTO;
 import org.linghu.mybackend.dto.UserDTO;
@@ -22,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 用户API控制器
@@ -51,6 +54,20 @@ public class UserController {
         return Result.success(response);
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "刷新令牌", description = "使用刷新令牌换取新的access token，刷新令牌使用后即更换")
+    public Result<LoginResponseDTO> refresh(@Valid @RequestBody RefreshTokenRequestDTO request) {
+        LoginResponseDTO response = userService.refreshToken(request.getRefreshToken());
+        return Result.success(response);
+    }
+
+    @PostMapping("/logout")
+    @Operation(summary = "退出登录", description = "吊销刷新令牌，access token在过期前仍然有效")
+    public Result<Void> logout(@Valid @RequestBody RefreshTokenRequestDTO request) {
+        userService.logout(request.getRefreshToken());
+        return Result.success();
+    }
+
     @DeleteMapping("/delete/{userId}")
     @Operation(summary = "删除用户", description = "只有管理员可以删除用户")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -92,11 +109,13 @@ public class UserController {
     }
 
     @GetMapping
-    @Operation(summary = "分页查询用户", description = "分页查询用户列表")
+    @Operation(summary = "分页查询用户", description = "分页查询用户列表，fields指定需要的可选字段（如profile），不传时返回全部字段")
     @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_TEACHER','ROLE_ASSISTANT')")
     public Result<PageResult<UserDTO>> listUsers(@RequestParam(defaultValue = "1") int pageNum,
-            @RequestParam(defaultValue = "10") int pageSize) {
-        Page<UserDTO> page = userService.listUsers(pageNum, pageSize);
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(required = false) Set<String> fields) {
+        boolean includeProfile = fields == null || fields.contains("profile");
+        Page<UserDTO> page = userService.listUsers(pageNum, pageSize, includeProfile);
 
         PageResult<UserDTO> pageResult = new PageResult<>();
         pageResult.setList(page.getContent());
@@ -107,6 +126,17 @@ public class UserController {
         return Result.success(pageResult);
     }
 
+    @GetMapping("/cursor")
+    @Operation(summary = "游标查询用户", description = "按创建时间从新到旧游标分页查询用户，withTotal为true时额外返回总数")
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_TEACHER','ROLE_ASSISTANT')")
+    public Result<CursorPageResult<UserDTO>> listUsersByCursor(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(required = false) Set<String> fields) {
+        boolean includeProfile = fields == null || fields.contains("profile");
+        return Result.success(userService.listUsersByCursor(cursor, pageSize, includeProfile, withTotal));
+    }
+
     @PostMapping(value = "/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "上传头像", description = "上传用户头像，图片将存储到MinIO")
     public Result<Map<String, String>> uploadAvatar(@AuthenticationPrincipal UserDetails userDetails,
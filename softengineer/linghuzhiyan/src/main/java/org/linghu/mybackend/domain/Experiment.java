@@ -14,7 +14,9 @@ import java.util.List;
  * 实验领域模型，对应数据库中的experiment表
  */
 @Entity
-@Table(name = "experiment")
+@Table(name = "experiment", indexes = {
+    @Index(name = "idx_experiment_created_at_id", columnList = "created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -13,9 +13,11 @@ import java.math.BigDecimal;
  * 实验评测领域模型，对应数据库中的experiment_evaluation表
  */
 @Entity
-@Table(name = "experiment_evaluation")
+@Table(name = "experiment_evaluation", indexes = {
+    @Index(name = "idx_evaluation_content", columnList = "task_id, content_hash")
+})
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ExperimentEvaluation {
@@ -55,4 +57,28 @@ public class ExperimentEvaluation {
     
     @Column(name = "additional_info", columnDefinition = "text")
     private String additionalInfo;
+
+    /**
+     * 各测试用例评测结果的JSON数组，未配置测试用例时为空
+     */
+    @Column(name = "case_results", columnDefinition = "text")
+    private String caseResults;
+
+    /**
+     * 被评测代码的内容摘要，与任务资源版本一起作为评测结果缓存的键
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    /**
+     * 评测时的任务资源版本
+     */
+    @Column(name = "task_version", length = 64)
+    private String taskVersion;
+
+    /**
+     * 评测结果是否只取决于代码内容，评测服务异常或超时的结果不被相同内容的提交复用
+     */
+    @Column(name = "cacheable")
+    private Boolean cacheable;
 }
@@ -14,7 +14,10 @@ import java.util.List;
  * 实验任务提交领域模型，对应数据库中的experiment_submission表
  */
 @Entity
-@Table(name = "experiment_submission")
+@Table(name = "experiment_submission", indexes = {
+    @Index(name = "idx_submission_task_created", columnList = "task_id, created_time, id"),
+    @Index(name = "idx_submission_user_created", columnList = "user_id, created_time, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -50,7 +53,23 @@ public class ExperimentSubmission {
     private LocalDateTime gradedTime;
 
     @Column(name = "time_spent")
-    private Integer timeSpent;    
+    private Integer timeSpent;
+
+    // 编程题提交文件集合的内容摘要，内容相同的提交可复用已上传的文件和评测结果
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // 编程题编译产物在go-judge中的文件ID，重新评测时可跳过编译
+    @Column(name = "artifact_file_id", length = 64)
+    private String artifactFileId;
+
+    // 保存编译产物的go-judge节点，文件ID只在该节点内有效
+    @Column(name = "artifact_node", length = 255)
+    private String artifactNode;
+
+    // 编译产物对应的任务资源版本，任务文件变化后需重新编译
+    @Column(name = "artifact_task_version", length = 64)
+    private String artifactTaskVersion;
     
     // 实验任务关联
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,84 @@
+package org.linghu.mybackend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 代码评测任务领域模型，对应数据库中的judge_job表
+ * 评测队列以该表为准，应用重启后未完成的任务会被重新调度
+ */
+@Entity
+@Table(name = "judge_job", indexes = {
+    @Index(name = "idx_judge_job_submission", columnList = "submission_id"),
+    @Index(name = "idx_judge_job_status", columnList = "status, created_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "submission_id", nullable = false, length = 36)
+    private String submissionId;
+
+    @Column(name = "task_id", nullable = false, length = 36)
+    private String taskId;
+
+    @Column(name = "user_id", nullable = false, length = 36)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobStatus status;
+
+    @Column(name = "evaluation_id", length = 36)
+    private String evaluationId;
+
+    @Column(name = "error_message", columnDefinition = "text")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // 领取次数，每次领取加一；写回结果时据此确认任务未被超时回收后重新领取
+    @Column(nullable = false)
+    private int attempt;
+
+    // 是否已通过准入控制；超出评测预算的任务先入库，令牌补充后才由定时调度派发
+    @Column(nullable = false)
+    private boolean admitted;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * 判断任务是否已结束
+     */
+    public boolean isFinished() {
+        return status == JobStatus.SUCCESS || status == JobStatus.FAILED || status == JobStatus.ERROR;
+    }
+
+    // 评测任务状态枚举
+    public enum JobStatus {
+        QUEUED, RUNNING, SUCCESS, FAILED, ERROR
+    }
+}
@@ -0,0 +1,64 @@
+package org.linghu.mybackend.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 刷新令牌记录，对应数据库中的refresh_tokens表
+ * 只保存令牌的SHA-256摘要；同一次登录轮换出的令牌属于同一个家族，共享登录时确定的过期时间
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "uk_refresh_token_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false, length = 36)
+    private String userId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion;
+
+    @Column(nullable = false)
+    private Boolean revoked;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (revoked == null) {
+            revoked = false;
+        }
+    }
+}
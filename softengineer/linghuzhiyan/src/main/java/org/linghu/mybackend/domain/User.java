@@ -12,7 +12,9 @@ import java.util.Date;
  * 用户领域模型，对应数据库中的用户表
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
 @Data
 @Getter
 @NoArgsConstructor
@@ -53,6 +55,10 @@ public class User {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
 
+    // 令牌版本号，角色变更、删除或修改密码时递增，使已签发的令牌失效
+    @Column(name = "token_version", nullable = false)
+    private Integer tokenVersion = 0;
+
     @PrePersist
     protected void onCreate() {
         createdAt = new Date();
@@ -0,0 +1,43 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果包装类
+ * @param <T> 数据类型
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResult<T> {
+    /**
+     * 数据列表
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private int pageSize;
+
+    /**
+     * 总记录数，仅在请求时统计，否则为null
+     */
+    private Long total;
+}
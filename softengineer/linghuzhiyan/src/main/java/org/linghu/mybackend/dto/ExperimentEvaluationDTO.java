@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Date;
+import java.util.List;
 
 /**
  * 实验评测结果DTO
@@ -23,6 +24,7 @@ public class ExperimentEvaluationDTO {
     private BigDecimal score;
     private String errorMessage;
     private String additionalInfo;
+    private List<JudgeCaseResultDTO> caseResults; // 代码任务各测试用例的评测结果
     
     // 提交相关的额外信息
     private String taskId;
@@ -30,4 +32,5 @@ public class ExperimentEvaluationDTO {
     private LocalDateTime submitTime;
     private String userAnswer; // 提交的答案内容
     private String status;
+    private String jobId; // 代码评测任务ID，可用于轮询评测进度
 }
@@ -25,4 +25,5 @@ public class ExperimentSubmissionDTO {
     private Double score;
     private LocalDateTime submission_time;
     private Object user_answer; 
+    private String judgeJobId; // 编程题提交后自动创建的评测任务ID
 }
@@ -0,0 +1,18 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 压缩包解压后已上传的文件DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractedFileDTO {
+    private String objectName;
+    private long fileSize;  // 解压后的实际大小（字节）
+}
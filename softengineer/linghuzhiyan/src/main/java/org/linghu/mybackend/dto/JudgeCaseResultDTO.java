@@ -0,0 +1,23 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个测试用例的评测结果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeCaseResultDTO {
+    private String name;    // 用例名称
+    private String status;  // Accepted、Wrong Answer或go-judge返回的状态
+    private boolean passed; // 是否通过
+    private int weight;     // 分值权重
+    private Long time;      // CPU时间（毫秒）
+    private Long memory;    // 内存占用（KB）
+    private String message; // 错误输出，通过时为空
+}
@@ -0,0 +1,49 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 发送给go-judge的单条命令DTO，由具体的传输方式（HTTP或gRPC）转换为请求格式
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeCommandDTO {
+    private List<String> args;          // 命令及参数
+    private List<String> env;           // 环境变量
+    private File stdin;                 // 标准输入
+    private long stdoutMax;             // 标准输出的最大字节数
+    private long stderrMax;             // 错误输出的最大字节数
+    private long cpuLimit;              // CPU时间限制（纳秒）
+    private long memoryLimit;           // 内存限制（字节）
+    private int procLimit;              // 进程数限制
+    private Map<String, File> copyIn;   // 放入沙箱的文件，路径以/结尾表示目录
+    private List<String> copyOut;       // 运行结束后取回内容的文件
+    private List<String> copyOutCached; // 运行结束后保留在go-judge文件缓存中的文件
+
+    /**
+     * 命令使用的文件：内存中的内容或go-judge文件缓存中的文件，二者取其一
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class File {
+        private String fileId;  // go-judge文件ID
+        private byte[] content; // 文件内容
+
+        public static File cached(String fileId) {
+            return new File(fileId, null);
+        }
+
+        public static File memory(byte[] content) {
+            return new File(null, content);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 代码评测任务DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeJobDTO {
+    private String id;
+    private String submissionId;
+    private String taskId;
+    private String status;        // QUEUED, RUNNING, SUCCESS, FAILED, ERROR
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private ExperimentEvaluationDTO evaluation; // 任务结束后的评测结果
+}
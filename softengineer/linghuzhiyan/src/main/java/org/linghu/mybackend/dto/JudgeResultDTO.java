@@ -0,0 +1,27 @@
+package org.linghu.mybackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * go-judge返回的单条命令执行结果DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JudgeResultDTO {
+    private String status;               // 执行状态，如Accepted、File Error
+    private Integer exitStatus;          // 退出码
+    private String error;                // go-judge的错误信息
+    private Long time;                   // CPU时间（纳秒）
+    private Long memory;                 // 内存占用（字节）
+    private Map<String, String> files;   // copyOut取回的文件内容
+    private Map<String, String> fileIds; // copyOutCached保留的文件ID
+}
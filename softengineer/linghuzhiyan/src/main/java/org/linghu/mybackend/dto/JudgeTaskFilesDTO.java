@@ -0,0 +1,50 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 已缓存到go-judge的任务公共文件DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeTaskFilesDTO {
+    private String version;               // 任务资源版本，由对象名和ETag计算
+    private Map<String, CachedFile> files; // 评测沙箱内的相对路径 -> 缓存文件
+    private List<TestCase> testCases;      // 测试用例，按名称排序；任务未配置时为空
+
+    /**
+     * go-judge文件缓存中的单个文件
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CachedFile {
+        private String objectName; // MinIO中的对象名
+        private String etag;       // MinIO对象的ETag
+        private String sha256;     // 文件内容摘要，用于判断学生文件是否与任务文件相同
+        private String fileId;     // go-judge返回的文件ID
+    }
+
+    /**
+     * 单个测试用例：输入文件缓存在go-judge中作为标准输入，期望输出在比对时从MinIO流式读取
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TestCase {
+        private String name;               // 用例名称，即不含扩展名的文件名
+        private int weight;                // 分值权重
+        private CachedFile input;          // 输入文件，无输入时为null
+        private String expectedObjectName; // 期望输出在MinIO中的对象名
+    }
+}
@@ -34,4 +34,9 @@ public class LoginResponseDTO {
      * token过期时间（秒）
      */
     private long expiresIn;
+
+    /**
+     * 刷新令牌，access token过期后用于换取新令牌，每次使用后更换
+     */
+    private String refreshToken;
 }
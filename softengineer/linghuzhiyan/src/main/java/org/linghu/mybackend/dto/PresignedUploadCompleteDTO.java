@@ -0,0 +1,28 @@
+package org.linghu.mybackend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 浏览器直传完成后登记资源的请求DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadCompleteDTO {
+    @NotBlank(message = "实验ID不能为空")
+    private String experimentId;
+
+    private String taskId;  // 任务ID，可选
+
+    @NotBlank(message = "对象路径不能为空")
+    private String objectName;
+
+    private String fileName;
+
+    private String description;
+}
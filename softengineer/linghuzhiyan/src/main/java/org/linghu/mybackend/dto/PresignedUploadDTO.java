@@ -0,0 +1,24 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 浏览器直传凭证DTO
+ * 客户端以multipart/form-data向uploadUrl提交formData中的全部字段和file字段，完成后调用上传完成接口登记资源
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDTO {
+    private String uploadUrl;
+    private Map<String, String> formData;
+    private String objectName;
+    private long maxBytes;
+    private long expiresIn;  // 凭证有效期（秒）
+}
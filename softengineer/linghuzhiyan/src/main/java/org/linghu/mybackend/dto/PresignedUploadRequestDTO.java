@@ -0,0 +1,35 @@
+package org.linghu.mybackend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 申请浏览器直传凭证的请求DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadRequestDTO {
+    @NotBlank(message = "实验ID不能为空")
+    private String experimentId;
+
+    private String taskId;  // 任务ID，可选
+
+    @NotBlank(message = "文件名不能为空")
+    private String fileName;
+
+    @NotBlank(message = "文件类型不能为空")
+    private String contentType;
+
+    // 文件大小（字节），上传策略以此为上限
+    @NotNull(message = "文件大小不能为空")
+    private Long fileSize;
+
+    // 资源上传类型：学习资料("resource")和源代码/评测脚本("experiment")
+    private String uploadType;
+}
@@ -0,0 +1,40 @@
+package org.linghu.mybackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+import java.time.Instant;
+
+/**
+ * 资源下载结果DTO
+ * 按请求头中的Range和条件请求字段解析后的下载结果，body只包含需要返回的字节区间
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceDownloadDTO {
+
+    /**
+     * 下载结果类型
+     */
+    public enum Status {
+        FULL,                   // 完整内容 200
+        PARTIAL,                // 区间内容 206
+        NOT_MODIFIED,           // 客户端缓存仍有效 304
+        RANGE_NOT_SATISFIABLE   // 区间超出文件范围 416
+    }
+
+    private Status status;
+    private String fileName;
+    private String mimeType;
+    private String etag;          // 带引号的强ETag
+    private Instant lastModified;
+    private long totalSize;       // 对象总大小
+    private long rangeStart;      // 返回区间的起始偏移
+    private long contentLength;   // 本次返回的字节数
+    private Resource body;        // NOT_MODIFIED和RANGE_NOT_SATISFIABLE时为空
+}
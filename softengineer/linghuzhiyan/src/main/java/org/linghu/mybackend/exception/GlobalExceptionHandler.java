@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.linghu.mybackend.constants.SystemConstants;
 import org.linghu.mybackend.dto.Result;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -80,6 +81,17 @@ public class GlobalExceptionHandler {
     //     return Result.failure(e.getCode(), e.getMessage());
     // }
 
+    /**
+     * 处理请求过于频繁异常，返回429并通过Retry-After提示重试时间
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Result<Void>> handleTooManyRequestsException(TooManyRequestsException e) {
+        log.warn("Too many requests: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Result.failure(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 处理业务异常
      */
@@ -0,0 +1,22 @@
+package org.linghu.mybackend.exception;
+
+import lombok.Getter;
+
+/**
+ * 请求过于频繁异常，携带建议的重试等待时间
+ */
+@Getter
+public class TooManyRequestsException extends BaseException {
+
+    private static final int DEFAULT_CODE = 429;
+
+    /**
+     * 建议的重试等待秒数
+     */
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(DEFAULT_CODE, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
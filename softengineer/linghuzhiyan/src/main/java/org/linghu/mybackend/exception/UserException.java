@@ -13,6 +13,7 @@ public class UserException extends BaseException {
     public static final int ROLE_NOT_AUTHORIZED = 100006;
     public static final int USER_DELETED = 100007;
     public static final int ROLE_ALREADY_ASSIGNED = 100008;
+    public static final int INVALID_REFRESH_TOKEN = 100009;
     
     public UserException(int code, String message) {
         super(code, message);
@@ -47,4 +48,8 @@ public class UserException extends BaseException {
     public static UserException roleAlreadyAssigned() {
         return new UserException(ROLE_ALREADY_ASSIGNED, "目标用户已拥有该角色");
     }
+
+    public static UserException invalidRefreshToken() {
+        return new UserException(INVALID_REFRESH_TOKEN, "刷新令牌无效或已过期，请重新登录");
+    }
 }
@@ -36,4 +36,16 @@ public interface ExperimentEvaluationRepository extends JpaRepository<Experiment
      * @return 评测结果列表
      */
     List<ExperimentEvaluation> findByUserIdAndTaskIdOrderByIdDesc(String studentId, String taskId);
+
+    /**
+     * 查找相同任务资源版本下内容相同代码的可复用评测结果
+     * 
+     * @param taskId 任务ID
+     * @param taskVersion 任务资源版本
+     * @param contentHash 代码内容摘要
+     * @return 评测结果
+     */
+    Optional<ExperimentEvaluation> findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(String taskId,
+                                                                                                 String taskVersion,
+                                                                                                 String contentHash);
 }
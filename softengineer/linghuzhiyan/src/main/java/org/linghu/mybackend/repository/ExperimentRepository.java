@@ -127,4 +127,26 @@ public interface ExperimentRepository extends JpaRepository<Experiment, String>
      * @return 实验（可选）
      */
     Optional<Experiment> findByIdAndCreatorId(String id, String creatorId);
+
+    /**
+     * 按创建时间和ID降序查询实验的第一页（游标分页，不统计总数）
+     *
+     * @param pageable 分页参数，只使用大小
+     * @return 实验列表
+     */
+    List<Experiment> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    /**
+     * 查询排在游标位置之后的实验，按(created_at, id)定位而不是偏移
+     *
+     * @param createdAt 上一页最后一条记录的创建时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 分页参数，只使用大小
+     * @return 实验列表
+     */
+    @Query("SELECT e FROM Experiment e " +
+            "WHERE e.createdAt < :createdAt OR (e.createdAt = :createdAt AND e.id < :id) " +
+            "ORDER BY e.createdAt DESC, e.id DESC")
+    List<Experiment> findAfterCursor(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id,
+            Pageable pageable);
 }
@@ -8,9 +8,11 @@ import org.linghu.mybackend.domain.ExperimentSubmission;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * 实验提交仓储接口，负责实验提交数据的持久化
@@ -143,4 +145,88 @@ public interface ExperimentSubmissionRepository extends JpaRepository<Experiment
      * @return 提交记录分页结果
      */
     Page<ExperimentSubmission> findByUserId(String userId, Pageable pageable);
+
+    /**
+     * 查询用户在特定任务上仍保留编译产物的提交
+     *
+     * @param taskId 任务ID
+     * @param userId 用户ID
+     * @return 提交记录列表
+     */
+    List<ExperimentSubmission> findByTaskIdAndUserIdAndArtifactFileIdIsNotNull(String taskId, String userId);
+
+    /**
+     * 查询用户在特定任务上内容相同的最新提交
+     *
+     * @param taskId      任务ID
+     * @param userId      用户ID
+     * @param contentHash 提交文件集合的内容摘要
+     * @return 提交记录（可选）
+     */
+    Optional<ExperimentSubmission> findFirstByTaskIdAndUserIdAndContentHashOrderBySubmitTimeDesc(
+            String taskId, String userId, String contentHash);
+
+    /**
+     * 更新提交的编译产物信息
+     *
+     * @param id             提交ID
+     * @param artifactFileId 编译产物文件ID，为null时清除
+     * @param artifactNode   保存编译产物的评测节点
+     * @param taskVersion    编译时的任务资源版本
+     * @return 更新行数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExperimentSubmission es SET es.artifactFileId = :artifactFileId, es.artifactNode = :artifactNode, es.artifactTaskVersion = :taskVersion WHERE es.id = :id")
+    int updateArtifact(@Param("id") String id, @Param("artifactFileId") String artifactFileId,
+                       @Param("artifactNode") String artifactNode,
+                       @Param("taskVersion") String taskVersion);
+
+    /**
+     * 按创建时间和ID降序查询任务提交记录的第一页（游标分页，不统计总数）
+     *
+     * @param taskId 任务ID
+     * @param pageable 分页参数，只使用大小
+     * @return 提交记录列表
+     */
+    List<ExperimentSubmission> findByTaskIdOrderByCreatedAtDescIdDesc(String taskId, Pageable pageable);
+
+    /**
+     * 查询任务中排在游标位置之后的提交记录
+     *
+     * @param taskId 任务ID
+     * @param createdAt 上一页最后一条记录的创建时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 分页参数，只使用大小
+     * @return 提交记录列表
+     */
+    @Query("SELECT s FROM ExperimentSubmission s WHERE s.taskId = :taskId " +
+            "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<ExperimentSubmission> findByTaskIdAfterCursor(@Param("taskId") String taskId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
+
+    /**
+     * 按创建时间和ID降序查询用户提交记录的第一页（游标分页，不统计总数）
+     *
+     * @param userId 用户ID
+     * @param pageable 分页参数，只使用大小
+     * @return 提交记录列表
+     */
+    List<ExperimentSubmission> findByUserIdOrderByCreatedAtDescIdDesc(String userId, Pageable pageable);
+
+    /**
+     * 查询用户排在游标位置之后的提交记录
+     *
+     * @param userId 用户ID
+     * @param createdAt 上一页最后一条记录的创建时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 分页参数，只使用大小
+     * @return 提交记录列表
+     */
+    @Query("SELECT s FROM ExperimentSubmission s WHERE s.userId = :userId " +
+            "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<ExperimentSubmission> findByUserIdAfterCursor(@Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") String id, Pageable pageable);
 }
@@ -0,0 +1,112 @@
+package org.linghu.mybackend.repository;
+
+import org.linghu.mybackend.domain.JudgeJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 代码评测任务仓储接口
+ */
+@Repository
+public interface JudgeJobRepository extends JpaRepository<JudgeJob, String> {
+
+    /**
+     * 查询提交的最新评测任务
+     *
+     * @param submissionId 提交ID
+     * @return 最新的评测任务
+     */
+    Optional<JudgeJob> findFirstBySubmissionIdOrderByCreatedAtDesc(String submissionId);
+
+    /**
+     * 按创建时间顺序查询指定状态的任务
+     *
+     * @param status   任务状态
+     * @param admitted 是否已通过准入控制
+     * @param pageable 分页参数（用于限制数量）
+     * @return 任务列表
+     */
+    List<JudgeJob> findByStatusAndAdmittedOrderByCreatedAtAsc(JudgeJob.JobStatus status, boolean admitted,
+                                                             Pageable pageable);
+
+    /**
+     * 统计指定状态的任务数量
+     *
+     * @param status 任务状态
+     * @return 任务数量
+     */
+    long countByStatus(JudgeJob.JobStatus status);
+
+    /**
+     * 标记超出评测预算的任务已通过准入控制，多实例部署时只有一个节点能标记成功
+     *
+     * @param id 任务ID
+     * @return 更新行数，1表示标记成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.admitted = true WHERE j.id = :id AND j.admitted = false")
+    int admit(@Param("id") String id);
+
+    /**
+     * 领取排队中的任务，只有一个工作线程能领取成功
+     * 领取时领取次数加一，作为本次执行写回结果的凭据
+     *
+     * @param id  任务ID
+     * @param now 开始时间
+     * @return 更新行数，1表示领取成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.status = org.linghu.mybackend.domain.JudgeJob.JobStatus.RUNNING, j.startedAt = :now, " +
+            "j.attempt = j.attempt + 1 " +
+            "WHERE j.id = :id AND j.status = org.linghu.mybackend.domain.JudgeJob.JobStatus.QUEUED")
+    int claim(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    /**
+     * 写回任务的最终状态，只有仍持有该次领取的工作线程能写回成功
+     * 任务超时被重新排队或已被再次领取时，原工作线程的结果会被丢弃
+     *
+     * @param id           任务ID
+     * @param attempt      领取任务时的领取次数
+     * @param status       最终状态
+     * @param evaluationId 评测结果ID
+     * @param errorMessage 错误信息
+     * @param finishedAt   结束时间
+     * @return 更新行数，1表示写回成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.status = :status, j.evaluationId = :evaluationId, " +
+            "j.errorMessage = :errorMessage, j.finishedAt = :finishedAt " +
+            "WHERE j.id = :id AND j.attempt = :attempt " +
+            "AND j.status = org.linghu.mybackend.domain.JudgeJob.JobStatus.RUNNING")
+    int complete(@Param("id") String id,
+                 @Param("attempt") int attempt,
+                 @Param("status") JudgeJob.JobStatus status,
+                 @Param("evaluationId") String evaluationId,
+                 @Param("errorMessage") String errorMessage,
+                 @Param("finishedAt") LocalDateTime finishedAt);
+
+    /**
+     * 将超时未完成的运行中任务重新放回队列
+     * 原工作线程此后无法再写回结果，见{@link #complete}
+     *
+     * @param before 开始时间早于该时间的任务视为超时
+     * @return 重新排队的任务数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.status = org.linghu.mybackend.domain.JudgeJob.JobStatus.QUEUED, j.startedAt = NULL " +
+            "WHERE j.status = org.linghu.mybackend.domain.JudgeJob.JobStatus.RUNNING AND j.startedAt < :before")
+    int requeueStale(@Param("before") LocalDateTime before);
+}
@@ -4,9 +4,11 @@ import org.linghu.mybackend.domain.LoginLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -73,4 +75,40 @@ public interface LoginLogRepository extends JpaRepository<LoginLog, Long> {
      */
     @Query("SELECT l.ipAddress, COUNT(l) as attempts FROM LoginLog l WHERE l.status = 'FAILED' AND l.createdAt >= :timeAgo GROUP BY l.ipAddress HAVING COUNT(l) >= :threshold")
     List<Object[]> findSuspiciousIPs(@Param("timeAgo") LocalDateTime timeAgo, @Param("threshold") long threshold);
+
+    /**
+     * 查询某个时间段内的登录失败记录，只返回用户ID、IP地址和创建时间
+     * @param startTime 开始时间（包含）
+     * @param endTime 结束时间（不包含）
+     * @return 每行依次为userId、ipAddress、createdAt
+     */
+    @Query("SELECT l.userId, l.ipAddress, l.createdAt FROM LoginLog l WHERE l.status = 'FAILED' AND l.createdAt >= :startTime AND l.createdAt < :endTime")
+    List<Object[]> findFailedAttemptsBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按创建时间升序查询早于截止时间的登录日志（走idx_created_at索引，分页即LIMIT）
+     * @param cutoff 截止时间
+     * @param pageable 分页信息，通常为第0页、大小为批量大小
+     * @return 一批过期的登录日志
+     */
+    List<LoginLog> findByCreatedAtBeforeOrderByCreatedAtAsc(LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * 按创建时间升序查询早于截止时间的登录日志ID，不加载整行
+     * @param cutoff 截止时间
+     * @param pageable 分页信息，通常为第0页、大小为批量大小
+     * @return 一批过期登录日志的ID
+     */
+    @Query("SELECT l.id FROM LoginLog l WHERE l.createdAt < :cutoff ORDER BY l.createdAt ASC")
+    List<Long> findIdsByCreatedAtBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * 按ID批量删除登录日志，每次调用为独立的短事务
+     * @param ids 登录日志ID列表
+     * @return 删除的行数
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LoginLog l WHERE l.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,60 @@
+package org.linghu.mybackend.repository;
+
+import org.linghu.mybackend.domain.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * 刷新令牌仓储接口
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * 按令牌摘要查询刷新令牌记录
+     *
+     * @param tokenHash 令牌SHA-256摘要
+     * @return 刷新令牌记录
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * 将未使用的刷新令牌标记为已使用，并发轮换同一令牌时只有一个请求能成功
+     *
+     * @param id 记录ID
+     * @return 更新行数，1表示标记成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.id = :id AND r.revoked = false")
+    int markUsed(@Param("id") Long id);
+
+    /**
+     * 吊销整个令牌家族
+     *
+     * @param familyId 家族ID
+     * @return 更新行数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId AND r.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * 删除已过期的刷新令牌记录
+     *
+     * @param cutoff 截止时间
+     * @return 删除行数
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :cutoff")
+    int deleteByExpiresAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,20 @@
+package org.linghu.mybackend.repository;
+
+import org.linghu.mybackend.domain.Resource;
+
+import java.util.List;
+
+/**
+ * 资源批量写入接口，作为ResourceRepository的扩展片段
+ */
+public interface ResourceBatchRepository {
+
+    /**
+     * 通过JDBC批量插入新的资源记录
+     * 资源ID由调用方生成，逐条save会先按ID查询再合并，这里直接批量插入
+     *
+     * @param resources 新资源列表，ID必须已设置
+     * @return 插入的记录数
+     */
+    int insertAll(List<Resource> resources);
+}
@@ -0,0 +1,52 @@
+package org.linghu.mybackend.repository;
+
+import org.linghu.mybackend.domain.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 资源批量写入实现 - 基于JdbcTemplate批量插入
+ */
+public class ResourceBatchRepositoryImpl implements ResourceBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO resource " +
+            "(id, experiment_id, resource_type, resource_path, file_name, file_size, mime_type, description, upload_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResourceBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertAll(List<Resource> resources) {
+        if (resources.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            if (resource.getUploadTime() == null) {
+                resource.setUploadTime(now);
+            }
+            rows.add(new Object[]{
+                    resource.getId(),
+                    resource.getExperimentId(),
+                    resource.getResourceType().name(),
+                    resource.getResourcePath(),
+                    resource.getFileName(),
+                    resource.getFileSize(),
+                    resource.getMimeType(),
+                    resource.getDescription(),
+                    Timestamp.valueOf(resource.getUploadTime())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        return rows.size();
+    }
+}
@@ -12,7 +12,7 @@ import java.util.List;
  * 资源仓储接口，负责资源数据的持久化
  */
 @Repository
-public interface ResourceRepository extends JpaRepository<Resource, String> {
+public interface ResourceRepository extends JpaRepository<Resource, String>, ResourceBatchRepository {
     
     /**
      * 根据实验ID查找资源
@@ -4,8 +4,14 @@ import org.linghu.mybackend.domain.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -53,4 +59,56 @@ public interface UserRepository extends JpaRepository<User, String> {
      * @return 未删除用户的分页结果
      */
     Page<User> findByIsDeletedFalse(Pageable pageable);
+    
+    /**
+     * 查询未删除用户的令牌版本号
+     * 
+     * @param id 用户ID
+     * @return 令牌版本号，用户不存在或已删除时为空
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id AND u.isDeleted = false")
+    Optional<Integer> findTokenVersionById(@Param("id") String id);
+
+    /**
+     * 用重新计算的哈希替换旧哈希，密码在此期间已被修改时不更新
+     * 
+     * @param id 用户ID
+     * @param oldPassword 重新哈希前的旧哈希
+     * @param newPassword 按当前工作因子计算的新哈希
+     * @return 更新行数，1表示替换成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int upgradePassword(@Param("id") String id, @Param("oldPassword") String oldPassword,
+            @Param("newPassword") String newPassword);
+
+    /**
+     * 按创建时间和ID降序查询未删除用户的第一页（游标分页，不统计总数）
+     * 
+     * @param pageable 分页参数，只使用大小
+     * @return 用户列表
+     */
+    List<User> findByIsDeletedFalseOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    /**
+     * 查询排在游标位置之后的未删除用户，按(created_at, id)定位而不是偏移
+     * 
+     * @param createdAt 上一页最后一条记录的创建时间
+     * @param id 上一页最后一条记录的ID
+     * @param pageable 分页参数，只使用大小
+     * @return 用户列表
+     */
+    @Query("SELECT u FROM User u WHERE u.isDeleted = false " +
+            "AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+            "ORDER BY u.createdAt DESC, u.id DESC")
+    List<User> findActiveUsersAfterCursor(@Param("createdAt") Date createdAt, @Param("id") String id,
+            Pageable pageable);
+
+    /**
+     * 统计未删除的用户数
+     * 
+     * @return 用户数
+     */
+    long countByIsDeletedFalse();
 }
@@ -0,0 +1,207 @@
+package org.linghu.mybackend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 限流的BCrypt密码编码器
+ * 哈希计算在固定大小的专用线程池中执行，避免登录高峰时大量请求线程同时占满CPU；
+ * 队列已满或任务排队超过最长等待时间时直接拒绝（按到达顺序公平丢弃），由调用方返回429。
+ * 已存储哈希的工作因子与配置不同时，登录成功后通过{@link #tryUpgrade}在后台重新哈希；
+ * 升级只在线程池空闲时进行且从不限流，线程池繁忙时直接放弃，留待之后的登录
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final long maxQueueWaitNanos;
+    private final ThreadPoolExecutor executor;
+    private final LongSupplier nanoClock;
+
+    private final Timer queueTimer;
+    private final Timer hashTimer;
+    private final Counter shedCounter;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long maxQueueWaitMs,
+                                  MeterRegistry meterRegistry) {
+        this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity, maxQueueWaitMs,
+                meterRegistry, System::nanoTime);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+                           long maxQueueWaitMs, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs);
+        this.nanoClock = nanoClock;
+        int poolSize = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("password.hash.queue")
+                .description("密码哈希任务的排队时间")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("password.hash.duration")
+                .description("密码哈希计算耗时")
+                .register(meterRegistry);
+        this.shedCounter = Counter.builder("password.hash.shed")
+                .description("线程池饱和被拒绝的密码哈希请求数")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.size", executor, e -> e.getQueue().size())
+                .description("等待执行的密码哈希任务数")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的密码哈希任务数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 始终返回false：Spring Security在校验通过后同步调用encode重新哈希，线程池饱和时会让已通过校验的登录被限流，
+     * 升级改由{@link #tryUpgrade}在后台尽力完成
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return false;
+    }
+
+    /**
+     * 已存储哈希的工作因子与配置不同时返回true，包括调低工作因子的情况
+     *
+     * @param encodedPassword 已存储的哈希
+     * @return 是否需要升级
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.find()
+                ? Integer.parseInt(matcher.group(1)) != strength
+                : delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 尽力在后台按当前工作因子重新哈希，线程池繁忙或队列已满时直接放弃，不抛出异常也不计入限流
+     *
+     * @param rawPassword     已通过校验的明文密码
+     * @param encodedPassword 已存储的哈希
+     * @param onEncoded       新哈希计算完成后的回调，在哈希线程中执行
+     * @return 是否已提交升级任务
+     */
+    public boolean tryUpgrade(CharSequence rawPassword, String encodedPassword, Consumer<String> onEncoded) {
+        if (!needsUpgrade(encodedPassword) || isBusy()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    onEncoded.accept(delegate.encode(rawPassword));
+                } catch (Exception e) {
+                    logger.warn("升级密码哈希失败: {}", e.getMessage());
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private boolean isBusy() {
+        return executor.getActiveCount() >= executor.getMaximumPoolSize() || !executor.getQueue().isEmpty();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long enqueuedAt = nanoClock.getAsLong();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long waited = nanoClock.getAsLong() - enqueuedAt;
+                queueTimer.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueWaitNanos) {
+                    throw shed();
+                }
+                long start = nanoClock.getAsLong();
+                try {
+                    return task.call();
+                } finally {
+                    hashTimer.record(nanoClock.getAsLong() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw shed();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码校验被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("密码校验失败", cause);
+        }
+    }
+
+    private TooManyRequestsException shed() {
+        shedCounter.increment();
+        return new TooManyRequestsException("登录请求过多，请稍后重试", RETRY_AFTER_SECONDS);
+    }
+
+    /**
+     * 停止密码哈希线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("密码哈希线程池已关闭");
+    }
+}
@@ -6,12 +6,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 
+import io.jsonwebtoken.Claims;
 import org.linghu.mybackend.service.LoginLogService;
 import org.linghu.mybackend.utils.RequestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -20,9 +23,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * JWT认证过滤器，用于验证请求中的JWT令牌
+ * 认证信息直接由令牌声明构造，只通过令牌版本号缓存检查令牌是否已被撤销
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {    private final JwtTokenUtil jwtTokenUtil;
@@ -31,6 +37,8 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
     
     private final LoginLogService loginLogService;
 
+    private final TokenVersionCache tokenVersionCache;
+
      // JWT 令牌请求头
     @Value("${jwt.tokenHeader}")
     private String tokenHeader;
@@ -40,10 +48,12 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
     private String tokenHead;
 
     @Autowired
-    public JwtRequestFilter(JwtTokenUtil jwtTokenUtil, UserDetailsServiceImpl userDetailsService, LoginLogService loginLogService) {
+    public JwtRequestFilter(JwtTokenUtil jwtTokenUtil, UserDetailsServiceImpl userDetailsService,
+                            LoginLogService loginLogService, TokenVersionCache tokenVersionCache) {
         this.jwtTokenUtil = jwtTokenUtil;
         this.userDetailsService = userDetailsService;
         this.loginLogService = loginLogService;
+        this.tokenVersionCache = tokenVersionCache;
     }    @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
             throws ServletException, IOException {
@@ -52,6 +62,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
 
         String username = null;
         String jwt = null;
+        Claims claims = null;
         String ipAddress = RequestUtils.getClientIpAddress(request);
         String deviceType = RequestUtils.getDeviceType(request);
         String loginInfo = RequestUtils.collectRequestInfo(request);
@@ -60,7 +71,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
         if (authorizationHeader != null && authorizationHeader.startsWith(this.tokenHead)) {
             jwt = authorizationHeader.substring(this.tokenHead.length());
             try {
-                username = jwtTokenUtil.getUsernameFromToken(jwt);
+                // 令牌只解析一次，签名和有效期在解析时一并校验
+                claims = jwtTokenUtil.parseToken(jwt);
+                username = claims.getSubject();
             } catch (Exception e) { // 令牌解析失败
                 logger.warn("无法解析JWT令牌", e);
                 // 记录令牌解析失败的日志
@@ -79,10 +92,10 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
         // 如果找到用户名且当前上下文中没有认证信息
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = loadUserDetails(claims, username);
 
-                // 验证令牌是否有效
-                if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+                // 验证令牌是否仍然有效
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
 
@@ -109,7 +122,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
                         username,
                         ipAddress,
                         deviceType,
-                        "JWT令牌验证失败",
+                        "JWT令牌已失效",
                         loginInfo
                     );
                 }
@@ -128,4 +141,28 @@ public class JwtRequestFilter extends OncePerRequestFilter {    private final Jw
 
         chain.doFilter(request, response);
     }
+
+    /**
+     * 由令牌声明构造用户详情，令牌版本号与用户当前版本号不一致时返回null
+     * 旧版令牌不含用户ID等声明，仍从数据库加载用户
+     */
+    private UserDetails loadUserDetails(Claims claims, String username) {
+        String userId = claims.get(JwtTokenUtil.CLAIM_USER_ID, String.class);
+        Integer tokenVersion = claims.get(JwtTokenUtil.CLAIM_TOKEN_VERSION, Integer.class);
+        if (userId == null || tokenVersion == null) {
+            return userDetailsService.loadUserByUsername(username);
+        }
+        if (!tokenVersionCache.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        List<?> roleIds = claims.get(JwtTokenUtil.CLAIM_ROLES, List.class);
+        if (roleIds != null) {
+            for (Object roleId : roleIds) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(roleId)));
+            }
+        }
+        return new JwtUserDetails(userId, username, authorities);
+    }
 }
@@ -1,50 +1,143 @@
 package org.linghu.mybackend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * JWT工具类，用于生成和验证JWT令牌
+ * 签名密钥和解析器只构建一次；验证通过的声明按令牌摘要缓存到令牌过期为止，同一令牌只做一次签名校验
+ * 声明缓存基于Caffeine，超出容量时按访问频率淘汰
  */
-@Setter
 @Component
 @NoArgsConstructor
 public class JwtTokenUtil {
 
+    // 用户ID声明
+    public static final String CLAIM_USER_ID = "uid";
+
+    // 角色ID列表声明
+    public static final String CLAIM_ROLES = "roles";
+
+    // 令牌版本号声明
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Setter
     @Value("${jwt.expiration}")
     private long expiration;
-    
-//    // 添加setter方法以支持手动注入属性
-//    public void setSecret(String secret) {
-//        this.secret = secret;
-//    }
-//
-//    public void setExpiration(long expiration) {
-//        this.expiration = expiration;
-//    }
+
+    // 声明缓存的最大条目数
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize = 10000;
+
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+    // 令牌SHA-256摘要 -> 验证通过的声明，每个条目在令牌的exp时刻过期
+    private volatile Cache<String, Claims> verifiedClaims;
 
     /**
-     * 生成JWT密钥
+     * 设置签名密钥，已构建的密钥、解析器和缓存的声明随之失效
+     */
+    public void setSecret(String secret) {
+        this.secret = secret;
+        this.signingKey = null;
+        this.parser = null;
+        this.verifiedClaims = null;
+    }
+
+    /**
+     * 设置声明缓存容量，已缓存的声明随之丢弃
+     */
+    public void setClaimsCacheSize(int claimsCacheSize) {
+        this.claimsCacheSize = claimsCacheSize;
+        this.verifiedClaims = null;
+    }
+
+    /**
+     * 获取JWT签名密钥
      */
     private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes());
+            signingKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * 获取JWT解析器，解析器线程安全，可在请求间复用
+     */
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = jwtParser;
+        }
+        return jwtParser;
+    }
+
+    /**
+     * 获取声明缓存，按容量淘汰，条目的过期时间取令牌自身的过期时间
+     */
+    private Cache<String, Claims> getVerifiedClaims() {
+        Cache<String, Claims> cache = verifiedClaims;
+        if (cache == null) {
+            cache = Caffeine.newBuilder()
+                    .maximumSize(claimsCacheSize)
+                    .expireAfter(new Expiry<String, Claims>() {
+                        @Override
+                        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+                            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String digest, Claims claims, long currentTime,
+                                                      long currentDuration) {
+                            return expireAfterCreate(digest, claims, currentTime);
+                        }
+
+                        @Override
+                        public long expireAfterRead(String digest, Claims claims, long currentTime,
+                                                    long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build();
+            verifiedClaims = cache;
+        }
+        return cache;
     }
 
     /**
@@ -70,30 +163,68 @@ public class JwtTokenUtil {
     }
 
     /**
-     * 从令牌中获取所有声明
+     * 解析并校验令牌，签名无效或已过期时抛出异常
+     * 返回的声明可能被多个请求共享，调用方不得修改
+     */
+    public Claims parseToken(String token) {
+        return getAllClaimsFromToken(token);
+    }
+
+    /**
+     * 从令牌中获取所有声明，未过期的缓存声明直接返回
      */
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Cache<String, Claims> cache = getVerifiedClaims();
+        String digest = digest(token);
+        Claims cached = cache.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        // 签名无效或已过期时由解析器抛出异常，不会进入缓存
+        Claims claims = getParser().parseClaimsJws(token).getBody();
+        // 没有过期时间的令牌不缓存
+        if (claims.getExpiration() != null) {
+            cache.put(digest, claims);
+        }
+        return claims;
+    }
+
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     /**
-     * 检查令牌是否已过期
+     * 计算令牌的SHA-256摘要作为缓存键，避免在内存中保留令牌原文
      */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
     }
 
     /**
-     * 为指定用户生成令牌
+     * 为指定用户生成令牌，令牌中携带用户ID、角色ID和令牌版本号，请求认证时无需再查询数据库
      */
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserDetails userDetails, String userId, int tokenVersion) {
+        return generateToken(userDetails.getUsername(), userId, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()), tokenVersion);
+    }
+
+    /**
+     * 按用户名、用户ID和角色ID直接生成令牌，用于刷新令牌续期，无需加载UserDetails
+     */
+    public String generateToken(String username, String userId, Collection<String> roleIds, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
-        return doGenerateToken(claims, userDetails.getUsername());
+        claims.put(CLAIM_USER_ID, userId);
+        claims.put(CLAIM_ROLES, new ArrayList<>(roleIds));
+        claims.put(CLAIM_TOKEN_VERSION, tokenVersion);
+        return doGenerateToken(claims, username);
     }
 
     /**
@@ -110,10 +241,16 @@ public class JwtTokenUtil {
     }
 
     /**
-     * 验证令牌是否有效
+     * 验证令牌是否有效，令牌只解析一次，过期的令牌在解析时即被拒绝
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = getAllClaimsFromToken(token);
+        return claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims);
+    }
+
+    long getCachedClaimsCount() {
+        Cache<String, Claims> cache = getVerifiedClaims();
+        cache.cleanUp();
+        return cache.estimatedSize();
     }
 }
@@ -0,0 +1,21 @@
+package org.linghu.mybackend.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * 由JWT声明构造的用户详情，不包含密码，额外携带用户ID
+ */
+@Getter
+public class JwtUserDetails extends User {
+
+    private final String userId;
+
+    public JwtUserDetails(String userId, String username, Collection<? extends GrantedAuthority> authorities) {
+        super(username, "", authorities);
+        this.userId = userId;
+    }
+}
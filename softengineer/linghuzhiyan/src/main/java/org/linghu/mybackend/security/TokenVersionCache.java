@@ -0,0 +1,110 @@
+package org.linghu.mybackend.security;
+
+import org.linghu.mybackend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 用户令牌版本号缓存
+ * 令牌中携带签发时的版本号，与缓存中的当前版本号一致才视为有效；
+ * 本实例的变更提交后立即失效缓存，其他实例的变更在缓存过期后生效
+ */
+@Component
+public class TokenVersionCache {
+
+    // 用户不存在或已删除时缓存的版本号，任何令牌都不会与之匹配
+    private static final int REVOKED = -1;
+
+    private final UserRepository userRepository;
+    private final LongSupplier nanoClock;
+    private final Map<String, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    @Value("${jwt.version-cache-seconds:30}")
+    private long ttlSeconds = 30;
+
+    @Autowired
+    public TokenVersionCache(UserRepository userRepository) {
+        this(userRepository, System::nanoTime);
+    }
+
+    TokenVersionCache(UserRepository userRepository, LongSupplier nanoClock) {
+        this.userRepository = userRepository;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 判断令牌中的版本号是否为用户当前的版本号
+     *
+     * @param userId 用户ID
+     * @param tokenVersion 令牌签发时的版本号
+     * @return 版本号一致且用户未被删除时返回true
+     */
+    public boolean isCurrent(String userId, int tokenVersion) {
+        long now = nanoClock.getAsLong();
+        CachedVersion cached = versions.get(userId);
+        if (cached == null || now - cached.loadedAt() > TimeUnit.SECONDS.toNanos(ttlSeconds)) {
+            int version = userRepository.findTokenVersionById(userId).orElse(REVOKED);
+            cached = new CachedVersion(version, now);
+            versions.put(userId, cached);
+        }
+        return cached.version() != REVOKED && cached.version() == tokenVersion;
+    }
+
+    /**
+     * 失效用户的缓存版本号，处于事务中时在事务提交后执行
+     *
+     * @param userId 用户ID
+     */
+    public void evict(String userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.remove(userId);
+                }
+            });
+        } else {
+            versions.remove(userId);
+        }
+    }
+
+    /**
+     * 定时清理过期的缓存项
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long expiredBefore = nanoClock.getAsLong() - TimeUnit.SECONDS.toNanos(ttlSeconds);
+        versions.values().removeIf(cached -> cached.loadedAt() - expiredBefore < 0);
+    }
+
+    int size() {
+        return versions.size();
+    }
+
+    private static final class CachedVersion {
+        private final int version;
+        private final long loadedAt;
+
+        CachedVersion(int version, long loadedAt) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+
+        int version() {
+            return version;
+        }
+
+        long loadedAt() {
+            return loadedAt;
+        }
+    }
+}
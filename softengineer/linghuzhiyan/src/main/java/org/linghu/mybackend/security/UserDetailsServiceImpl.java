@@ -1,6 +1,7 @@
 package org.linghu.mybackend.security;
 
 import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.repository.UserRepository;
 import org.linghu.mybackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -24,11 +25,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {    @Autowire
     @Lazy
     private UserService userService;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        User user = userService.findByUsername(username)
+        // 认证需要当前的密码哈希和删除标记，直接查询数据库而不使用用户缓存
+        User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("用户不存在: " + username));
 
         // 检查账户状态
@@ -0,0 +1,22 @@
+package org.linghu.mybackend.service;
+
+import org.linghu.mybackend.domain.ExperimentEvaluation;
+import org.linghu.mybackend.domain.ExperimentSubmission;
+import org.linghu.mybackend.domain.ExperimentTask;
+
+/**
+ * 代码评测服务接口，负责调用go-judge评测学生的编程题提交
+ */
+public interface CodeEvaluationService {
+
+    /**
+     * 评测编程题提交并保存评测结果
+     *
+     * @param task       实验任务
+     * @param submission 学生提交
+     * @param userId     用户ID
+     * @return 已保存的评测结果
+     * @throws Exception 如果评测过程发生错误
+     */
+    ExperimentEvaluation evaluate(ExperimentTask task, ExperimentSubmission submission, String userId) throws Exception;
+}
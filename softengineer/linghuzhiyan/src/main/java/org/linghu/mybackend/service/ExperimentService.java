@@ -1,6 +1,7 @@
 package org.linghu.mybackend.service;
 
 import org.springframework.data.domain.Page;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.ExperimentDTO;
 import org.linghu.mybackend.dto.ExperimentRequestDTO;
 
@@ -26,6 +27,16 @@ public interface ExperimentService {
      * @return 实验DTO分页
      */
     Page<ExperimentDTO> getAllExperiments(int pageNum, int pageSize);
+
+    /**
+     * 按游标获取实验列表，按创建时间从新到旧排列
+     * 
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param pageSize 每页大小
+     * @param withTotal 是否统计总数
+     * @return 实验DTO游标分页
+     */
+    CursorPageResult<ExperimentDTO> getExperimentsByCursor(String cursor, int pageSize, boolean withTotal);
     
     /**
      * 根据实验ID获取实验详情
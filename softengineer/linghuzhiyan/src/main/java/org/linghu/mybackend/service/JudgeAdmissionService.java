@@ -0,0 +1,17 @@
+package org.linghu.mybackend.service;
+
+/**
+ * 评测准入控制服务接口
+ * 新建评测任务前按用户和按实验分别扣减令牌，超出预算时拒绝并提示重试时间
+ */
+public interface JudgeAdmissionService {
+
+    /**
+     * 为一次新的评测申请准入
+     *
+     * @param userId 提交用户ID
+     * @param experimentId 所属实验ID，未知时为null，只做用户级限制
+     * @throws org.linghu.mybackend.exception.TooManyRequestsException 用户或实验超出评测预算
+     */
+    void acquire(String userId, String experimentId);
+}
@@ -0,0 +1,53 @@
+package org.linghu.mybackend.service;
+
+import org.linghu.mybackend.dto.JudgeTaskFilesDTO;
+
+/**
+ * go-judge文件缓存服务接口
+ * 任务公共文件（评测脚本、依赖文件等）在每个评测节点上只上传一次，评测时通过fileId引用
+ */
+public interface JudgeFileCacheService {
+
+    /**
+     * 获取任务资源的当前版本，只列出MinIO中的对象，不访问评测节点
+     *
+     * @param experimentId 实验ID
+     * @param taskId       任务ID
+     * @return 任务资源版本
+     */
+    String getTaskVersion(String experimentId, String taskId);
+
+    /**
+     * 获取任务公共文件在指定评测节点中的缓存，资源有变化时重新上传
+     *
+     * @param nodeUrl      评测节点地址
+     * @param experimentId 实验ID
+     * @param taskId       任务ID
+     * @return 任务文件缓存
+     */
+    JudgeTaskFilesDTO getTaskFiles(String nodeUrl, String experimentId, String taskId);
+
+    /**
+     * 使任务在指定评测节点上的文件缓存失效，用于节点重启后缓存丢失的情况
+     *
+     * @param nodeUrl      评测节点地址
+     * @param experimentId 实验ID
+     * @param taskId       任务ID
+     */
+    void invalidate(String nodeUrl, String experimentId, String taskId);
+
+    /**
+     * 使任务在所有评测节点上的文件缓存失效，go-judge中对应的文件在宽限期后删除
+     *
+     * @param experimentId 实验ID
+     * @param taskId       任务ID
+     */
+    void invalidate(String experimentId, String taskId);
+
+    /**
+     * 根据MinIO对象名使所属任务的文件缓存失效，非任务资源路径时忽略
+     *
+     * @param objectName MinIO中的对象名
+     */
+    void invalidateByObjectName(String objectName);
+}
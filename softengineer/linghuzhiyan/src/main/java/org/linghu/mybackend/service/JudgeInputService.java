@@ -0,0 +1,19 @@
+package org.linghu.mybackend.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评测输入准备服务接口
+ * 评测前从MinIO并发读取学生提交的文件，以原始字节交给评测服务
+ */
+public interface JudgeInputService {
+
+    /**
+     * 读取学生提交的全部文件，总大小超过上限时在读取完成前失败
+     *
+     * @param objectNames 提交文件在MinIO中的对象名，格式为userId/experimentId/taskId/timestamp/根目录/{相对路径}
+     * @return 评测沙箱内的相对路径 -> 文件内容，顺序与对象名一致
+     */
+    Map<String, byte[]> loadSubmissionFiles(List<String> objectNames);
+}
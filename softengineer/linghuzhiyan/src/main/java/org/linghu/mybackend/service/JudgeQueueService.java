@@ -0,0 +1,48 @@
+package org.linghu.mybackend.service;
+
+import org.linghu.mybackend.domain.ExperimentSubmission;
+import org.linghu.mybackend.dto.JudgeJobDTO;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 代码评测队列服务接口
+ * 评测请求以提交ID为键进入队列，由有界工作线程池异步调用go-judge执行
+ */
+public interface JudgeQueueService {
+
+    /**
+     * 为提交创建评测任务，若该提交已有排队或运行中的任务则直接返回该任务
+     * 超出评测预算时不拒绝，任务保持排队状态，稍后由定时调度执行
+     *
+     * @param submission 学生提交
+     * @return 评测任务DTO
+     */
+    JudgeJobDTO enqueue(ExperimentSubmission submission);
+
+    /**
+     * 请求评测提交：已有进行中或已完成的任务时直接返回，否则创建新任务
+     *
+     * @param submission 学生提交
+     * @return 评测任务DTO，任务结束时包含评测结果
+     * @throws org.linghu.mybackend.exception.TooManyRequestsException 需要新建任务但超出评测预算
+     */
+    JudgeJobDTO requestEvaluation(ExperimentSubmission submission);
+
+    /**
+     * 查询评测任务
+     *
+     * @param jobId    任务ID
+     * @param username 当前用户名
+     * @return 评测任务DTO
+     */
+    JudgeJobDTO getJob(String jobId, String username);
+
+    /**
+     * 订阅评测任务状态，任务结束时推送最终结果并关闭连接
+     *
+     * @param jobId    任务ID
+     * @param username 当前用户名
+     * @return SSE推送通道
+     */
+    SseEmitter streamJob(String jobId, String username);
+}
@@ -19,7 +19,7 @@ public interface LoginLogService {
      * @param ipAddress 登录IP地址
      * @param deviceType 设备类型
      * @param loginInfo 额外的登录信息（JSON格式）
-     * @return 保存的登录日志记录
+     * @return 待写入的登录日志记录，日志异步写入，返回时尚未分配ID
      */
     LoginLog logSuccessfulLogin(String userId, String ipAddress, String deviceType, String loginInfo);
     
@@ -30,7 +30,7 @@ public interface LoginLogService {
      * @param deviceType 设备类型
      * @param failureReason 失败原因
      * @param loginInfo 额外的登录信息（JSON格式）
-     * @return 保存的登录日志记录
+     * @return 待写入的登录日志记录，日志异步写入，返回时尚未分配ID
      */
     LoginLog logFailedLogin(String userId, String ipAddress, String deviceType, String failureReason, String loginInfo);
     
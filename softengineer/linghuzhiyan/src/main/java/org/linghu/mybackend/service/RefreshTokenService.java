@@ -0,0 +1,52 @@
+package org.linghu.mybackend.service;
+
+import org.linghu.mybackend.domain.RefreshToken;
+
+/**
+ * 刷新令牌服务接口
+ * 登录时签发刷新令牌，续期时一次性消费旧令牌并在同一家族内签发新令牌；
+ * 已使用的令牌再次出现视为泄露，整个家族随之吊销
+ */
+public interface RefreshTokenService {
+
+    /**
+     * 为一次新的登录签发刷新令牌
+     *
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param tokenVersion 签发时的令牌版本号
+     * @return 刷新令牌原文，只在此处返回一次
+     */
+    String issue(String userId, String username, int tokenVersion);
+
+    /**
+     * 在已消费令牌所属家族内签发新的刷新令牌，过期时间沿用家族的过期时间
+     *
+     * @param previous 已消费的刷新令牌记录
+     * @return 新的刷新令牌原文
+     */
+    String rotate(RefreshToken previous);
+
+    /**
+     * 消费刷新令牌，每个令牌只能成功消费一次
+     *
+     * @param refreshToken 刷新令牌原文
+     * @return 被消费的刷新令牌记录
+     * @throws org.linghu.mybackend.exception.UserException 令牌不存在、已过期或已被使用
+     */
+    RefreshToken consume(String refreshToken);
+
+    /**
+     * 吊销刷新令牌所属的整个家族，令牌无效时忽略
+     *
+     * @param refreshToken 刷新令牌原文
+     */
+    void revoke(String refreshToken);
+
+    /**
+     * 吊销整个令牌家族
+     *
+     * @param familyId 家族ID
+     */
+    void revokeFamily(String familyId);
+}
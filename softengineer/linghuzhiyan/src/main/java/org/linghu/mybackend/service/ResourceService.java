@@ -1,8 +1,13 @@
 package org.linghu.mybackend.service;
 
+import org.linghu.mybackend.dto.PresignedUploadCompleteDTO;
+import org.linghu.mybackend.dto.PresignedUploadDTO;
+import org.linghu.mybackend.dto.PresignedUploadRequestDTO;
 import org.linghu.mybackend.dto.ResourceDTO;
+import org.linghu.mybackend.dto.ResourceDownloadDTO;
 import org.linghu.mybackend.dto.ResourceRequestDTO;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -67,6 +72,39 @@ public interface ResourceService {
      */
     Resource downloadResource(String id);
 
+    /**
+     * 按请求头下载资源，支持Range区间读取和If-None-Match/If-Modified-Since条件请求
+     *
+     * @param id             资源ID
+     * @param requestHeaders 下载请求的请求头
+     * @return 下载结果
+     */
+    ResourceDownloadDTO downloadResource(String id, HttpHeaders requestHeaders);
+
+    /**
+     * 生成资源的预签名下载URL，客户端直接从MinIO下载
+     *
+     * @param id 资源ID
+     * @return 预签名下载URL
+     */
+    String createDownloadUrl(String id);
+
+    /**
+     * 生成浏览器直传MinIO的上传凭证，限定对象路径、文件类型和文件大小
+     *
+     * @param request 上传申请
+     * @return 上传凭证
+     */
+    PresignedUploadDTO createPresignedUpload(PresignedUploadRequestDTO request);
+
+    /**
+     * 浏览器直传完成后校验对象并登记资源记录，重复调用返回已登记的资源
+     *
+     * @param request 上传完成信息
+     * @return 资源DTO
+     */
+    ResourceDTO completePresignedUpload(PresignedUploadCompleteDTO request);
+
     /**
      * 上传学生实验提交
      *
@@ -0,0 +1,67 @@
+package org.linghu.mybackend.service;
+
+import org.linghu.mybackend.domain.User;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 用户缓存服务接口
+ * 缓存按ID、按用户名查询的用户以及用户的角色ID集合，数据变更时由调用方失效
+ */
+public interface UserCacheService {
+
+    /**
+     * 按ID获取用户，未命中时通过loader加载，不缓存不存在的用户
+     *
+     * @param id 用户ID
+     * @param loader 从数据库加载用户
+     * @return 用户副本，修改后需保存并失效缓存
+     */
+    Optional<User> getUserById(String id, Function<String, Optional<User>> loader);
+
+    /**
+     * 按用户名获取用户，未命中时通过loader加载，不缓存不存在的用户
+     *
+     * @param username 用户名
+     * @param loader 从数据库加载用户
+     * @return 用户副本，修改后需保存并失效缓存
+     */
+    Optional<User> getUserByUsername(String username, Function<String, Optional<User>> loader);
+
+    /**
+     * 获取用户的角色ID集合，未命中时通过loader加载
+     *
+     * @param userId 用户ID
+     * @param loader 从数据库加载角色ID
+     * @return 不可修改的角色ID集合
+     */
+    Set<String> getRoleIds(String userId, Function<String, Set<String>> loader);
+
+    /**
+     * 批量获取多个用户的角色ID集合，未命中的用户通过一次loader调用加载
+     *
+     * @param userIds 用户ID集合
+     * @param loader 从数据库批量加载角色ID，需为每个传入的用户返回结果（没有角色时为空集合）
+     * @return 用户ID到不可修改的角色ID集合的映射
+     */
+    Map<String, Set<String>> getRoleIds(Collection<String> userIds,
+            Function<Set<String>, Map<String, Set<String>>> loader);
+
+    /**
+     * 失效用户信息缓存，包括按ID和按用户名的缓存
+     *
+     * @param userId 用户ID
+     */
+    void evictUser(String userId);
+
+    /**
+     * 失效用户的角色缓存
+     *
+     * @param userId 用户ID
+     */
+    void evictRoles(String userId);
+}
@@ -6,6 +6,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.LoginRequestDTO;
 import org.linghu.mybackend.dto.LoginResponseDTO;
 import org.linghu.mybackend.dto.ProfileUpdateDTO;
@@ -36,6 +37,21 @@ public interface UserService {
      * @return 登录响应
      */
     LoginResponseDTO login(LoginRequestDTO loginRequestDTO);
+
+    /**
+     * 使用刷新令牌换取新的access token和刷新令牌，不做密码校验
+     *
+     * @param refreshToken 刷新令牌
+     * @return 登录响应，不包含用户信息
+     */
+    LoginResponseDTO refreshToken(String refreshToken);
+
+    /**
+     * 退出登录，吊销刷新令牌所属的令牌家族
+     *
+     * @param refreshToken 刷新令牌
+     */
+    void logout(String refreshToken);
     
     /**
      * 删除用户
@@ -86,6 +102,28 @@ public interface UserService {
      * @return 用户分页列表
      */
     Page<UserDTO> listUsers(int pageNum, int pageSize);
+
+    /**
+     * 分页查询用户，可选择是否返回个人资料
+     * 
+     * @param pageNum 页码
+     * @param pageSize 每页大小
+     * @param includeProfile 是否解析并返回个人资料
+     * @return 用户分页列表
+     */
+    Page<UserDTO> listUsers(int pageNum, int pageSize, boolean includeProfile);
+
+    /**
+     * 按游标查询用户，按创建时间从新到旧排列
+     * 
+     * @param cursor 上一页返回的游标，第一页为空
+     * @param pageSize 每页大小
+     * @param includeProfile 是否解析并返回个人资料
+     * @param withTotal 是否统计总数
+     * @return 用户游标分页
+     */
+    CursorPageResult<UserDTO> listUsersByCursor(String cursor, int pageSize, boolean includeProfile,
+            boolean withTotal);
     
     /**
      * 更新用户资料
@@ -0,0 +1,722 @@
+package org.linghu.mybackend.service.impl;
+
+import org.linghu.mybackend.domain.ExperimentEvaluation;
+import org.linghu.mybackend.domain.ExperimentSubmission;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.domain.ExperimentTask;
+import org.linghu.mybackend.dto.JudgeCaseResultDTO;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.dto.JudgeTaskFilesDTO;
+import org.linghu.mybackend.repository.ExperimentEvaluationRepository;
+import org.linghu.mybackend.repository.ExperimentSubmissionRepository;
+import org.linghu.mybackend.service.CodeEvaluationService;
+import org.linghu.mybackend.service.JudgeFileCacheService;
+import org.linghu.mybackend.service.JudgeInputService;
+import org.linghu.mybackend.util.GoJudgeClient;
+import org.linghu.mybackend.util.JudgeOutputComparator;
+import org.linghu.mybackend.util.MinioUtil;
+import org.linghu.mybackend.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 代码评测服务实现类 - 基于go-judge评测学生提交的代码
+ * 任务配置了测试用例时逐个用例运行并按权重计分，否则沿用run.sh的错误输出判定得分
+ */
+@Service
+public class CodeEvaluationServiceImpl implements CodeEvaluationService {
+    private static final Logger logger = LoggerFactory.getLogger(CodeEvaluationServiceImpl.class);
+
+    // 编译产物文件名，编译阶段将整个工作目录打包后缓存在go-judge中
+    private static final String ARTIFACT_NAME = ".judge-build.tar";
+    private static final String COMPILE_SCRIPT = "./compile.sh && tar -cf /tmp/build.tar . && mv /tmp/build.tar "
+            + ARTIFACT_NAME;
+    private static final String RUN_SCRIPT = "tar -xf " + ARTIFACT_NAME + " && rm -f " + ARTIFACT_NAME
+            + " && ./run.sh";
+
+    private static final String STATUS_ACCEPTED = "Accepted";
+    private static final String STATUS_FILE_ERROR = "File Error";
+    private static final String STATUS_INTERNAL_ERROR = "Internal Error";
+    private static final String STATUS_TIME_LIMIT_EXCEEDED = "Time Limit Exceeded";
+    private static final String STATUS_WRONG_ANSWER = "Wrong Answer";
+
+    private final ExperimentEvaluationRepository evaluationRepository;
+    private final ExperimentSubmissionRepository submissionRepository;
+    private final MinioUtil minioUtil;
+    private final GoJudgeClient goJudgeClient;
+    private final JudgeFileCacheService judgeFileCacheService;
+    private final JudgeInputService judgeInputService;
+    private final JudgeConfig judgeConfig;
+
+    @Autowired
+    public CodeEvaluationServiceImpl(
+            ExperimentEvaluationRepository evaluationRepository,
+            ExperimentSubmissionRepository submissionRepository,
+            MinioUtil minioUtil,
+            GoJudgeClient goJudgeClient,
+            JudgeFileCacheService judgeFileCacheService,
+            JudgeInputService judgeInputService,
+            JudgeConfig judgeConfig) {
+        this.evaluationRepository = evaluationRepository;
+        this.submissionRepository = submissionRepository;
+        this.minioUtil = minioUtil;
+        this.goJudgeClient = goJudgeClient;
+        this.judgeFileCacheService = judgeFileCacheService;
+        this.judgeInputService = judgeInputService;
+        this.judgeConfig = judgeConfig;
+    }
+
+    /**
+     * 对CODE类型的任务进行评测
+     *
+     * @param task       实验任务
+     * @param submission 学生提交
+     * @param userId     用户ID
+     * @return 已保存的评测结果
+     * @throws Exception 如果评测过程发生错误
+     */
+    @Override
+    public ExperimentEvaluation evaluate(ExperimentTask task, ExperimentSubmission submission,
+                                         String userId) throws Exception {
+        // 获取用户提交的代码文件路径
+        String userAnswer = submission.getUserAnswer();
+
+        logger.info("开始评测用户 {} 在任务 {} 的代码提交", userId, task.getId());
+
+        // 相同任务资源版本下评测过内容相同的代码时直接复用结果，不再下载文件和调用评测服务
+        ExperimentEvaluation cached = findCachedEvaluation(task, submission, loadTaskVersion(task));
+        if (cached != null) {
+            logger.info("提交 {} 与已评测代码内容相同，复用评测结果 {}", submission.getId(), cached.getId());
+            return evaluationRepository.save(cached.toBuilder()
+                    .id(UUID.randomUUID().toString())
+                    .submissionId(submission.getId())
+                    .submission(null)
+                    .userId(userId)
+                    .user(null)
+                    .build());
+        }
+
+        // 解析用户提交的文件路径
+        @SuppressWarnings("unchecked")
+        Map<String, Object> answerData = JsonUtils.parseObject(userAnswer, Map.class);
+        if (answerData == null) {
+            throw new RuntimeException("无法解析提交的代码信息");
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> filePaths = (List<String>) answerData.get("paths");
+        if (filePaths == null || filePaths.isEmpty()) {
+            throw new RuntimeException("未找到提交的代码文件");
+        }
+
+        logger.info("用户 {} 提交了 {} 个代码文件", userId, filePaths.size());
+
+        // 并发从MinIO读取提交的代码文件，保留原始字节
+        Map<String, byte[]> files = judgeInputService.loadSubmissionFiles(filePaths);
+
+        // go-judge的缓存文件只在单个节点内有效，同一次评测的请求都发送到同一节点，优先使用保存有编译产物的节点
+        String nodeUrl = goJudgeClient.acquireNode(submission.getArtifactNode());
+        try {
+            return judge(nodeUrl, task, submission, userId, files);
+        } finally {
+            goJudgeClient.releaseNode(nodeUrl);
+        }
+    }
+
+    /**
+     * 在指定评测节点上编译并运行学生代码
+     *
+     * @param nodeUrl    评测节点地址
+     * @param task       实验任务
+     * @param submission 学生提交
+     * @param userId     用户ID
+     * @param files      学生提交的文件
+     * @return 已保存的评测结果
+     */
+    private ExperimentEvaluation judge(String nodeUrl, ExperimentTask task, ExperimentSubmission submission,
+                                       String userId, Map<String, byte[]> files) {
+        // 任务公共文件通过go-judge文件缓存引用，请求体只需携带学生修改过的文件
+        JudgeTaskFilesDTO taskFiles = loadTaskFiles(nodeUrl, task);
+        String taskVersion = taskFiles != null ? taskFiles.getVersion() : null;
+
+        // 任务文件未变化且产物位于当前节点时复用已缓存的编译产物，跳过编译阶段
+        String artifactId = null;
+        if (submission.getArtifactFileId() != null
+                && Objects.equals(submission.getArtifactNode(), nodeUrl)
+                && Objects.equals(submission.getArtifactTaskVersion(), taskVersion)) {
+            artifactId = submission.getArtifactFileId();
+        }
+
+        List<JudgeResultDTO> runResults = null;
+        if (artifactId != null) {
+            logger.info("提交 {} 复用编译产物 {}", submission.getId(), artifactId);
+            runResults = runArtifact(nodeUrl, artifactId, taskFiles);
+            if (runResults == null) {
+                // go-judge重启后缓存文件会丢失，编译产物和测试用例输入都可能失效，重新上传任务文件后重新编译
+                logger.warn("提交 {} 的编译产物或测试用例输入已失效，重新编译", submission.getId());
+                submissionRepository.updateArtifact(submission.getId(), null, null, null);
+                artifactId = null;
+                judgeFileCacheService.invalidate(nodeUrl, task.getExperimentId(), task.getId());
+                taskFiles = loadTaskFiles(nodeUrl, task);
+                taskVersion = taskFiles != null ? taskFiles.getVersion() : null;
+            }
+        }
+
+        if (artifactId == null) {
+            logger.info("准备使用compile.sh编译、run.sh运行执行评测");
+            JudgeResultDTO compileResult = executeCommand(nodeUrl, buildCompileCommand(files, taskFiles));
+
+            // 任务公共文件缓存丢失时重新上传并重试一次
+            if (taskFiles != null && isFileError(compileResult)) {
+                logger.warn("评测节点 {} 缓存文件不存在，重新上传任务 {} 的公共文件", nodeUrl, task.getId());
+                judgeFileCacheService.invalidate(nodeUrl, task.getExperimentId(), task.getId());
+                taskFiles = loadTaskFiles(nodeUrl, task);
+                taskVersion = taskFiles != null ? taskFiles.getVersion() : null;
+                compileResult = executeCommand(nodeUrl, buildCompileCommand(files, taskFiles));
+            }
+
+            // 评测服务自身的错误与学生代码无关，评测任务以失败结束以便重试，不保存为0分结果
+            if (isFileError(compileResult) || isInternalError(compileResult)) {
+                throw new RuntimeException("评测服务编译阶段出错: " + compileResult.getStatus() + "，请稍后重试");
+            }
+
+            // 编译失败时直接返回编译输出，不进入运行阶段
+            if (!STATUS_ACCEPTED.equals(compileResult.getStatus())) {
+                String compileError = getResultFile(compileResult, "stderr");
+                if (compileError.isEmpty()) {
+                    compileError = "编译失败: " + compileResult.getStatus();
+                }
+                return saveEvaluation(task, submission, userId, taskVersion,
+                        getResultFile(compileResult, "stdout"), compileError, isCacheable(compileResult));
+            }
+
+            artifactId = getCachedFileId(compileResult, ARTIFACT_NAME);
+            if (artifactId == null) {
+                throw new RuntimeException("评测服务未返回编译产物");
+            }
+            storeArtifact(nodeUrl, submission, artifactId, taskVersion);
+            runResults = runArtifact(nodeUrl, artifactId, taskFiles);
+            if (runResults == null) {
+                // 刚生成的编译产物仍然有效，说明测试用例输入已丢失，使任务缓存失效以便重试时重新上传
+                judgeFileCacheService.invalidate(nodeUrl, task.getExperimentId(), task.getId());
+                throw new RuntimeException("评测服务缓存文件丢失，请稍后重试");
+            }
+        }
+
+        if (runResults.stream().anyMatch(this::isInternalError)) {
+            throw new RuntimeException("评测服务运行阶段出错，请稍后重试");
+        }
+
+        List<JudgeTaskFilesDTO.TestCase> testCases = getTestCases(taskFiles);
+        if (!testCases.isEmpty()) {
+            return saveCaseEvaluation(task, submission, userId, taskVersion, testCases, runResults);
+        }
+
+        JudgeResultDTO runResult = runResults.get(0);
+        String stdout = getResultFile(runResult, "stdout");
+        String stderr = getResultFile(runResult, "stderr");
+        logger.info("解析到评测结果 stdout: {}, stderr: {}", stdout, stderr);
+
+        return saveEvaluation(task, submission, userId, taskVersion, stdout, stderr, isCacheable(runResult));
+    }
+
+    /**
+     * 保存评测结果
+     *
+     * @param task        实验任务
+     * @param submission  学生提交
+     * @param userId      用户ID
+     * @param taskVersion 评测时的任务资源版本
+     * @param stdout      标准输出
+     * @param stderr      错误输出
+     * @param cacheable   结果是否可被相同内容的提交复用
+     * @return 已保存的评测结果
+     */
+    private ExperimentEvaluation saveEvaluation(ExperimentTask task, ExperimentSubmission submission,
+                                                String userId, String taskVersion, String stdout, String stderr,
+                                                boolean cacheable) {
+        ExperimentEvaluation evaluationEntity = ExperimentEvaluation.builder()
+                .id(UUID.randomUUID().toString())
+                .submissionId(submission.getId())
+                .userId(userId)
+                .taskId(task.getId())
+                .score(stderr.isEmpty() ? new BigDecimal("100") : BigDecimal.ZERO) // 如有错误，得分为0
+                .additionalInfo(stdout)
+                .errorMessage(stderr)
+                .contentHash(submission.getContentHash())
+                .taskVersion(taskVersion)
+                .cacheable(cacheable)
+                .build();
+
+        return evaluationRepository.save(evaluationEntity);
+    }
+
+    /**
+     * 查找可复用的评测结果，缓存键为（任务ID，任务资源版本，代码内容摘要），只复用结果确定的评测
+     *
+     * @param task        实验任务
+     * @param submission  学生提交
+     * @param taskVersion 当前任务资源版本，获取失败时为null
+     * @return 可复用的评测结果，不存在时返回null
+     */
+    private ExperimentEvaluation findCachedEvaluation(ExperimentTask task, ExperimentSubmission submission,
+                                                      String taskVersion) {
+        if (submission.getContentHash() == null || taskVersion == null) {
+            return null;
+        }
+        return evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(
+                task.getId(), taskVersion, submission.getContentHash()).orElse(null);
+    }
+
+    /**
+     * 比对各测试用例的输出并按权重计分，保存逐个用例的评测结果
+     *
+     * @param task        实验任务
+     * @param submission  学生提交
+     * @param userId      用户ID
+     * @param taskVersion 评测时的任务资源版本
+     * @param testCases   测试用例
+     * @param results     与测试用例一一对应的运行结果
+     * @return 已保存的评测结果
+     */
+    private ExperimentEvaluation saveCaseEvaluation(ExperimentTask task, ExperimentSubmission submission,
+                                                    String userId, String taskVersion,
+                                                    List<JudgeTaskFilesDTO.TestCase> testCases,
+                                                    List<JudgeResultDTO> results) {
+        List<JudgeCaseResultDTO> caseResults = new ArrayList<>();
+        int totalWeight = 0;
+        int passedWeight = 0;
+        int passedCount = 0;
+        boolean cacheable = true;
+        String firstError = "";
+
+        for (int i = 0; i < testCases.size(); i++) {
+            JudgeTaskFilesDTO.TestCase testCase = testCases.get(i);
+            JudgeResultDTO result = results.get(i);
+
+            cacheable &= isCacheable(result);
+            String status = String.valueOf(result.getStatus());
+            String stderr = getResultFile(result, "stderr");
+            if (STATUS_ACCEPTED.equals(status)
+                    && !matchesExpected(testCase.getExpectedObjectName(), getResultFile(result, "stdout"))) {
+                status = STATUS_WRONG_ANSWER;
+            }
+            boolean passed = STATUS_ACCEPTED.equals(status);
+
+            totalWeight += testCase.getWeight();
+            if (passed) {
+                passedWeight += testCase.getWeight();
+                passedCount++;
+            } else if (firstError.isEmpty()) {
+                firstError = "测试用例 " + testCase.getName() + ": " + status
+                        + (stderr.isEmpty() ? "" : "\n" + stderr);
+            }
+
+            caseResults.add(JudgeCaseResultDTO.builder()
+                    .name(testCase.getName())
+                    .status(status)
+                    .passed(passed)
+                    .weight(testCase.getWeight())
+                    .time(toLong(result.getTime(), 1_000_000L))
+                    .memory(toLong(result.getMemory(), 1024L))
+                    .message(passed ? "" : stderr)
+                    .build());
+        }
+
+        BigDecimal score = totalWeight > 0
+                ? BigDecimal.valueOf(passedWeight * 100L).divide(BigDecimal.valueOf(totalWeight), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        logger.info("提交 {} 通过 {}/{} 个测试用例，得分 {}", submission.getId(), passedCount, testCases.size(), score);
+
+        ExperimentEvaluation evaluationEntity = ExperimentEvaluation.builder()
+                .id(UUID.randomUUID().toString())
+                .submissionId(submission.getId())
+                .userId(userId)
+                .taskId(task.getId())
+                .score(score)
+                .additionalInfo("测试用例: 共" + testCases.size() + "个，通过" + passedCount + "个")
+                .errorMessage(firstError)
+                .caseResults(JsonUtils.toJsonString(caseResults))
+                .contentHash(submission.getContentHash())
+                .taskVersion(taskVersion)
+                .cacheable(cacheable)
+                .build();
+
+        return evaluationRepository.save(evaluationEntity);
+    }
+
+    /**
+     * 使用编译产物运行：有测试用例时按并行度分批，每批作为一个多命令请求发送，同一请求中的命令由go-judge并发执行
+     *
+     * @param nodeUrl    评测节点地址
+     * @param artifactId 编译产物在go-judge中的文件ID
+     * @param taskFiles  已缓存的任务公共文件，获取失败时为null
+     * @return 各命令的运行结果，缓存文件丢失时返回null
+     */
+    private List<JudgeResultDTO> runArtifact(String nodeUrl, String artifactId, JudgeTaskFilesDTO taskFiles) {
+        List<JudgeTaskFilesDTO.TestCase> testCases = getTestCases(taskFiles);
+        if (testCases.isEmpty()) {
+            List<JudgeResultDTO> results = executeCommands(nodeUrl, Arrays.asList(buildRunCommand(artifactId).build()));
+            return isFileError(results.get(0)) ? null : results;
+        }
+
+        int parallelism = Math.max(1, judgeConfig.getTestCase().getParallelism());
+        List<JudgeResultDTO> results = new ArrayList<>(testCases.size());
+        for (int from = 0; from < testCases.size(); from += parallelism) {
+            List<JudgeCommandDTO> batch = new ArrayList<>();
+            for (JudgeTaskFilesDTO.TestCase testCase : testCases.subList(from,
+                    Math.min(from + parallelism, testCases.size()))) {
+                batch.add(buildCaseCommand(artifactId, testCase));
+            }
+
+            List<JudgeResultDTO> batchResults = executeCommands(nodeUrl, batch);
+            if (batchResults.size() != batch.size()) {
+                throw new RuntimeException("评测结果数量与测试用例不一致");
+            }
+            if (batchResults.stream().anyMatch(this::isFileError)) {
+                return null;
+            }
+            results.addAll(batchResults);
+        }
+        return results;
+    }
+
+    /**
+     * 构建单个测试用例的运行命令，输入文件作为标准输入
+     *
+     * @param artifactId 编译产物在go-judge中的文件ID
+     * @param testCase   测试用例
+     * @return 命令
+     */
+    private JudgeCommandDTO buildCaseCommand(String artifactId, JudgeTaskFilesDTO.TestCase testCase) {
+        return buildRunCommand(artifactId)
+                .stdin(testCase.getInput() != null
+                        ? JudgeCommandDTO.File.cached(testCase.getInput().getFileId())
+                        : JudgeCommandDTO.File.memory(new byte[0]))
+                .stdoutMax(judgeConfig.getTestCase().getOutputLimit())
+                .build();
+    }
+
+    /**
+     * 从MinIO流式读取期望输出并与实际输出比对
+     *
+     * @param objectName 期望输出对象名
+     * @param actual     实际输出
+     * @return 是否一致
+     */
+    private boolean matchesExpected(String objectName, String actual) {
+        try (InputStream inputStream = minioUtil.downloadFile(objectName).getInputStream()) {
+            return JudgeOutputComparator.matches(
+                    new InputStreamReader(inputStream, StandardCharsets.UTF_8), new StringReader(actual));
+        } catch (Exception e) {
+            throw new RuntimeException("读取期望输出失败: " + objectName, e);
+        }
+    }
+
+    private List<JudgeTaskFilesDTO.TestCase> getTestCases(JudgeTaskFilesDTO taskFiles) {
+        if (taskFiles == null || taskFiles.getTestCases() == null) {
+            return Collections.emptyList();
+        }
+        return taskFiles.getTestCases();
+    }
+
+    private Long toLong(Long value, long divisor) {
+        return value != null ? value / divisor : null;
+    }
+
+    /**
+     * 记录提交的编译产物，并释放该学生在同一任务上旧提交的产物
+     *
+     * @param nodeUrl     保存编译产物的评测节点
+     * @param submission  学生提交
+     * @param artifactId  编译产物在go-judge中的文件ID
+     * @param taskVersion 编译时的任务资源版本
+     */
+    private void storeArtifact(String nodeUrl, ExperimentSubmission submission, String artifactId,
+                               String taskVersion) {
+        List<ExperimentSubmission> previous = submissionRepository.findByTaskIdAndUserIdAndArtifactFileIdIsNotNull(
+                submission.getTaskId(), submission.getUserId());
+        for (ExperimentSubmission old : previous) {
+            if (old.getId().equals(submission.getId())) {
+                continue;
+            }
+            submissionRepository.updateArtifact(old.getId(), null, null, null);
+            try {
+                goJudgeClient.deleteFile(old.getArtifactNode(), old.getArtifactFileId());
+            } catch (Exception e) {
+                logger.warn("删除旧编译产物 {} 失败: {}", old.getArtifactFileId(), e.getMessage());
+            }
+        }
+
+        submissionRepository.updateArtifact(submission.getId(), artifactId, nodeUrl, taskVersion);
+        submission.setArtifactFileId(artifactId);
+        submission.setArtifactNode(nodeUrl);
+        submission.setArtifactTaskVersion(taskVersion);
+    }
+
+    /**
+     * 构建编译命令：执行compile.sh后将工作目录打包，通过copyOutCached保留在go-judge中
+     *
+     * @param files     学生提交的文件
+     * @param taskFiles 已缓存的任务公共文件，获取失败时为null
+     * @return 命令
+     */
+    private JudgeCommandDTO buildCompileCommand(Map<String, byte[]> files, JudgeTaskFilesDTO taskFiles) {
+        return buildCommand(COMPILE_SCRIPT, buildCopyIn(files, taskFiles))
+                .copyOutCached(Arrays.asList(ARTIFACT_NAME))
+                .build();
+    }
+
+    /**
+     * 构建运行命令：解包编译产物后执行run.sh
+     *
+     * @param artifactId 编译产物在go-judge中的文件ID
+     * @return 命令构建器
+     */
+    private JudgeCommandDTO.JudgeCommandDTOBuilder buildRunCommand(String artifactId) {
+        Map<String, JudgeCommandDTO.File> copyIn = new HashMap<>();
+        copyIn.put(ARTIFACT_NAME, JudgeCommandDTO.File.cached(artifactId));
+        return buildCommand(RUN_SCRIPT, copyIn);
+    }
+
+    /**
+     * 构建go-judge命令
+     *
+     * @param script 在沙箱中执行的脚本
+     * @param copyIn 需要放入沙箱的文件
+     * @return 命令构建器
+     */
+    private JudgeCommandDTO.JudgeCommandDTOBuilder buildCommand(String script, Map<String, JudgeCommandDTO.File> copyIn) {
+        return JudgeCommandDTO.builder()
+                .args(Arrays.asList("/bin/sh", "-c", script))
+                .env(Arrays.asList("PATH=/usr/bin:/bin"))
+                // 设置文件流
+                .stdin(JudgeCommandDTO.File.memory(new byte[0]))
+                .stdoutMax(10240)
+                .stderrMax(10240)
+                // 设置资源限制
+                .cpuLimit(6000000000L)
+                .memoryLimit(536870912L)
+                .procLimit(50)
+                .copyIn(copyIn)
+                .copyOut(Arrays.asList("stdout", "stderr"));
+    }
+
+    /**
+     * 构建copyIn：先放入任务公共文件，再用学生提交的文件覆盖
+     *
+     * @param files     学生提交的文件
+     * @param taskFiles 已缓存的任务公共文件，获取失败时为null
+     * @return copyIn映射
+     */
+    private Map<String, JudgeCommandDTO.File> buildCopyIn(Map<String, byte[]> files,
+                                                          JudgeTaskFilesDTO taskFiles) {
+        Map<String, JudgeCommandDTO.File> copyIn = new HashMap<>();
+
+        Map<String, Set<String>> directories = new HashMap<>();
+        Map<String, JudgeTaskFilesDTO.CachedFile> cachedFiles = taskFiles != null
+                ? taskFiles.getFiles() : Collections.emptyMap();
+        for (Map.Entry<String, JudgeTaskFilesDTO.CachedFile> entry : cachedFiles.entrySet()) {
+            String filePath = entry.getKey();
+            if (filePath.contains("/")) {
+                String dirPath = filePath.substring(0, filePath.lastIndexOf('/'));
+                createDirectoryStructure(copyIn, dirPath, directories);
+            }
+            copyIn.put(filePath, JudgeCommandDTO.File.cached(entry.getValue().getFileId()));
+        }
+
+        // 添加用户提交的文件
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            String filePath = file.getKey();
+
+            // 与任务文件内容相同时沿用缓存文件
+            byte[] content = file.getValue();
+            JudgeTaskFilesDTO.CachedFile cachedFile = cachedFiles.get(filePath);
+            if (cachedFile != null && cachedFile.getSha256().equals(JudgeFileCacheServiceImpl.sha256(content))) {
+                continue;
+            }
+
+            // 如果文件在子目录中，需要确保目录已经创建
+            if (filePath.contains("/")) {
+                String dirPath = filePath.substring(0, filePath.lastIndexOf('/'));
+                createDirectoryStructure(copyIn, dirPath, directories);
+            }
+
+            // 添加文件
+            copyIn.put(filePath, JudgeCommandDTO.File.memory(content));
+        }
+        return copyIn;
+    }
+
+    /**
+     * 发送单条命令到go-judge并返回其结果
+     *
+     * @param nodeUrl 评测节点地址
+     * @param cmd     命令
+     * @return 命令执行结果
+     */
+    private JudgeResultDTO executeCommand(String nodeUrl, JudgeCommandDTO cmd) {
+        return executeCommands(nodeUrl, Arrays.asList(cmd)).get(0);
+    }
+
+    /**
+     * 在一个请求中发送多条命令到go-judge
+     *
+     * @param nodeUrl 评测节点地址
+     * @param cmds    命令列表
+     * @return 与命令一一对应的执行结果
+     */
+    private List<JudgeResultDTO> executeCommands(String nodeUrl, List<JudgeCommandDTO> cmds) {
+        List<JudgeResultDTO> results = goJudgeClient.run(nodeUrl, cmds);
+        if (results == null || results.isEmpty()) {
+            throw new RuntimeException("评测服务未返回结果");
+        }
+        logger.debug("评测结果: {}", results);
+        return results;
+    }
+
+    /**
+     * 获取命令结果中copyOut的文件内容
+     *
+     * @param result 命令执行结果
+     * @param name   文件名
+     * @return 文件内容，不存在时返回空字符串
+     */
+    private String getResultFile(JudgeResultDTO result, String name) {
+        if (result.getFiles() == null) {
+            return "";
+        }
+        String content = result.getFiles().get(name);
+        return content != null ? content : "";
+    }
+
+    /**
+     * 获取命令结果中copyOutCached的文件ID
+     *
+     * @param result 命令执行结果
+     * @param name   文件名
+     * @return 文件ID，不存在时返回null
+     */
+    private String getCachedFileId(JudgeResultDTO result, String name) {
+        return result.getFileIds() != null ? result.getFileIds().get(name) : null;
+    }
+
+    /**
+     * 获取任务公共文件在评测节点上的缓存，失败时退化为只发送学生提交的文件
+     *
+     * @param nodeUrl 评测节点地址
+     * @param task    实验任务
+     * @return 任务文件缓存，获取失败时返回null
+     */
+    private JudgeTaskFilesDTO loadTaskFiles(String nodeUrl, ExperimentTask task) {
+        try {
+            return judgeFileCacheService.getTaskFiles(nodeUrl, task.getExperimentId(), task.getId());
+        } catch (Exception e) {
+            logger.warn("获取任务 {} 的评测缓存文件失败: {}", task.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 获取任务资源版本，失败时返回null，此时不使用评测结果缓存
+     *
+     * @param task 实验任务
+     * @return 任务资源版本
+     */
+    private String loadTaskVersion(ExperimentTask task) {
+        try {
+            return judgeFileCacheService.getTaskVersion(task.getExperimentId(), task.getId());
+        } catch (Exception e) {
+            logger.warn("获取任务 {} 的资源版本失败: {}", task.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 判断命令结果是否为缓存文件缺失导致的错误
+     *
+     * @param result 命令执行结果
+     * @return 是否为文件错误
+     */
+    private boolean isFileError(JudgeResultDTO result) {
+        return STATUS_FILE_ERROR.equals(result.getStatus());
+    }
+
+    /**
+     * 判断命令结果是否为评测服务内部错误
+     *
+     * @param result 命令执行结果
+     * @return 是否为内部错误
+     */
+    private boolean isInternalError(JudgeResultDTO result) {
+        return STATUS_INTERNAL_ERROR.equals(result.getStatus());
+    }
+
+    /**
+     * 判断命令结果是否只取决于代码内容，超时可能由评测节点负载造成，不作为评测结果缓存
+     *
+     * @param result 命令执行结果
+     * @return 是否可复用
+     */
+    private boolean isCacheable(JudgeResultDTO result) {
+        return !STATUS_TIME_LIMIT_EXCEEDED.equals(result.getStatus());
+    }
+
+    /**
+     * 为代码评测创建目录结构
+     *
+     * @param copyIn      评测服务的copyIn映射
+     * @param dirPath     需要创建的目录路径
+     * @param directories 已创建目录的缓存
+     */
+    private void createDirectoryStructure(Map<String, JudgeCommandDTO.File> copyIn, String dirPath,
+                                          Map<String, Set<String>> directories) {
+        // 如果目录已经创建过，直接返回
+        if (directories.containsKey(dirPath)) {
+            return;
+        }
+
+        // 分解路径，确保上级目录先被创建
+        String[] parts = dirPath.split("/");
+        StringBuilder currentPath = new StringBuilder();
+
+        // 逐级创建目录
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                currentPath.append("/");
+            }
+            currentPath.append(parts[i]);
+
+            String path = currentPath.toString();
+
+            // 记录创建的目录
+            if (!directories.containsKey(path)) {
+                Set<String> subdirs = new HashSet<>();
+                directories.put(path, subdirs);
+
+                // 将当前目录添加到其父目录的子目录集合中
+                if (i > 0) {
+                    String parentPath = path.substring(0, path.lastIndexOf('/'));
+                    if (directories.containsKey(parentPath)) {
+                        directories.get(parentPath).add(parts[i]);
+                    }
+                }
+
+                // 在copyIn中创建目录项
+                // 在GoJudge中，目录作为特殊的文件处理，内容为空但路径以/结尾
+                copyIn.put(path + "/", JudgeCommandDTO.File.memory(new byte[0]));
+            }
+        }
+    }
+}
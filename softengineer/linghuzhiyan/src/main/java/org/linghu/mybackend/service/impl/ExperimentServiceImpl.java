@@ -1,9 +1,12 @@
 package org.linghu.mybackend.service.impl;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.linghu.mybackend.domain.Experiment;
 import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.ExperimentDTO;
 import org.linghu.mybackend.dto.ExperimentRequestDTO;
 import org.linghu.mybackend.repository.ExperimentAssignmentRepository;
@@ -11,6 +14,7 @@ import org.linghu.mybackend.repository.ExperimentRepository;
 import org.linghu.mybackend.repository.ExperimentTaskRepository;
 import org.linghu.mybackend.repository.UserRepository;
 import org.linghu.mybackend.service.ExperimentService;
+import org.linghu.mybackend.utils.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -73,6 +77,19 @@ public class ExperimentServiceImpl implements ExperimentService {
         });
     }
 
+    @Override
+    public CursorPageResult<ExperimentDTO> getExperimentsByCursor(String cursor, int pageSize, boolean withTotal) {
+        PageCursor position = PageCursor.decode(cursor);
+        List<Experiment> experiments = position == null
+                ? experimentRepository.findAllByOrderByCreatedAtDescIdDesc(PageCursor.limit(pageSize))
+                : experimentRepository.findAfterCursor(position.getCreatedAt(), position.getId(),
+                        PageCursor.limit(pageSize));
+        Long total = withTotal ? experimentRepository.count() : null;
+
+        return PageCursor.toResult(experiments, pageSize, Experiment::getCreatedAt, Experiment::getId,
+                page -> page.stream().map(this::convertToDTO).collect(Collectors.toList()), total);
+    }
+
     @Override
     public ExperimentDTO getExperimentById(String id) {
         Experiment experiment = experimentRepository.findById(id)
@@ -0,0 +1,157 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+import org.linghu.mybackend.service.JudgeAdmissionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 评测准入控制服务实现类
+ * 每个用户、每个实验各有一个令牌桶，新建评测任务需同时从两个桶中取得令牌
+ */
+@Service
+public class JudgeAdmissionServiceImpl implements JudgeAdmissionService {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeAdmissionServiceImpl.class);
+
+    private final JudgeConfig judgeConfig;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> experimentBuckets = new ConcurrentHashMap<>();
+    private final Counter admittedCounter;
+    private final Counter userRejectedCounter;
+    private final Counter experimentRejectedCounter;
+
+    @Autowired
+    public JudgeAdmissionServiceImpl(JudgeConfig judgeConfig, MeterRegistry meterRegistry) {
+        this(judgeConfig, meterRegistry, System::nanoTime);
+    }
+
+    JudgeAdmissionServiceImpl(JudgeConfig judgeConfig, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.judgeConfig = judgeConfig;
+        this.nanoClock = nanoClock;
+
+        this.admittedCounter = Counter.builder("judge.admission.admitted")
+                .description("通过准入控制的评测请求数")
+                .register(meterRegistry);
+        this.userRejectedCounter = Counter.builder("judge.admission.rejected")
+                .tag("scope", "user")
+                .description("因超出预算被拒绝的评测请求数")
+                .register(meterRegistry);
+        this.experimentRejectedCounter = Counter.builder("judge.admission.rejected")
+                .tag("scope", "experiment")
+                .description("因超出预算被拒绝的评测请求数")
+                .register(meterRegistry);
+        Gauge.builder("judge.admission.buckets", this, service -> service.userBuckets.size() + service.experimentBuckets.size())
+                .description("当前保留的令牌桶数量")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void acquire(String userId, String experimentId) {
+        JudgeConfig.Admission config = judgeConfig.getAdmission();
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+
+        TokenBucket userBucket = userBuckets.computeIfAbsent(userId,
+                key -> new TokenBucket(config.getUserCapacity(), config.getUserRefillPerMinute(), now));
+        long userWait = userBucket.tryAcquire(now);
+        if (userWait > 0) {
+            userRejectedCounter.increment();
+            long retryAfter = toRetrySeconds(userWait);
+            throw new TooManyRequestsException("评测请求过于频繁，请" + retryAfter + "秒后重试", retryAfter);
+        }
+
+        if (experimentId != null) {
+            TokenBucket experimentBucket = experimentBuckets.computeIfAbsent(experimentId,
+                    key -> new TokenBucket(config.getExperimentCapacity(), config.getExperimentRefillPerMinute(), now));
+            long experimentWait = experimentBucket.tryAcquire(now);
+            if (experimentWait > 0) {
+                // 实验预算不足时退还用户令牌，避免用户因他人占满实验预算而被额外扣减
+                userBucket.refund();
+                experimentRejectedCounter.increment();
+                long retryAfter = toRetrySeconds(experimentWait);
+                logger.debug("实验 {} 评测请求超出预算，建议 {} 秒后重试", experimentId, retryAfter);
+                throw new TooManyRequestsException("当前实验评测请求过多，请" + retryAfter + "秒后重试", retryAfter);
+            }
+        }
+        admittedCounter.increment();
+    }
+
+    /**
+     * 定时回收长时间未使用的令牌桶，闲置足够久的桶必然已补满，回收后重建不影响限流效果
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        long idleBefore = nanoClock.getAsLong() - TimeUnit.MINUTES.toNanos(judgeConfig.getAdmission().getIdleMinutes());
+        userBuckets.values().removeIf(bucket -> bucket.lastUsed() - idleBefore < 0);
+        experimentBuckets.values().removeIf(bucket -> bucket.lastUsed() - idleBefore < 0);
+    }
+
+    int getBucketCount() {
+        return userBuckets.size() + experimentBuckets.size();
+    }
+
+    private long toRetrySeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * 令牌桶：按时间匀速补充令牌，最多积累capacity个
+     */
+    static final class TokenBucket {
+        private final double capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long lastRefill;
+        private volatile long lastUsed;
+
+        TokenBucket(int capacity, int refillPerMinute, long now) {
+            this.capacity = Math.max(1, capacity);
+            this.nanosPerToken = (double) TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+            this.tokens = this.capacity;
+            this.lastRefill = now;
+            this.lastUsed = now;
+        }
+
+        /**
+         * 尝试取得一个令牌
+         *
+         * @return 0表示成功，否则为距离下一个令牌可用的纳秒数
+         */
+        synchronized long tryAcquire(long now) {
+            lastUsed = now;
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerToken);
+                lastRefill = now;
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        long lastUsed() {
+            return lastUsed;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package org.linghu.mybackend.service.impl;
+
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeTaskFilesDTO;
+import org.linghu.mybackend.service.JudgeFileCacheService;
+import org.linghu.mybackend.util.GoJudgeClient;
+import org.linghu.mybackend.util.MinioUtil;
+import org.linghu.mybackend.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * go-judge文件缓存服务实现类
+ * 每次评测前列出任务目录比较ETag，只有新增或修改的文件才重新上传
+ * 任务目录下testcases/中的文件作为测试用例：{name}.in为标准输入，{name}.out为期望输出，
+ * 可选的cases.json配置各用例的分值权重，格式为{"用例名称": 权重}
+ * 被替换或失效的fileId可能仍被正在进行的评测引用，等待评测任务的超时回收时间后才从go-judge中删除
+ */
+@Service
+public class JudgeFileCacheServiceImpl implements JudgeFileCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeFileCacheServiceImpl.class);
+
+    private static final String TEST_CASE_DIR = "testcases/";
+    private static final String TEST_CASE_WEIGHTS = "cases.json";
+    private static final String INPUT_SUFFIX = ".in";
+    private static final String OUTPUT_SUFFIX = ".out";
+    private static final String NODE_SEPARATOR = "|";
+
+    private final MinioUtil minioUtil;
+    private final GoJudgeClient goJudgeClient;
+    private final JudgeConfig judgeConfig;
+    private final LongSupplier nanoClock;
+
+    // 节点地址|实验ID/任务ID -> 已上传到该节点的任务文件
+    private final Map<String, JudgeTaskFilesDTO> cache = new ConcurrentHashMap<>();
+    // 同一任务的上传串行执行，不同任务互不阻塞
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    // 等待删除的文件，宽限期固定，按加入顺序即按到期顺序排列
+    private final Queue<RetiredFile> retiredFiles = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public JudgeFileCacheServiceImpl(MinioUtil minioUtil, GoJudgeClient goJudgeClient, JudgeConfig judgeConfig) {
+        this(minioUtil, goJudgeClient, judgeConfig, System::nanoTime);
+    }
+
+    JudgeFileCacheServiceImpl(MinioUtil minioUtil, GoJudgeClient goJudgeClient, JudgeConfig judgeConfig,
+                              LongSupplier nanoClock) {
+        this.minioUtil = minioUtil;
+        this.goJudgeClient = goJudgeClient;
+        this.judgeConfig = judgeConfig;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public String getTaskVersion(String experimentId, String taskId) {
+        return computeVersion(listTaskObjects(taskPrefix(experimentId, taskId)));
+    }
+
+    @Override
+    public JudgeTaskFilesDTO getTaskFiles(String nodeUrl, String experimentId, String taskId) {
+        String key = cacheKey(nodeUrl, experimentId, taskId);
+        String prefix = taskPrefix(experimentId, taskId);
+
+        // 列出任务目录只需一次请求，用于判断缓存是否仍然有效
+        Map<String, String> etags = listTaskObjects(prefix);
+        String version = computeVersion(etags);
+
+        JudgeTaskFilesDTO cached = cache.get(key);
+        if (cached != null && cached.getVersion().equals(version)) {
+            return cached;
+        }
+
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            cached = cache.get(key);
+            if (cached != null && cached.getVersion().equals(version)) {
+                return cached;
+            }
+
+            // 按对象名索引旧缓存，ETag未变的文件直接复用fileId
+            Map<String, JudgeTaskFilesDTO.CachedFile> previous = new HashMap<>();
+            if (cached != null) {
+                for (JudgeTaskFilesDTO.CachedFile file : cached.getFiles().values()) {
+                    previous.put(file.getObjectName(), file);
+                }
+                for (JudgeTaskFilesDTO.TestCase testCase : cached.getTestCases()) {
+                    if (testCase.getInput() != null) {
+                        previous.put(testCase.getInput().getObjectName(), testCase.getInput());
+                    }
+                }
+            }
+
+            Map<String, JudgeTaskFilesDTO.CachedFile> files = new LinkedHashMap<>();
+            Map<String, JudgeTaskFilesDTO.CachedFile> inputs = new HashMap<>();
+            Map<String, String> outputs = new TreeMap<>();
+            Map<String, Integer> weights = Collections.emptyMap();
+            for (Map.Entry<String, String> entry : etags.entrySet()) {
+                String objectName = entry.getKey();
+                String relativePath = objectName.substring(prefix.length());
+
+                // 测试用例不放入沙箱，避免学生程序读取到期望输出
+                if (relativePath.startsWith(TEST_CASE_DIR)) {
+                    String fileName = relativePath.substring(TEST_CASE_DIR.length());
+                    if (fileName.equals(TEST_CASE_WEIGHTS)) {
+                        weights = readWeights(objectName);
+                    } else if (fileName.endsWith(OUTPUT_SUFFIX)) {
+                        outputs.put(stripSuffix(fileName, OUTPUT_SUFFIX), objectName);
+                    } else if (fileName.endsWith(INPUT_SUFFIX)) {
+                        inputs.put(stripSuffix(fileName, INPUT_SUFFIX),
+                                reuseOrUpload(nodeUrl, previous, objectName, entry.getValue()));
+                    }
+                    continue;
+                }
+
+                files.put(toSandboxPath(relativePath),
+                        reuseOrUpload(nodeUrl, previous, objectName, entry.getValue()));
+            }
+
+            // 只有存在期望输出的用例才参与评测，缺少输入文件时以空输入运行
+            List<JudgeTaskFilesDTO.TestCase> testCases = new ArrayList<>();
+            for (Map.Entry<String, String> output : outputs.entrySet()) {
+                String name = output.getKey();
+                testCases.add(JudgeTaskFilesDTO.TestCase.builder()
+                        .name(name)
+                        .weight(Math.max(0, weights.getOrDefault(name, 1)))
+                        .input(inputs.remove(name))
+                        .expectedObjectName(output.getValue())
+                        .build());
+            }
+            if (!inputs.isEmpty()) {
+                logger.warn("任务 {} 的测试用例 {} 缺少期望输出，已忽略", taskId, inputs.keySet());
+                previous.putAll(inputs);
+            }
+
+            JudgeTaskFilesDTO taskFiles = JudgeTaskFilesDTO.builder()
+                    .version(version)
+                    .files(files)
+                    .testCases(testCases)
+                    .build();
+            cache.put(key, taskFiles);
+            logger.info("任务 {} 的 {} 个公共文件和 {} 个测试用例已缓存到评测节点 {}，版本 {}",
+                    taskId, files.size(), testCases.size(), nodeUrl, version);
+
+            // 已被替换或删除的文件等正在进行的评测结束后再从go-judge中移除
+            previous.values().forEach(file -> retire(nodeUrl, file.getFileId()));
+            return taskFiles;
+        }
+    }
+
+    @Override
+    public void invalidate(String nodeUrl, String experimentId, String taskId) {
+        JudgeTaskFilesDTO removed = cache.remove(cacheKey(nodeUrl, experimentId, taskId));
+        if (removed != null) {
+            logger.info("任务 {} 在评测节点 {} 上的文件缓存已失效", taskId, nodeUrl);
+            removed.getFiles().values().forEach(file -> retire(nodeUrl, file.getFileId()));
+            removed.getTestCases().stream()
+                    .filter(testCase -> testCase.getInput() != null)
+                    .forEach(testCase -> retire(nodeUrl, testCase.getInput().getFileId()));
+        }
+    }
+
+    @Override
+    public void invalidate(String experimentId, String taskId) {
+        String suffix = NODE_SEPARATOR + experimentId + "/" + taskId;
+        for (String key : new ArrayList<>(cache.keySet())) {
+            if (key.endsWith(suffix)) {
+                invalidate(key.substring(0, key.length() - suffix.length()), experimentId, taskId);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateByObjectName(String objectName) {
+        if (objectName == null) {
+            return;
+        }
+        // 任务资源路径格式：{experimentId}/experiment/{taskId}/...
+        String[] parts = objectName.split("/");
+        if (parts.length >= 4 && "experiment".equals(parts[1])) {
+            invalidate(parts[0], parts[2]);
+        }
+    }
+
+    /**
+     * 定时删除已过宽限期的文件
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeRetiredFiles() {
+        long now = nanoClock.getAsLong();
+        RetiredFile file;
+        while ((file = retiredFiles.peek()) != null && file.deleteAfter() - now <= 0) {
+            if (retiredFiles.remove(file)) {
+                deleteQuietly(file.nodeUrl(), file.fileId());
+            }
+        }
+    }
+
+    int getRetiredFileCount() {
+        return retiredFiles.size();
+    }
+
+    /**
+     * 将文件加入待删除队列，宽限期与评测任务的超时回收时间一致，超过该时间仍在运行的评测已被视为失败
+     *
+     * @param nodeUrl 评测节点地址
+     * @param fileId  文件ID
+     */
+    private void retire(String nodeUrl, String fileId) {
+        long deleteAfter = nanoClock.getAsLong() + TimeUnit.MINUTES.toNanos(judgeConfig.getQueue().getStaleMinutes());
+        retiredFiles.add(new RetiredFile(nodeUrl, fileId, deleteAfter));
+    }
+
+    /**
+     * 将MinIO中的任务文件路径转换为评测沙箱内的路径，与学生提交一样去掉最外层目录
+     *
+     * @param relativePath 相对任务目录的路径
+     * @return 沙箱内的相对路径
+     */
+    static String toSandboxPath(String relativePath) {
+        int index = relativePath.indexOf('/');
+        return index >= 0 ? relativePath.substring(index + 1) : relativePath;
+    }
+
+    /**
+     * 计算内容的SHA-256摘要
+     *
+     * @param content 文件内容
+     * @return 十六进制摘要
+     */
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private Map<String, String> listTaskObjects(String prefix) {
+        Map<String, String> etags = new TreeMap<>();
+        try {
+            for (Result<Item> result : minioUtil.listObjects(MinioUtil.getResourceBucket(), prefix)) {
+                Item item = result.get();
+                String objectName = item.objectName();
+                // 跳过目录和原始压缩包
+                if (item.isDir() || objectName.endsWith("/") || objectName.contains("/original/")) {
+                    continue;
+                }
+                etags.put(objectName, item.etag());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("获取任务文件列表失败: " + e.getMessage(), e);
+        }
+        return etags;
+    }
+
+    private String computeVersion(Map<String, String> etags) {
+        StringBuilder builder = new StringBuilder();
+        etags.forEach((name, etag) -> builder.append(name).append(':').append(etag).append('\n'));
+        return sha256(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * ETag未变的文件沿用旧的fileId，否则重新上传
+     *
+     * @param nodeUrl    评测节点地址
+     * @param previous   旧缓存中尚未被复用的文件，复用后从中移除
+     * @param objectName MinIO中的对象名
+     * @param etag       当前ETag
+     * @return 缓存文件
+     */
+    private JudgeTaskFilesDTO.CachedFile reuseOrUpload(String nodeUrl,
+                                                       Map<String, JudgeTaskFilesDTO.CachedFile> previous,
+                                                       String objectName, String etag) {
+        JudgeTaskFilesDTO.CachedFile file = previous.get(objectName);
+        if (file != null && Objects.equals(file.getEtag(), etag)) {
+            previous.remove(objectName);
+            return file;
+        }
+        return uploadTaskFile(nodeUrl, objectName, etag);
+    }
+
+    /**
+     * 读取测试用例权重配置，格式错误时所有用例按相同权重计分
+     *
+     * @param objectName 配置文件对象名
+     * @return 用例名称 -> 权重
+     */
+    private Map<String, Integer> readWeights(String objectName) {
+        try (InputStream inputStream = minioUtil.downloadFile(objectName).getInputStream()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> config = JsonUtils.parseObject(
+                    new String(inputStream.readAllBytes(), StandardCharsets.UTF_8), Map.class);
+            Map<String, Integer> weights = new HashMap<>();
+            if (config != null) {
+                config.forEach((name, weight) -> {
+                    if (weight instanceof Number) {
+                        weights.put(name, ((Number) weight).intValue());
+                    }
+                });
+            }
+            return weights;
+        } catch (Exception e) {
+            logger.warn("读取测试用例权重配置 {} 失败: {}", objectName, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private String stripSuffix(String fileName, String suffix) {
+        return fileName.substring(0, fileName.length() - suffix.length());
+    }
+
+    private JudgeTaskFilesDTO.CachedFile uploadTaskFile(String nodeUrl, String objectName, String etag) {
+        try (InputStream inputStream = minioUtil.downloadFile(objectName).getInputStream()) {
+            byte[] content = inputStream.readAllBytes();
+            String fileName = objectName.substring(objectName.lastIndexOf('/') + 1);
+            String fileId = goJudgeClient.uploadFile(nodeUrl, fileName, content);
+            logger.debug("任务文件 {} 已上传到评测节点 {}，fileId: {}", objectName, nodeUrl, fileId);
+
+            return JudgeTaskFilesDTO.CachedFile.builder()
+                    .objectName(objectName)
+                    .etag(etag)
+                    .sha256(sha256(content))
+                    .fileId(fileId)
+                    .build();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("读取任务文件失败: " + objectName, e);
+        }
+    }
+
+    private void deleteQuietly(String nodeUrl, String fileId) {
+        try {
+            goJudgeClient.deleteFile(nodeUrl, fileId);
+        } catch (Exception e) {
+            logger.warn("删除评测节点 {} 的缓存文件 {} 失败: {}", nodeUrl, fileId, e.getMessage());
+        }
+    }
+
+    private String cacheKey(String nodeUrl, String experimentId, String taskId) {
+        return nodeUrl + NODE_SEPARATOR + experimentId + "/" + taskId;
+    }
+
+    private String taskPrefix(String experimentId, String taskId) {
+        return experimentId + "/experiment/" + taskId + "/";
+    }
+
+    private static final class RetiredFile {
+        private final String nodeUrl;
+        private final String fileId;
+        private final long deleteAfter;
+
+        RetiredFile(String nodeUrl, String fileId, long deleteAfter) {
+            this.nodeUrl = nodeUrl;
+            this.fileId = fileId;
+            this.deleteAfter = deleteAfter;
+        }
+
+        String nodeUrl() {
+            return nodeUrl;
+        }
+
+        String fileId() {
+            return fileId;
+        }
+
+        long deleteAfter() {
+            return deleteAfter;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.linghu.mybackend.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.exception.BusinessException;
+import org.linghu.mybackend.service.JudgeInputService;
+import org.linghu.mybackend.util.MinioUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 评测输入准备服务实现类
+ * 所有提交文件的GET请求并发发出；每个文件在读取内容前按Content-Length检查剩余的总大小额度，
+ * 超出时取消其余请求，避免先把超大的提交读入内存
+ */
+@Service
+public class JudgeInputServiceImpl implements JudgeInputService {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeInputServiceImpl.class);
+
+    // 对象名中相对路径之前的层级数：userId/experimentId/taskId/timestamp/根目录
+    private static final int PATH_PREFIX_DEPTH = 5;
+
+    private final MinioUtil minioUtil;
+    private final JudgeConfig judgeConfig;
+    private final ExecutorService fetchExecutor;
+
+    @Autowired
+    public JudgeInputServiceImpl(MinioUtil minioUtil, JudgeConfig judgeConfig) {
+        this.minioUtil = minioUtil;
+        this.judgeConfig = judgeConfig;
+        this.fetchExecutor = Executors.newFixedThreadPool(Math.max(1, judgeConfig.getFetch().getParallelism()),
+                new CustomizableThreadFactory("judge-fetch-"));
+    }
+
+    @Override
+    public Map<String, byte[]> loadSubmissionFiles(List<String> objectNames) {
+        long maxTotalBytes = judgeConfig.getFetch().getMaxTotalBytes();
+        AtomicLong remaining = new AtomicLong(maxTotalBytes);
+
+        List<Future<byte[]>> futures = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            futures.add(fetchExecutor.submit(() -> fetch(objectName, remaining)));
+        }
+
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < objectNames.size(); i++) {
+                byte[] content = futures.get(i).get();
+                String relativePath = toRelativePath(objectNames.get(i));
+                files.put(relativePath, content);
+                logger.debug("获取到文件 {}, 大小: {} 字节", relativePath, content.length);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BusinessException && ((BusinessException) cause).getCode() == 413) {
+                throw new BusinessException(413, "提交的代码文件总大小超过限制（" + maxTotalBytes + "字节）");
+            }
+            throw new RuntimeException("读取提交的代码文件失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("读取提交的代码文件被中断", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return files;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 在剩余额度内读取单个文件，读取后扣减额度
+     */
+    private byte[] fetch(String objectName, AtomicLong remaining) throws Exception {
+        long budget = remaining.get();
+        if (budget < 0) {
+            throw new BusinessException(413, "文件大小超过限制: " + objectName);
+        }
+        byte[] content = minioUtil.readObject(objectName, budget);
+        if (remaining.addAndGet(-content.length) < 0) {
+            throw new BusinessException(413, "文件大小超过限制: " + objectName);
+        }
+        return content;
+    }
+
+    /**
+     * 提取评测沙箱内的相对路径，保留目录结构
+     */
+    private String toRelativePath(String objectName) {
+        String[] pathParts = objectName.split("/");
+        return String.join("/", Arrays.copyOfRange(pathParts, PATH_PREFIX_DEPTH, pathParts.length));
+    }
+}
@@ -0,0 +1,511 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.domain.*;
+import org.linghu.mybackend.dto.ExperimentEvaluationDTO;
+import org.linghu.mybackend.dto.JudgeCaseResultDTO;
+import org.linghu.mybackend.dto.JudgeJobDTO;
+import org.linghu.mybackend.exception.ResourceNotFoundException;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+import org.linghu.mybackend.exception.UnauthorizedException;
+import org.linghu.mybackend.repository.*;
+import org.linghu.mybackend.service.CodeEvaluationService;
+import org.linghu.mybackend.service.JudgeAdmissionService;
+import org.linghu.mybackend.service.JudgeQueueService;
+import org.linghu.mybackend.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 代码评测队列服务实现类
+ * 评测任务持久化在judge_job表中，由有界线程池消费；线程池已满时任务留在数据库中，由定时调度补发
+ * 超出评测预算的任务同样留在数据库中，定时调度重新申请准入令牌成功后才派发
+ */
+@Service
+public class JudgeQueueServiceImpl implements JudgeQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeQueueServiceImpl.class);
+
+    private final JudgeJobRepository judgeJobRepository;
+    private final ExperimentSubmissionRepository submissionRepository;
+    private final ExperimentTaskRepository experimentTaskRepository;
+    private final ExperimentEvaluationRepository evaluationRepository;
+    private final UserRepository userRepository;
+    private final CodeEvaluationService codeEvaluationService;
+    private final JudgeAdmissionService judgeAdmissionService;
+    private final JudgeConfig judgeConfig;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor workers;
+    // 已交给线程池但尚未结束的任务，避免定时调度重复派发
+    private final Set<String> dispatchedJobs = ConcurrentHashMap.newKeySet();
+    // 提交ID -> 本实例创建且尚未结束的任务，同一提交的并发评测请求合并到同一个任务
+    private final Map<String, JudgeJob> inFlightJobs = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Timer waitTimer;
+    private final Timer runTimer;
+    private final Counter coalescedCounter;
+
+    @Autowired
+    public JudgeQueueServiceImpl(
+            JudgeJobRepository judgeJobRepository,
+            ExperimentSubmissionRepository submissionRepository,
+            ExperimentTaskRepository experimentTaskRepository,
+            ExperimentEvaluationRepository evaluationRepository,
+            UserRepository userRepository,
+            CodeEvaluationService codeEvaluationService,
+            JudgeAdmissionService judgeAdmissionService,
+            JudgeConfig judgeConfig,
+            MeterRegistry meterRegistry) {
+        this.judgeJobRepository = judgeJobRepository;
+        this.submissionRepository = submissionRepository;
+        this.experimentTaskRepository = experimentTaskRepository;
+        this.evaluationRepository = evaluationRepository;
+        this.userRepository = userRepository;
+        this.codeEvaluationService = codeEvaluationService;
+        this.judgeAdmissionService = judgeAdmissionService;
+        this.judgeConfig = judgeConfig;
+        this.meterRegistry = meterRegistry;
+
+        JudgeConfig.Queue queueConfig = judgeConfig.getQueue();
+        this.workers = new ThreadPoolExecutor(
+                queueConfig.getWorkers(), queueConfig.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueConfig.getCapacity()),
+                new CustomizableThreadFactory("judge-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // 注册评测队列监控指标
+        Gauge.builder("judge.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("等待工作线程执行的评测任务数")
+                .register(meterRegistry);
+        Gauge.builder("judge.queue.backlog", backlog, AtomicLong::get)
+                .description("数据库中排队的评测任务数")
+                .register(meterRegistry);
+        Gauge.builder("judge.workers.active", workers, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行评测的工作线程数")
+                .register(meterRegistry);
+        Gauge.builder("judge.workers.utilization", workers,
+                        executor -> (double) executor.getActiveCount() / executor.getMaximumPoolSize())
+                .description("评测工作线程利用率")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("judge.queue.wait")
+                .description("评测任务排队等待时间")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("judge.job.duration")
+                .description("评测任务执行时间")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("judge.requests.coalesced")
+                .description("合并到进行中任务的评测请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional
+    public JudgeJobDTO enqueue(ExperimentSubmission submission) {
+        JudgeJob inFlight = findInFlight(submission.getId());
+        if (inFlight != null) {
+            coalescedCounter.increment();
+            return convertToDTO(inFlight);
+        }
+        // 同一提交已有进行中的任务时不重复排队
+        JudgeJob latest = judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc(submission.getId())
+                .orElse(null);
+        if (latest != null && !latest.isFinished()) {
+            return convertToDTO(latest);
+        }
+        // 提交记录与任务在同一事务中保存，超出评测预算时任务照常入库，令牌补充后再派发
+        return convertToDTO(createJob(submission, true));
+    }
+
+    @Override
+    @Transactional
+    public JudgeJobDTO requestEvaluation(ExperimentSubmission submission) {
+        // 并发的评测请求可能还看不到其他请求尚未提交的任务，先合并到本实例进行中的任务
+        JudgeJob inFlight = findInFlight(submission.getId());
+        if (inFlight != null) {
+            coalescedCounter.increment();
+            return convertToDTO(inFlight);
+        }
+        JudgeJob latest = judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc(submission.getId())
+                .orElse(null);
+
+        // 排队中、运行中或已有评测结果的任务直接返回，评测服务异常的任务重新排队
+        if (latest != null && latest.getStatus() != JudgeJob.JobStatus.ERROR) {
+            return convertToDTO(latest);
+        }
+        return convertToDTO(createJob(submission, false));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public JudgeJobDTO getJob(String jobId, String username) {
+        return convertToDTO(findOwnedJob(jobId, username));
+    }
+
+    @Override
+    public SseEmitter streamJob(String jobId, String username) {
+        JudgeJob job = findOwnedJob(jobId, username);
+        SseEmitter emitter = new SseEmitter(judgeConfig.getQueue().getStreamTimeout() * 1000L);
+
+        if (job.isFinished()) {
+            sendAndComplete(emitter, convertToDTO(job));
+            return emitter;
+        }
+
+        List<SseEmitter> jobEmitters = emitters.computeIfAbsent(jobId, key -> new CopyOnWriteArrayList<>());
+        jobEmitters.add(emitter);
+        emitter.onCompletion(() -> removeEmitter(jobId, emitter));
+        emitter.onTimeout(() -> removeEmitter(jobId, emitter));
+        emitter.onError(e -> removeEmitter(jobId, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().name("status").data(convertToDTO(job)));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+
+        // 注册期间任务可能已经结束，重新检查一次避免遗漏推送
+        judgeJobRepository.findById(jobId)
+                .filter(JudgeJob::isFinished)
+                .ifPresent(this::notifyFinished);
+        return emitter;
+    }
+
+    /**
+     * 定时调度：回收超时的运行中任务，并将数据库中排队的任务派发给工作线程
+     * 应用重启后遗留的任务也由此恢复执行；超出评测预算的任务需重新申请到准入令牌才派发
+     */
+    @Scheduled(fixedDelayString = "${judge.service.queue.sweep-interval-ms:5000}",
+            initialDelayString = "${judge.service.queue.sweep-interval-ms:5000}")
+    public void sweep() {
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(judgeConfig.getQueue().getStaleMinutes());
+            int requeued = judgeJobRepository.requeueStale(staleBefore);
+            if (requeued > 0) {
+                logger.warn("{} 个评测任务运行超时，已重新排队", requeued);
+            }
+
+            backlog.set(judgeJobRepository.countByStatus(JudgeJob.JobStatus.QUEUED));
+
+            // 由其他实例执行的任务不会在本实例结束，超时后清理对应的合并记录
+            inFlightJobs.values().removeIf(job -> job.getCreatedAt().isBefore(staleBefore));
+
+            int free = workers.getQueue().remainingCapacity();
+            if (free <= 0) {
+                return;
+            }
+            // 已通过准入控制的任务优先派发
+            List<JudgeJob> queued = judgeJobRepository.findByStatusAndAdmittedOrderByCreatedAtAsc(
+                    JudgeJob.JobStatus.QUEUED, true, PageRequest.of(0, free));
+            for (JudgeJob job : queued) {
+                dispatch(job.getId());
+            }
+
+            free -= queued.size();
+            if (free <= 0) {
+                return;
+            }
+            // 令牌仍未补充的任务留在队列中等待下次调度
+            List<JudgeJob> deferred = judgeJobRepository.findByStatusAndAdmittedOrderByCreatedAtAsc(
+                    JudgeJob.JobStatus.QUEUED, false, PageRequest.of(0, free));
+            for (JudgeJob job : deferred) {
+                if (admit(job)) {
+                    dispatch(job.getId());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("评测队列调度失败: " + e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * 查找本实例中该提交进行中的任务，已结束的任务从合并记录中移除
+     */
+    private JudgeJob findInFlight(String submissionId) {
+        JudgeJob tracked = inFlightJobs.get(submissionId);
+        if (tracked == null) {
+            return null;
+        }
+        // 创建任务的事务尚未提交时数据库中还查不到，直接使用内存中的任务
+        JudgeJob current = judgeJobRepository.findById(tracked.getId()).orElse(tracked);
+        if (current.isFinished()) {
+            inFlightJobs.remove(submissionId, tracked);
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * 创建评测任务，事务提交后再派发，保证工作线程能读到任务和提交记录
+     * 同一提交的并发请求只有一个能创建任务，且只有新建任务时才消耗准入令牌
+     *
+     * @param submission        学生提交
+     * @param deferWhenRejected 超出评测预算时是否仍保存任务；为true时任务留在队列中，令牌补充后由定时调度派发，
+     *                          否则直接抛出TooManyRequestsException
+     */
+    private JudgeJob createJob(ExperimentSubmission submission, boolean deferWhenRejected) {
+        JudgeJob job = JudgeJob.builder()
+                .id(UUID.randomUUID().toString())
+                .submissionId(submission.getId())
+                .taskId(submission.getTaskId())
+                .userId(submission.getUserId())
+                .status(JudgeJob.JobStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        JudgeJob existing = inFlightJobs.putIfAbsent(submission.getId(), job);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return existing;
+        }
+
+        JudgeJob savedJob;
+        boolean admitted = true;
+        try {
+            try {
+                judgeAdmissionService.acquire(submission.getUserId(), findExperimentId(submission.getTaskId()));
+            } catch (TooManyRequestsException e) {
+                if (!deferWhenRejected) {
+                    throw e;
+                }
+                admitted = false;
+            }
+            job.setAdmitted(admitted);
+            savedJob = judgeJobRepository.save(job);
+        } catch (RuntimeException e) {
+            inFlightJobs.remove(submission.getId(), job);
+            throw e;
+        }
+        if (admitted) {
+            logger.info("提交 {} 的评测任务 {} 已进入队列", submission.getId(), savedJob.getId());
+        } else {
+            logger.info("提交 {} 超出评测预算，评测任务 {} 等待令牌补充后由定时调度派发", submission.getId(), savedJob.getId());
+        }
+
+        boolean dispatchNow = admitted;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    if (dispatchNow) {
+                        dispatch(savedJob.getId());
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        inFlightJobs.remove(submission.getId(), job);
+                    }
+                }
+            });
+        } else if (dispatchNow) {
+            dispatch(savedJob.getId());
+        }
+        return savedJob;
+    }
+
+    /**
+     * 为超出评测预算的任务重新申请准入令牌
+     *
+     * @param job 排队中的任务
+     * @return 是否已通过准入控制，令牌不足时返回false
+     */
+    private boolean admit(JudgeJob job) {
+        try {
+            judgeAdmissionService.acquire(job.getUserId(), findExperimentId(job.getTaskId()));
+        } catch (TooManyRequestsException e) {
+            logger.debug("评测任务 {} 仍超出评测预算，等待下次调度", job.getId());
+            return false;
+        }
+        return judgeJobRepository.admit(job.getId()) > 0;
+    }
+
+    private String findExperimentId(String taskId) {
+        return experimentTaskRepository.findById(taskId)
+                .map(ExperimentTask::getExperimentId)
+                .orElse(null);
+    }
+
+    /**
+     * 将任务交给工作线程池，线程池已满时任务保留在数据库中等待定时调度
+     */
+    private void dispatch(String jobId) {
+        if (!dispatchedJobs.add(jobId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> runJob(jobId));
+        } catch (RejectedExecutionException e) {
+            dispatchedJobs.remove(jobId);
+            logger.warn("评测队列已满，任务 {} 等待后续调度", jobId);
+        }
+    }
+
+    /**
+     * 执行评测任务
+     */
+    private void runJob(String jobId) {
+        try {
+            // 领取任务，多实例部署时只有一个节点能领取成功
+            if (judgeJobRepository.claim(jobId, LocalDateTime.now()) == 0) {
+                return;
+            }
+            JudgeJob job = judgeJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                return;
+            }
+            waitTimer.record(Duration.between(job.getCreatedAt(), job.getStartedAt()));
+
+            long start = System.nanoTime();
+            try {
+                ExperimentSubmission submission = submissionRepository.findById(job.getSubmissionId())
+                        .orElseThrow(() -> new RuntimeException("提交记录不存在"));
+                ExperimentTask task = experimentTaskRepository.findById(job.getTaskId())
+                        .orElseThrow(() -> new RuntimeException("实验任务不存在"));
+
+                ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, job.getUserId());
+                job.setEvaluationId(evaluation.getId());
+                // 如有编译或运行错误，任务标记为FAILED
+                boolean hasError = evaluation.getErrorMessage() != null && !evaluation.getErrorMessage().isEmpty();
+                job.setStatus(hasError ? JudgeJob.JobStatus.FAILED : JudgeJob.JobStatus.SUCCESS);
+            } catch (Exception e) {
+                logger.error("代码评测失败: " + e.getMessage(), e);
+                job.setStatus(JudgeJob.JobStatus.ERROR);
+                job.setErrorMessage("代码评测失败: " + e.getMessage());
+            }
+            runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            job.setFinishedAt(LocalDateTime.now());
+            // 按领取次数条件更新，任务已被超时回收时不覆盖新的执行结果
+            if (judgeJobRepository.complete(job.getId(), job.getAttempt(), job.getStatus(),
+                    job.getEvaluationId(), job.getErrorMessage(), job.getFinishedAt()) == 0) {
+                logger.warn("评测任务 {} 第 {} 次执行已被超时回收，丢弃本次结果", jobId, job.getAttempt());
+                return;
+            }
+            Counter.builder("judge.jobs.completed")
+                    .tag("status", job.getStatus().name())
+                    .register(meterRegistry)
+                    .increment();
+
+            inFlightJobs.computeIfPresent(job.getSubmissionId(),
+                    (submissionId, tracked) -> tracked.getId().equals(job.getId()) ? null : tracked);
+            notifyFinished(job);
+        } catch (Exception e) {
+            logger.error("评测任务 " + jobId + " 执行异常: " + e.getMessage(), e);
+        } finally {
+            dispatchedJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * 向订阅者推送任务最终结果
+     */
+    private void notifyFinished(JudgeJob job) {
+        List<SseEmitter> jobEmitters = emitters.remove(job.getId());
+        if (jobEmitters == null || jobEmitters.isEmpty()) {
+            return;
+        }
+        JudgeJobDTO dto = convertToDTO(job);
+        for (SseEmitter emitter : jobEmitters) {
+            sendAndComplete(emitter, dto);
+        }
+    }
+
+    private void sendAndComplete(SseEmitter emitter, JudgeJobDTO dto) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(dto));
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void removeEmitter(String jobId, SseEmitter emitter) {
+        List<SseEmitter> jobEmitters = emitters.get(jobId);
+        if (jobEmitters != null) {
+            jobEmitters.remove(emitter);
+        }
+    }
+
+    private JudgeJob findOwnedJob(String jobId, String username) {
+        JudgeJob job = judgeJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("评测任务不存在"));
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+        if (!job.getUserId().equals(user.getId())) {
+            throw new UnauthorizedException("无权查看该评测任务");
+        }
+        return job;
+    }
+
+    private JudgeJobDTO convertToDTO(JudgeJob job) {
+        ExperimentEvaluationDTO evaluationDTO = null;
+        if (job.getEvaluationId() != null) {
+            evaluationDTO = evaluationRepository.findById(job.getEvaluationId())
+                    .map(evaluation -> convertToEvaluationDTO(job, evaluation))
+                    .orElse(null);
+        }
+
+        return JudgeJobDTO.builder()
+                .id(job.getId())
+                .submissionId(job.getSubmissionId())
+                .taskId(job.getTaskId())
+                .status(job.getStatus().name())
+                .errorMessage(job.getErrorMessage())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .evaluation(evaluationDTO)
+                .build();
+    }
+
+    private ExperimentEvaluationDTO convertToEvaluationDTO(JudgeJob job, ExperimentEvaluation evaluation) {
+        ExperimentSubmission submission = submissionRepository.findById(job.getSubmissionId()).orElse(null);
+
+        return ExperimentEvaluationDTO.builder()
+                .id(evaluation.getId())
+                .submissionId(evaluation.getSubmissionId())
+                .score(evaluation.getScore())
+                .errorMessage(evaluation.getErrorMessage())
+                .additionalInfo(evaluation.getAdditionalInfo())
+                .caseResults(JsonUtils.parseList(evaluation.getCaseResults(), JudgeCaseResultDTO.class))
+                .taskId(job.getTaskId())
+                .userId(job.getUserId())
+                .submitTime(submission != null ? submission.getSubmitTime() : null)
+                .userAnswer(submission != null ? submission.getUserAnswer() : null)
+                .status(job.getStatus().name())
+                .jobId(job.getId())
+                .build();
+    }
+}
@@ -0,0 +1,279 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.linghu.mybackend.repository.LoginLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 登录失败滑动窗口计数器
+ * 按用户和IP各维护一个以分钟为粒度的环形计数窗口，由登录失败事件实时更新，
+ * 锁定判断和可疑IP查询直接读取内存计数，不再对login_logs执行COUNT/GROUP BY。
+ * 启动后先从数据库回放窗口内的失败记录，回放完成前以及无法准确回答时由调用方回退到数据库查询
+ */
+@Component
+public class LoginAttemptTracker {
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptTracker.class);
+
+    private final LoginLogRepository loginLogRepository;
+    private final LongSupplier clock;
+    private final int windowMinutes;
+    private final int maxKeys;
+    private final long startedAt;
+
+    private final Map<String, SlidingWindowCounter> userCounters = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> ipCounters = new ConcurrentHashMap<>();
+    private final AtomicLong userOverflowAt = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong ipOverflowAt = new AtomicLong(Long.MIN_VALUE);
+    private final Counter untrackedCounter;
+    private volatile boolean warmedUp;
+
+    @Autowired
+    public LoginAttemptTracker(
+            LoginLogRepository loginLogRepository,
+            MeterRegistry meterRegistry,
+            @Value("${login-log.tracker.window-minutes:60}") int windowMinutes,
+            @Value("${login-log.tracker.max-keys:100000}") int maxKeys) {
+        this(loginLogRepository, meterRegistry, windowMinutes, maxKeys, System::currentTimeMillis);
+    }
+
+    LoginAttemptTracker(LoginLogRepository loginLogRepository, MeterRegistry meterRegistry,
+                        int windowMinutes, int maxKeys, LongSupplier clock) {
+        this.loginLogRepository = loginLogRepository;
+        this.clock = clock;
+        this.windowMinutes = Math.max(1, windowMinutes);
+        this.maxKeys = Math.max(1, maxKeys);
+        this.startedAt = clock.getAsLong();
+
+        Gauge.builder("login.attempts.tracked", userCounters, Map::size)
+                .tag("scope", "user")
+                .description("内存中跟踪登录失败次数的键数量")
+                .register(meterRegistry);
+        Gauge.builder("login.attempts.tracked", ipCounters, Map::size)
+                .tag("scope", "ip")
+                .description("内存中跟踪登录失败次数的键数量")
+                .register(meterRegistry);
+        this.untrackedCounter = Counter.builder("login.attempts.untracked")
+                .description("因键数量达到上限未能跟踪的登录失败事件数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次登录失败
+     */
+    public void recordFailure(String userId, String ipAddress) {
+        recordFailure(userId, ipAddress, clock.getAsLong());
+    }
+
+    /**
+     * 查询用户在最近若干分钟内的失败次数
+     *
+     * @return 失败次数；无法由内存准确回答时返回-1
+     */
+    public long countUserFailures(String userId, int minutes) {
+        if (!canAnswer(minutes, userOverflowAt)) {
+            return -1;
+        }
+        SlidingWindowCounter counter = userCounters.get(userId);
+        return counter == null ? 0 : counter.sum(currentMinute(), minutes);
+    }
+
+    /**
+     * 查询最近若干分钟内失败次数达到阈值的IP
+     *
+     * @return IP地址和失败次数的映射；无法由内存准确回答时返回null
+     */
+    public Map<String, Long> findSuspiciousIps(long threshold, int minutes) {
+        if (!canAnswer(minutes, ipOverflowAt)) {
+            return null;
+        }
+        long now = currentMinute();
+        Map<String, Long> result = new HashMap<>();
+        ipCounters.forEach((ip, counter) -> {
+            long failures = counter.sum(now, minutes);
+            if (failures >= threshold) {
+                result.put(ip, failures);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 启动后从数据库回放窗口内、本实例启动前的失败记录，启动后的记录已由事件实时计入
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        LocalDateTime until = toLocalDateTime(startedAt);
+        LocalDateTime since = until.minusMinutes(windowMinutes);
+        try {
+            List<Object[]> rows = loginLogRepository.findFailedAttemptsBetween(since, until);
+            for (Object[] row : rows) {
+                long time = ((LocalDateTime) row[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                recordFailure((String) row[0], (String) row[1], time);
+            }
+            warmedUp = true;
+            logger.info("已从数据库回放 {} 条登录失败记录", rows.size());
+        } catch (Exception e) {
+            logger.warn("回放登录失败记录失败，暂时回退到数据库查询: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期清理空闲键，并在启动回放失败时重试
+     */
+    @Scheduled(fixedDelayString = "${login-log.tracker.evict-interval-ms:60000}")
+    public void evictIdle() {
+        if (!warmedUp) {
+            warmUp();
+        }
+        long oldest = currentMinute() - windowMinutes;
+        evictIdle(userCounters, oldest);
+        evictIdle(ipCounters, oldest);
+    }
+
+    /**
+     * 在键的原子操作中再次确认计数器仍然空闲后才移除，避免移除刚开始计数的键
+     */
+    private void evictIdle(Map<String, SlidingWindowCounter> counters, long oldest) {
+        for (String key : counters.keySet()) {
+            counters.computeIfPresent(key, (k, counter) -> counter.lastMinute() < oldest ? null : counter);
+        }
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    private void recordFailure(String userId, String ipAddress, long timeMillis) {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(timeMillis);
+        if (userId != null) {
+            record(userCounters, userOverflowAt, userId, minute);
+        }
+        if (ipAddress != null) {
+            record(ipCounters, ipOverflowAt, ipAddress, minute);
+        }
+    }
+
+    private void record(Map<String, SlidingWindowCounter> counters, AtomicLong overflowAt, String key, long minute) {
+        SlidingWindowCounter counter = counters.get(key);
+        while (true) {
+            if (counter == null) {
+                if (counters.size() >= maxKeys) {
+                    overflowAt.set(clock.getAsLong());
+                    untrackedCounter.increment();
+                    return;
+                }
+                counter = counters.computeIfAbsent(key, k -> new SlidingWindowCounter(windowMinutes + 1));
+            }
+            counter.increment(minute);
+            // 取到计数器后到计数前该键可能被清理，计数落在已移除的计数器上时改记到当前计数器
+            SlidingWindowCounter current = counters.get(key);
+            if (current == counter) {
+                return;
+            }
+            counter = current;
+        }
+    }
+
+    /**
+     * 已完成回放、查询范围不超过窗口，且窗口内没有因键数量上限丢失过事件时才由内存回答
+     */
+    private boolean canAnswer(int minutes, AtomicLong overflowAt) {
+        if (!warmedUp || minutes > windowMinutes) {
+            return false;
+        }
+        long lastOverflow = overflowAt.get();
+        return lastOverflow == Long.MIN_VALUE
+                || clock.getAsLong() - lastOverflow > TimeUnit.MINUTES.toMillis(windowMinutes);
+    }
+
+    private long currentMinute() {
+        return TimeUnit.MILLISECONDS.toMinutes(clock.getAsLong());
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 以分钟为粒度的无锁环形计数窗口
+     * 每个槽位用一个long同时保存所属分钟（高40位）和计数（低24位），通过CAS原子地重置过期槽位或累加计数
+     */
+    static final class SlidingWindowCounter {
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray slots;
+        private final AtomicLong lastMinute = new AtomicLong();
+
+        SlidingWindowCounter(int slotCount) {
+            this.slots = new AtomicLongArray(slotCount);
+        }
+
+        void increment(long minute) {
+            int index = (int) (minute % slots.length());
+            while (true) {
+                long current = slots.get(index);
+                long slotMinute = current >>> COUNT_BITS;
+                long next;
+                if (slotMinute == minute) {
+                    if ((current & COUNT_MASK) == COUNT_MASK) {
+                        break;
+                    }
+                    next = current + 1;
+                } else if (slotMinute < minute) {
+                    next = (minute << COUNT_BITS) | 1;
+                } else {
+                    // 槽位已被更新的分钟占用，该事件已在窗口之外
+                    return;
+                }
+                if (slots.compareAndSet(index, current, next)) {
+                    break;
+                }
+            }
+            lastMinute.accumulateAndGet(minute, Math::max);
+        }
+
+        /**
+         * 统计[now - minutes, now]范围内各分钟的计数之和，包含最早一分钟的完整计数，结果不少于精确窗口
+         */
+        long sum(long now, int minutes) {
+            long total = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                long slot = slots.get(i);
+                long slotMinute = slot >>> COUNT_BITS;
+                if (slotMinute >= now - minutes && slotMinute <= now) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+
+        long lastMinute() {
+            return lastMinute.get();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.linghu.mybackend.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.linghu.mybackend.domain.LoginLog;
+import org.linghu.mybackend.repository.LoginLogRepository;
+import org.linghu.mybackend.util.MinioUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录日志保留清理任务
+ * 按created_at升序经idx_created_at索引每次取出一批过期日志，按ID删除后提交，
+ * 批次之间暂停一段时间，避免长事务和大范围锁影响在线写入；可选在删除前把该批日志以JSON Lines归档到MinIO
+ */
+@Component
+public class LoginLogRetentionJob {
+    private static final Logger logger = LoggerFactory.getLogger(LoginLogRetentionJob.class);
+
+    private static final String ARCHIVE_CONTENT_TYPE = "application/x-ndjson";
+    private static final DateTimeFormatter ARCHIVE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final LoginLogRepository loginLogRepository;
+    private final MinioUtil minioUtil;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final int maxChunksPerRun;
+    private final boolean archiveEnabled;
+    private final String archiveBucket;
+    private final String archivePrefix;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastRunDeleted = new AtomicLong();
+    private final Counter deletedCounter;
+    private final Counter archivedCounter;
+    private final Counter failedCounter;
+    private final Timer chunkTimer;
+
+    @Autowired
+    public LoginLogRetentionJob(
+            LoginLogRepository loginLogRepository,
+            MinioUtil minioUtil,
+            MeterRegistry meterRegistry,
+            @Value("${login-log.retention.enabled:true}") boolean enabled,
+            @Value("${login-log.retention.days:180}") int retentionDays,
+            @Value("${login-log.retention.chunk-size:1000}") int chunkSize,
+            @Value("${login-log.retention.pause-ms:200}") long pauseMs,
+            @Value("${login-log.retention.max-chunks-per-run:1000}") int maxChunksPerRun,
+            @Value("${login-log.retention.archive.enabled:false}") boolean archiveEnabled,
+            @Value("${login-log.retention.archive.bucket:}") String archiveBucket,
+            @Value("${login-log.retention.archive.prefix:login-logs/}") String archivePrefix) {
+        this.loginLogRepository = loginLogRepository;
+        this.minioUtil = minioUtil;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pauseMs = pauseMs;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveBucket = archiveBucket;
+        this.archivePrefix = archivePrefix;
+
+        Gauge.builder("login.log.retention.last.deleted", lastRunDeleted, AtomicLong::get)
+                .description("最近一次清理删除的登录日志数")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("login.log.retention.deleted")
+                .description("清理任务删除的登录日志数")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder("login.log.retention.archived")
+                .description("清理前归档到MinIO的登录日志数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("login.log.retention.failed")
+                .description("因异常中止的清理次数")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("login.log.retention.chunk")
+                .description("单批清理（归档和删除）耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 定时清理超过保留天数的登录日志
+     */
+    @Scheduled(cron = "${login-log.retention.cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        purgeOlderThan(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    /**
+     * 分批删除早于截止时间的登录日志；已有清理在执行时直接返回0
+     *
+     * @param cutoff 截止时间
+     * @return 本次删除的日志数
+     */
+    public long purgeOlderThan(LocalDateTime cutoff) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("登录日志清理正在执行，跳过本次请求");
+            return 0;
+        }
+        long deleted = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxChunksPerRun) {
+                int removed = chunkTimer.recordCallable(() -> purgeChunk(cutoff));
+                if (removed == 0) {
+                    break;
+                }
+                deleted += removed;
+                chunks++;
+                if (removed < chunkSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            if (chunks >= maxChunksPerRun) {
+                logger.info("登录日志清理达到单次批次上限 {}，剩余日志留待下次清理", maxChunksPerRun);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("登录日志清理被中断，已删除 {} 条", deleted);
+        } catch (Exception e) {
+            failedCounter.increment();
+            logger.error("登录日志清理失败，已删除 {} 条: {}", deleted, e.getMessage(), e);
+        } finally {
+            lastRunDeleted.set(deleted);
+            running.set(false);
+        }
+        if (deleted > 0) {
+            logger.info("已清理 {} 之前的登录日志 {} 条，共 {} 批", cutoff, deleted, chunks);
+        }
+        return deleted;
+    }
+
+    /**
+     * 处理一批过期日志：需要归档时先加载整行并上传，上传成功后才删除
+     *
+     * @return 本批删除的行数
+     */
+    private int purgeChunk(LocalDateTime cutoff) throws Exception {
+        Pageable firstChunk = PageRequest.of(0, chunkSize);
+        List<Long> ids;
+        if (archiveEnabled) {
+            List<LoginLog> logs = loginLogRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(cutoff, firstChunk);
+            if (logs.isEmpty()) {
+                return 0;
+            }
+            archive(logs);
+            ids = new ArrayList<>(logs.size());
+            for (LoginLog log : logs) {
+                ids.add(log.getId());
+            }
+        } else {
+            ids = loginLogRepository.findIdsByCreatedAtBefore(cutoff, firstChunk);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+        }
+        int removed = loginLogRepository.deleteByIdIn(ids);
+        deletedCounter.increment(removed);
+        return removed;
+    }
+
+    /**
+     * 以JSON Lines格式归档一批日志，对象名为 {prefix}yyyy/MM/dd/{首条ID}-{末条ID}.jsonl
+     */
+    private void archive(List<LoginLog> logs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (LoginLog log : logs) {
+            objectMapper.writeValue(out, log);
+            out.write('\n');
+        }
+        LoginLog first = logs.get(0);
+        LoginLog last = logs.get(logs.size() - 1);
+        String objectName = archivePrefix + first.getCreatedAt().format(ARCHIVE_DATE_FORMAT) + "/"
+                + first.getId() + "-" + last.getId() + ".jsonl";
+        String bucket = archiveBucket == null || archiveBucket.isBlank() ? minioUtil.getBucketName() : archiveBucket;
+        minioUtil.uploadBytes(bucket, objectName, out.toByteArray(), ARCHIVE_CONTENT_TYPE);
+        archivedCounter.increment(logs.size());
+    }
+}
@@ -22,12 +22,14 @@ import java.util.Map;
 public class LoginLogServiceImpl implements LoginLogService {
 
     private final LoginLogRepository loginLogRepository;
+    private final LoginLogWriter loginLogWriter;
+    private final LoginLogRetentionJob loginLogRetentionJob;
+    private final LoginAttemptTracker loginAttemptTracker;
 
     /**
-     * 记录登录成功的日志
+     * 记录登录成功的日志，由LoginLogWriter异步批量写入
      */
     @Override
-    @Transactional
     public LoginLog logSuccessfulLogin(String userId, String ipAddress, String deviceType, String loginInfo) {
         LoginLog loginLog = LoginLog.builder()
                 .userId(userId)
@@ -38,14 +40,14 @@ public class LoginLogServiceImpl implements LoginLogService {
                 .loginInfo(loginInfo)
                 .build();
         
-        return loginLogRepository.save(loginLog);
+        loginLogWriter.submit(loginLog);
+        return loginLog;
     }
 
     /**
-     * 记录登录失败的日志
+     * 记录登录失败的日志，由LoginLogWriter异步批量写入，同时计入滑动窗口计数
      */
     @Override
-    @Transactional
     public LoginLog logFailedLogin(String userId, String ipAddress, String deviceType, String failureReason, String loginInfo) {
         LoginLog loginLog = LoginLog.builder()
                 .userId(userId)
@@ -57,7 +59,9 @@ public class LoginLogServiceImpl implements LoginLogService {
                 .loginInfo(loginInfo)
                 .build();
         
-        return loginLogRepository.save(loginLog);
+        loginAttemptTracker.recordFailure(userId, ipAddress);
+        loginLogWriter.submit(loginLog);
+        return loginLog;
     }
 
     /**
@@ -79,22 +83,30 @@ public class LoginLogServiceImpl implements LoginLogService {
     }
     
     /**
-     * 检查用户是否被锁定（短时间内多次登录失败）
+     * 检查用户是否被锁定（短时间内多次登录失败），优先使用内存滑动窗口计数
      */
     @Override
     @Transactional(readOnly = true)
     public boolean isUserLocked(String userId, int lockThreshold, int minutes) {
+        long recentFailures = loginAttemptTracker.countUserFailures(userId, minutes);
+        if (recentFailures >= 0) {
+            return recentFailures >= lockThreshold;
+        }
         LocalDateTime timeAgo = LocalDateTime.now().minusMinutes(minutes);
         long failedAttempts = loginLogRepository.countRecentFailedAttempts(userId, timeAgo);
         return failedAttempts >= lockThreshold;
     }
     
     /**
-     * 获取可疑的登录活动
+     * 获取可疑的登录活动，优先使用内存滑动窗口计数
      */
     @Override
     @Transactional(readOnly = true)
     public Map<String, Long> getSuspiciousLoginActivities(int threshold, int minutes) {
+        Map<String, Long> trackedIps = loginAttemptTracker.findSuspiciousIps(threshold, minutes);
+        if (trackedIps != null) {
+            return trackedIps;
+        }
         LocalDateTime timeAgo = LocalDateTime.now().minusMinutes(minutes);
         List<Object[]> suspiciousIPs = loginLogRepository.findSuspiciousIPs(timeAgo, threshold);
         
@@ -109,17 +121,10 @@ public class LoginLogServiceImpl implements LoginLogService {
     }
     
     /**
-     * 清理旧的登录日志
+     * 清理旧的登录日志，由LoginLogRetentionJob按索引分批删除
      */
     @Override
-    @Transactional
     public long cleanupOldLogs(int days) {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(days);
-        List<LoginLog> oldLogs = loginLogRepository.findByCreatedAtBetween(
-            LocalDateTime.MIN, cutoffDate);
-        
-        long count = oldLogs.size();
-        loginLogRepository.deleteAll(oldLogs);
-        return count;
+        return loginLogRetentionJob.purgeOlderThan(LocalDateTime.now().minusDays(days));
     }
 }
@@ -0,0 +1,185 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.linghu.mybackend.domain.LoginLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录日志异步批量写入器
+ * 请求线程只把日志放入有界环形缓冲区，由后台线程通过JDBC批量插入；
+ * 缓冲区已满时丢弃日志并计数，每隔一定数量抽样记录一条被丢弃的日志，不阻塞请求
+ */
+@Component
+public class LoginLogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(LoginLogWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO login_logs " +
+            "(user_id, ip_address, device_type, status, failure_reason, created_at, login_info) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<LoginLog> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int dropSampleRate;
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong droppedTotal = new AtomicLong();
+
+    private ExecutorService writerThread;
+    private volatile boolean running;
+
+    @Autowired
+    public LoginLogWriter(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${login-log.async.capacity:10000}") int capacity,
+            @Value("${login-log.async.batch-size:200}") int batchSize,
+            @Value("${login-log.async.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${login-log.async.drop-sample-rate:100}") int dropSampleRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.dropSampleRate = Math.max(1, dropSampleRate);
+
+        Gauge.builder("login.log.buffer.size", buffer, BlockingQueue::size)
+                .description("等待写入的登录日志数")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("login.log.written")
+                .description("已写入数据库的登录日志数")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("login.log.dropped")
+                .description("缓冲区已满被丢弃的登录日志数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("login.log.write.failed")
+                .description("批量写入失败的登录日志数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("login-log-writer-"));
+        writerThread.execute(this::writeLoop);
+    }
+
+    /**
+     * 提交一条登录日志，缓冲区已满时立即返回false
+     */
+    public boolean submit(LoginLog loginLog) {
+        if (buffer.offer(loginLog)) {
+            return true;
+        }
+        droppedCounter.increment();
+        long dropped = droppedTotal.incrementAndGet();
+        if ((dropped - 1) % dropSampleRate == 0) {
+            logger.warn("登录日志缓冲区已满，已累计丢弃 {} 条，抽样: userId={}, ip={}, status={}, reason={}",
+                    dropped, loginLog.getUserId(), loginLog.getIpAddress(),
+                    loginLog.getStatus(), loginLog.getFailureReason());
+        }
+        return false;
+    }
+
+    /**
+     * 后台写入循环：等待第一条日志或刷新间隔到期，再取出最多batchSize条批量写入
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                LoginLog first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<LoginLog> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("登录日志写入线程异常: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 同步写出缓冲区中的全部日志
+     *
+     * @return 写出的日志数
+     */
+    int flush() {
+        int total = 0;
+        List<LoginLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            total += batch.size();
+            batch.clear();
+        }
+        return total;
+    }
+
+    private void writeBatch(List<LoginLog> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (LoginLog loginLog : batch) {
+            rows.add(new Object[]{
+                    loginLog.getUserId(),
+                    loginLog.getIpAddress(),
+                    loginLog.getDeviceType(),
+                    loginLog.getStatus(),
+                    loginLog.getFailureReason(),
+                    Timestamp.valueOf(loginLog.getCreatedAt()),
+                    loginLog.getLoginInfo()
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            writtenCounter.increment(batch.size());
+        } catch (Exception e) {
+            failedCounter.increment(batch.size());
+            logger.error("批量写入 {} 条登录日志失败: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 停止后台线程并写出剩余日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.shutdown();
+            try {
+                if (!writerThread.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS)) {
+                    writerThread.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                writerThread.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
@@ -0,0 +1,173 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.linghu.mybackend.domain.RefreshToken;
+import org.linghu.mybackend.exception.UserException;
+import org.linghu.mybackend.repository.RefreshTokenRepository;
+import org.linghu.mybackend.service.RefreshTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * 刷新令牌服务实现
+ * 令牌原文为32字节随机数，数据库只保存其SHA-256摘要；续期只需按摘要唯一索引查询一次，
+ * 再以条件更新标记已使用，不做密码校验
+ */
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final LongSupplier clock;
+    private final int expirationDays;
+
+    private final Counter issuedCounter;
+    private final Counter rotatedCounter;
+    private final Counter reusedCounter;
+
+    @Autowired
+    public RefreshTokenServiceImpl(
+            RefreshTokenRepository refreshTokenRepository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.refresh.expiration-days:14}") int expirationDays) {
+        this(refreshTokenRepository, meterRegistry, expirationDays, System::currentTimeMillis);
+    }
+
+    RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry,
+                            int expirationDays, LongSupplier clock) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.expirationDays = Math.max(1, expirationDays);
+        this.clock = clock;
+
+        this.issuedCounter = Counter.builder("auth.refresh.issued")
+                .description("登录时签发的刷新令牌数")
+                .register(meterRegistry);
+        this.rotatedCounter = Counter.builder("auth.refresh.rotated")
+                .description("续期时轮换的刷新令牌数")
+                .register(meterRegistry);
+        this.reusedCounter = Counter.builder("auth.refresh.reused")
+                .description("检测到已使用刷新令牌被重放、整个家族被吊销的次数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String issue(String userId, String username, int tokenVersion) {
+        String token = save(UUID.randomUUID().toString(), userId, username, tokenVersion,
+                now().plusDays(expirationDays));
+        issuedCounter.increment();
+        return token;
+    }
+
+    @Override
+    public String rotate(RefreshToken previous) {
+        String token = save(previous.getFamilyId(), previous.getUserId(), previous.getUsername(),
+                previous.getTokenVersion(), previous.getExpiresAt());
+        rotatedCounter.increment();
+        return token;
+    }
+
+    @Override
+    public RefreshToken consume(String refreshToken) {
+        RefreshToken record = find(refreshToken).orElseThrow(UserException::invalidRefreshToken);
+        if (Boolean.TRUE.equals(record.getRevoked())) {
+            // 已使用的令牌被再次提交，说明令牌可能已泄露，吊销整个家族
+            reused(record);
+            throw UserException.invalidRefreshToken();
+        }
+        if (!record.getExpiresAt().isAfter(now())) {
+            throw UserException.invalidRefreshToken();
+        }
+        if (refreshTokenRepository.markUsed(record.getId()) == 0) {
+            // 同一令牌被并发提交，只允许其中一个成功
+            reused(record);
+            throw UserException.invalidRefreshToken();
+        }
+        return record;
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        find(refreshToken).ifPresent(record -> revokeFamily(record.getFamilyId()));
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        refreshTokenRepository.revokeFamily(familyId);
+    }
+
+    /**
+     * 定期删除已过期的刷新令牌记录；已使用的记录保留到过期，用于识别重放
+     */
+    @Scheduled(cron = "${jwt.refresh.purge-cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteByExpiresAtBefore(now());
+        if (deleted > 0) {
+            logger.info("已删除过期刷新令牌 {} 条", deleted);
+        }
+    }
+
+    private String save(String familyId, String userId, String username, int tokenVersion,
+                        LocalDateTime expiresAt) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .familyId(familyId)
+                .userId(userId)
+                .username(username)
+                .tokenVersion(tokenVersion)
+                .revoked(false)
+                .expiresAt(expiresAt)
+                .createdAt(now())
+                .build());
+        return token;
+    }
+
+    private Optional<RefreshToken> find(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Optional.empty();
+        }
+        return refreshTokenRepository.findByTokenHash(hash(refreshToken));
+    }
+
+    private void reused(RefreshToken record) {
+        reusedCounter.increment();
+        refreshTokenRepository.revokeFamily(record.getFamilyId());
+        logger.warn("检测到刷新令牌重放，已吊销用户 {} 的令牌家族 {}", record.getUserId(), record.getFamilyId());
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.getAsLong()), ZoneId.systemDefault());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+}
@@ -1,22 +1,39 @@
 package org.linghu.mybackend.service.impl;
 
 import io.minio.Result;
+import io.minio.StatObjectResponse;
 import io.minio.messages.Item;
 import org.linghu.mybackend.domain.Resource;
+import org.linghu.mybackend.dto.ExtractedFileDTO;
+import org.linghu.mybackend.dto.PresignedUploadCompleteDTO;
+import org.linghu.mybackend.dto.PresignedUploadDTO;
+import org.linghu.mybackend.dto.PresignedUploadRequestDTO;
 import org.linghu.mybackend.dto.ResourceDTO;
+import org.linghu.mybackend.dto.ResourceDownloadDTO;
 import org.linghu.mybackend.dto.ResourceRequestDTO;
+import org.linghu.mybackend.exception.BusinessException;
 import org.linghu.mybackend.repository.ExperimentRepository;
 import org.linghu.mybackend.repository.ResourceRepository;
+import org.linghu.mybackend.service.JudgeFileCacheService;
 import org.linghu.mybackend.service.ResourceService;
 import org.linghu.mybackend.util.MinioUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,19 +42,31 @@ import java.util.stream.Collectors;
  */
 @Service
 public class ResourceServiceImpl implements ResourceService {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceServiceImpl.class);
 
     private final ResourceRepository resourceRepository;
     private final ExperimentRepository experimentRepository;
     private final MinioUtil minioUtil;
+    private final JudgeFileCacheService judgeFileCacheService;
+
+    // 预签名上传凭证和下载URL的有效期(秒)
+    @Value("${minio.presign.expiry-seconds:600}")
+    private int presignExpirySeconds = 600;
+
+    // 浏览器直传的单个文件大小上限(字节)
+    @Value("${minio.presign.max-upload-bytes:2147483648}")
+    private long maxUploadBytes = 2147483648L;
 
     @Autowired
     public ResourceServiceImpl(
             ResourceRepository resourceRepository,
             ExperimentRepository experimentRepository,
-            MinioUtil minioUtil) {
+            MinioUtil minioUtil,
+            JudgeFileCacheService judgeFileCacheService) {
         this.resourceRepository = resourceRepository;
         this.experimentRepository = experimentRepository;
         this.minioUtil = minioUtil;
+        this.judgeFileCacheService = judgeFileCacheService;
     }
 
     @Override
@@ -54,16 +83,13 @@ public class ResourceServiceImpl implements ResourceService {
         }
 
         try {
-            // 确保存储桶存在
-            minioUtil.ensureBucketExists();
-
             // 获取文件信息
             String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
 
             // 自动检测资源类型
             String resourceType = detectResourceType(originalFilename, file.getContentType());
             String objectName;
-            List<String> uploadedPaths = new ArrayList<>();
+            List<ExtractedFileDTO> extractedFiles = List.of();
 
             // 根据是否有实验ID选择不同的上传路径
             if (requestDTO.getExperimentId() != null) {
@@ -77,16 +103,21 @@ public class ResourceServiceImpl implements ResourceService {
                         minioUtil.isCompressedFile(originalFilename);
                 if (shouldAutoExtract) {
                     // 自动解压压缩包
-                    uploadedPaths = minioUtil.extractAndUploadCompressedFile(
+                    extractedFiles = minioUtil.extractAndUploadCompressedFile(
                             requestDTO.getExperimentId(),
                             requestDTO.getTaskId(),
                             file.getInputStream(),
                             originalFilename,
                             file.getContentType());
 
+                    // 任务评测文件已变化，释放go-judge中的旧缓存
+                    if (requestDTO.getTaskId() != null) {
+                        judgeFileCacheService.invalidate(requestDTO.getExperimentId(), requestDTO.getTaskId());
+                    }
+
                     // 如果成功解压了文件，使用第一个解压文件的路径作为主要路径
-                    if (!uploadedPaths.isEmpty()) {
-                        objectName = uploadedPaths.get(0); // 使用第一个解压出的文件作为主要路径
+                    if (!extractedFiles.isEmpty()) {
+                        objectName = extractedFiles.get(0).getObjectName(); // 使用第一个解压出的文件作为主要路径
                     } else {
                         // 如果没有解压出文件，则抛出异常
                         throw new RuntimeException("解压文件失败，未找到有效内容");
@@ -101,7 +132,6 @@ public class ResourceServiceImpl implements ResourceService {
                             file.getSize(),
                             file.getContentType(),
                             uploadResourceType);
-                    uploadedPaths.add(objectName);
                 }
             } else { // 上传到通用资源目录
                 objectName = minioUtil.uploadResource(
@@ -110,7 +140,6 @@ public class ResourceServiceImpl implements ResourceService {
                         file.getInputStream(),
                         file.getSize(),
                         file.getContentType());
-                uploadedPaths.add(objectName);
             }
 
             // 创建资源记录 - 对于解压文件，创建主记录
@@ -127,28 +156,31 @@ public class ResourceServiceImpl implements ResourceService {
 
             Resource savedResource = resourceRepository.save(resource);
 
-            // 如果有多个文件（解压情况），创建额外的记录
-            if (uploadedPaths.size() > 1) {
-                for (int i = 1; i < uploadedPaths.size(); i++) {
-                    String extractedPath = uploadedPaths.get(i);
+            // 如果有多个文件（解压情况），批量创建额外的记录
+            if (extractedFiles.size() > 1) {
+                List<Resource> extractedResources = new ArrayList<>(extractedFiles.size() - 1);
+                for (ExtractedFileDTO extractedFile : extractedFiles.subList(1, extractedFiles.size())) {
+                    String extractedPath = extractedFile.getObjectName();
                     String extractedFileName = extractedPath.substring(extractedPath.lastIndexOf("/") + 1);
 
-                    Resource extractedResource = Resource.builder()
+                    extractedResources.add(Resource.builder()
                             .id(UUID.randomUUID().toString())
                             .experimentId(requestDTO.getExperimentId())
                             .resourceType(detectResourceTypeFromPath(extractedPath))
                             .resourcePath(extractedPath)
                             .fileName(extractedFileName)
-                            .fileSize(0L) // 解压后的文件大小需要单独获取
+                            .fileSize(extractedFile.getFileSize())
                             .mimeType(detectMimeTypeFromPath(extractedPath))
                             .description("从压缩包 " + originalFilename + " 中解压")
-                            .build();
-                    resourceRepository.save(extractedResource);
+                            .build());
                 }
+                resourceRepository.insertAll(extractedResources);
             }
 
             return convertToDTO(savedResource);
 
+        } catch (BusinessException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new RuntimeException("无法上传文件到MinIO: " + ex.getMessage(), ex);
         }
@@ -178,6 +210,7 @@ public class ResourceServiceImpl implements ResourceService {
         try {
             // 从MinIO删除文件
             minioUtil.deleteFile(resource.getResourcePath());
+            judgeFileCacheService.invalidateByObjectName(resource.getResourcePath());
 
         } catch (Exception ex) {
             // 记录错误但继续删除数据库记录
@@ -233,6 +266,225 @@ public class ResourceServiceImpl implements ResourceService {
         }
     }
 
+    @Override
+    public ResourceDownloadDTO downloadResource(String id, HttpHeaders requestHeaders) {
+        Resource resource = resourceRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("资源不存在"));
+
+        StatObjectResponse stat;
+        try {
+            stat = minioUtil.getFileMetadata(resource.getResourcePath());
+        } catch (Exception ex) {
+            throw new RuntimeException("从MinIO下载文件失败: " + ex.getMessage(), ex);
+        }
+        String etag = "\"" + stat.etag() + "\"";
+        // HTTP日期只精确到秒
+        Instant lastModified = stat.lastModified().toInstant().truncatedTo(ChronoUnit.SECONDS);
+        long totalSize = stat.size();
+
+        ResourceDownloadDTO.ResourceDownloadDTOBuilder download = ResourceDownloadDTO.builder()
+                .fileName(resource.getFileName())
+                .mimeType(resource.getMimeType() != null ? resource.getMimeType() : "application/octet-stream")
+                .etag(etag)
+                .lastModified(lastModified)
+                .totalSize(totalSize);
+
+        if (isNotModified(requestHeaders, etag, lastModified)) {
+            return download.status(ResourceDownloadDTO.Status.NOT_MODIFIED).build();
+        }
+
+        long start = 0;
+        long length = totalSize;
+        ResourceDownloadDTO.Status status = ResourceDownloadDTO.Status.FULL;
+        HttpRange range = resolveRange(requestHeaders, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(totalSize);
+            length = range.getRangeEnd(totalSize) - start + 1;
+            if (start >= totalSize || length <= 0) {
+                return download.status(ResourceDownloadDTO.Status.RANGE_NOT_SATISFIABLE).build();
+            }
+            status = ResourceDownloadDTO.Status.PARTIAL;
+        }
+
+        try {
+            org.springframework.core.io.Resource body = length > 0
+                    ? minioUtil.downloadFile(resource.getResourcePath(), start, length, stat.etag())
+                    : new ByteArrayResource(new byte[0]);
+            return download.status(status)
+                    .rangeStart(start)
+                    .contentLength(length)
+                    .body(body)
+                    .build();
+        } catch (Exception ex) {
+            throw new RuntimeException("从MinIO下载文件失败: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * 判断客户端缓存是否仍然有效，If-None-Match存在时忽略If-Modified-Since
+     */
+    private boolean isNotModified(HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return ifNoneMatch.stream()
+                    .anyMatch(candidate -> "*".equals(candidate) || etag.equals(stripWeakPrefix(candidate)));
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModified.toEpochMilli() <= ifModifiedSince;
+    }
+
+    /**
+     * 解析单个Range区间，格式错误、多区间或If-Range不匹配时返回null，按完整内容返回
+     */
+    private HttpRange resolveRange(HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        if (requestHeaders.getFirst(HttpHeaders.RANGE) == null) {
+            return null;
+        }
+        try {
+            String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+            if (ifRange != null && !(ifRange.startsWith("\"")
+                    ? etag.equals(ifRange)
+                    : lastModified.toEpochMilli() == requestHeaders.getFirstDate(HttpHeaders.IF_RANGE))) {
+                return null;
+            }
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    @Override
+    public String createDownloadUrl(String id) {
+        Resource resource = resourceRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("资源不存在"));
+
+        try {
+            return minioUtil.presignDownloadUrl(resource.getResourcePath(), resource.getFileName(),
+                    resource.getMimeType(), presignExpirySeconds);
+        } catch (Exception ex) {
+            throw new RuntimeException("生成下载链接失败: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public PresignedUploadDTO createPresignedUpload(PresignedUploadRequestDTO request) {
+        if (request.getFileSize() == null || request.getFileSize() <= 0) {
+            throw new BusinessException("文件为空，无法上传");
+        }
+        if (request.getFileSize() > maxUploadBytes) {
+            throw new BusinessException("文件大小超过上限 " + maxUploadBytes + " 字节");
+        }
+        experimentRepository.findById(request.getExperimentId())
+                .orElseThrow(() -> new RuntimeException("实验不存在"));
+
+        String fileName = sanitizeFileName(request.getFileName());
+        String uploadType = request.getUploadType() != null ? request.getUploadType() : "resource";
+        String objectName = minioUtil.newExperimentResourcePath(request.getExperimentId(), fileName, uploadType);
+
+        try {
+            // 策略以申请时声明的大小为上限，实际上传超出时由MinIO拒绝
+            Map<String, String> formData = minioUtil.presignUploadForm(objectName, request.getContentType(),
+                    request.getFileSize(), presignExpirySeconds);
+            return PresignedUploadDTO.builder()
+                    .uploadUrl(minioUtil.getUploadFormUrl(objectName))
+                    .formData(formData)
+                    .objectName(objectName)
+                    .maxBytes(request.getFileSize())
+                    .expiresIn(presignExpirySeconds)
+                    .build();
+        } catch (Exception ex) {
+            throw new RuntimeException("生成上传凭证失败: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    @Transactional
+    public ResourceDTO completePresignedUpload(PresignedUploadCompleteDTO request) {
+        String objectName = request.getObjectName();
+        String subDirectory = parseExperimentResourceDirectory(request.getExperimentId(), objectName);
+
+        // 回调重试时直接返回已登记的资源
+        List<Resource> existing = resourceRepository.findByResourcePath(objectName);
+        if (!existing.isEmpty()) {
+            return convertToDTO(existing.get(0));
+        }
+
+        experimentRepository.findById(request.getExperimentId())
+                .orElseThrow(() -> new RuntimeException("实验不存在"));
+
+        StatObjectResponse stat;
+        try {
+            stat = minioUtil.getFileMetadata(objectName);
+        } catch (Exception ex) {
+            throw new BusinessException("文件尚未上传完成或不存在");
+        }
+        if (stat.size() > maxUploadBytes) {
+            try {
+                minioUtil.deleteFile(objectName);
+            } catch (Exception ex) {
+                logger.warn("删除超限文件 {} 失败: {}", objectName, ex.getMessage());
+            }
+            throw new BusinessException("文件大小超过上限 " + maxUploadBytes + " 字节");
+        }
+
+        String fileName = request.getFileName() != null
+                ? sanitizeFileName(request.getFileName())
+                : objectName.substring(objectName.indexOf('_', objectName.lastIndexOf('/')) + 1);
+        String mimeType = stat.contentType();
+
+        Resource resource = Resource.builder()
+                .id(UUID.randomUUID().toString())
+                .experimentId(request.getExperimentId())
+                .resourceType(Resource.ResourceType.valueOf(detectResourceType(fileName, mimeType)))
+                .resourcePath(objectName)
+                .fileName(fileName)
+                .fileSize(stat.size())
+                .mimeType(mimeType)
+                .description(request.getDescription())
+                .build();
+        Resource savedResource = resourceRepository.save(resource);
+
+        // 任务评测文件已变化，释放go-judge中的旧缓存
+        if ("experiment".equals(subDirectory) && request.getTaskId() != null) {
+            judgeFileCacheService.invalidate(request.getExperimentId(), request.getTaskId());
+        }
+        return convertToDTO(savedResource);
+    }
+
+    /**
+     * 校验直传对象路径为{experimentId}/{resource|experiment}/{文件名}，返回中间的目录名
+     */
+    private String parseExperimentResourceDirectory(String experimentId, String objectName) {
+        String prefix = experimentId + "/";
+        if (objectName == null || !objectName.startsWith(prefix) || objectName.contains("..")) {
+            throw new BusinessException("无效的对象路径");
+        }
+        String[] parts = objectName.substring(prefix.length()).split("/");
+        if (parts.length != 2 || parts[1].isEmpty()
+                || !("resource".equals(parts[0]) || "experiment".equals(parts[0]))) {
+            throw new BusinessException("无效的对象路径");
+        }
+        return parts[0];
+    }
+
+    /**
+     * 去掉文件名中的路径部分
+     */
+    private String sanitizeFileName(String fileName) {
+        String cleaned = StringUtils.cleanPath(fileName);
+        int separator = Math.max(cleaned.lastIndexOf('/'), cleaned.lastIndexOf('\\'));
+        cleaned = cleaned.substring(separator + 1);
+        if (cleaned.isBlank() || "..".equals(cleaned)) {
+            throw new BusinessException("无效的文件名");
+        }
+        return cleaned;
+    }
+
     /**
      * 生成文件的临时预览URL
      * 
@@ -287,9 +539,6 @@ public class ResourceServiceImpl implements ResourceService {
         }
 
         try {
-            // 确保存储桶存在
-            minioUtil.ensureBucketExists();
-
             // 获取文件信息
             String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
 
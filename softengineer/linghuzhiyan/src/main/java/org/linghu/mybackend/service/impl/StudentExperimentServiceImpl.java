@@ -3,12 +3,12 @@ package org.linghu.mybackend.service.impl;
 import org.linghu.mybackend.domain.*;
 import org.linghu.mybackend.dto.*;
 import org.linghu.mybackend.repository.*;
+import org.linghu.mybackend.service.JudgeQueueService;
 import org.linghu.mybackend.service.QuestionService;
 import org.linghu.mybackend.service.StudentExperimentService;
 import org.linghu.mybackend.util.MinioUtil;
 import org.linghu.mybackend.constants.TaskType;
 import org.linghu.mybackend.utils.JsonUtils;
-import org.linghu.mybackend.config.JudgeConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -42,7 +42,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
     private final ExperimentEvaluationRepository evaluationRepository;
     private final QuestionService questionService;
     private final MinioUtil minioUtil;
-    private final JudgeConfig judgeConfig;
+    private final JudgeQueueService judgeQueueService;
 
     @Autowired
     public StudentExperimentServiceImpl(
@@ -54,7 +54,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
             ExperimentEvaluationRepository evaluationRepository,
             QuestionService questionService,
             MinioUtil minioUtil,
-            JudgeConfig judgeConfig) {
+            JudgeQueueService judgeQueueService) {
         this.experimentRepository = experimentRepository;
         this.userRepository = userRepository;
         this.experimentTaskRepository = experimentTaskRepository;
@@ -63,7 +63,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
         this.evaluationRepository = evaluationRepository;
         this.questionService = questionService;
         this.minioUtil = minioUtil;
-        this.judgeConfig = judgeConfig;
+        this.judgeQueueService = judgeQueueService;
     }
 
     @Override
@@ -160,22 +160,21 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
             return autoEvaluateNonCodeTask(task, submission.get(), user.getId());
         }
 
-        // 对于CODE类型，调用代码评测服务
-        try {
-            return evaluateCodeTask(task, submission.get(), user.getId());
-        } catch (Exception e) {
-            logger.error("代码评测失败: " + e.getMessage(), e);
-
-            // 返回评测失败结果
-            return ExperimentEvaluationDTO.builder()
-                    .submissionId(submission.get().getId())
-                    .taskId(taskId)
-                    .userId(user.getId())
-                    .score(BigDecimal.ZERO)
-                    .status("ERROR")
-                    .errorMessage("代码评测失败: " + e.getMessage())
-                    .build();
+        // 对于CODE类型，由评测队列异步评测，未完成时返回任务状态供客户端轮询
+        JudgeJobDTO job = judgeQueueService.requestEvaluation(submission.get());
+        if (job.getEvaluation() != null) {
+            return job.getEvaluation();
         }
+
+        return ExperimentEvaluationDTO.builder()
+                .submissionId(submission.get().getId())
+                .taskId(taskId)
+                .userId(user.getId())
+                .submitTime(submission.get().getSubmitTime())
+                .status(job.getStatus())
+                .errorMessage(job.getErrorMessage())
+                .jobId(job.getId())
+                .build();
     }
 
     /**
@@ -399,6 +398,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
         String submissionId = UUID.randomUUID().toString();
         LocalDateTime now = LocalDateTime.now();
         String userAnswer = null; // 根据任务类型处理提交内容
+        String contentHash = null; // 代码提交的内容摘要
 
         if (task.getTaskType() != null && task.getTaskType() == TaskType.CODE) {
             // 编程题提交处理
@@ -407,7 +407,8 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
                 if (submissionRequest.getFiles() != null && !submissionRequest.getFiles().isEmpty()) {
                     // 直接使用SubmissionRequestDTO对象
                     // 上传代码文件
-                    List<String> uploadedPaths = minioUtil.uploadStudentCodeSubmission(user.getId(), submissionRequest);
+                    contentHash = MinioUtil.computeContentHash(submissionRequest.getFiles());
+                    List<String> uploadedPaths = uploadCodeFiles(user.getId(), submissionRequest, contentHash);
 
                     // 使用JSON格式存储文件路径列表
                     Map<String, Object> answerData = new HashMap<>();
@@ -451,8 +452,9 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
                                     .build();
 
                             // 上传所有代码文件
-                            List<String> uploadedPaths = minioUtil.uploadStudentCodeSubmission(user.getId(),
-                                    tempSubmission);
+                            contentHash = MinioUtil.computeContentHash(files);
+                            List<String> uploadedPaths = uploadCodeFiles(user.getId(), tempSubmission,
+                                    contentHash);
 
                             // 使用JSON格式存储文件路径列表
                             Map<String, Object> answerData = new HashMap<>();
@@ -487,7 +489,8 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
                             .build();
 
                     // 上传文件并存储路径
-                    List<String> uploadedPaths = minioUtil.uploadStudentCodeSubmission(user.getId(), tempSubmission);
+                    contentHash = MinioUtil.computeContentHash(tempSubmission.getFiles());
+                    List<String> uploadedPaths = uploadCodeFiles(user.getId(), tempSubmission, contentHash);
 
                     // 使用JSON格式存储文件路径
                     Map<String, Object> answerData = new HashMap<>();
@@ -520,6 +523,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
                 .taskId(taskId)
                 .userId(user.getId())
                 .userAnswer(userAnswer)
+                .contentHash(contentHash)
                 .submitTime(LocalDateTime.now())
                 .build();
 
@@ -539,13 +543,51 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
             formattedUserAnswer = userAnswer;
         }
 
+        // 编程题提交后自动进入评测队列
+        String judgeJobId = null;
+        if (task.getTaskType() == TaskType.CODE && userAnswer != null && !userAnswer.isEmpty()) {
+            judgeJobId = judgeQueueService.enqueue(savedSubmission).getId();
+        }
+
         // 构建并返回DTO
         return ExperimentSubmissionDTO.builder().id(savedSubmission.getId()).task_id(taskId).user_id(user.getId())
-                .submitTime(now).user_answer(formattedUserAnswer).build();
+                .submitTime(now).user_answer(formattedUserAnswer).judgeJobId(judgeJobId).build();
     }
 
     // 辅助方法
 
+    /**
+     * 上传代码文件；用户在同一任务上已有内容相同的提交且文件仍存在时，直接复用其对象路径
+     *
+     * @param userId      用户ID
+     * @param request     包含代码文件的提交请求
+     * @param contentHash 提交文件集合的内容摘要
+     * @return 文件路径列表
+     * @throws Exception 如果上传失败
+     */
+    private List<String> uploadCodeFiles(String userId, SubmissionRequestDTO request, String contentHash)
+            throws Exception {
+        Optional<ExperimentSubmission> previous = submissionRepository
+                .findFirstByTaskIdAndUserIdAndContentHashOrderBySubmitTimeDesc(request.getTaskId(), userId,
+                        contentHash);
+        if (previous.isPresent()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> answerData = JsonUtils.parseObject(previous.get().getUserAnswer(), Map.class);
+            Object paths = answerData != null ? answerData.get("paths") : null;
+            if (paths instanceof List && !((List<?>) paths).isEmpty()) {
+                List<String> previousPaths = ((List<?>) paths).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.toList());
+                if (previousPaths.stream().allMatch(minioUtil::isFileExists)) {
+                    logger.info("用户 {} 在任务 {} 上的提交与 {} 内容相同，复用已上传的文件", userId,
+                            request.getTaskId(), previous.get().getId());
+                    return previousPaths;
+                }
+            }
+        }
+        return minioUtil.uploadStudentCodeSubmission(userId, request);
+    }
+
     private User findUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
@@ -628,6 +670,7 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
                 .score(evaluation.getScore())
                 .errorMessage(evaluation.getErrorMessage())
                 .additionalInfo(evaluation.getAdditionalInfo())
+                .caseResults(JsonUtils.parseList(evaluation.getCaseResults(), JudgeCaseResultDTO.class))
                 .taskId(taskId)
                 .userId(userId)
                 .submitTime(submitTime)
@@ -712,30 +755,6 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
         }
     }
 
-    /**
-     * /**
-     * 从MinIO获取学生代码文件内容
-     *
-     * @param filePath MinIO中的文件路径
-     * @return 文件内容字符串
-     */
-    private String getFileContentFromMinio(String filePath) {
-        try {
-            org.springframework.core.io.Resource fileResource = minioUtil.downloadFile(filePath);
-            BufferedReader reader = new BufferedReader(new InputStreamReader(fileResource.getInputStream()));
-            StringBuilder content = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-            reader.close();
-            return content.toString();
-        } catch (Exception e) {
-            System.err.println("从MinIO获取文件内容失败: " + e.getMessage());
-            return "[无法获取文件内容]";
-        }
-    }
-
     /**
      * 标准化字符串，用于比较时处理中文和其他特殊字符
      *
@@ -866,304 +885,4 @@ public class StudentExperimentServiceImpl implements StudentExperimentService {
 
         return false;
     }
-
-    /**
-     * 对CODE类型的任务进行评测
-     *
-     * @param task       实验任务
-     * @param submission 学生提交
-     * @param userId     用户ID
-     * @return 评测结果DTO
-     * @throws Exception 如果评测过程发生错误
-     */
-    private ExperimentEvaluationDTO evaluateCodeTask(ExperimentTask task, ExperimentSubmission submission,
-                                                     String userId) throws Exception {
-        // 获取用户提交的代码文件路径
-        String userAnswer = submission.getUserAnswer();
-
-        logger.info("开始评测用户 {} 在任务 {} 的代码提交", userId, task.getId());
-
-        // 解析用户提交的文件路径
-        @SuppressWarnings("unchecked")
-        Map<String, Object> answerData = JsonUtils.parseObject(userAnswer, Map.class);
-        if (answerData == null) {
-            throw new RuntimeException("无法解析提交的代码信息");
-        }
-
-        @SuppressWarnings("unchecked")
-        List<String> filePaths = (List<String>) answerData.get("paths");
-        if (filePaths == null || filePaths.isEmpty()) {
-            throw new RuntimeException("未找到提交的代码文件");
-        }
-
-        logger.info("用户 {} 提交了 {} 个代码文件", userId, filePaths.size());
-
-        // 从MinIO获取提交的代码文件内容
-        List<Map<String, String>> files = new ArrayList<>();
-        for (String path : filePaths) {
-            String content = getFileContentFromMinio(path);
-
-            // 提取相对路径，保留目录结构
-            String relativePath = path;
-            // 典型路径格式: userId/experimentId/taskId/timestamp/根目录/{文件名}
-            String[] pathParts = path.split("/");
-
-            // 从该目录之后开始提取路径
-            relativePath = String.join("/", Arrays.copyOfRange(pathParts, 5, pathParts.length));
-
-
-            Map<String, String> fileMap = new HashMap<>();
-            fileMap.put("name", relativePath);
-            fileMap.put("content", content);
-            files.add(fileMap);
-
-            logger.debug("获取到文件 {}, 内容长度: {} 字符", relativePath, content.length());
-        }
-
-        logger.info("准备使用提交目录中的compile.sh和run.sh脚本执行评测");
-
-        // 构建评测请求数据 - 使用go judge格式
-        Map<String, Object> requestData = new HashMap<>();
-
-        Map<String, Object> cmdMap = new HashMap<>();
-
-        cmdMap.put("args", Arrays.asList("/bin/sh", "-c", "./compile.sh && ./run.sh"));
-        cmdMap.put("env", Arrays.asList("PATH=/usr/bin:/bin"));
-
-        // 设置文件流
-        List<Map<String, Object>> filesList = new ArrayList<>();
-        filesList.add(new HashMap<String, Object>() {
-            {
-                put("content", "");
-            }
-        });
-        filesList.add(new HashMap<String, Object>() {
-            {
-                put("name", "stdout");
-                put("max", 10240);
-            }
-        });
-        filesList.add(new HashMap<String, Object>() {
-            {
-                put("name", "stderr");
-                put("max", 10240);
-            }
-        });
-        cmdMap.put("files", filesList);
-
-        // 设置资源限制
-        cmdMap.put("cpuLimit", 6000000000L);
-        cmdMap.put("memoryLimit", 536870912L);
-        cmdMap.put("procLimit", 50);
-
-        // 构建copyIn用于上传文件
-        Map<String, Object> copyIn = new HashMap<>();
-
-        // 添加用户提交的文件
-        Map<String, Set<String>> directories = new HashMap<>();
-        for (Map<String, String> file : files) {
-            String filePath = file.get("name");
-
-            // 如果文件在子目录中，需要确保目录已经创建
-            if (filePath.contains("/")) {
-                String dirPath = filePath.substring(0, filePath.lastIndexOf('/'));
-                createDirectoryStructure(copyIn, dirPath, directories);
-            }
-
-            // 添加文件
-            copyIn.put(filePath, new HashMap<String, String>() {
-                {
-                    put("content", file.get("content"));
-                }
-            });
-        }
-
-        cmdMap.put("copyIn", copyIn);
-        cmdMap.put("copyOut", Arrays.asList("stdout", "stderr"));
-
-        // 将cmd添加到requestData
-        requestData.put("cmd", Arrays.asList(cmdMap)); // 发送HTTP请求到评测服务
-        String evaluationServiceUrl = judgeConfig.getRunUrl();
-        String responseJson = sendHttpRequest(evaluationServiceUrl, JsonUtils.toJsonString(requestData));
-
-        // 解析评测结果
-        String stdout = "";
-        String stderr = "";
-
-        try {
-            logger.info("开始解析评测结果: {}", responseJson);
-
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> resultArray = JsonUtils.parseObject(responseJson, List.class);
-
-            if (resultArray != null && !resultArray.isEmpty()) {
-                // 数组格式处理
-                logger.info("检测到数组格式的评测结果");
-                Map<String, Object> result = resultArray.get(0);
-
-                if (result.containsKey("files")) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> resultFiles = (Map<String, Object>) result.get("files");
-
-                    if (resultFiles != null) {
-                        // 直接获取值
-                        Object stdoutObj = resultFiles.get("stdout");
-                        stdout = stdoutObj != null ? stdoutObj.toString() : "";
-
-                        Object stderrObj = resultFiles.get("stderr");
-                        stderr = stderrObj != null ? stderrObj.toString() : "";
-
-                        logger.info("从数组格式中解析到 stdout: {}, stderr: {}", stdout, stderr);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.error("解析评测结果出错: " + e.getMessage(), e);
-            throw new RuntimeException("解析评测结果出错: " + e.getMessage());
-        }
-
-        // 保存评测结果
-        ExperimentEvaluation evaluationEntity = ExperimentEvaluation.builder()
-                .id(UUID.randomUUID().toString())
-                .submissionId(submission.getId())
-                .userId(userId)
-                .taskId(task.getId())
-                .score(stderr.isEmpty() ? new BigDecimal("100") : BigDecimal.ZERO) // 如有错误，得分为0
-                .additionalInfo(stdout)
-                .errorMessage(stderr)
-                .build();
-
-        ExperimentEvaluation savedEvaluation = evaluationRepository.save(evaluationEntity);
-        // 如果存在编译或运行错误，立即返回错误结果
-        ExperimentEvaluationDTO resultDTO = convertToEvaluationDTO(savedEvaluation);
-        if (!stderr.isEmpty()) {
-            // 创建新的DTO，设置FAILED状态
-            return ExperimentEvaluationDTO.builder()
-                    .id(resultDTO.getId())
-                    .submissionId(resultDTO.getSubmissionId())
-                    .score(resultDTO.getScore())
-                    .errorMessage(resultDTO.getErrorMessage())
-                    .additionalInfo(resultDTO.getAdditionalInfo())
-                    .taskId(resultDTO.getTaskId())
-                    .userId(resultDTO.getUserId())
-                    .submitTime(resultDTO.getSubmitTime())
-                    .userAnswer(resultDTO.getUserAnswer())
-                    .status("FAILED")
-                    .build();
-        }
-
-        // 无错误，返回成功结果
-        return ExperimentEvaluationDTO.builder()
-                .id(resultDTO.getId())
-                .submissionId(resultDTO.getSubmissionId())
-                .score(resultDTO.getScore())
-                .errorMessage(resultDTO.getErrorMessage())
-                .additionalInfo(resultDTO.getAdditionalInfo())
-                .taskId(resultDTO.getTaskId())
-                .userId(resultDTO.getUserId())
-                .submitTime(resultDTO.getSubmitTime())
-                .userAnswer(resultDTO.getUserAnswer())
-                .status("SUCCESS")
-                .build();
-    }
-
-    /**
-     * 发送HTTP请求到评测服务
-     *
-     * @param url  请求URL
-     * @param json 请求体JSON
-     * @return 响应JSON
-     * @throws Exception 如果请求失败
-     */
-    private String sendHttpRequest(String url, String json) throws Exception {
-        logger.info("发送评测请求到 {}", url);
-        logger.debug("评测请求体: {}", json);
-
-        java.net.URI uri = java.net.URI.create(url);
-        java.net.URL apiUrl = uri.toURL();
-        java.net.HttpURLConnection conn = (java.net.HttpURLConnection) apiUrl.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setRequestProperty("Accept", "application/json");
-        conn.setDoOutput(true);
-
-        // 发送请求体
-        try (java.io.OutputStream os = conn.getOutputStream()) {
-            byte[] input = json.getBytes("UTF-8");
-            os.write(input, 0, input.length);
-        }
-
-        // 获取响应
-        int responseCode = conn.getResponseCode();
-        logger.info("评测服务返回状态码: {}", responseCode);
-
-        if (responseCode != 200) {
-            logger.error("评测服务返回错误状态码: {}", responseCode);
-            throw new RuntimeException("评测服务返回错误状态码: " + responseCode);
-        }
-
-        // 读取响应内容
-        try (java.io.BufferedReader br = new java.io.BufferedReader(
-                new java.io.InputStreamReader(conn.getInputStream(), "UTF-8"))) {
-            StringBuilder response = new StringBuilder();
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                response.append(responseLine.trim());
-            }
-            String responseStr = response.toString();
-            logger.debug("评测服务响应: {}", responseStr);
-            return responseStr;
-        }
-    }
-
-    /**
-     * 为代码评测创建目录结构
-     *
-     * @param copyIn      评测服务的copyIn映射
-     * @param dirPath     需要创建的目录路径
-     * @param directories 已创建目录的缓存
-     */
-    private void createDirectoryStructure(Map<String, Object> copyIn, String dirPath,
-                                          Map<String, Set<String>> directories) {
-        // 如果目录已经创建过，直接返回
-        if (directories.containsKey(dirPath)) {
-            return;
-        }
-
-        // 分解路径，确保上级目录先被创建
-        String[] parts = dirPath.split("/");
-        StringBuilder currentPath = new StringBuilder();
-
-        // 逐级创建目录
-        for (int i = 0; i < parts.length; i++) {
-            if (i > 0) {
-                currentPath.append("/");
-            }
-            currentPath.append(parts[i]);
-
-            String path = currentPath.toString();
-
-            // 记录创建的目录
-            if (!directories.containsKey(path)) {
-                Set<String> subdirs = new HashSet<>();
-                directories.put(path, subdirs);
-
-                // 将当前目录添加到其父目录的子目录集合中
-                if (i > 0) {
-                    String parentPath = path.substring(0, path.lastIndexOf('/'));
-                    if (directories.containsKey(parentPath)) {
-                        directories.get(parentPath).add(parts[i]);
-                    }
-                }
-
-                // 在copyIn中创建目录项
-                // 在GoJudge中，目录作为特殊的文件处理，内容为空但路径以/结尾
-                copyIn.put(path + "/", new HashMap<String, String>() {
-                    {
-                        put("content", "");
-                    }
-                });
-            }
-        }
-    }
 }
@@ -0,0 +1,150 @@
+package org.linghu.mybackend.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.service.UserCacheService;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 用户缓存服务实现类
+ * 基于Caffeine，按容量和写入时间淘汰；命中率等指标通过Actuator的cache.*指标导出
+ * 缓存中保存用户副本，读取时再复制一份，调用方修改返回的对象不会影响缓存
+ * 缓存的用户可能落后于其他实例的修改，只用于只读场景，写操作应直接从数据库加载
+ */
+@Service
+public class UserCacheServiceImpl implements UserCacheService {
+
+    private final Cache<String, User> usersById;
+    private final Cache<String, User> usersByUsername;
+    private final Cache<String, Set<String>> roleIds;
+    // 用户ID -> 按用户名缓存时使用的用户名，失效时无需遍历用户名缓存
+    private final Map<String, String> usernamesById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserCacheServiceImpl(
+            MeterRegistry meterRegistry,
+            @Value("${user.cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${user.cache.max-size:10000}") long maxSize) {
+        this.usersById = buildCache(ttlSeconds, maxSize);
+        // 用户名缓存条目因容量或过期被淘汰时同步清理索引
+        this.usersByUsername = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .evictionListener((String username, User user, RemovalCause cause) -> {
+                    if (user != null) {
+                        usernamesById.remove(user.getId(), username);
+                    }
+                })
+                .build();
+        this.roleIds = buildCache(ttlSeconds, maxSize);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, usersByUsername, "users.byUsername");
+        CaffeineCacheMetrics.monitor(meterRegistry, roleIds, "users.roleIds");
+    }
+
+    private static <V> Cache<String, V> buildCache(long ttlSeconds, long maxSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Optional<User> getUserById(String id, Function<String, Optional<User>> loader) {
+        return getUser(usersById, id, loader);
+    }
+
+    @Override
+    public Optional<User> getUserByUsername(String username, Function<String, Optional<User>> loader) {
+        return getUser(usersByUsername, username, name -> {
+            Optional<User> loaded = loader.apply(name);
+            if (name != null) {
+                loaded.ifPresent(user -> usernamesById.put(user.getId(), name));
+            }
+            return loaded;
+        });
+    }
+
+    private Optional<User> getUser(Cache<String, User> cache, String key, Function<String, Optional<User>> loader) {
+        if (key == null) {
+            return loader.apply(null);
+        }
+        User cached = cache.get(key, k -> loader.apply(k).map(this::copyOf).orElse(null));
+        return Optional.ofNullable(cached).map(this::copyOf);
+    }
+
+    @Override
+    public Set<String> getRoleIds(String userId, Function<String, Set<String>> loader) {
+        return roleIds.get(userId, key -> Set.copyOf(loader.apply(key)));
+    }
+
+    @Override
+    public Map<String, Set<String>> getRoleIds(Collection<String> userIds,
+            Function<Set<String>, Map<String, Set<String>>> loader) {
+        return roleIds.getAll(userIds, missing -> {
+            Map<String, Set<String>> loaded = new HashMap<>();
+            loader.apply(Set.copyOf(missing)).forEach((userId, roles) -> loaded.put(userId, Set.copyOf(roles)));
+            return loaded;
+        });
+    }
+
+    @Override
+    public void evictUser(String userId) {
+        doEvictUser(userId);
+        // 事务提交前其他请求可能把旧数据重新加载进缓存，提交后再失效一次
+        afterCommit(() -> doEvictUser(userId));
+    }
+
+    @Override
+    public void evictRoles(String userId) {
+        roleIds.invalidate(userId);
+        afterCommit(() -> roleIds.invalidate(userId));
+    }
+
+    private void doEvictUser(String userId) {
+        usersById.invalidate(userId);
+        // 用户名可能已被修改，按索引中记录的缓存用户名清理
+        String username = usernamesById.remove(userId);
+        if (username != null) {
+            usersByUsername.invalidate(username);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private User copyOf(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
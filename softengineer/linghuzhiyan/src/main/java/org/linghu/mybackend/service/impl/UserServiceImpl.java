@@ -1,6 +1,9 @@
 package org.linghu.mybackend.service.impl;
 
-import java.text.SimpleDateFormat;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,26 +15,34 @@ import java.util.stream.Collectors;
 
 import org.linghu.mybackend.constants.SystemConstants;
 import org.linghu.mybackend.domain.Experiment;
+import org.linghu.mybackend.domain.RefreshToken;
 import org.linghu.mybackend.domain.ExperimentTask;
 import org.linghu.mybackend.domain.User;
 import org.linghu.mybackend.domain.UserRoleId;
 import org.linghu.mybackend.domain.UserRoleRelation;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.LoginRequestDTO;
 import org.linghu.mybackend.dto.LoginResponseDTO;
 import org.linghu.mybackend.dto.ProfileUpdateDTO;
 import org.linghu.mybackend.dto.UserDTO;
 import org.linghu.mybackend.dto.UserRegistrationDTO;
+import org.linghu.mybackend.exception.TooManyRequestsException;
 import org.linghu.mybackend.exception.UserException;
 import org.linghu.mybackend.repository.ExperimentAssignmentRepository;
 import org.linghu.mybackend.repository.ExperimentRepository;
 import org.linghu.mybackend.repository.ExperimentTaskRepository;
 import org.linghu.mybackend.repository.UserRepository;
 import org.linghu.mybackend.repository.UserRoleRepository;
+import org.linghu.mybackend.security.BoundedPasswordEncoder;
 import org.linghu.mybackend.security.JwtTokenUtil;
+import org.linghu.mybackend.security.TokenVersionCache;
 import org.linghu.mybackend.service.LoginLogService;
+import org.linghu.mybackend.service.RefreshTokenService;
+import org.linghu.mybackend.service.UserCacheService;
 import org.linghu.mybackend.service.UserService;
 import org.linghu.mybackend.util.MinioUtil;
 import org.linghu.mybackend.utils.JsonUtils;
+import org.linghu.mybackend.utils.PageCursor;
 import org.linghu.mybackend.utils.RequestUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
@@ -59,6 +70,10 @@ import jakarta.servlet.http.HttpServletRequest;
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
     private final PasswordEncoder passwordEncoder;
@@ -69,6 +84,9 @@ public class UserServiceImpl implements UserService {
     private final ExperimentRepository experimentRepository;
     private final ExperimentAssignmentRepository experimentAssignmentRepository;
     private final ExperimentTaskRepository experimentTaskRepository;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserCacheService userCacheService;
+    private final RefreshTokenService refreshTokenService;
 
     // 头像URL过期时间(秒)，默认1小时
     @Value("${minio.avatar.url.expiry:3600}")
@@ -90,7 +108,10 @@ public class UserServiceImpl implements UserService {
             UserRoleRepository userRoleRepository,
             ExperimentRepository experimentRepository,
             ExperimentAssignmentRepository experimentAssignmentRepository,
-            ExperimentTaskRepository experimentTaskRepository) {
+            ExperimentTaskRepository experimentTaskRepository,
+            TokenVersionCache tokenVersionCache,
+            UserCacheService userCacheService,
+            RefreshTokenService refreshTokenService) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
         this.passwordEncoder = passwordEncoder;
@@ -101,6 +122,9 @@ public class UserServiceImpl implements UserService {
         this.experimentRepository = experimentRepository;
         this.experimentAssignmentRepository = experimentAssignmentRepository;
         this.experimentTaskRepository = experimentTaskRepository;
+        this.tokenVersionCache = tokenVersionCache;
+        this.userCacheService = userCacheService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
@@ -154,8 +178,8 @@ public class UserServiceImpl implements UserService {
             // 获取认证成功的用户详情
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            // 查找用户信息
-            User user = findByUsername(userDetails.getUsername())
+            // 查找用户信息，签发令牌需要当前的令牌版本号，不使用缓存
+            User user = userRepository.findByUsername(userDetails.getUsername())
                     .orElseThrow(UserException::userNotFound);
 
             // 如果指定了角色，验证用户是否拥有该角色
@@ -191,7 +215,10 @@ public class UserServiceImpl implements UserService {
             );
 
             // 生成JWT token
-            String token = jwtTokenUtil.generateToken(userDetails);
+            String token = jwtTokenUtil.generateToken(userDetails, user.getId(), currentTokenVersion(user));
+            String refreshToken = refreshTokenService.issue(user.getId(), user.getUsername(), currentTokenVersion(user));
+
+            upgradePasswordHash(user, loginRequestDTO.getPassword());
 
             // 构建响应
             return LoginResponseDTO.builder()
@@ -199,6 +226,7 @@ public class UserServiceImpl implements UserService {
                     .token(token)
                     .tokenType(tokenHead)
                     .expiresIn(expiration / 1000) // 转换为秒
+                    .refreshToken(refreshToken)
                     .build();
         } catch (BadCredentialsException e) {
             // 记录密码错误日志（注意不能泄露敏感信息）
@@ -210,7 +238,14 @@ public class UserServiceImpl implements UserService {
                     loginInfo
             );
             throw UserException.invalidCredentials();
+        } catch (TooManyRequestsException e) {
+            // 密码校验线程池饱和，请求被拒绝而非凭证错误，不计入登录失败
+            throw e;
         } catch (Exception e) {
+            if (e.getCause() instanceof TooManyRequestsException tooManyRequests) {
+                // 用户不存在时的校验在Spring Security内部被包装为InternalAuthenticationServiceException
+                throw tooManyRequests;
+            }
             // 记录其他登录失败情况
             loginLogService.logFailedLogin(
                     loginRequestDTO.getUsername(),
@@ -223,6 +258,50 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * 登录成功后尽力把旧工作因子的密码哈希升级为当前配置，线程池繁忙时跳过，不影响本次登录
+     * 只替换哈希值，不修改令牌版本，已签发的令牌保持有效
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!(passwordEncoder instanceof BoundedPasswordEncoder boundedEncoder)) {
+            return;
+        }
+        String userId = user.getId();
+        String oldPassword = user.getPassword();
+        boundedEncoder.tryUpgrade(rawPassword, oldPassword, newPassword -> {
+            if (userRepository.upgradePassword(userId, oldPassword, newPassword) > 0) {
+                userCacheService.evictUser(userId);
+            }
+        });
+    }
+
+    @Override
+    public LoginResponseDTO refreshToken(String refreshToken) {
+        RefreshToken record = refreshTokenService.consume(refreshToken);
+
+        // 角色变更、修改密码或删除用户后令牌版本号递增，之前登录签发的刷新令牌随之失效
+        if (!tokenVersionCache.isCurrent(record.getUserId(), record.getTokenVersion())) {
+            refreshTokenService.revokeFamily(record.getFamilyId());
+            throw UserException.invalidRefreshToken();
+        }
+
+        Set<String> roleIds = getUserRoleIds(record.getUserId());
+        String token = jwtTokenUtil.generateToken(record.getUsername(), record.getUserId(), roleIds,
+                record.getTokenVersion());
+
+        return LoginResponseDTO.builder()
+                .token(token)
+                .tokenType(tokenHead)
+                .expiresIn(expiration / 1000)
+                .refreshToken(refreshTokenService.rotate(record))
+                .build();
+    }
+
+    @Override
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
     @Override
     @Transactional
     public void deleteUser(String userId, String currentUsername) {
@@ -274,10 +353,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserDTO updateUser(String id, UserDTO userDTO) {
-        checkUserNotDeleted(id);
-        // 检查用户是否存在
-        User user = findById(id)
-                .orElseThrow(UserException::userNotFound);
+        // 检查用户是否存在且未被删除
+        User user = loadActiveUser(userRepository.findById(id));
 
         // 如果用户名有更改，检查新用户名是否已存在
         if (!user.getUsername().equals(userDTO.getUsername()) &&
@@ -330,29 +407,72 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void changePassword(String username, String oldPassword, String newPassword) {
-        // 验证用户存在
-        User user = findByUsername(username)
-                .orElseThrow(UserException::userNotFound);
-        checkUserNotDeleted(user.getId());
+        // 验证用户存在且未被删除
+        User user = loadActiveUser(userRepository.findByUsername(username));
         // 验证旧密码
         if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
             throw UserException.invalidOldPassword();
         }
 
-        // 更新密码
+        // 更新密码，并使已签发的令牌失效
         user.setPassword(passwordEncoder.encode(newPassword));
+        revokeTokens(user);
         updateUser(user);
     }
 
     @Override
     public Page<UserDTO> listUsers(int pageNum, int pageSize) {
+        return listUsers(pageNum, pageSize, true);
+    }
+
+    @Override
+    public Page<UserDTO> listUsers(int pageNum, int pageSize, boolean includeProfile) {
         // 页码从0开始计算
         Pageable pageable = PageRequest.of(pageNum - 1, pageSize);
         // 只查询未被软删除的用户
         Page<User> userPage = userRepository.findByIsDeletedFalse(pageable);
 
-        // 转换为DTO
-        return userPage.map(this::convertToDTO);
+        // 整页用户的角色一次查出，避免逐个用户查询
+        List<String> userIds = userPage.getContent().stream().map(User::getId).collect(Collectors.toList());
+        Map<String, Set<String>> rolesByUser = getUserRoleIds(userIds);
+        return userPage.map(user -> convertToDTO(user, rolesByUser.get(user.getId()), includeProfile));
+    }
+
+    @Override
+    public CursorPageResult<UserDTO> listUsersByCursor(String cursor, int pageSize, boolean includeProfile,
+            boolean withTotal) {
+        PageCursor position = PageCursor.decode(cursor);
+        List<User> users = position == null
+                ? userRepository.findByIsDeletedFalseOrderByCreatedAtDescIdDesc(PageCursor.limit(pageSize))
+                : userRepository.findActiveUsersAfterCursor(Timestamp.valueOf(position.getCreatedAt()),
+                        position.getId(), PageCursor.limit(pageSize));
+        Long total = withTotal ? userRepository.countByIsDeletedFalse() : null;
+
+        return PageCursor.toResult(users, pageSize,
+                user -> LocalDateTime.ofInstant(user.getCreatedAt().toInstant(), ZoneId.systemDefault()),
+                User::getId, page -> {
+                    Map<String, Set<String>> rolesByUser = getUserRoleIds(
+                            page.stream().map(User::getId).collect(Collectors.toList()));
+                    return page.stream()
+                            .map(user -> convertToDTO(user, rolesByUser.get(user.getId()), includeProfile))
+                            .collect(Collectors.toList());
+                }, total);
+    }
+
+    /**
+     * 批量获取多个用户的角色ID，缓存未命中的用户通过一次IN查询加载
+     */
+    private Map<String, Set<String>> getUserRoleIds(List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        return userCacheService.getRoleIds(userIds, missing -> {
+            Map<String, Set<String>> loaded = new HashMap<>();
+            missing.forEach(id -> loaded.put(id, new HashSet<>()));
+            userRoleRepository.findByIdUserIdIn(missing)
+                    .forEach(ur -> loaded.get(ur.getId().getUserId()).add(ur.getId().getRoleId()));
+            return loaded;
+        });
     }
 
     /**
@@ -362,32 +482,44 @@ public class UserServiceImpl implements UserService {
      * @return 用户DTO
      */
     private UserDTO convertToDTO(User user) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        return convertToDTO(user, getUserRoleIds(user.getId()), true);
+    }
 
+    /**
+     * 将User实体转换为UserDTO
+     *
+     * @param user 用户实体
+     * @param roles 用户的角色ID集合
+     * @param includeProfile 是否解析个人资料JSON
+     * @return 用户DTO
+     */
+    private UserDTO convertToDTO(User user, Set<String> roles, boolean includeProfile) {
         UserDTO dto = new UserDTO();
         dto.setId(user.getId());
         dto.setUsername(user.getUsername());
         dto.setEmail(user.getEmail());
         dto.setAvatar(user.getAvatar());
 
-        dto.setProfile(JsonUtils.parseObject(user.getProfile(), Object.class));
-        dto.setRoles(getUserRoleIds(user.getId()));
-        dto.setCreatedAt(dateFormat.format(user.getCreatedAt()));
-        dto.setUpdatedAt(dateFormat.format(user.getUpdatedAt()));
+        if (includeProfile) {
+            dto.setProfile(JsonUtils.parseObject(user.getProfile(), Object.class));
+        }
+        dto.setRoles(roles);
+        dto.setCreatedAt(formatDate(user.getCreatedAt()));
+        dto.setUpdatedAt(formatDate(user.getUpdatedAt()));
         dto.setIsDeleted(user.getIsDeleted());
 
         return dto;
     }
 
+    private static String formatDate(Date date) {
+        return date == null ? null : DATE_TIME_FORMATTER.format(date.toInstant());
+    }
+
     @Override
     @Transactional
     public UserDTO updateUserProfile(String username, ProfileUpdateDTO profileUpdateDTO) {
-        // 检查用户是否存在
-        User user = findByUsername(username)
-                .orElseThrow(UserException::userNotFound);
-
-        // 检查用户是否被软删除
-        checkUserNotDeleted(user.getId());
+        // 检查用户是否存在且未被删除
+        User user = loadActiveUser(userRepository.findByUsername(username));
 
         // 只更新允许的字段：头像和个人资料
         if (profileUpdateDTO.getAvatar() != null) {
@@ -432,12 +564,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public Map<String, String> updateUserAvatar(String username, MultipartFile file) {
-        // 检查用户是否存在
-        User user = findByUsername(username)
-                .orElseThrow(UserException::userNotFound);
-
-        // 检查用户是否被软删除
-        checkUserNotDeleted(user.getId());
+        // 检查用户是否存在且未被删除
+        User user = loadActiveUser(userRepository.findByUsername(username));
 
         try {
             // 删除旧头像
@@ -530,13 +658,13 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public Optional<User> findById(String id) {
-        return userRepository.findById(id);
+        return userCacheService.getUserById(id, userRepository::findById);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userCacheService.getUserByUsername(username, userRepository::findByUsername);
     }
 
     @Override
@@ -562,7 +690,9 @@ public class UserServiceImpl implements UserService {
     public User updateUser(User user) {
         user.setUpdatedAt(new Date());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userCacheService.evictUser(user.getId());
+        return savedUser;
     }
 
     @Override
@@ -572,7 +702,9 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
         user.setIsDeleted(true);
         user.setUpdatedAt(new Date());
+        revokeTokens(user);
         userRepository.save(user);
+        userCacheService.evictUser(id);
     }
 
     @Override
@@ -613,8 +745,10 @@ public class UserServiceImpl implements UserService {
         // 创建新的用户角色关联，不再设置对象引用
         UserRoleRelation userRole = new UserRoleRelation(userId, roleId);
 
-        // 保存关联
+        // 保存关联，角色变化后令牌中的角色声明需要重新签发，新版本号随事务提交写入
         userRoleRepository.save(userRole);
+        userCacheService.evictRoles(userId);
+        revokeTokens(user);
         return user;
     }
 
@@ -626,8 +760,12 @@ public class UserServiceImpl implements UserService {
 
         // Delete user-role relationship if it exists
         UserRoleId userRoleId = new UserRoleId(userId, roleId);
-        userRoleRepository.findById(userRoleId)
-                .ifPresent(userRoleRepository::delete);
+        Optional<UserRoleRelation> userRole = userRoleRepository.findById(userRoleId);
+        if (userRole.isPresent()) {
+            userRoleRepository.delete(userRole.get());
+            userCacheService.evictRoles(userId);
+            revokeTokens(user);
+        }
 
         // Clear and refresh the user to avoid ConcurrentModificationException
         user = userRepository.findById(userId).orElse(user);
@@ -638,10 +776,22 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public Set<String> getUserRoleIds(String userId) {
-        List<UserRoleRelation> userRoles = userRoleRepository.findByIdUserId(userId);
-        return userRoles.stream()
+        return userCacheService.getRoleIds(userId, id -> userRoleRepository.findByIdUserId(id).stream()
                 .map(ur -> ur.getId().getRoleId())
-                .collect(Collectors.toSet());
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * 递增用户的令牌版本号，使该用户已签发的令牌全部失效
+     */
+    private void revokeTokens(User user) {
+        user.setTokenVersion(currentTokenVersion(user) + 1);
+        tokenVersionCache.evict(user.getId());
+        userCacheService.evictUser(user.getId());
+    }
+
+    private int currentTokenVersion(User user) {
+        return user.getTokenVersion() != null ? user.getTokenVersion() : 0;
     }
 
     //检查当前用户是否可以分配指定角色
@@ -661,6 +811,18 @@ public class UserServiceImpl implements UserService {
         return false;
     }
 
+    /**
+     * 写操作从数据库加载用户并检查是否已被软删除
+     * 缓存中的用户可能落后于其他实例的修改，整体保存会覆盖密码、令牌版本号和删除标记
+     */
+    private User loadActiveUser(Optional<User> loaded) {
+        User user = loaded.orElseThrow(UserException::userNotFound);
+        if (user.getIsDeleted()) {
+            throw UserException.userDeleted();
+        }
+        return user;
+    }
+
     public void checkUserNotDeleted(String userId) {
         User user = findById(userId)
                 .orElseThrow(UserException::userNotFound);
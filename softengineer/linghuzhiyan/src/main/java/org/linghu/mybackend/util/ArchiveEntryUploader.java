@@ -0,0 +1,115 @@
+package org.linghu.mybackend.util;
+
+import org.linghu.mybackend.dto.ExtractedFileDTO;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 压缩包条目的有界并行上传器
+ * 读取线程顺序读出条目并暂存，上传在共享线程池中并发执行；已暂存未上传完的条目数有上限，
+ * 达到上限时读取线程阻塞，内存和临时文件占用不随压缩包大小增长。任一条目上传失败后不再接受新条目。
+ * 每次解压创建一个实例，submit只能由读取线程调用
+ */
+class ArchiveEntryUploader {
+
+    /**
+     * 上传单个已知大小的条目
+     */
+    @FunctionalInterface
+    interface EntryUpload {
+        void upload(String objectName, InputStream stream, long size, String contentType) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int memoryThreshold;
+    private final EntryUpload upload;
+    private final List<Future<ExtractedFileDTO>> futures = new ArrayList<>();
+    private volatile Exception failure;
+
+    ArchiveEntryUploader(ExecutorService executor, int maxInFlight, int memoryThreshold, EntryUpload upload) {
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.memoryThreshold = memoryThreshold;
+        this.upload = upload;
+    }
+
+    /**
+     * 读出条目内容并提交上传，已暂存的条目数达到上限时等待
+     *
+     * @param objectName  上传的对象名
+     * @param contentType 文件类型
+     * @param entryStream 条目内容流
+     * @throws Exception 如果已有条目上传失败或读取条目失败
+     */
+    void submit(String objectName, String contentType, InputStream entryStream) throws Exception {
+        throwIfFailed();
+        inFlight.acquire();
+        SpooledEntry entry;
+        try {
+            entry = SpooledEntry.read(entryStream, memoryThreshold);
+        } catch (Exception e) {
+            inFlight.release();
+            throw e;
+        }
+        try {
+            futures.add(executor.submit(() -> uploadEntry(objectName, contentType, entry)));
+        } catch (RejectedExecutionException e) {
+            entry.close();
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 等待已提交的条目全部结束
+     *
+     * @return 上传成功的条目，按提交顺序排列
+     * @throws InterruptedException 如果等待被中断
+     */
+    List<ExtractedFileDTO> awaitCompleted() throws InterruptedException {
+        List<ExtractedFileDTO> completed = new ArrayList<>(futures.size());
+        for (Future<ExtractedFileDTO> future : futures) {
+            try {
+                completed.add(future.get());
+            } catch (ExecutionException e) {
+                // 失败原因已记录在failure中
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * 有条目上传失败时抛出第一个失败原因
+     */
+    void throwIfFailed() throws Exception {
+        Exception cause = failure;
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
+    private ExtractedFileDTO uploadEntry(String objectName, String contentType, SpooledEntry entry) throws Exception {
+        try (entry; InputStream stream = entry.open()) {
+            upload.upload(objectName, stream, entry.size(), contentType);
+            return ExtractedFileDTO.builder()
+                    .objectName(objectName)
+                    .fileSize(entry.size())
+                    .build();
+        } catch (Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+            throw e;
+        } finally {
+            inFlight.release();
+        }
+    }
+}
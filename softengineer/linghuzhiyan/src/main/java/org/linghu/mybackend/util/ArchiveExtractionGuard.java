@@ -0,0 +1,105 @@
+package org.linghu.mybackend.util;
+
+import org.linghu.mybackend.exception.BusinessException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 压缩包解压限额
+ * 解压过程中逐字节累计条目数、单个条目和全部条目解压后的大小，超出上限立即失败，防止压缩炸弹。
+ * 只在单次解压内使用，非线程安全
+ */
+class ArchiveExtractionGuard {
+
+    private final int maxEntries;
+    private final long maxEntryBytes;
+    private final long maxTotalBytes;
+    private int entries;
+    private long totalBytes;
+
+    ArchiveExtractionGuard(int maxEntries, long maxEntryBytes, long maxTotalBytes) {
+        this.maxEntries = maxEntries;
+        this.maxEntryBytes = maxEntryBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * 登记压缩包中的下一个条目，返回读取时计数的条目流
+     * 返回的流关闭时不会关闭底层的压缩包流
+     *
+     * @param entryName   条目在压缩包中的路径
+     * @param entryStream 条目内容流
+     * @return 超出限额时抛出BusinessException的条目流
+     */
+    InputStream nextEntry(String entryName, InputStream entryStream) {
+        validateEntryName(entryName);
+        if (++entries > maxEntries) {
+            throw new BusinessException(413, "压缩包文件数量超过上限 " + maxEntries);
+        }
+        return new FilterInputStream(entryStream) {
+            private long entryBytes;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    count(n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                count(skipped);
+                return skipped;
+            }
+
+            @Override
+            public void close() {
+                // 条目读完后压缩包流还要继续读取下一个条目
+            }
+
+            private void count(long n) {
+                entryBytes += n;
+                totalBytes += n;
+                if (entryBytes > maxEntryBytes) {
+                    throw new BusinessException(413, "解压后单个文件超过上限 " + maxEntryBytes + " 字节: " + entryName);
+                }
+                if (totalBytes > maxTotalBytes) {
+                    throw new BusinessException(413, "解压后总大小超过上限 " + maxTotalBytes + " 字节");
+                }
+            }
+        };
+    }
+
+    int getEntries() {
+        return entries;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 拒绝绝对路径和包含上级目录的条目，防止写到实验目录之外
+     */
+    private void validateEntryName(String entryName) {
+        String normalized = entryName.replace('\\', '/');
+        if (normalized.isEmpty() || normalized.startsWith("/") || normalized.equals("..")
+                || normalized.startsWith("../") || normalized.contains("/../") || normalized.endsWith("/..")) {
+            throw new BusinessException("压缩包包含非法路径: " + entryName);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package org.linghu.mybackend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * go-judge客户端 - 复用长连接，带超时、重试和熔断；通过HTTP或gRPC访问，由judge.service.transport选择
+ * 支持多个评测节点：按进行中的评测数最少分配节点，节点连续失败后摘除，健康检查通过后重新加入
+ * go-judge的文件缓存只在单个节点内有效，同一次评测的所有请求需要使用同一个节点
+ */
+@Component
+public class GoJudgeClient {
+    private static final Logger logger = LoggerFactory.getLogger(GoJudgeClient.class);
+
+    // 单次退避的最长等待时间（毫秒）
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final JudgeConfig judgeConfig;
+    private final GoJudgeTransport transport;
+
+    // 评测节点，按配置顺序排列
+    private final Map<String, JudgeNode> nodes = new LinkedHashMap<>();
+
+    // 节点分配需要同时比较所有节点的负载，统一加锁；评测释放节点后唤醒等待者
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final Condition nodeReleased = dispatchLock.newCondition();
+
+    private final Counter retryCounter;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public GoJudgeClient(JudgeConfig judgeConfig, MeterRegistry meterRegistry) {
+        this(judgeConfig, meterRegistry, judgeConfig.isGrpcTransport()
+                ? new GrpcGoJudgeTransport(judgeConfig) : new HttpGoJudgeTransport(judgeConfig));
+    }
+
+    GoJudgeClient(JudgeConfig judgeConfig, MeterRegistry meterRegistry, GoJudgeTransport transport) {
+        this.judgeConfig = judgeConfig;
+        this.transport = transport;
+
+        for (String nodeUrl : judgeConfig.getNodeUrls()) {
+            JudgeNode node = new JudgeNode(stripTrailingSlash(nodeUrl));
+            nodes.put(node.url, node);
+            Gauge.builder("judge.node.outstanding", node, n -> n.outstanding.get())
+                    .description("评测节点上进行中的评测数")
+                    .tag("node", node.url)
+                    .register(meterRegistry);
+            Gauge.builder("judge.node.healthy", node, n -> n.isEjected(System.currentTimeMillis()) ? 0 : 1)
+                    .description("评测节点是否可用")
+                    .tag("node", node.url)
+                    .register(meterRegistry);
+        }
+
+        this.retryCounter = Counter.builder("judge.client.retries")
+                .description("评测服务请求重试次数")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("judge.client.rejected")
+                .description("熔断期间被直接拒绝的评测请求数")
+                .register(meterRegistry);
+        Gauge.builder("judge.client.circuit.open", this, client -> client.isCircuitOpen() ? 1 : 0)
+                .description("所有评测节点是否都已熔断")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 分配一个评测节点，使用完毕后必须调用releaseNode释放
+     *
+     * @return 节点地址
+     */
+    public String acquireNode() {
+        return acquireNode(null);
+    }
+
+    /**
+     * 分配一个评测节点：优先使用指定节点（例如保存有编译产物的节点），
+     * 否则选择进行中评测数最少的可用节点；所有节点都满载时等待，超时后拒绝
+     *
+     * @param preferred 优先使用的节点地址，可为null
+     * @return 节点地址
+     */
+    public String acquireNode(String preferred) {
+        int maxConcurrent = Math.max(1, judgeConfig.getPool().getMaxConcurrent());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(judgeConfig.getPool().getAcquireTimeout());
+
+        dispatchLock.lock();
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                JudgeNode chosen = null;
+                boolean anyAdmitted = false;
+                for (JudgeNode node : nodes.values()) {
+                    if (node.isEjected(now)) {
+                        continue;
+                    }
+                    anyAdmitted = true;
+                    if (node.outstanding.get() >= maxConcurrent) {
+                        continue;
+                    }
+                    if (node.url.equals(preferred)) {
+                        chosen = node;
+                        break;
+                    }
+                    if (chosen == null || node.outstanding.get() < chosen.outstanding.get()) {
+                        chosen = node;
+                    }
+                }
+
+                if (!anyAdmitted) {
+                    rejectedCounter.increment();
+                    throw new BusinessException(503, "评测服务暂不可用，请稍后重试");
+                }
+                if (chosen != null) {
+                    chosen.outstanding.incrementAndGet();
+                    return chosen.url;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    rejectedCounter.increment();
+                    throw new BusinessException(503, "评测服务繁忙，请稍后重试");
+                }
+                nodeReleased.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待评测节点被中断", e);
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    /**
+     * 释放acquireNode分配的节点
+     *
+     * @param nodeUrl 节点地址
+     */
+    public void releaseNode(String nodeUrl) {
+        JudgeNode node = getNode(nodeUrl);
+        dispatchLock.lock();
+        try {
+            node.outstanding.decrementAndGet();
+            nodeReleased.signalAll();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    /**
+     * 在任意可用节点执行一组命令，适用于不引用缓存文件的请求
+     *
+     * @param cmds 命令列表
+     * @return 与命令一一对应的执行结果
+     */
+    public List<JudgeResultDTO> run(List<JudgeCommandDTO> cmds) {
+        String nodeUrl = acquireNode();
+        try {
+            return run(nodeUrl, cmds);
+        } finally {
+            releaseNode(nodeUrl);
+        }
+    }
+
+    /**
+     * 在指定节点执行一组命令，同一请求中的命令由go-judge并发执行
+     *
+     * @param nodeUrl 节点地址
+     * @param cmds    命令列表
+     * @return 与命令一一对应的执行结果
+     */
+    public List<JudgeResultDTO> run(String nodeUrl, List<JudgeCommandDTO> cmds) {
+        JudgeNode node = getNode(nodeUrl);
+        return execute(node, () -> transport.run(node.url, cmds));
+    }
+
+    /**
+     * 上传文件到指定节点的go-judge文件缓存
+     *
+     * @param nodeUrl  节点地址
+     * @param fileName 文件名
+     * @param content  文件内容
+     * @return go-judge返回的文件ID
+     */
+    public String uploadFile(String nodeUrl, String fileName, byte[] content) {
+        JudgeNode node = getNode(nodeUrl);
+        String fileId = execute(node, () -> transport.uploadFile(node.url, fileName, content));
+        if (fileId == null || fileId.isEmpty()) {
+            throw new RuntimeException("上传文件到评测服务失败: " + fileName);
+        }
+        return fileId;
+    }
+
+    /**
+     * 删除指定节点go-judge文件缓存中的文件
+     *
+     * @param nodeUrl 节点地址
+     * @param fileId  文件ID
+     */
+    public void deleteFile(String nodeUrl, String fileId) {
+        JudgeNode node = getNode(nodeUrl);
+        execute(node, () -> {
+            transport.deleteFile(node.url, fileId);
+            return null;
+        });
+    }
+
+    /**
+     * 所有节点当前是否都处于熔断状态
+     */
+    public boolean isCircuitOpen() {
+        long now = System.currentTimeMillis();
+        return nodes.values().stream().allMatch(node -> now < node.openUntil.get());
+    }
+
+    /**
+     * 获取所有评测节点地址
+     */
+    public List<String> getNodeUrls() {
+        return new ArrayList<>(nodes.keySet());
+    }
+
+    /**
+     * 定期检查各节点（HTTP方式访问/version接口，gRPC方式调用健康检查服务）：
+     * 失败计入节点的连续失败次数，成功则让已摘除的节点重新加入
+     */
+    @Scheduled(fixedDelayString = "${judge.service.pool.health-check-interval-ms:5000}")
+    public void probeNodes() {
+        for (JudgeNode node : nodes.values()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                transport.checkHealth(node.url);
+                onSuccess(node);
+            } catch (GoJudgeTransportException e) {
+                logger.debug("评测节点 {} 健康检查失败: {}", node.url, e.getMessage());
+                onFailure(node);
+            }
+        }
+    }
+
+    /**
+     * 关闭到各节点的连接
+     */
+    @PreDestroy
+    public void close() {
+        transport.close();
+    }
+
+    private <T> T execute(JudgeNode node, Supplier<T> call) {
+        int maxRetries = Math.max(0, judgeConfig.getMaxRetries());
+        RuntimeException lastError = null;
+
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                retryCounter.increment();
+                backoff(attempt);
+            }
+            acquirePermission(node);
+
+            try {
+                T result = call.get();
+                onSuccess(node);
+                return result;
+            } catch (GoJudgeTransportException e) {
+                switch (e.getKind()) {
+                    case REJECTED:
+                        // 节点可用但请求本身有误，不重试
+                        onSuccess(node);
+                        throw e;
+                    case TIMEOUT:
+                        // 读取超时说明评测仍在进行，重试只会加重负载
+                        onFailure(node);
+                        throw e;
+                    default:
+                        onFailure(node);
+                        lastError = e;
+                        logger.warn("{}，第 {} 次请求", e.getMessage(), attempt + 1);
+                }
+            } catch (RuntimeException e) {
+                node.probing.set(false);
+                throw e;
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * 节点熔断期间直接拒绝；熔断到期后只放行一个试探请求
+     */
+    private void acquirePermission(JudgeNode node) {
+        long until = node.openUntil.get();
+        if (until == 0) {
+            return;
+        }
+        if (System.currentTimeMillis() < until || !node.probing.compareAndSet(false, true)) {
+            rejectedCounter.increment();
+            throw new BusinessException(503, "评测服务暂不可用，请稍后重试");
+        }
+        logger.info("评测节点 {} 熔断到期，发送试探请求", node.url);
+    }
+
+    private void onSuccess(JudgeNode node) {
+        node.consecutiveFailures.set(0);
+        if (node.openUntil.getAndSet(0) != 0) {
+            logger.info("评测节点 {} 已恢复，重新加入节点池", node.url);
+            signalNodeChange();
+        }
+        node.probing.set(false);
+    }
+
+    private void onFailure(JudgeNode node) {
+        JudgeConfig.CircuitBreaker config = judgeConfig.getCircuitBreaker();
+        int failures = node.consecutiveFailures.incrementAndGet();
+        if (node.probing.get() || failures >= config.getFailureThreshold()) {
+            node.openUntil.set(System.currentTimeMillis() + config.getOpenSeconds() * 1000L);
+            node.probing.set(false);
+            logger.error("评测节点 {} 连续失败 {} 次，摘除 {} 秒", node.url, failures, config.getOpenSeconds());
+        }
+    }
+
+    /**
+     * 节点重新加入后唤醒等待分配的评测
+     */
+    private void signalNodeChange() {
+        dispatchLock.lock();
+        try {
+            nodeReleased.signalAll();
+        } finally {
+            dispatchLock.unlock();
+        }
+    }
+
+    private void backoff(int attempt) {
+        long delay = Math.min(judgeConfig.getRetryBackoff() << (attempt - 1), MAX_BACKOFF_MILLIS);
+        // 加入随机抖动，避免多个工作线程同时重试
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("评测请求被中断", e);
+        }
+    }
+
+    private JudgeNode getNode(String nodeUrl) {
+        JudgeNode node = nodeUrl != null ? nodes.get(stripTrailingSlash(nodeUrl)) : null;
+        if (node == null) {
+            throw new IllegalArgumentException("未知的评测节点: " + nodeUrl);
+        }
+        return node;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * 单个go-judge节点的负载和熔断状态
+     */
+    private static final class JudgeNode {
+        private final String url;
+        // 进行中的评测数，只在dispatchLock内修改
+        private final AtomicInteger outstanding = new AtomicInteger();
+        // 熔断器状态：连续失败次数、熔断截止时间、半开状态下是否已有试探请求
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong openUntil = new AtomicLong();
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        private JudgeNode(String url) {
+            this.url = url;
+        }
+
+        /**
+         * 节点是否处于摘除期内，熔断到期的节点可以接收试探请求
+         */
+        private boolean isEjected(long now) {
+            return now < openUntil.get();
+        }
+    }
+}
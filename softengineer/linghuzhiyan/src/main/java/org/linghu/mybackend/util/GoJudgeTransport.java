@@ -0,0 +1,53 @@
+package org.linghu.mybackend.util;
+
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+
+import java.util.List;
+
+/**
+ * go-judge传输方式，负责与单个节点通信；节点分配、重试和熔断由GoJudgeClient统一处理
+ * 失败时抛出GoJudgeTransportException
+ */
+public interface GoJudgeTransport extends AutoCloseable {
+
+    /**
+     * 在指定节点执行一组命令
+     *
+     * @param node 节点地址
+     * @param cmds 命令列表
+     * @return 与命令一一对应的执行结果
+     */
+    List<JudgeResultDTO> run(String node, List<JudgeCommandDTO> cmds);
+
+    /**
+     * 上传文件到指定节点的文件缓存
+     *
+     * @param node     节点地址
+     * @param fileName 文件名
+     * @param content  文件内容
+     * @return 文件ID
+     */
+    String uploadFile(String node, String fileName, byte[] content);
+
+    /**
+     * 删除指定节点文件缓存中的文件
+     *
+     * @param node   节点地址
+     * @param fileId 文件ID
+     */
+    void deleteFile(String node, String fileId);
+
+    /**
+     * 检查节点是否可用，不可用时抛出异常
+     *
+     * @param node 节点地址
+     */
+    void checkHealth(String node);
+
+    /**
+     * 释放连接等资源
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,41 @@
+package org.linghu.mybackend.util;
+
+/**
+ * go-judge传输层异常，按失败类型决定是否重试以及是否计入节点的熔断失败次数
+ */
+public class GoJudgeTransportException extends RuntimeException {
+
+    /**
+     * 失败类型
+     */
+    public enum Kind {
+        /**
+         * 节点不可用或返回服务端错误，计入失败次数并重试
+         */
+        UNAVAILABLE,
+        /**
+         * 等待响应超时，评测可能仍在进行，计入失败次数但不重试
+         */
+        TIMEOUT,
+        /**
+         * 节点正常但拒绝了请求，不重试
+         */
+        REJECTED
+    }
+
+    private final Kind kind;
+
+    public GoJudgeTransportException(Kind kind, String message) {
+        super(message);
+        this.kind = kind;
+    }
+
+    public GoJudgeTransportException(Kind kind, String message, Throwable cause) {
+        super(message, cause);
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
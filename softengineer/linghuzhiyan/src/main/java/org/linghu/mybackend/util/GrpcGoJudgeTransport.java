@@ -0,0 +1,254 @@
+package org.linghu.mybackend.util;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.judge.pb.ExecutorGrpc;
+import org.linghu.mybackend.judge.pb.FileContent;
+import org.linghu.mybackend.judge.pb.FileID;
+import org.linghu.mybackend.judge.pb.Request;
+import org.linghu.mybackend.judge.pb.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于gRPC的go-judge传输方式，节点地址为gRPC地址（host:port）
+ * 每个节点只建立一个HTTP/2连接，并发的评测请求在同一连接上多路复用；文件内容以字节传输，不做JSON编解码
+ */
+public class GrpcGoJudgeTransport implements GoJudgeTransport {
+    private static final Logger logger = LoggerFactory.getLogger(GrpcGoJudgeTransport.class);
+
+    // 与HTTP接口返回的状态名称保持一致，评测逻辑无需区分传输方式
+    private static final Map<Response.Result.StatusType, String> STATUS_NAMES =
+            new EnumMap<>(Response.Result.StatusType.class);
+
+    static {
+        STATUS_NAMES.put(Response.Result.StatusType.Invalid, "Invalid");
+        STATUS_NAMES.put(Response.Result.StatusType.Accepted, "Accepted");
+        STATUS_NAMES.put(Response.Result.StatusType.WrongAnswer, "Wrong Answer");
+        STATUS_NAMES.put(Response.Result.StatusType.PartiallyCorrect, "Partially Correct");
+        STATUS_NAMES.put(Response.Result.StatusType.MemoryLimitExceeded, "Memory Limit Exceeded");
+        STATUS_NAMES.put(Response.Result.StatusType.TimeLimitExceeded, "Time Limit Exceeded");
+        STATUS_NAMES.put(Response.Result.StatusType.OutputLimitExceeded, "Output Limit Exceeded");
+        STATUS_NAMES.put(Response.Result.StatusType.FileError, "File Error");
+        STATUS_NAMES.put(Response.Result.StatusType.NonZeroExitStatus, "Nonzero Exit Status");
+        STATUS_NAMES.put(Response.Result.StatusType.Signalled, "Signalled");
+        STATUS_NAMES.put(Response.Result.StatusType.DangerousSyscall, "Dangerous Syscall");
+        STATUS_NAMES.put(Response.Result.StatusType.JudgementFailed, "Judgement Failed");
+        STATUS_NAMES.put(Response.Result.StatusType.InvalidInteraction, "Invalid Interaction");
+        STATUS_NAMES.put(Response.Result.StatusType.InternalError, "Internal Error");
+    }
+
+    private final JudgeConfig judgeConfig;
+
+    // 每个节点一个长连接通道，首次使用时建立
+    private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
+
+    public GrpcGoJudgeTransport(JudgeConfig judgeConfig) {
+        this.judgeConfig = judgeConfig;
+    }
+
+    @Override
+    public List<JudgeResultDTO> run(String node, List<JudgeCommandDTO> cmds) {
+        Request.Builder request = Request.newBuilder();
+        for (JudgeCommandDTO cmd : cmds) {
+            request.addCmd(toCmd(cmd));
+        }
+        logger.info("发送评测请求到 {}", node);
+
+        Response response;
+        try {
+            response = executor(node, judgeConfig.getTimeout()).exec(request.build());
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+        if (!response.getError().isEmpty()) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED,
+                    "评测服务返回错误: " + response.getError());
+        }
+        if (response.getResultsCount() == 0) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED, "评测服务未返回结果");
+        }
+
+        List<JudgeResultDTO> results = new ArrayList<>(response.getResultsCount());
+        for (Response.Result result : response.getResultsList()) {
+            results.add(toResult(result));
+        }
+        return results;
+    }
+
+    @Override
+    public String uploadFile(String node, String fileName, byte[] content) {
+        try {
+            return executor(node, judgeConfig.getTimeout()).fileAdd(FileContent.newBuilder()
+                    .setName(fileName)
+                    .setContent(ByteString.copyFrom(content))
+                    .build()).getFileID();
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void deleteFile(String node, String fileId) {
+        try {
+            executor(node, judgeConfig.getTimeout()).fileDelete(FileID.newBuilder().setFileID(fileId).build());
+        } catch (StatusRuntimeException e) {
+            throw translate(e);
+        }
+    }
+
+    @Override
+    public void checkHealth(String node) {
+        try {
+            HealthCheckResponse response = HealthGrpc.newBlockingStub(channel(node))
+                    .withDeadlineAfter(judgeConfig.getConnectTimeout(), TimeUnit.SECONDS)
+                    .check(HealthCheckRequest.getDefaultInstance());
+            if (response.getStatus() != HealthCheckResponse.ServingStatus.SERVING) {
+                throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                        "评测服务状态异常: " + response.getStatus());
+            }
+        } catch (StatusRuntimeException e) {
+            // 未注册健康检查服务的节点能够响应请求即视为可用
+            if (e.getStatus().getCode() != Status.Code.UNIMPLEMENTED) {
+                throw translate(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ManagedChannel channel : channels.values()) {
+            channel.shutdown();
+        }
+        for (ManagedChannel channel : channels.values()) {
+            try {
+                if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+                    channel.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                channel.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        channels.clear();
+    }
+
+    private ExecutorGrpc.ExecutorBlockingStub executor(String node, int timeoutSeconds) {
+        return ExecutorGrpc.newBlockingStub(channel(node)).withDeadlineAfter(timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    private ManagedChannel channel(String node) {
+        return channels.computeIfAbsent(node, target -> ManagedChannelBuilder.forTarget(target)
+                .usePlaintext()
+                .maxInboundMessageSize(judgeConfig.getGrpc().getMaxMessageSize())
+                .keepAliveTime(judgeConfig.getGrpc().getKeepAliveSeconds(), TimeUnit.SECONDS)
+                .build());
+    }
+
+    private Request.CmdType toCmd(JudgeCommandDTO cmd) {
+        Request.CmdType.Builder builder = Request.CmdType.newBuilder()
+                .addAllArgs(cmd.getArgs())
+                .addFiles(toFile(cmd.getStdin()))
+                .addFiles(collector("stdout", cmd.getStdoutMax()))
+                .addFiles(collector("stderr", cmd.getStderrMax()))
+                .setCpuTimeLimit(cmd.getCpuLimit())
+                .setMemoryLimit(cmd.getMemoryLimit())
+                .setProcLimit(cmd.getProcLimit());
+        if (cmd.getEnv() != null) {
+            builder.addAllEnv(cmd.getEnv());
+        }
+        if (cmd.getCopyIn() != null) {
+            for (Map.Entry<String, JudgeCommandDTO.File> entry : cmd.getCopyIn().entrySet()) {
+                builder.putCopyIn(entry.getKey(), toFile(entry.getValue()));
+            }
+        }
+        if (cmd.getCopyOut() != null) {
+            for (String name : cmd.getCopyOut()) {
+                builder.addCopyOut(Request.CmdCopyOutFile.newBuilder().setName(name));
+            }
+        }
+        if (cmd.getCopyOutCached() != null) {
+            for (String name : cmd.getCopyOutCached()) {
+                builder.addCopyOutCached(Request.CmdCopyOutFile.newBuilder().setName(name));
+            }
+        }
+        return builder.build();
+    }
+
+    private Request.File toFile(JudgeCommandDTO.File file) {
+        if (file != null && file.getFileId() != null) {
+            return Request.File.newBuilder()
+                    .setCached(Request.CachedFile.newBuilder().setFileID(file.getFileId()))
+                    .build();
+        }
+        ByteString content = file != null && file.getContent() != null
+                ? ByteString.copyFrom(file.getContent()) : ByteString.EMPTY;
+        return Request.File.newBuilder()
+                .setMemory(Request.MemoryFile.newBuilder().setContent(content))
+                .build();
+    }
+
+    private Request.File collector(String name, long max) {
+        return Request.File.newBuilder()
+                .setPipe(Request.PipeCollector.newBuilder().setName(name).setMax(max))
+                .build();
+    }
+
+    private JudgeResultDTO toResult(Response.Result result) {
+        Map<String, String> files = new HashMap<>();
+        result.getFilesMap().forEach((name, content) -> files.put(name, content.toString(StandardCharsets.UTF_8)));
+        return JudgeResultDTO.builder()
+                .status(STATUS_NAMES.getOrDefault(result.getStatus(), result.getStatus().name()))
+                .exitStatus(result.getExitStatus())
+                .error(result.getError())
+                .time(result.getTime())
+                .memory(result.getMemory())
+                .files(files)
+                .fileIds(new HashMap<>(result.getFileIDsMap()))
+                .build();
+    }
+
+    private GoJudgeTransportException translate(StatusRuntimeException e) {
+        Status.Code code = e.getStatus().getCode();
+        switch (code) {
+            case UNAVAILABLE:
+            case INTERNAL:
+            case UNKNOWN:
+            case RESOURCE_EXHAUSTED:
+            case ABORTED:
+                return new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                        "评测服务请求失败: " + e.getStatus(), e);
+            case DEADLINE_EXCEEDED:
+                return new GoJudgeTransportException(GoJudgeTransportException.Kind.TIMEOUT,
+                        "评测服务响应超时: " + e.getStatus(), e);
+            default:
+                return new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED,
+                        "评测服务返回错误: " + e.getStatus(), e);
+        }
+    }
+
+    /**
+     * 已建立的通道数，每个节点至多一个
+     */
+    int getChannelCount() {
+        return channels.size();
+    }
+}
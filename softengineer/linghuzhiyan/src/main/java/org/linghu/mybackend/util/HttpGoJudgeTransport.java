@@ -0,0 +1,302 @@
+package org.linghu.mybackend.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 基于HTTP/JSON的go-judge传输方式，节点地址为HTTP API地址
+ * 请求体直接由命令写出为JSON，不构建中间的Map结构
+ */
+public class HttpGoJudgeTransport implements GoJudgeTransport {
+    private static final Logger logger = LoggerFactory.getLogger(HttpGoJudgeTransport.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
+    private static final ObjectReader resultReader = objectMapper.readerForListOf(JudgeResultDTO.class);
+
+    private final JudgeConfig judgeConfig;
+    private final HttpClient httpClient;
+
+    public HttpGoJudgeTransport(JudgeConfig judgeConfig) {
+        this.judgeConfig = judgeConfig;
+        // HttpClient内部维护连接池，HTTP/1.1连接默认保持长连接
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(judgeConfig.getConnectTimeout()))
+                .build();
+    }
+
+    @Override
+    public List<JudgeResultDTO> run(String node, List<JudgeCommandDTO> cmds) {
+        // JSON的content字段只能承载UTF-8文本，其他内容先通过/file上传，再按文件ID引用
+        Map<JudgeCommandDTO.File, String> uploaded = uploadBinaryFiles(node, cmds);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/run"))
+                    .timeout(Duration.ofSeconds(judgeConfig.getTimeout()))
+                    .header("Content-Type", "application/json")
+                    .header("Accept", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(writeRequest(cmds, uploaded)))
+                    .build();
+            logger.info("发送评测请求到 {}", node);
+            String response = send(request);
+            try {
+                List<JudgeResultDTO> results = resultReader.readValue(response);
+                if (results == null || results.isEmpty()) {
+                    throw new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED,
+                            "解析评测结果出错: " + response);
+                }
+                return results;
+            } catch (IOException e) {
+                throw new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED,
+                        "解析评测结果出错: " + response, e);
+            }
+        } finally {
+            uploaded.values().forEach(fileId -> deleteUploaded(node, fileId));
+        }
+    }
+
+    @Override
+    public String uploadFile(String node, String fileName, byte[] content) {
+        String boundary = "----GoJudgeBoundary" + UUID.randomUUID().toString().replace("-", "");
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        String header = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName.replace("\"", "_") + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n";
+        body.writeBytes(header.getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/file"))
+                .timeout(Duration.ofSeconds(judgeConfig.getTimeout()))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return JsonUtils.parseObject(send(request), String.class);
+    }
+
+    @Override
+    public void deleteFile(String node, String fileId) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/file/" + fileId))
+                .timeout(Duration.ofSeconds(judgeConfig.getTimeout()))
+                .DELETE()
+                .build();
+        send(request);
+    }
+
+    @Override
+    public void checkHealth(String node) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + "/version"))
+                .timeout(Duration.ofSeconds(judgeConfig.getConnectTimeout()))
+                .GET()
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                        "评测服务返回错误状态码: " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                    "评测服务请求失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("评测请求被中断", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    private String send(HttpRequest request) {
+        try {
+            HttpResponse<String> response = httpClient.send(request,
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            int statusCode = response.statusCode();
+            logger.info("评测服务返回状态码: {}", statusCode);
+            if (statusCode >= 500) {
+                throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                        "评测服务返回错误状态码: " + statusCode);
+            }
+            // 4xx说明服务可用但请求本身有误
+            if (statusCode != 200) {
+                logger.error("评测服务返回错误状态码: {}", statusCode);
+                throw new GoJudgeTransportException(GoJudgeTransportException.Kind.REJECTED,
+                        "评测服务返回错误状态码: " + statusCode);
+            }
+            logger.debug("评测服务响应: {}", response.body());
+            return response.body();
+        } catch (HttpConnectTimeoutException e) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                    "连接评测服务超时: " + e.getMessage(), e);
+        } catch (HttpTimeoutException e) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.TIMEOUT,
+                    "评测服务响应超时: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new GoJudgeTransportException(GoJudgeTransportException.Kind.UNAVAILABLE,
+                    "评测服务请求失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("评测请求被中断", e);
+        }
+    }
+
+    /**
+     * 上传命令中不是合法UTF-8的内存文件，返回文件到go-judge文件ID的映射
+     * 同一个文件对象被多条命令引用时只上传一次
+     */
+    private Map<JudgeCommandDTO.File, String> uploadBinaryFiles(String node, List<JudgeCommandDTO> cmds) {
+        Map<JudgeCommandDTO.File, String> uploaded = new IdentityHashMap<>();
+        try {
+            for (JudgeCommandDTO cmd : cmds) {
+                uploadIfBinary(node, "stdin", cmd.getStdin(), uploaded);
+                if (cmd.getCopyIn() != null) {
+                    for (Map.Entry<String, JudgeCommandDTO.File> entry : cmd.getCopyIn().entrySet()) {
+                        uploadIfBinary(node, entry.getKey(), entry.getValue(), uploaded);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            uploaded.values().forEach(fileId -> deleteUploaded(node, fileId));
+            throw e;
+        }
+        return uploaded;
+    }
+
+    private void uploadIfBinary(String node, String name, JudgeCommandDTO.File file,
+                                Map<JudgeCommandDTO.File, String> uploaded) {
+        if (file == null || file.getFileId() != null || file.getContent() == null
+                || uploaded.containsKey(file) || isUtf8(file.getContent())) {
+            return;
+        }
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        uploaded.put(file, uploadFile(node, fileName, file.getContent()));
+    }
+
+    private void deleteUploaded(String node, String fileId) {
+        try {
+            deleteFile(node, fileId);
+        } catch (RuntimeException e) {
+            logger.warn("删除评测临时文件 {} 失败: {}", fileId, e.getMessage());
+        }
+    }
+
+    private static boolean isUtf8(byte[] content) {
+        try {
+            StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 按go-judge的/run接口格式写出请求体
+     */
+    private byte[] writeRequest(List<JudgeCommandDTO> cmds, Map<JudgeCommandDTO.File, String> uploaded) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("cmd");
+            for (JudgeCommandDTO cmd : cmds) {
+                writeCommand(json, cmd, uploaded);
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private void writeCommand(JsonGenerator json, JudgeCommandDTO cmd,
+                              Map<JudgeCommandDTO.File, String> uploaded) throws IOException {
+        json.writeStartObject();
+        writeStrings(json, "args", cmd.getArgs());
+        writeStrings(json, "env", cmd.getEnv());
+
+        json.writeArrayFieldStart("files");
+        writeFile(json, cmd.getStdin(), uploaded);
+        writeCollector(json, "stdout", cmd.getStdoutMax());
+        writeCollector(json, "stderr", cmd.getStderrMax());
+        json.writeEndArray();
+
+        json.writeNumberField("cpuLimit", cmd.getCpuLimit());
+        json.writeNumberField("memoryLimit", cmd.getMemoryLimit());
+        json.writeNumberField("procLimit", cmd.getProcLimit());
+
+        if (cmd.getCopyIn() != null) {
+            json.writeObjectFieldStart("copyIn");
+            for (Map.Entry<String, JudgeCommandDTO.File> entry : cmd.getCopyIn().entrySet()) {
+                json.writeFieldName(entry.getKey());
+                writeFile(json, entry.getValue(), uploaded);
+            }
+            json.writeEndObject();
+        }
+        writeStrings(json, "copyOut", cmd.getCopyOut());
+        writeStrings(json, "copyOutCached", cmd.getCopyOutCached());
+        json.writeEndObject();
+    }
+
+    private void writeFile(JsonGenerator json, JudgeCommandDTO.File file,
+                           Map<JudgeCommandDTO.File, String> uploaded) throws IOException {
+        json.writeStartObject();
+        String fileId = file != null ? file.getFileId() : null;
+        if (fileId == null && file != null) {
+            fileId = uploaded.get(file);
+        }
+        if (fileId != null) {
+            json.writeStringField("fileId", fileId);
+        } else {
+            // 上传时已过滤非UTF-8内容，这里的内容可以无损写成JSON字符串
+            byte[] content = file != null && file.getContent() != null ? file.getContent() : new byte[0];
+            json.writeStringField("content", new String(content, StandardCharsets.UTF_8));
+        }
+        json.writeEndObject();
+    }
+
+    private void writeCollector(JsonGenerator json, String name, long max) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", name);
+        json.writeNumberField("max", max);
+        json.writeEndObject();
+    }
+
+    private void writeStrings(JsonGenerator json, String field, List<String> values) throws IOException {
+        if (values == null) {
+            return;
+        }
+        json.writeArrayFieldStart(field);
+        for (String value : values) {
+            json.writeString(value);
+        }
+        json.writeEndArray();
+    }
+}
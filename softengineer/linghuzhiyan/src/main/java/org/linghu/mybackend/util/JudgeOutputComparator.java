@@ -0,0 +1,49 @@
+package org.linghu.mybackend.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 评测输出比对工具 - 按行流式比较，忽略行尾空白和末尾空行
+ */
+public final class JudgeOutputComparator {
+
+    private JudgeOutputComparator() {
+    }
+
+    /**
+     * 比较期望输出与实际输出，两者都以流的方式逐行读取，不需要把整个文件加载到内存
+     *
+     * @param expected 期望输出
+     * @param actual   实际输出
+     * @return 是否一致
+     * @throws IOException 读取失败时抛出
+     */
+    public static boolean matches(Reader expected, Reader actual) throws IOException {
+        BufferedReader expectedReader = new BufferedReader(expected);
+        BufferedReader actualReader = new BufferedReader(actual);
+
+        while (true) {
+            String expectedLine = expectedReader.readLine();
+            String actualLine = actualReader.readLine();
+            if (expectedLine == null || actualLine == null) {
+                // 一方已经结束时，另一方剩余部分只能是空行
+                return isBlankToEnd(expectedLine, expectedReader) && isBlankToEnd(actualLine, actualReader);
+            }
+            if (!expectedLine.stripTrailing().equals(actualLine.stripTrailing())) {
+                return false;
+            }
+        }
+    }
+
+    private static boolean isBlankToEnd(String line, BufferedReader reader) throws IOException {
+        while (line != null) {
+            if (!line.isBlank()) {
+                return false;
+            }
+            line = reader.readLine();
+        }
+        return true;
+    }
+}
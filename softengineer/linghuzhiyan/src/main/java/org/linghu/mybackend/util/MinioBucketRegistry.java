@@ -0,0 +1,161 @@
+package org.linghu.mybackend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import org.linghu.mybackend.config.MinioConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MinIO存储桶注册表
+ * 启动时一次性检查并创建所需的bucket，已确认存在的bucket保存在内存中，上传路径不再逐次调用bucketExists。
+ * 启动时MinIO不可用的bucket在首次使用时再确认；对象写入返回NoSuchBucket时移出已知集合，下次使用时重新创建
+ */
+@Component
+public class MinioBucketRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(MinioBucketRegistry.class);
+
+    static final String SUBMISSION_BUCKET = "submission";
+    static final String RESOURCE_BUCKET = "resource";
+
+    private static final String NO_SUCH_BUCKET = "NoSuchBucket";
+
+    private final MinioClient minioClient;
+    private final MinioConfig minioConfig;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> knownBuckets = ConcurrentHashMap.newKeySet();
+    private final Map<String, Counter> roundTripCounters = new ConcurrentHashMap<>();
+    private final DistributionSummary uploadRoundTrips;
+
+    public MinioBucketRegistry(MinioClient minioClient, MinioConfig minioConfig, MeterRegistry meterRegistry) {
+        this.minioClient = minioClient;
+        this.minioConfig = minioConfig;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("minio.buckets.known", knownBuckets, Set::size)
+                .description("已确认存在的MinIO bucket数量")
+                .register(meterRegistry);
+        this.uploadRoundTrips = DistributionSummary.builder("minio.upload.round.trips")
+                .description("每次上传产生的MinIO请求次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 应用启动后确认所有默认bucket存在，MinIO不可用时留待首次使用时再确认
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        for (String bucketName : defaultBuckets()) {
+            try {
+                ensure(bucketName);
+            } catch (Exception e) {
+                logger.warn("启动时确认bucket {} 失败，将在首次使用时重试: {}", bucketName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 确认默认bucket都已存在
+     *
+     * @throws Exception 如果操作失败
+     */
+    public void ensureDefaults() throws Exception {
+        for (String bucketName : defaultBuckets()) {
+            ensure(bucketName);
+        }
+    }
+
+    /**
+     * 确认bucket存在，不存在时创建；已知bucket直接返回，不访问MinIO
+     *
+     * @param bucketName bucket名称
+     * @return 本次产生的MinIO请求次数
+     * @throws Exception 如果操作失败
+     */
+    public int ensure(String bucketName) throws Exception {
+        if (knownBuckets.contains(bucketName)) {
+            return 0;
+        }
+        int roundTrips = 1;
+        recordRoundTrip("bucket_exists");
+        boolean exists = minioClient.bucketExists(BucketExistsArgs.builder()
+                .bucket(bucketName)
+                .build());
+        if (!exists) {
+            roundTrips++;
+            recordRoundTrip("make_bucket");
+            try {
+                minioClient.makeBucket(MakeBucketArgs.builder()
+                        .bucket(bucketName)
+                        .build());
+                logger.info("已创建MinIO bucket: {}", bucketName);
+            } catch (ErrorResponseException e) {
+                // 其他实例已并发创建
+                String code = e.errorResponse().code();
+                if (!"BucketAlreadyOwnedByYou".equals(code) && !"BucketAlreadyExists".equals(code)) {
+                    throw e;
+                }
+            }
+        }
+        knownBuckets.add(bucketName);
+        return roundTrips;
+    }
+
+    /**
+     * 对象操作返回NoSuchBucket时将bucket移出已知集合，下次使用时重新确认
+     *
+     * @param bucketName bucket名称
+     * @param error 对象操作抛出的异常
+     */
+    public void onError(String bucketName, Exception error) {
+        if (error instanceof ErrorResponseException responseException
+                && NO_SUCH_BUCKET.equals(responseException.errorResponse().code())) {
+            knownBuckets.remove(bucketName);
+            logger.warn("MinIO bucket {} 不存在，下次使用时重新创建", bucketName);
+        }
+    }
+
+    /**
+     * 记录一次MinIO请求
+     *
+     * @param operation 操作名称
+     */
+    public void recordRoundTrip(String operation) {
+        roundTripCounters.computeIfAbsent(operation, op -> Counter.builder("minio.round.trips")
+                .tag("operation", op)
+                .description("MinIO请求次数")
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * 记录一次上传产生的MinIO请求次数
+     *
+     * @param roundTrips 请求次数
+     */
+    public void recordUpload(int roundTrips) {
+        uploadRoundTrips.record(roundTrips);
+    }
+
+    public boolean isKnown(String bucketName) {
+        return knownBuckets.contains(bucketName);
+    }
+
+    private List<String> defaultBuckets() {
+        return List.of(minioConfig.getBucketName(), SUBMISSION_BUCKET, RESOURCE_BUCKET);
+    }
+}
@@ -3,25 +3,44 @@ package org.linghu.mybackend.util;
 import io.minio.*;
 import io.minio.http.Method;
 import io.minio.messages.Item;
+import jakarta.annotation.PreDestroy;
 import org.linghu.mybackend.config.MinioConfig;
+import org.linghu.mybackend.dto.ExtractedFileDTO;
 import org.linghu.mybackend.dto.SourceCodeFileDTO;
 import org.linghu.mybackend.dto.SubmissionRequestDTO;
+import org.linghu.mybackend.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
@@ -34,10 +53,16 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
  */
 @Component
 public class MinioUtil {
+    private static final Logger logger = LoggerFactory.getLogger(MinioUtil.class);
+
     private final MinioClient minioClient;
-    private final MinioConfig minioConfig; // 定义不同的bucket名称
-    private static final String SUBMISSION_BUCKET = "submission";
-    private static final String RESOURCE_BUCKET = "resource";
+    private final MinioClient presignClient;
+    private final MinioConfig minioConfig;
+    private final MinioBucketRegistry bucketRegistry;
+
+    // 定义不同的bucket名称
+    private static final String SUBMISSION_BUCKET = MinioBucketRegistry.SUBMISSION_BUCKET;
+    private static final String RESOURCE_BUCKET = MinioBucketRegistry.RESOURCE_BUCKET;
 
     // 用户头像前缀（存储在默认bucket中）
     private static final String PREFIX_AVATARS = "avatars/";
@@ -52,39 +77,43 @@ public class MinioUtil {
     // 时间戳格式
     private static final String TIMESTAMP_FORMAT = "yyyyMMdd-HHmmss";
 
+    // 解压条目不超过该大小时暂存在内存中，否则写入临时文件
+    private static final int EXTRACT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    // 压缩包解压限额，防止压缩炸弹
+    @Value("${minio.extract.max-entries:10000}")
+    private int maxExtractEntries = 10000;
+
+    @Value("${minio.extract.max-entry-bytes:1073741824}")
+    private long maxExtractEntryBytes = 1073741824L;
+
+    @Value("${minio.extract.max-total-bytes:4294967296}")
+    private long maxExtractTotalBytes = 4294967296L;
+
+    // 解压条目上传线程池，所有解压任务共享，限制同时上传到MinIO的条目数
+    private final int extractUploadConcurrency;
+    private final ExecutorService extractUploadExecutor;
+
     @Autowired
-    public MinioUtil(MinioClient minioClient, MinioConfig minioConfig) {
+    public MinioUtil(MinioClient minioClient, @Qualifier("minioPresignClient") MinioClient presignClient,
+                     MinioConfig minioConfig, MinioBucketRegistry bucketRegistry,
+                     @Value("${minio.extract.upload-concurrency:4}") int extractUploadConcurrency) {
         this.minioClient = minioClient;
+        this.presignClient = presignClient;
         this.minioConfig = minioConfig;
+        this.bucketRegistry = bucketRegistry;
+        this.extractUploadConcurrency = Math.max(1, extractUploadConcurrency);
+        this.extractUploadExecutor = Executors.newFixedThreadPool(this.extractUploadConcurrency,
+                new CustomizableThreadFactory("archive-upload-"));
     }
 
     /**
-     * 确保MinIO存储桶存在，如不存在则创建
+     * 确保MinIO存储桶存在，如不存在则创建；启动后已确认的bucket不再访问MinIO
      * 
      * @throws Exception 如果操作失败
      */
     public void ensureBucketExists() throws Exception {
-        ensureBucketExists(minioConfig.getBucketName());
-        ensureBucketExists(SUBMISSION_BUCKET);
-        ensureBucketExists(RESOURCE_BUCKET);
-    }
-
-    /**
-     * 确保指定的bucket存在
-     * 
-     * @param bucketName bucket名称
-     * @throws Exception 如果操作失败
-     */
-    private void ensureBucketExists(String bucketName) throws Exception {
-        boolean bucketExists = minioClient.bucketExists(BucketExistsArgs.builder()
-                .bucket(bucketName)
-                .build());
-
-        if (!bucketExists) {
-            minioClient.makeBucket(MakeBucketArgs.builder()
-                    .bucket(bucketName)
-                    .build());
-        }
+        bucketRegistry.ensureDefaults();
     }
 
     /**
@@ -180,10 +209,69 @@ public class MinioUtil {
                 .object(objectName)
                 .build();
 
+        bucketRegistry.recordRoundTrip("get_object");
         InputStream stream = minioClient.getObject(getObjectArgs);
         return new InputStreamResource(stream);
     }
 
+    /**
+     * 从MinIO下载文件的指定区间
+     * 只向MinIO请求需要的字节，传入matchETag时对象在此期间被覆盖会直接失败，避免拼接出不同版本的内容
+     *
+     * @param objectName MinIO中的对象名
+     * @param offset     起始偏移
+     * @param length     读取的字节数
+     * @param matchETag  期望的对象ETag，可为空
+     * @return 包含区间内容的InputStreamResource
+     * @throws Exception 如果下载失败
+     */
+    public InputStreamResource downloadFile(String objectName, long offset, long length, String matchETag)
+            throws Exception {
+        String bucketName = determineBucketByObjectPath(objectName);
+
+        GetObjectArgs getObjectArgs = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .matchETag(matchETag)
+                .build();
+
+        bucketRegistry.recordRoundTrip("get_object");
+        InputStream stream = minioClient.getObject(getObjectArgs);
+        return new InputStreamResource(stream);
+    }
+
+    /**
+     * 读取MinIO对象的原始字节
+     * 先根据响应头中的Content-Length判断大小，超过上限时不读取内容直接失败
+     *
+     * @param objectName MinIO中的对象名
+     * @param maxBytes   允许读取的最大字节数
+     * @return 对象内容
+     * @throws BusinessException 如果对象大小超过上限
+     * @throws Exception         如果下载失败
+     */
+    public byte[] readObject(String objectName, long maxBytes) throws Exception {
+        String bucketName = determineBucketByObjectPath(objectName);
+        bucketRegistry.recordRoundTrip("get_object");
+        try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .build())) {
+            String contentLength = response.headers().get("Content-Length");
+            if (contentLength != null && Long.parseLong(contentLength) > maxBytes) {
+                throw new BusinessException(413, "文件大小超过限制: " + objectName);
+            }
+            // 未返回Content-Length时最多多读一个字节用于判断是否超限
+            byte[] content = response.readNBytes((int) Math.min(maxBytes + 1, Integer.MAX_VALUE - 8));
+            if (content.length > maxBytes) {
+                throw new BusinessException(413, "文件大小超过限制: " + objectName);
+            }
+            return content;
+        }
+    }
+
     /**
      * 从MinIO删除文件
      * 
@@ -197,6 +285,7 @@ public class MinioUtil {
         // 根据对象路径确定使用哪个bucket
         String bucketName = determineBucketByObjectPath(objectName);
 
+        bucketRegistry.recordRoundTrip("remove_object");
         minioClient.removeObject(RemoveObjectArgs.builder()
                 .bucket(bucketName)
                 .object(objectName)
@@ -283,6 +372,7 @@ public class MinioUtil {
         Iterable<Result<Item>> results = listObjects(bucketName, prefix);
         for (Result<Item> result : results) {
             Item item = result.get();
+            bucketRegistry.recordRoundTrip("remove_object");
             minioClient.removeObject(RemoveObjectArgs.builder()
                     .bucket(bucketName)
                     .object(item.objectName())
@@ -319,6 +409,73 @@ public class MinioUtil {
     return fullUrl;
 }
 
+    /**
+     * 生成浏览器直传MinIO的POST策略表单，策略限定对象名、Content-Type和文件大小范围，
+     * 文件内容不经过应用服务器
+     *
+     * @param objectName    对象名称
+     * @param contentType   文件类型
+     * @param maxBytes      文件大小上限
+     * @param expirySeconds 策略有效期(秒)
+     * @return 上传时需要随文件一起提交的表单字段
+     * @throws Exception 如果生成策略失败
+     */
+    public Map<String, String> presignUploadForm(String objectName, String contentType, long maxBytes,
+            int expirySeconds) throws Exception {
+        validateObjectPath(objectName);
+        String bucketName = determineBucketByObjectPath(objectName);
+        bucketRegistry.ensure(bucketName);
+
+        PostPolicy policy = new PostPolicy(bucketName, ZonedDateTime.now().plusSeconds(expirySeconds));
+        policy.addEqualsCondition("key", objectName);
+        policy.addEqualsCondition("Content-Type", contentType);
+        policy.addContentLengthRangeCondition(1, maxBytes);
+        Map<String, String> formData = new HashMap<>(presignClient.getPresignedPostFormData(policy));
+        formData.put("key", objectName);
+        formData.put("Content-Type", contentType);
+        return formData;
+    }
+
+    /**
+     * 获取浏览器直传时POST表单的提交地址
+     *
+     * @param objectName 对象名称
+     * @return 对象所在bucket的访问地址
+     */
+    public String getUploadFormUrl(String objectName) {
+        return minioConfig.getPresignEndpoint() + PATH_SEPARATOR + determineBucketByObjectPath(objectName);
+    }
+
+    /**
+     * 生成预签名下载URL，响应头中的文件名和类型随URL一起签名
+     *
+     * @param objectName    对象名称
+     * @param fileName      下载文件名
+     * @param contentType   文件类型
+     * @param expirySeconds URL有效期(秒)
+     * @return 预签名下载URL
+     * @throws Exception 如果生成URL失败
+     */
+    public String presignDownloadUrl(String objectName, String fileName, String contentType, int expirySeconds)
+            throws Exception {
+        validateObjectPrefix(objectName);
+        Map<String, String> responseHeaders = new HashMap<>();
+        if (fileName != null) {
+            String encoded = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+            responseHeaders.put("response-content-disposition", "attachment; filename*=UTF-8''" + encoded);
+        }
+        if (contentType != null) {
+            responseHeaders.put("response-content-type", contentType);
+        }
+        return presignClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET)
+                .bucket(determineBucketByObjectPath(objectName))
+                .object(objectName)
+                .expiry(expirySeconds, TimeUnit.SECONDS)
+                .extraQueryParams(responseHeaders)
+                .build());
+    }
+
     /**
      * 验证对象前缀合法性
      * 可以根据用户角色/权限进行验证
@@ -384,6 +541,20 @@ public class MinioUtil {
         return uploadToResourceBucket(objectName, inputStream, size, contentType);
     }
 
+    /**
+     * 生成实验资源的对象路径，供浏览器直传使用，路径规则与uploadExperimentResource相同
+     *
+     * @param experimentId 实验ID
+     * @param filename     文件名称
+     * @param resourceType 资源类型("resource"表示学习资料，"experiment"表示源代码和评测脚本)
+     * @return 对象存储路径
+     */
+    public String newExperimentResourcePath(String experimentId, String filename, String resourceType) {
+        String subDirectory = RESOURCE_TYPE_EXPERIMENT.equals(resourceType) ? RESOURCE_TYPE_EXPERIMENT
+                : RESOURCE_TYPE_LEARNING;
+        return generateExperimentResourcePath(experimentId, subDirectory, filename);
+    }
+
     /**
      * 上传学生提交 - 现在将存储在submission bucket的{studentId}/{experimentId}/{taskId}路径中
      * 
@@ -457,6 +628,33 @@ public class MinioUtil {
         return uploadedPaths;
     }
 
+    /**
+     * 计算代码提交文件集合的内容摘要，与文件顺序无关，文件名或内容任一不同摘要即不同
+     * 
+     * @param files 源代码文件列表
+     * @return 十六进制SHA-256摘要
+     */
+    public static String computeContentHash(List<SourceCodeFileDTO> files) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            files.stream()
+                    .filter(file -> file.getFileName() != null && file.getContent() != null)
+                    .sorted(Comparator.comparing(SourceCodeFileDTO::getFileName))
+                    .forEach(file -> {
+                        byte[] content = file.getContent().getBytes(StandardCharsets.UTF_8);
+                        // 写入文件名和长度作为分隔，避免不同的文件划分得到相同的字节序列
+                        digest.update(file.getFileName().getBytes(StandardCharsets.UTF_8));
+                        digest.update((byte) 0);
+                        digest.update(Integer.toString(content.length).getBytes(StandardCharsets.UTF_8));
+                        digest.update((byte) 0);
+                        digest.update(content);
+                    });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("计算提交内容摘要失败", e);
+        }
+    }
+
     /**
      * 上传通用资源到默认bucket
      * 
@@ -488,18 +686,42 @@ public class MinioUtil {
      */
     private String uploadToBucket(String bucketName, String objectName, InputStream inputStream,
             long size, String contentType) throws Exception {
-        ensureBucketExists();
-        minioClient.putObject(
-                PutObjectArgs.builder()
-                        .bucket(bucketName)
-                        .object(objectName)
-                        .stream(inputStream, size, -1)
-                        .contentType(contentType)
-                        .build());
+        int roundTrips = bucketRegistry.ensure(bucketName) + 1;
+        bucketRegistry.recordRoundTrip("put_object");
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(inputStream, size, -1)
+                            .contentType(contentType)
+                            .build());
+        } catch (Exception e) {
+            bucketRegistry.onError(bucketName, e);
+            throw e;
+        } finally {
+            bucketRegistry.recordUpload(roundTrips);
+        }
 
         return objectName;
     }
 
+    /**
+     * 上传字节内容到指定bucket，bucket不存在时自动创建
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param content     文件内容
+     * @param contentType 文件类型
+     * @return 对象存储路径
+     * @throws Exception 如果上传失败
+     */
+    public String uploadBytes(String bucketName, String objectName, byte[] content, String contentType)
+            throws Exception {
+        return uploadToBucket(bucketName, objectName, new ByteArrayInputStream(content), content.length,
+                contentType);
+    }
+
     /**
      * 基础上传方法 - 上传到默认bucket
      *
@@ -687,6 +909,7 @@ public class MinioUtil {
      */
     public Iterable<Result<Item>> listObjects(String prefix) throws Exception {
         String bucketName = determineBucketByObjectPath(prefix);
+        bucketRegistry.recordRoundTrip("list_objects");
         return minioClient.listObjects(
                 ListObjectsArgs.builder()
                         .bucket(bucketName)
@@ -704,6 +927,7 @@ public class MinioUtil {
      * @throws Exception 如果操作失败
      */
     public Iterable<Result<Item>> listObjects(String bucketName, String prefix) throws Exception {
+        bucketRegistry.recordRoundTrip("list_objects");
         return minioClient.listObjects(
                 ListObjectsArgs.builder()
                         .bucket(bucketName)
@@ -802,6 +1026,7 @@ public class MinioUtil {
     public boolean isFileExists(String objectName) {
         try {
             String bucketName = determineBucketByObjectPath(objectName);
+            bucketRegistry.recordRoundTrip("stat_object");
             minioClient.statObject(
                     StatObjectArgs.builder()
                             .bucket(bucketName)
@@ -824,6 +1049,7 @@ public class MinioUtil {
         validateObjectPrefix(objectName);
 
         String bucketName = determineBucketByObjectPath(objectName);
+        bucketRegistry.recordRoundTrip("stat_object");
         return minioClient.statObject(
                 StatObjectArgs.builder()
                         .bucket(bucketName)
@@ -983,49 +1209,74 @@ public class MinioUtil {
         return lowerFilename.endsWith(".zip") || lowerFilename.endsWith(".rar") || 
                lowerFilename.endsWith(".7z") || lowerFilename.endsWith(".tar") || 
                lowerFilename.endsWith(".gz") || lowerFilename.endsWith(".tar.gz");
-    }    /**
+    }
+
+    /**
      * 自动解压压缩包并上传所有文件，保持目录结构
+     * 压缩包先落盘到临时文件，解压和保存原始压缩包各顺序读取一次；条目逐个读出后交给上传线程池并发上传，
+     * 解压过程中按条目数、单个条目和总大小限额检查，失败时等待进行中的上传结束并删除已上传的条目
      * 
      * @param experimentId 实验ID
      * @param taskId 任务ID（可选）
      * @param compressedFile 压缩文件流
      * @param filename 压缩文件名
      * @param contentType 压缩文件类型
-     * @return 解压出的文件路径列表
+     * @return 解压出的文件及实际大小，按压缩包中的顺序排列，最后一项为原始压缩包
+     * @throws BusinessException 如果压缩包超出解压限额或包含非法路径
      * @throws Exception 如果解压或上传失败
      */
-    public List<String> extractAndUploadCompressedFile(String experimentId, String taskId, 
+    public List<ExtractedFileDTO> extractAndUploadCompressedFile(String experimentId, String taskId, 
             InputStream compressedFile, String filename, String contentType) throws Exception {
         
-        List<String> uploadedFiles = new ArrayList<>();
-        
-        // 首先读取原始压缩文件内容
-        byte[] compressedData = readAllBytes(compressedFile);
+        List<ExtractedFileDTO> uploadedFiles = new ArrayList<>();
         
         // 生成基础路径
         String basePath = generateExperimentResourceBasePath(experimentId, taskId);
         
         // 根据文件扩展名确定解压方式
         String lowerFilename = filename.toLowerCase();
-        
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(maxExtractEntries, maxExtractEntryBytes,
+                maxExtractTotalBytes);
+        ArchiveEntryUploader uploader = new ArchiveEntryUploader(extractUploadExecutor,
+                extractUploadConcurrency * 2, EXTRACT_MEMORY_THRESHOLD,
+                (objectName, stream, size, type) -> uploadToBucket(RESOURCE_BUCKET, objectName, stream, size, type));
+
+        Path spooledArchive = Files.createTempFile("archive-", ".upload");
         try {
-            if (lowerFilename.endsWith(".zip")) {
-                uploadedFiles.addAll(extractZipFile(new ByteArrayInputStream(compressedData), basePath));
-            } else if (lowerFilename.endsWith(".tar") || lowerFilename.endsWith(".tar.gz")) {
-                uploadedFiles.addAll(extractTarFile(new ByteArrayInputStream(compressedData), basePath, lowerFilename.endsWith(".gz")));
-            } else if (lowerFilename.endsWith(".gz") && !lowerFilename.endsWith(".tar.gz")) {
-                uploadedFiles.addAll(extractGzFile(new ByteArrayInputStream(compressedData), basePath, filename));
-            } else {
-                throw new UnsupportedOperationException("不支持的压缩格式: " + filename);
+            long compressedSize = Files.copy(compressedFile, spooledArchive, StandardCopyOption.REPLACE_EXISTING);
+
+            try (InputStream archive = new BufferedInputStream(Files.newInputStream(spooledArchive))) {
+                if (lowerFilename.endsWith(".zip")) {
+                    extractZipFile(archive, basePath, guard, uploader);
+                } else if (lowerFilename.endsWith(".tar") || lowerFilename.endsWith(".tar.gz")) {
+                    extractTarFile(archive, basePath, lowerFilename.endsWith(".gz"), guard, uploader);
+                } else if (lowerFilename.endsWith(".gz") && !lowerFilename.endsWith(".tar.gz")) {
+                    extractGzFile(archive, basePath, filename, guard, uploader);
+                } else {
+                    throw new UnsupportedOperationException("不支持的压缩格式: " + filename);
+                }
             }
+            uploadedFiles.addAll(uploader.awaitCompleted());
+            uploader.throwIfFailed();
             
             // 同时保存原始压缩包
-            String compressedFilePath = uploadOriginalCompressedFile(experimentId, taskId, 
-                    new ByteArrayInputStream(compressedData), filename, contentType, compressedData.length);
-            uploadedFiles.add(compressedFilePath);
+            try (InputStream original = Files.newInputStream(spooledArchive)) {
+                String compressedFilePath = uploadOriginalCompressedFile(experimentId, taskId, 
+                        original, filename, contentType, compressedSize);
+                uploadedFiles.add(ExtractedFileDTO.builder()
+                        .objectName(compressedFilePath)
+                        .fileSize(compressedSize)
+                        .build());
+            }
             
+        } catch (BusinessException e) {
+            discardUploaded(uploader);
+            throw e;
         } catch (Exception e) {
+            discardUploaded(uploader);
             throw new Exception("解压文件失败: " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(spooledArchive);
         }
         
         return uploadedFiles;
@@ -1034,110 +1285,88 @@ public class MinioUtil {
     /**
      * 解压ZIP文件
      */
-    private List<String> extractZipFile(InputStream zipStream, String basePath) throws Exception {
-        List<String> uploadedFiles = new ArrayList<>();
-          try (ZipArchiveInputStream zis = new ZipArchiveInputStream(zipStream)) {
+    private void extractZipFile(InputStream zipStream, String basePath, ArchiveExtractionGuard guard,
+            ArchiveEntryUploader uploader) throws Exception {
+        try (ZipArchiveInputStream zis = new ZipArchiveInputStream(zipStream)) {
             ZipArchiveEntry entry;
             while ((entry = (ZipArchiveEntry) zis.getNextEntry()) != null) {
                 if (!entry.isDirectory()) {
-                    String entryPath = basePath + entry.getName();
-                    
-                    // 读取文件内容
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while ((len = zis.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
-                    
-                    // 上传文件到MinIO
-                    InputStream fileStream = new ByteArrayInputStream(baos.toByteArray());
-                    String mimeType = detectMimeTypeFromFilename(entry.getName());
-                    String uploadedPath = uploadToResourceBucket(entryPath, fileStream, 
-                            baos.size(), mimeType);
-                    
-                    // 添加元数据记录目录结构
-                    addDirectoryMetadata(uploadedPath, entry.getName(), "extracted_from_zip");
-                    
-                    uploadedFiles.add(uploadedPath);
+                    submitArchiveEntry(basePath, entry.getName(), zis, guard, "extracted_from_zip", uploader);
                 }
             }
         }
-        
-        return uploadedFiles;
     }
 
     /**
      * 解压TAR文件
      */
-    private List<String> extractTarFile(InputStream tarStream, String basePath, boolean isGzipped) throws Exception {
-        List<String> uploadedFiles = new ArrayList<>();
-        
+    private void extractTarFile(InputStream tarStream, String basePath, boolean isGzipped,
+            ArchiveExtractionGuard guard, ArchiveEntryUploader uploader) throws Exception {
         InputStream inputStream = isGzipped ? new GzipCompressorInputStream(tarStream) : tarStream;
-          try (TarArchiveInputStream tis = new TarArchiveInputStream(inputStream)) {
+        try (TarArchiveInputStream tis = new TarArchiveInputStream(inputStream)) {
             TarArchiveEntry entry;
             while ((entry = (TarArchiveEntry) tis.getNextEntry()) != null) {
-                if (!entry.isDirectory()) {
-                    String entryPath = basePath + entry.getName();
-                    
-                    // 读取文件内容
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while ((len = tis.read(buffer)) > 0) {
-                        baos.write(buffer, 0, len);
-                    }
-                    
-                    // 上传文件到MinIO
-                    InputStream fileStream = new ByteArrayInputStream(baos.toByteArray());
-                    String mimeType = detectMimeTypeFromFilename(entry.getName());
-                    String uploadedPath = uploadToResourceBucket(entryPath, fileStream, 
-                            baos.size(), mimeType);
-                    
-                    // 添加元数据记录目录结构
-                    addDirectoryMetadata(uploadedPath, entry.getName(), "extracted_from_tar");
-                    
-                    uploadedFiles.add(uploadedPath);
+                if (entry.isFile()) {
+                    submitArchiveEntry(basePath, entry.getName(), tis, guard, "extracted_from_tar", uploader);
                 }
             }
         }
-        
-        return uploadedFiles;
     }
 
     /**
      * 解压GZ文件（单文件压缩）
      */
-    private List<String> extractGzFile(InputStream gzStream, String basePath, String originalFilename) throws Exception {
-        List<String> uploadedFiles = new ArrayList<>();
-        
+    private void extractGzFile(InputStream gzStream, String basePath, String originalFilename,
+            ArchiveExtractionGuard guard, ArchiveEntryUploader uploader) throws Exception {
         // 移除.gz扩展名得到原始文件名
         String extractedFilename = originalFilename.substring(0, originalFilename.lastIndexOf(".gz"));
-        String entryPath = basePath + extractedFilename;
-        
+
         try (GzipCompressorInputStream gis = new GzipCompressorInputStream(gzStream)) {
-            // 读取解压后的内容
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = gis.read(buffer)) > 0) {
-                baos.write(buffer, 0, len);
+            submitArchiveEntry(basePath, extractedFilename, gis, guard, "extracted_from_gz", uploader);
+        }
+    }
+
+    /**
+     * 在限额内读出压缩包中的一个条目，提交到上传线程池上传到resource bucket
+     */
+    private void submitArchiveEntry(String basePath, String entryName, InputStream entryStream,
+            ArchiveExtractionGuard guard, String extractionType, ArchiveEntryUploader uploader) throws Exception {
+        String objectPath = basePath + entryName;
+        uploader.submit(objectPath, detectMimeTypeFromFilename(entryName), guard.nextEntry(entryName, entryStream));
+
+        // 添加元数据记录目录结构
+        addDirectoryMetadata(objectPath, entryName, extractionType);
+    }
+
+    /**
+     * 解压失败时等待进行中的上传结束，再删除已经上传的条目，删除失败不影响原始异常
+     */
+    private void discardUploaded(ArchiveEntryUploader uploader) {
+        List<ExtractedFileDTO> uploadedFiles;
+        try {
+            uploadedFiles = uploader.awaitCompleted();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (ExtractedFileDTO uploadedFile : uploadedFiles) {
+            try {
+                deleteFile(uploadedFile.getObjectName());
+            } catch (Exception e) {
+                logger.warn("删除已解压文件失败: {}", uploadedFile.getObjectName(), e);
             }
-            
-            // 上传文件到MinIO
-            InputStream fileStream = new ByteArrayInputStream(baos.toByteArray());
-            String mimeType = detectMimeTypeFromFilename(extractedFilename);
-            String uploadedPath = uploadToResourceBucket(entryPath, fileStream, 
-                    baos.size(), mimeType);
-            
-            // 添加元数据记录目录结构
-            addDirectoryMetadata(uploadedPath, extractedFilename, "extracted_from_gz");
-            
-            uploadedFiles.add(uploadedPath);
         }
-        
-        return uploadedFiles;
-    }    /**
+    }
+
+    /**
+     * 停止解压上传线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        extractUploadExecutor.shutdownNow();
+    }
+
+    /**
      * 上传原始压缩文件
      */
     private String uploadOriginalCompressedFile(String experimentId, String taskId, 
@@ -1199,17 +1428,4 @@ public class MinioUtil {
             default: return "application/octet-stream";
         }
     }
-
-    /**
-     * 读取输入流的所有字节
-     */
-    private byte[] readAllBytes(InputStream inputStream) throws Exception {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        byte[] data = new byte[1024];
-        int len;
-        while ((len = inputStream.read(data)) != -1) {
-            buffer.write(data, 0, len);
-        }
-        return buffer.toByteArray();
-    }
 }
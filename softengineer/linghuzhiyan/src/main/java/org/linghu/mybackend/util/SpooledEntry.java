@@ -0,0 +1,82 @@
+package org.linghu.mybackend.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 暂存的压缩包条目
+ * 压缩包流只能顺序读取，条目先整体读出后才能交给其他线程上传；
+ * 不超过内存阈值的条目保存在内存中，超过时写入临时文件，关闭时删除临时文件
+ */
+final class SpooledEntry implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SpooledEntry.class);
+
+    private final byte[] content;
+    private final Path file;
+    private final long size;
+
+    private SpooledEntry(byte[] content, Path file, long size) {
+        this.content = content;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * 读出条目的全部内容
+     *
+     * @param entryStream     条目内容流
+     * @param memoryThreshold 保存在内存中的最大字节数
+     * @return 暂存的条目
+     * @throws IOException 如果读取或写入临时文件失败
+     */
+    static SpooledEntry read(InputStream entryStream, int memoryThreshold) throws IOException {
+        byte[] head = entryStream.readNBytes(memoryThreshold);
+        int next = head.length < memoryThreshold ? -1 : entryStream.read();
+        if (next < 0) {
+            return new SpooledEntry(head, null, head.length);
+        }
+
+        Path file = Files.createTempFile("archive-entry-", ".part");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            out.write(head);
+            out.write(next);
+            long size = head.length + 1 + entryStream.transferTo(out);
+            return new SpooledEntry(null, file, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isInMemory() {
+        return file == null;
+    }
+
+    InputStream open() throws IOException {
+        return file == null ? new ByteArrayInputStream(content) : new BufferedInputStream(Files.newInputStream(file));
+    }
+
+    @Override
+    public void close() {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("删除临时文件失败: {}", file, e);
+            }
+        }
+    }
+}
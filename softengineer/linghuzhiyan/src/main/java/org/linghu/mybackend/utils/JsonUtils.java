@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -82,6 +83,26 @@ public class JsonUtils {
         }
     }
 
+    /**
+     * 将JSON数组字符串解析为列表
+     * 
+     * @param json        JSON数组字符串
+     * @param elementType 元素类型
+     * @return 解析后的列表，如果解析失败则返回null
+     */
+    public static <T> List<T> parseList(String json, Class<T> elementType) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json,
+                    objectMapper.getTypeFactory().constructCollectionType(List.class, elementType));
+        } catch (JsonProcessingException e) {
+            logger.error("Parse JSON string error: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 标准化处理用户资料
      * 将各种格式的用户资料字符串转换为标准的JSON格式，包含预定义字段
@@ -0,0 +1,119 @@
+package org.linghu.mybackend.utils;
+
+import org.linghu.mybackend.dto.CursorPageResult;
+import org.linghu.mybackend.exception.BusinessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页位置，按(createdAt, id)降序定位上一页最后一条记录
+ * 对外以URL安全的Base64字符串传递，客户端不应解析其内容
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final LocalDateTime createdAt;
+    private final String id;
+
+    private PageCursor(LocalDateTime createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param createdAt 最后一条记录的创建时间
+     * @param id 最后一条记录的ID
+     * @return 不透明的游标字符串
+     */
+    public static String encode(LocalDateTime createdAt, String id) {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor 游标字符串，为空表示第一页
+     * @return 游标位置，第一页返回null
+     * @throws BusinessException 游标格式无效时
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new BusinessException("无效的分页游标");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 生成查询一页数据的分页参数，多取一条用于判断是否还有下一页
+     *
+     * @param pageSize 每页大小，限制在1到100之间
+     * @return 第0页、大小为pageSize+1的分页参数
+     */
+    public static Pageable limit(int pageSize) {
+        return PageRequest.of(0, clamp(pageSize) + 1);
+    }
+
+    /**
+     * 把按limit(pageSize)查出的记录组装为游标分页结果
+     *
+     * @param rows 查询结果，最多比pageSize多一条
+     * @param pageSize 每页大小
+     * @param createdAt 取记录创建时间
+     * @param id 取记录ID
+     * @param mapper 把本页记录转换为DTO
+     * @param total 总记录数，未统计时为null
+     * @return 游标分页结果
+     */
+    public static <E, T> CursorPageResult<T> toResult(List<E> rows, int pageSize,
+            Function<E, LocalDateTime> createdAt, Function<E, String> id,
+            Function<List<E>, List<T>> mapper, Long total) {
+        int size = clamp(pageSize);
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            E last = page.get(page.size() - 1);
+            nextCursor = encode(createdAt.apply(last), id.apply(last));
+        }
+        return CursorPageResult.<T>builder()
+                .list(mapper.apply(page))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .pageSize(size)
+                .total(total)
+                .build();
+    }
+
+    private static int clamp(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+}
@@ -0,0 +1,129 @@
+package org.linghu.mybackend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.linghu.mybackend.repository.UserRepository;
+import org.linghu.mybackend.security.JwtRequestFilter;
+import org.linghu.mybackend.security.JwtTokenUtil;
+import org.linghu.mybackend.security.TokenVersionCache;
+import org.linghu.mybackend.service.LoginLogService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT认证过滤器基准测试
+ * legacyVerification复现改造前的校验过程：每次调用重建密钥和解析器，同一令牌解析三次（不含已移除的数据库查询）；
+ * filterUncached为只解析一次、复用解析器的过滤器路径；filterCached为声明缓存命中时的过滤器路径
+ * <p>
+ * 运行方式：mvn test-compile 后执行 main 方法，或
+ * java -cp target/test-classes:target/classes:{测试依赖} org.openjdk.jmh.Main JwtRequestFilterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtRequestFilterBenchmark {
+
+    private static final String SECRET = "linghuzhiyan-benchmark-secret-key-must-be-at-least-32-characters-long";
+
+    private String token;
+    private JwtRequestFilter uncachedFilter;
+    private JwtRequestFilter cachedFilter;
+
+    @Setup
+    public void setUp() {
+        UserDetails userDetails = User.builder()
+                .username("student")
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_STUDENT")))
+                .build();
+
+        JwtTokenUtil uncachedUtil = newTokenUtil(0);
+        JwtTokenUtil cachedUtil = newTokenUtil(10000);
+        token = cachedUtil.generateToken(userDetails, "user-1", 0);
+
+        uncachedFilter = newFilter(uncachedUtil);
+        cachedFilter = newFilter(cachedUtil);
+    }
+
+    @Benchmark
+    public Object legacyVerification() {
+        String username = legacyParse(token).getSubject();
+        // 原validateToken中再次解析获取用户名和过期时间
+        boolean valid = username.equals(legacyParse(token).getSubject())
+                && !legacyParse(token).getExpiration().before(new Date());
+        return valid;
+    }
+
+    @Benchmark
+    public Object filterUncached() throws Exception {
+        return doFilter(uncachedFilter);
+    }
+
+    @Benchmark
+    public Object filterCached() throws Exception {
+        return doFilter(cachedFilter);
+    }
+
+    private Object doFilter(JwtRequestFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/experiments");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private Claims legacyParse(String jwt) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+    }
+
+    private JwtTokenUtil newTokenUtil(int claimsCacheSize) {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil();
+        jwtTokenUtil.setSecret(SECRET);
+        jwtTokenUtil.setExpiration(TimeUnit.HOURS.toMillis(1));
+        jwtTokenUtil.setClaimsCacheSize(claimsCacheSize);
+        return jwtTokenUtil;
+    }
+
+    private JwtRequestFilter newFilter(JwtTokenUtil jwtTokenUtil) {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findTokenVersionById("user-1")).thenReturn(Optional.of(0));
+        JwtRequestFilter filter = new JwtRequestFilter(jwtTokenUtil, null,
+                Mockito.mock(LoginLogService.class), new TokenVersionCache(userRepository));
+        ReflectionTestUtils.setField(filter, "tokenHeader", "Authorization");
+        ReflectionTestUtils.setField(filter, "tokenHead", "Bearer ");
+        return filter;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtRequestFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
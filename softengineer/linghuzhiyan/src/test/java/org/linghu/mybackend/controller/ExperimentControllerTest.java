@@ -6,6 +6,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.ExperimentDTO;
 import org.linghu.mybackend.dto.ExperimentRequestDTO;
 import org.linghu.mybackend.dto.PageResult;
@@ -181,6 +182,23 @@ class ExperimentControllerTest {
             verify(experimentService).getAllExperiments(1, 10);
         }
 
+        @Test
+        @DisplayName("按游标获取实验列表")
+        void shouldGetExperimentsByCursor() {
+            // given
+            CursorPageResult<ExperimentDTO> page = CursorPageResult.<ExperimentDTO>builder()
+                    .list(experimentList).nextCursor("next").hasMore(true).pageSize(10).build();
+            when(experimentService.getExperimentsByCursor("abc", 10, false)).thenReturn(page);
+
+            // when
+            Result<CursorPageResult<ExperimentDTO>> response = experimentController.getExperimentsByCursor("abc", 10, false);
+
+            // then
+            assertThat(response.getCode()).isEqualTo(200);
+            assertThat(response.getData().getNextCursor()).isEqualTo("next");
+            assertThat(response.getData().getTotal()).isNull();
+        }
+
         @Test
         @DisplayName("根据ID获取实验成功")
         void shouldGetExperimentByIdSuccessfully() {
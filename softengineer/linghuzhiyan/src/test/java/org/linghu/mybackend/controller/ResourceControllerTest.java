@@ -7,7 +7,11 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.linghu.mybackend.controller.ResourceController;
+import org.linghu.mybackend.dto.PresignedUploadCompleteDTO;
+import org.linghu.mybackend.dto.PresignedUploadDTO;
+import org.linghu.mybackend.dto.PresignedUploadRequestDTO;
 import org.linghu.mybackend.dto.ResourceDTO;
+import org.linghu.mybackend.dto.ResourceDownloadDTO;
 import org.linghu.mybackend.dto.ResourceRequestDTO;
 import org.linghu.mybackend.service.ResourceService;
 import org.linghu.mybackend.service.StudentExperimentService;
@@ -15,7 +19,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -24,10 +30,13 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -377,6 +386,15 @@ class ResourceControllerTest {
     @DisplayName("下载资源测试")
     class DownloadResourceTests {
 
+        private ResourceDownloadDTO.ResourceDownloadDTOBuilder download(String fileName) {
+            return ResourceDownloadDTO.builder()
+                    .fileName(fileName)
+                    .mimeType("application/pdf")
+                    .etag("\"abc123\"")
+                    .lastModified(Instant.parse("2024-03-01T08:00:00Z"))
+                    .totalSize(17L);
+        }
+
         @Test
         @DisplayName("下载资源成功")
         void downloadResource_Success() throws Exception {
@@ -384,34 +402,40 @@ class ResourceControllerTest {
             byte[] fileContent = "test file content".getBytes();
             Resource fileResource = new ByteArrayResource(fileContent);
 
-            when(resourceService.getResourceById("resource-123")).thenReturn(sampleResourceDTO);
-            when(resourceService.downloadResource("resource-123")).thenReturn(fileResource);
+            when(resourceService.downloadResource(eq("resource-123"), any(HttpHeaders.class)))
+                    .thenReturn(download("test.pdf")
+                            .status(ResourceDownloadDTO.Status.FULL)
+                            .contentLength(17L)
+                            .body(fileResource)
+                            .build());
 
             // Act & Assert
             mockMvc.perform(get("/api/resources/resource-123/download"))
                     .andExpect(status().isOk())
                     .andExpect(header().string("Content-Disposition",
                             "attachment; filename=\"test.pdf\""))
-                    .andExpect(content().contentType("application/pdf"));
-
-            verify(resourceService).getResourceById("resource-123");
-            verify(resourceService).downloadResource("resource-123");
+                    .andExpect(header().string("Accept-Ranges", "bytes"))
+                    .andExpect(header().string("ETag", "\"abc123\""))
+                    .andExpect(header().string("Last-Modified", "Fri, 01 Mar 2024 08:00:00 GMT"))
+                    .andExpect(header().longValue("Content-Length", 17L))
+                    .andExpect(content().contentType("application/pdf"))
+                    .andExpect(content().bytes(fileContent));
+
+            verify(resourceService).downloadResource(eq("resource-123"), any(HttpHeaders.class));
         }
 
         @Test
         @DisplayName("下载资源 - 特殊字符文件名")
         void downloadResource_SpecialCharactersFilename_Success() throws Exception {
             // Arrange
-            ResourceDTO specialFileResource = ResourceDTO.builder()
-                    .id("special-resource")
-                    .fileName("测试文件(1).pdf")
-                    .mimeType("application/pdf")
-                    .build();
-
             Resource fileResource = new ByteArrayResource("content".getBytes());
 
-            when(resourceService.getResourceById("special-resource")).thenReturn(specialFileResource);
-            when(resourceService.downloadResource("special-resource")).thenReturn(fileResource);
+            when(resourceService.downloadResource(eq("special-resource"), any(HttpHeaders.class)))
+                    .thenReturn(download("测试文件(1).pdf")
+                            .status(ResourceDownloadDTO.Status.FULL)
+                            .contentLength(7L)
+                            .body(fileResource)
+                            .build());
 
             // Act & Assert
             mockMvc.perform(get("/api/resources/special-resource/download"))
@@ -419,6 +443,158 @@ class ResourceControllerTest {
                     .andExpect(header().string("Content-Disposition",
                             "attachment; filename=\"测试文件(1).pdf\""));
         }
+
+        @Test
+        @DisplayName("下载资源 - Range请求返回206")
+        void downloadResource_Range_PartialContent() throws Exception {
+            // Arrange
+            when(resourceService.downloadResource(eq("resource-123"), any(HttpHeaders.class)))
+                    .thenReturn(download("test.pdf")
+                            .status(ResourceDownloadDTO.Status.PARTIAL)
+                            .rangeStart(5L)
+                            .contentLength(4L)
+                            .body(new ByteArrayResource("file".getBytes()))
+                            .build());
+
+            // Act & Assert
+            mockMvc.perform(get("/api/resources/resource-123/download")
+                    .header("Range", "bytes=5-8"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string("Content-Range", "bytes 5-8/17"))
+                    .andExpect(header().longValue("Content-Length", 4L))
+                    .andExpect(content().bytes("file".getBytes()));
+
+            verify(resourceService).downloadResource(eq("resource-123"),
+                    argThat(headers -> "bytes=5-8".equals(headers.getFirst(HttpHeaders.RANGE))));
+        }
+
+        @Test
+        @DisplayName("下载资源 - 多区间请求回退为完整响应")
+        void downloadResource_MultiRange_FallsBackToFullStream() throws Exception {
+            // Arrange: 与MinIO返回的流一致，body只能读取一次且无法截取区间；
+            // Spring只对类型恰好为InputStreamResource的返回值跳过Range处理，这里用子类避免依赖该特例
+            byte[] fileContent = "test file content".getBytes();
+            when(resourceService.downloadResource(eq("resource-123"), any(HttpHeaders.class)))
+                    .thenReturn(download("test.pdf")
+                            .status(ResourceDownloadDTO.Status.FULL)
+                            .contentLength(17L)
+                            .body(new InputStreamResource(new ByteArrayInputStream(fileContent)) {
+                            })
+                            .build());
+
+            // Act & Assert
+            mockMvc.perform(get("/api/resources/resource-123/download")
+                    .header("Range", "bytes=0-3,8-11"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist("Content-Range"))
+                    .andExpect(header().longValue("Content-Length", 17L))
+                    .andExpect(content().bytes(fileContent));
+        }
+
+        @Test
+        @DisplayName("下载资源 - 缓存有效返回304")
+        void downloadResource_IfNoneMatch_NotModified() throws Exception {
+            // Arrange
+            when(resourceService.downloadResource(eq("resource-123"), any(HttpHeaders.class)))
+                    .thenReturn(download("test.pdf").status(ResourceDownloadDTO.Status.NOT_MODIFIED).build());
+
+            // Act & Assert
+            mockMvc.perform(get("/api/resources/resource-123/download")
+                    .header("If-None-Match", "\"abc123\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", "\"abc123\""))
+                    .andExpect(content().bytes(new byte[0]));
+        }
+
+        @Test
+        @DisplayName("下载资源 - 区间越界返回416")
+        void downloadResource_RangeNotSatisfiable() throws Exception {
+            // Arrange
+            when(resourceService.downloadResource(eq("resource-123"), any(HttpHeaders.class)))
+                    .thenReturn(download("test.pdf").status(ResourceDownloadDTO.Status.RANGE_NOT_SATISFIABLE).build());
+
+            // Act & Assert
+            mockMvc.perform(get("/api/resources/resource-123/download")
+                    .header("Range", "bytes=100-"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string("Content-Range", "bytes */17"));
+        }
+    }
+
+    @Nested
+    @DisplayName("预签名直传测试")
+    class PresignedTransferTests {
+
+        @Test
+        @DisplayName("获取下载链接成功")
+        void getDownloadUrl_Success() throws Exception {
+            // Arrange
+            when(resourceService.createDownloadUrl("resource-123"))
+                    .thenReturn("http://minio:9000/resource/test.pdf?X-Amz-Signature=s");
+
+            // Act & Assert
+            mockMvc.perform(get("/api/resources/resource-123/download-url"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200))
+                    .andExpect(jsonPath("$.data").value("http://minio:9000/resource/test.pdf?X-Amz-Signature=s"));
+
+            verify(resourceService).createDownloadUrl("resource-123");
+        }
+
+        @Test
+        @DisplayName("申请直传凭证成功")
+        void createPresignedUpload_Success() throws Exception {
+            // Arrange
+            PresignedUploadRequestDTO request = PresignedUploadRequestDTO.builder()
+                    .experimentId("exp-123")
+                    .fileName("test.pdf")
+                    .contentType("application/pdf")
+                    .fileSize(1024L)
+                    .build();
+            PresignedUploadDTO upload = PresignedUploadDTO.builder()
+                    .uploadUrl("http://minio:9000/resource")
+                    .formData(Map.of("key", "exp-123/resource/abc_test.pdf"))
+                    .objectName("exp-123/resource/abc_test.pdf")
+                    .maxBytes(1024L)
+                    .expiresIn(600L)
+                    .build();
+            when(resourceService.createPresignedUpload(any(PresignedUploadRequestDTO.class))).thenReturn(upload);
+
+            // Act & Assert
+            mockMvc.perform(post("/api/resources/presigned-uploads")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200))
+                    .andExpect(jsonPath("$.data.uploadUrl").value("http://minio:9000/resource"))
+                    .andExpect(jsonPath("$.data.formData.key").value("exp-123/resource/abc_test.pdf"))
+                    .andExpect(jsonPath("$.data.maxBytes").value(1024));
+
+            verify(resourceService).createPresignedUpload(any(PresignedUploadRequestDTO.class));
+        }
+
+        @Test
+        @DisplayName("直传完成回调登记资源")
+        void completePresignedUpload_Success() throws Exception {
+            // Arrange
+            PresignedUploadCompleteDTO request = PresignedUploadCompleteDTO.builder()
+                    .experimentId("exp-123")
+                    .objectName("exp-123/resource/abc_test.pdf")
+                    .fileName("test.pdf")
+                    .build();
+            when(resourceService.completePresignedUpload(any(PresignedUploadCompleteDTO.class)))
+                    .thenReturn(sampleResourceDTO);
+
+            // Act & Assert
+            mockMvc.perform(post("/api/resources/presigned-uploads/complete")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.code").value(200))
+                    .andExpect(jsonPath("$.data.id").value("resource-123"));
+
+            verify(resourceService).completePresignedUpload(any(PresignedUploadCompleteDTO.class));
+        }
     }
 
     @Nested
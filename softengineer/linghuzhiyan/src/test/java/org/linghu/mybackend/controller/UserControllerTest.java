@@ -5,9 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.linghu.mybackend.config.SecurityConfig;
 import org.linghu.mybackend.dto.*;
+import org.linghu.mybackend.exception.UserException;
 import org.linghu.mybackend.security.JwtAccessDeniedHandler;
 import org.linghu.mybackend.security.JwtAuthenticationEntryPoint;
 import org.linghu.mybackend.security.JwtTokenUtil;
+import org.linghu.mybackend.security.TokenVersionCache;
 import org.linghu.mybackend.security.UserDetailsServiceImpl;
 import org.linghu.mybackend.service.LoginLogService;
 import org.linghu.mybackend.service.UserService;
@@ -60,6 +62,9 @@ class UserControllerTest {
     @MockitoBean
     private JwtTokenUtil jwtTokenUtil;
 
+    @MockitoBean
+    private TokenVersionCache tokenVersionCache;
+
     @MockitoBean
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
@@ -122,6 +127,49 @@ class UserControllerTest {
                 .andExpect(status().is4xxClientError());
     }
 
+    // ===== 刷新令牌测试 =====
+    @Test
+    @WithMockUser
+    void refresh_Success() throws Exception {
+        LoginResponseDTO refreshed = LoginResponseDTO.builder()
+                .token("new-access")
+                .refreshToken("new-refresh")
+                .build();
+        when(userService.refreshToken("old-refresh")).thenReturn(refreshed);
+
+        mockMvc.perform(post("/api/users/refresh")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequestDTO("old-refresh"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.token").value("new-access"))
+                .andExpect(jsonPath("$.data.refreshToken").value("new-refresh"));
+    }
+
+    @Test
+    @WithMockUser
+    void refresh_Failure_InvalidToken() throws Exception {
+        when(userService.refreshToken("stale")).thenThrow(UserException.invalidRefreshToken());
+
+        mockMvc.perform(post("/api/users/refresh")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequestDTO("stale"))))
+                .andExpect(jsonPath("$.code").value(UserException.INVALID_REFRESH_TOKEN));
+    }
+
+    @Test
+    @WithMockUser
+    void logout_Success() throws Exception {
+        mockMvc.perform(post("/api/users/logout")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequestDTO("old-refresh"))))
+                .andExpect(status().isOk());
+
+        verify(userService).logout("old-refresh");
+    }
+
     // ===== 删除用户测试 =====
     @Test
     @WithMockUser(roles = "ADMIN")
@@ -232,7 +280,7 @@ class UserControllerTest {
     void listUsers_Success() throws Exception {
         List<UserDTO> users = Arrays.asList(userDTO);
         Page<UserDTO> page = new PageImpl<>(users);
-        when(userService.listUsers(anyInt(), anyInt())).thenReturn(page);
+        when(userService.listUsers(1, 10, true)).thenReturn(page);
 
         mockMvc.perform(get("/api/users")
                         .param("pageNum", "1")
@@ -242,6 +290,36 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.total").value(1));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listUsers_WithFieldsWithoutProfile_ShouldSkipProfile() throws Exception {
+        Page<UserDTO> page = new PageImpl<>(Arrays.asList(userDTO));
+        when(userService.listUsers(1, 10, false)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users")
+                        .param("pageNum", "1")
+                        .param("pageSize", "10")
+                        .param("fields", "id,username,roles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void listUsersByCursor_Success() throws Exception {
+        CursorPageResult<UserDTO> page = CursorPageResult.<UserDTO>builder()
+                .list(Arrays.asList(userDTO)).nextCursor("next").hasMore(true).pageSize(10).total(5L).build();
+        when(userService.listUsersByCursor("abc", 10, true, true)).thenReturn(page);
+
+        mockMvc.perform(get("/api/users/cursor")
+                        .param("cursor", "abc")
+                        .param("withTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.list").isArray())
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.total").value(5));
+    }
+
     @Test
     @WithMockUser(roles = "STUDENT")
     void listUsers_Failure_Forbidden() throws Exception {
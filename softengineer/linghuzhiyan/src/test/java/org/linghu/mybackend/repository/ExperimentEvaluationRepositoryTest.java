@@ -288,4 +288,34 @@ class ExperimentEvaluationRepositoryTest {
         assertNotNull(updated);
         assertEquals(newScore, updated.getScore());
     }
+
+    @Test
+    void findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue_ShouldMatchAllKeys() {
+        // Given
+        ExperimentEvaluation evaluation = evaluationRepository.findById("eval2").orElseThrow();
+        evaluation.setContentHash("hash1");
+        evaluation.setTaskVersion("v1");
+        evaluation.setCacheable(true);
+        evaluationRepository.saveAndFlush(evaluation);
+        String taskId = evaluation.getTaskId();
+
+        // When & Then
+        assertTrue(evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(taskId, "v1", "hash1").isPresent());
+        assertFalse(evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(taskId, "v2", "hash1").isPresent());
+        assertFalse(evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(taskId, "v1", "hash2").isPresent());
+    }
+
+    @Test
+    void findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue_ShouldSkipUncacheableResults() {
+        // Given
+        ExperimentEvaluation evaluation = evaluationRepository.findById("eval2").orElseThrow();
+        evaluation.setContentHash("hash1");
+        evaluation.setTaskVersion("v1");
+        evaluation.setCacheable(false);
+        evaluationRepository.saveAndFlush(evaluation);
+
+        // When & Then
+        assertFalse(evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue(
+                evaluation.getTaskId(), "v1", "hash1").isPresent());
+    }
 }
@@ -359,4 +359,17 @@ class ExperimentRepositoryTest {
         long count = experimentRepository.count();
         assertEquals(0, count);
     }
+
+    @Test
+    void findAfterCursor_ShouldContinueFromLastExperiment() {
+        // When
+        List<Experiment> firstPage = experimentRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.of(0, 2));
+        Experiment last = firstPage.get(1);
+        List<Experiment> secondPage = experimentRepository.findAfterCursor(last.getCreatedAt(), last.getId(),
+                PageRequest.of(0, 2));
+
+        // Then
+        assertEquals(List.of("experiment2", "experiment1"), firstPage.stream().map(Experiment::getId).toList());
+        assertEquals(List.of("experiment3"), secondPage.stream().map(Experiment::getId).toList());
+    }
 }
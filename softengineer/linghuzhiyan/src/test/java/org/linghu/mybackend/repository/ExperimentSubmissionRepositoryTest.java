@@ -437,4 +437,53 @@ class ExperimentSubmissionRepositoryTest {
         long count = submissionRepository.count();
         assertEquals(0, count);
     }
+
+    @Test
+    void updateArtifact_ShouldStoreAndClearArtifact() {
+        // When
+        int updated = submissionRepository.updateArtifact("sub1", "artifact-1", "http://judge-1:5050", "version-1");
+
+        // Then
+        assertEquals(1, updated);
+        List<ExperimentSubmission> withArtifact = submissionRepository
+                .findByTaskIdAndUserIdAndArtifactFileIdIsNotNull("task1", "user1");
+        assertEquals(1, withArtifact.size());
+        assertEquals("artifact-1", withArtifact.get(0).getArtifactFileId());
+        assertEquals("http://judge-1:5050", withArtifact.get(0).getArtifactNode());
+        assertEquals("version-1", withArtifact.get(0).getArtifactTaskVersion());
+
+        // When
+        submissionRepository.updateArtifact("sub1", null, null, null);
+
+        // Then
+        assertTrue(submissionRepository.findByTaskIdAndUserIdAndArtifactFileIdIsNotNull("task1", "user1").isEmpty());
+    }
+
+    @Test
+    void findByTaskIdAfterCursor_ShouldContinueFromLastSubmission() {
+        // When
+        List<ExperimentSubmission> firstPage = submissionRepository
+                .findByTaskIdOrderByCreatedAtDescIdDesc("task1", PageRequest.of(0, 2));
+        ExperimentSubmission last = firstPage.get(1);
+        List<ExperimentSubmission> secondPage = submissionRepository
+                .findByTaskIdAfterCursor("task1", last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        // Then
+        assertEquals(List.of("sub4", "sub2"), firstPage.stream().map(ExperimentSubmission::getId).toList());
+        assertEquals(List.of("sub1"), secondPage.stream().map(ExperimentSubmission::getId).toList());
+    }
+
+    @Test
+    void findByUserIdAfterCursor_ShouldContinueFromLastSubmission() {
+        // When
+        List<ExperimentSubmission> firstPage = submissionRepository
+                .findByUserIdOrderByCreatedAtDescIdDesc("user1", PageRequest.of(0, 1));
+        ExperimentSubmission last = firstPage.get(0);
+        List<ExperimentSubmission> rest = submissionRepository
+                .findByUserIdAfterCursor("user1", last.getCreatedAt(), last.getId(), PageRequest.of(0, 10));
+
+        // Then
+        assertEquals("sub3", last.getId());
+        assertEquals(List.of("sub4", "sub1"), rest.stream().map(ExperimentSubmission::getId).toList());
+    }
 }
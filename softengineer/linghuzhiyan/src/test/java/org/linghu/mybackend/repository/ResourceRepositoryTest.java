@@ -365,4 +365,52 @@ class ResourceRepositoryTest {
         // Then
         assertThat(exists).isFalse();
     }
+
+    // ==================== insertAll 测试 ====================
+
+    @Test
+    void insertAll_ShouldInsertAllResourcesInOneBatch() {
+        // Given
+        List<Resource> resources = List.of(
+                Resource.builder()
+                        .id("batch-resource-1")
+                        .experimentId("experiment1")
+                        .resourceType(Resource.ResourceType.CODE)
+                        .resourcePath("experiment1/experiment/Main.java")
+                        .fileName("Main.java")
+                        .fileSize(300L)
+                        .mimeType("text/x-java-source")
+                        .build(),
+                Resource.builder()
+                        .id("batch-resource-2")
+                        .experimentId("experiment1")
+                        .resourceType(Resource.ResourceType.OTHER)
+                        .resourcePath("experiment1/experiment/data.bin")
+                        .fileName("data.bin")
+                        .fileSize(4096L)
+                        .mimeType("application/octet-stream")
+                        .build());
+
+        // When
+        int inserted = resourceRepository.insertAll(resources);
+
+        // Then
+        assertThat(inserted).isEqualTo(2);
+        Optional<Resource> saved = resourceRepository.findById("batch-resource-2");
+        assertThat(saved).isPresent();
+        assertThat(saved.get().getFileSize()).isEqualTo(4096L);
+        assertThat(saved.get().getResourceType()).isEqualTo(Resource.ResourceType.OTHER);
+        assertThat(saved.get().getUploadTime()).isNotNull();
+        assertThat(resourceRepository.count()).isEqualTo(8L);
+    }
+
+    @Test
+    void insertAll_ShouldDoNothing_WhenListIsEmpty() {
+        // When
+        int inserted = resourceRepository.insertAll(List.of());
+
+        // Then
+        assertThat(inserted).isZero();
+        assertThat(resourceRepository.count()).isEqualTo(6L);
+    }
 }
@@ -14,6 +14,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -385,4 +386,42 @@ class UserRepositoryTest {
         assertNotNull(result);
         assertTrue(endTime - startTime < 1000, "大页面查询时间应该小于1秒");
     }
+
+    // ===== findTokenVersionById 测试 =====
+    @Test
+    void findTokenVersionById_ActiveUser_ShouldReturnVersion() {
+        // Given
+        testUser.setTokenVersion(2);
+        User saved = entityManager.persistAndFlush(testUser);
+
+        // When
+        Optional<Integer> result = userRepository.findTokenVersionById(saved.getId());
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(2, result.get());
+    }
+
+    @Test
+    void findTokenVersionById_DeletedUser_ShouldReturnEmpty() {
+        // When
+        Optional<Integer> result = userRepository.findTokenVersionById("test-user-3");
+
+        // Then
+        assertFalse(result.isPresent());
+    }
+
+    // ===== 游标分页测试 =====
+    @Test
+    void findActiveUsersAfterCursor_ShouldSeekByCreatedAtAndId() {
+        // 测试数据的创建时间相同，按ID降序区分先后
+        List<User> firstPage = userRepository.findByIsDeletedFalseOrderByCreatedAtDescIdDesc(PageRequest.of(0, 2));
+        assertEquals(List.of("test-user-4", "test-user-2"), firstPage.stream().map(User::getId).toList());
+
+        User last = firstPage.get(1);
+        List<User> secondPage = userRepository.findActiveUsersAfterCursor(last.getCreatedAt(), last.getId(),
+                PageRequest.of(0, 2));
+        assertEquals(List.of("test-user-1"), secondPage.stream().map(User::getId).toList());
+        assertEquals(3, userRepository.countByIsDeletedFalse());
+    }
 }
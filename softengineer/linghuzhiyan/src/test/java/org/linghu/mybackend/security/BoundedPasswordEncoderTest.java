@@ -0,0 +1,183 @@
+package org.linghu.mybackend.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * BoundedPasswordEncoder 单元测试
+ */
+class BoundedPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRunOnExecutorAndRecordMetrics() {
+        encoder = new BoundedPasswordEncoder(4, 2, 10, 2000, meterRegistry);
+
+        String encoded = encoder.encode("secret");
+
+        assertThat(encoded).startsWith("$2a$04$");
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+        assertThat(encoder.matches("wrong", encoded)).isFalse();
+        assertThat(meterRegistry.get("password.hash.duration").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("password.hash.queue").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void upgradeEncoding_ShouldNeverRequestSynchronousRehash() {
+        encoder = new BoundedPasswordEncoder(5, 1, 10, 2000, meterRegistry);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+
+    @Test
+    void needsUpgrade_ShouldCompareWorkFactor() {
+        encoder = new BoundedPasswordEncoder(5, 1, 10, 2000, meterRegistry);
+        String cost4 = new BCryptPasswordEncoder(4).encode("secret");
+        String cost5 = new BCryptPasswordEncoder(5).encode("secret");
+        String cost6 = new BCryptPasswordEncoder(6).encode("secret");
+
+        assertThat(encoder.needsUpgrade(cost4)).isTrue();
+        assertThat(encoder.needsUpgrade(cost5)).isFalse();
+        assertThat(encoder.needsUpgrade(cost6)).isTrue();
+        assertThat(encoder.needsUpgrade(null)).isFalse();
+    }
+
+    @Test
+    void tryUpgrade_ShouldRehashInBackground() throws Exception {
+        encoder = new BoundedPasswordEncoder(5, 1, 10, 2000, meterRegistry);
+        String cost4 = new BCryptPasswordEncoder(4).encode("secret");
+        CompletableFuture<String> upgraded = new CompletableFuture<>();
+
+        assertThat(encoder.tryUpgrade("secret", cost4, upgraded::complete)).isTrue();
+
+        String encoded = upgraded.get(5, TimeUnit.SECONDS);
+        assertThat(encoded).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", encoded)).isTrue();
+        assertThat(encoder.tryUpgrade("secret", encoded, upgraded::complete)).isFalse();
+    }
+
+    @Test
+    void tryUpgrade_WhenPoolSaturated_ShouldDropWithoutShedding() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingDelegate(started, release), 5, 1, 1, 60_000,
+                meterRegistry, System::nanoTime);
+        String cost4 = new BCryptPasswordEncoder(4).encode("secret");
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "x"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicReference<String> upgraded = new AtomicReference<>();
+        assertThat(encoder.tryUpgrade("secret", cost4, upgraded::set)).isFalse();
+        assertThat(meterRegistry.get("password.hash.shed").counter().count()).isZero();
+
+        // 升级被放弃后，后续登录校验仍可使用队列
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "x"));
+        awaitQueueSize(1);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(upgraded.get()).isNull();
+    }
+
+    @Test
+    void matches_WhenQueueFull_ShouldShed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blockingDelegate(started, release), 4, 1, 1, 60_000,
+                meterRegistry, System::nanoTime);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "x"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "x"));
+        awaitQueueSize(1);
+
+        assertThatThrownBy(() -> encoder.matches("c", "x"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("password.hash.shed").counter().count()).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void matches_WhenQueuedTooLong_ShouldShedWithoutHashing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong now = new AtomicLong();
+        encoder = new BoundedPasswordEncoder(blockingDelegate(started, release), 4, 1, 10, 100,
+                meterRegistry, now::get);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> encoder.matches("a", "x"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> encoder.matches("b", "x"));
+        awaitQueueSize(1);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(101));
+        release.countDown();
+
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> queued.join())
+                .hasCauseInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("password.hash.shed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("password.hash.duration").timer().count()).isEqualTo(1);
+    }
+
+    private PasswordEncoder blockingDelegate(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+
+    private void awaitQueueSize(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("password.hash.queue.size").gauge().value() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(meterRegistry.get("password.hash.queue.size").gauge().value()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,133 @@
+package org.linghu.mybackend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.service.LoginLogService;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JwtRequestFilter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtRequestFilterTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private LoginLogService loginLogService;
+
+    @Mock
+    private TokenVersionCache tokenVersionCache;
+
+    private static final String SECRET = "linghuzhiyan-test-secret-key-must-be-at-least-32-characters-long-for-security-testing";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private JwtRequestFilter jwtRequestFilter;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        jwtTokenUtil.setSecret(SECRET);
+        jwtTokenUtil.setExpiration(600000);
+
+        jwtRequestFilter = new JwtRequestFilter(jwtTokenUtil, userDetailsService, loginLogService, tokenVersionCache);
+        ReflectionTestUtils.setField(jwtRequestFilter, "tokenHeader", "Authorization");
+        ReflectionTestUtils.setField(jwtRequestFilter, "tokenHead", "Bearer ");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithCurrentToken_ShouldAuthenticateFromClaims() throws Exception {
+        String token = jwtTokenUtil.generateToken(userDetails("ROLE_TEACHER", "ROLE_STUDENT"), "user-1", 2);
+        when(tokenVersionCache.isCurrent("user-1", 2)).thenReturn(true);
+
+        doFilter(token);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("teacher");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyInAnyOrder("ROLE_TEACHER", "ROLE_STUDENT");
+        assertThat(((JwtUserDetails) authentication.getPrincipal()).getUserId()).isEqualTo("user-1");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_WithRevokedToken_ShouldNotAuthenticate() throws Exception {
+        String token = jwtTokenUtil.generateToken(userDetails("ROLE_TEACHER"), "user-1", 1);
+        when(tokenVersionCache.isCurrent("user-1", 1)).thenReturn(false);
+
+        doFilter(token);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(loginLogService).logFailedLogin(eq("teacher"), anyString(), anyString(), eq("JWT令牌已失效"), anyString());
+    }
+
+    @Test
+    void doFilter_WithLegacyToken_ShouldLoadUserFromDatabase() throws Exception {
+        // 模拟不含用户ID等声明的旧版令牌
+        String legacyToken = Jwts.builder()
+                .setSubject("teacher")
+                .setExpiration(new Date(System.currentTimeMillis() + 600000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+        when(userDetailsService.loadUserByUsername("teacher")).thenReturn(userDetails("ROLE_STUDENT"));
+
+        doFilter(legacyToken);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        verifyNoInteractions(tokenVersionCache);
+    }
+
+    @Test
+    void doFilter_WithTamperedToken_ShouldNotAuthenticate() throws Exception {
+        String token = jwtTokenUtil.generateToken(userDetails("ROLE_STUDENT"), "user-1", 0);
+
+        doFilter(token.substring(0, token.length() - 2) + "xx");
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(tokenVersionCache, userDetailsService);
+    }
+
+    private void doFilter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtRequestFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    private UserDetails userDetails(String... roleIds) {
+        return User.builder()
+                .username("teacher")
+                .password("")
+                .authorities(Arrays.stream(roleIds).map(SimpleGrantedAuthority::new).toList())
+                .build();
+    }
+}
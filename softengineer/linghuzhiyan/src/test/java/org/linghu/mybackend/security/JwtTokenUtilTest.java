@@ -0,0 +1,93 @@
+package org.linghu.mybackend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JwtTokenUtil 单元测试
+ */
+class JwtTokenUtilTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        jwtTokenUtil.setSecret("linghuzhiyan-test-secret-key-must-be-at-least-32-characters-long-for-security-testing");
+        jwtTokenUtil.setExpiration(600000);
+    }
+
+    @Test
+    void parseToken_ShouldReturnClaimsAndReuseVerifiedResult() {
+        String token = jwtTokenUtil.generateToken(userDetails("student"), "user-1", 3);
+
+        Claims first = jwtTokenUtil.parseToken(token);
+        Claims second = jwtTokenUtil.parseToken(token);
+
+        assertThat(first.getSubject()).isEqualTo("student");
+        assertThat(first.get(JwtTokenUtil.CLAIM_USER_ID, String.class)).isEqualTo("user-1");
+        assertThat(first.get(JwtTokenUtil.CLAIM_TOKEN_VERSION, Integer.class)).isEqualTo(3);
+        assertThat(first.get(JwtTokenUtil.CLAIM_ROLES, List.class)).containsExactly("ROLE_STUDENT");
+        assertThat(second).isSameAs(first);
+        assertThat(jwtTokenUtil.getCachedClaimsCount()).isEqualTo(1);
+    }
+
+    @Test
+    void parseToken_WithTamperedSignature_ShouldThrowAndNotCache() {
+        String token = jwtTokenUtil.generateToken(userDetails("student"), "user-1", 0);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> jwtTokenUtil.parseToken(tampered)).isInstanceOf(SignatureException.class);
+        assertThat(jwtTokenUtil.getCachedClaimsCount()).isZero();
+    }
+
+    @Test
+    void parseToken_WithExpiredToken_ShouldThrow() {
+        jwtTokenUtil.setExpiration(-1000);
+        String token = jwtTokenUtil.generateToken(userDetails("student"), "user-1", 0);
+
+        assertThatThrownBy(() -> jwtTokenUtil.parseToken(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(jwtTokenUtil.getCachedClaimsCount()).isZero();
+    }
+
+    @Test
+    void parseToken_WhenCacheFull_ShouldEvictToConfiguredSize() {
+        jwtTokenUtil.setClaimsCacheSize(2);
+
+        for (int i = 0; i < 3; i++) {
+            String token = jwtTokenUtil.generateToken(userDetails("student-" + i), "user-" + i, 0);
+            assertThat(jwtTokenUtil.parseToken(token).getSubject()).isEqualTo("student-" + i);
+        }
+
+        assertThat(jwtTokenUtil.getCachedClaimsCount()).isEqualTo(2);
+    }
+
+    @Test
+    void setSecret_ShouldInvalidateCachedClaims() {
+        String token = jwtTokenUtil.generateToken(userDetails("student"), "user-1", 0);
+        jwtTokenUtil.parseToken(token);
+
+        jwtTokenUtil.setSecret("another-test-secret-key-that-is-at-least-64-bytes-long-for-hmac-sha512-signing");
+
+        assertThatThrownBy(() -> jwtTokenUtil.parseToken(token)).isInstanceOf(SignatureException.class);
+    }
+
+    private UserDetails userDetails(String username) {
+        return User.builder()
+                .username(username)
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_STUDENT")))
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package org.linghu.mybackend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.repository.UserRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * TokenVersionCache 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenVersionCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final AtomicLong clock = new AtomicLong();
+    private TokenVersionCache tokenVersionCache;
+
+    @BeforeEach
+    void setUp() {
+        tokenVersionCache = new TokenVersionCache(userRepository, clock::get);
+    }
+
+    @Test
+    void isCurrent_ShouldQueryDatabaseOncePerTtl() {
+        when(userRepository.findTokenVersionById("user-1")).thenReturn(Optional.of(2));
+
+        assertThat(tokenVersionCache.isCurrent("user-1", 2)).isTrue();
+        assertThat(tokenVersionCache.isCurrent("user-1", 1)).isFalse();
+        verify(userRepository, times(1)).findTokenVersionById("user-1");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        tokenVersionCache.isCurrent("user-1", 2);
+        verify(userRepository, times(2)).findTokenVersionById("user-1");
+    }
+
+    @Test
+    void isCurrent_WithDeletedUser_ShouldRejectAnyVersion() {
+        when(userRepository.findTokenVersionById("user-1")).thenReturn(Optional.empty());
+
+        assertThat(tokenVersionCache.isCurrent("user-1", 0)).isFalse();
+        assertThat(tokenVersionCache.isCurrent("user-1", -1)).isFalse();
+    }
+
+    @Test
+    void evict_ShouldReloadOnNextCheck() {
+        when(userRepository.findTokenVersionById("user-1")).thenReturn(Optional.of(0), Optional.of(1));
+        assertThat(tokenVersionCache.isCurrent("user-1", 0)).isTrue();
+
+        tokenVersionCache.evict("user-1");
+
+        assertThat(tokenVersionCache.isCurrent("user-1", 0)).isFalse();
+        assertThat(tokenVersionCache.isCurrent("user-1", 1)).isTrue();
+    }
+
+    @Test
+    void evictExpired_ShouldDropStaleEntries() {
+        when(userRepository.findTokenVersionById("user-1")).thenReturn(Optional.of(0));
+        tokenVersionCache.isCurrent("user-1", 0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        tokenVersionCache.evictExpired();
+
+        assertThat(tokenVersionCache.size()).isZero();
+    }
+}
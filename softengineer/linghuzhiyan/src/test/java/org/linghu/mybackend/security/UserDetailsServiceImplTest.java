@@ -0,0 +1,67 @@
+package org.linghu.mybackend.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.repository.UserRepository;
+import org.linghu.mybackend.service.UserService;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserDetailsServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Test
+    void loadUserByUsername_ShouldUseCurrentHashFromDatabase() {
+        User user = user("alice", false);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(userService.getUserRoleIds("user-1")).thenReturn(Set.of("ROLE_STUDENT"));
+
+        UserDetails details = userDetailsService.loadUserByUsername("alice");
+
+        assertThat(details.getPassword()).isEqualTo("$2a$10$hash");
+        assertThat(details.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_STUDENT");
+        verify(userService, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void loadUserByUsername_WhenDeleted_ShouldThrow() {
+        when(userRepository.findByUsername("bob")).thenReturn(Optional.of(user("bob", true)));
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("bob"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    private User user(String username, boolean deleted) {
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername(username);
+        user.setPassword("$2a$10$hash");
+        user.setIsDeleted(deleted);
+        return user;
+    }
+}
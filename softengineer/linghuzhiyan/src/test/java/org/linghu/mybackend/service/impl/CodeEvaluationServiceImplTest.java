@@ -0,0 +1,364 @@
+package org.linghu.mybackend.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.domain.ExperimentEvaluation;
+import org.linghu.mybackend.domain.ExperimentSubmission;
+import org.linghu.mybackend.domain.ExperimentTask;
+import org.linghu.mybackend.dto.JudgeCaseResultDTO;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.dto.JudgeTaskFilesDTO;
+import org.linghu.mybackend.repository.ExperimentEvaluationRepository;
+import org.linghu.mybackend.repository.ExperimentSubmissionRepository;
+import org.linghu.mybackend.service.JudgeFileCacheService;
+import org.linghu.mybackend.service.JudgeInputService;
+import org.linghu.mybackend.util.GoJudgeClient;
+import org.linghu.mybackend.util.MinioUtil;
+import org.linghu.mybackend.utils.JsonUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CodeEvaluationServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class CodeEvaluationServiceImplTest {
+
+    private static final List<JudgeResultDTO> COMPILED = results("[{\"status\":\"Accepted\",\"files\":{\"stdout\":\"\",\"stderr\":\"\"},"
+            + "\"fileIds\":{\".judge-build.tar\":\"A1\"}}]");
+    private static final List<JudgeResultDTO> RUN_OK = results(
+            "[{\"status\":\"Accepted\",\"files\":{\"stdout\":\"hello\",\"stderr\":\"\"}}]");
+
+    @Mock
+    private ExperimentEvaluationRepository evaluationRepository;
+
+    @Mock
+    private ExperimentSubmissionRepository submissionRepository;
+
+    @Mock
+    private MinioUtil minioUtil;
+
+    @Mock
+    private GoJudgeClient goJudgeClient;
+
+    @Mock
+    private JudgeFileCacheService judgeFileCacheService;
+
+    @Mock
+    private JudgeInputService judgeInputService;
+
+    @Spy
+    private JudgeConfig judgeConfig = new JudgeConfig();
+
+    @InjectMocks
+    private CodeEvaluationServiceImpl codeEvaluationService;
+
+    private ExperimentTask task;
+    private ExperimentSubmission submission;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        task = ExperimentTask.builder()
+                .id("task-1")
+                .experimentId("exp-1")
+                .build();
+        submission = ExperimentSubmission.builder()
+                .id("sub-1")
+                .taskId("task-1")
+                .userId("user-1")
+                .userAnswer("{\"paths\":[\"user-1/exp-1/task-1/20250101-000000/root/main.c\"]}")
+                .build();
+
+        lenient().when(judgeInputService.loadSubmissionFiles(anyList()))
+                .thenReturn(Map.of("main.c", "int main(){}\r\n".getBytes(StandardCharsets.UTF_8)));
+        lenient().when(judgeFileCacheService.getTaskFiles("N1", "exp-1", "task-1")).thenReturn(JudgeTaskFilesDTO.builder()
+                .version("v1")
+                .files(Collections.singletonMap("run.sh", JudgeTaskFilesDTO.CachedFile.builder()
+                        .fileId("F1")
+                        .sha256("unused")
+                        .build()))
+                .build());
+        lenient().when(goJudgeClient.acquireNode(any())).thenReturn("N1");
+        lenient().when(evaluationRepository.save(any(ExperimentEvaluation.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void evaluate_WithoutArtifact_ShouldCompileThenRun() throws Exception {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED, RUN_OK);
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        ArgumentCaptor<List<JudgeCommandDTO>> requests = commandCaptor();
+        verify(goJudgeClient, times(2)).run(eq("N1"), requests.capture());
+        JudgeCommandDTO compile = requests.getAllValues().get(0).get(0);
+        assertThat(compile.getCopyOutCached()).containsExactly(".judge-build.tar");
+        assertThat(compile.getCopyIn().get("run.sh").getFileId()).isEqualTo("F1");
+        assertThat(new String(compile.getCopyIn().get("main.c").getContent(), StandardCharsets.UTF_8))
+                .isEqualTo("int main(){}\r\n");
+        JudgeCommandDTO run = requests.getAllValues().get(1).get(0);
+        assertThat(run.getCopyIn()).containsOnlyKeys(".judge-build.tar");
+        assertThat(run.getCopyIn().get(".judge-build.tar").getFileId()).isEqualTo("A1");
+        verify(submissionRepository).updateArtifact("sub-1", "A1", "N1", "v1");
+        assertThat(evaluation.getScore()).isEqualByComparingTo("100");
+        assertThat(evaluation.getAdditionalInfo()).isEqualTo("hello");
+        assertThat(evaluation.getTaskVersion()).isEqualTo("v1");
+        assertThat(evaluation.getCacheable()).isTrue();
+    }
+
+    @Test
+    void evaluate_WithSameContentJudgedBefore_ShouldReuseVerdict() throws Exception {
+        submission.setContentHash("H1");
+        when(judgeFileCacheService.getTaskVersion("exp-1", "task-1")).thenReturn("v1");
+        when(evaluationRepository.findFirstByTaskIdAndTaskVersionAndContentHashAndCacheableTrue("task-1", "v1", "H1"))
+                .thenReturn(Optional.of(ExperimentEvaluation.builder()
+                        .id("eval-0")
+                        .submissionId("sub-0")
+                        .userId("user-2")
+                        .taskId("task-1")
+                        .score(new BigDecimal("50"))
+                        .errorMessage("测试用例 2: Wrong Answer")
+                        .contentHash("H1")
+                        .taskVersion("v1")
+                        .build()));
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verifyNoInteractions(goJudgeClient);
+        verify(judgeFileCacheService, never()).getTaskFiles(anyString(), anyString(), anyString());
+        verify(judgeInputService, never()).loadSubmissionFiles(anyList());
+        assertThat(evaluation.getId()).isNotEqualTo("eval-0");
+        assertThat(evaluation.getSubmissionId()).isEqualTo("sub-1");
+        assertThat(evaluation.getUserId()).isEqualTo("user-1");
+        assertThat(evaluation.getScore()).isEqualByComparingTo("50");
+        assertThat(evaluation.getErrorMessage()).isEqualTo("测试用例 2: Wrong Answer");
+    }
+
+    @Test
+    void evaluate_WithReusableArtifact_ShouldSkipCompilation() throws Exception {
+        submission.setArtifactFileId("A0");
+        submission.setArtifactNode("N1");
+        submission.setArtifactTaskVersion("v1");
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(RUN_OK);
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        ArgumentCaptor<List<JudgeCommandDTO>> request = commandCaptor();
+        verify(goJudgeClient).run(eq("N1"), request.capture());
+        assertThat(request.getValue().get(0).getCopyIn().get(".judge-build.tar").getFileId()).isEqualTo("A0");
+        assertThat(request.getValue().get(0).getCopyOutCached()).isNull();
+        verify(submissionRepository, never()).updateArtifact(anyString(), any(), any(), any());
+        assertThat(evaluation.getScore()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void evaluate_WithArtifactFromOldTaskVersion_ShouldRecompile() throws Exception {
+        submission.setArtifactFileId("A0");
+        submission.setArtifactNode("N1");
+        submission.setArtifactTaskVersion("v0");
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED, RUN_OK);
+
+        codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verify(goJudgeClient, times(2)).run(eq("N1"), anyList());
+        verify(submissionRepository).updateArtifact("sub-1", "A1", "N1", "v1");
+    }
+
+    @Test
+    void evaluate_WithArtifactOnAnotherNode_ShouldRecompileOnLeasedNode() throws Exception {
+        submission.setArtifactFileId("A0");
+        submission.setArtifactNode("N2");
+        submission.setArtifactTaskVersion("v1");
+        when(goJudgeClient.acquireNode("N2")).thenReturn("N1");
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED, RUN_OK);
+
+        codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verify(goJudgeClient, times(2)).run(eq("N1"), anyList());
+        verify(submissionRepository).updateArtifact("sub-1", "A1", "N1", "v1");
+        verify(goJudgeClient).releaseNode("N1");
+    }
+
+    @Test
+    void evaluate_WhenJudgeFails_ShouldReleaseNode() {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenThrow(new RuntimeException("评测服务请求失败"));
+
+        assertThatThrownBy(() -> codeEvaluationService.evaluate(task, submission, "user-1"))
+                .hasMessageContaining("评测服务请求失败");
+        verify(goJudgeClient).releaseNode("N1");
+    }
+
+    @Test
+    void evaluate_WhenArtifactLost_ShouldClearAndRecompile() throws Exception {
+        submission.setArtifactFileId("A0");
+        submission.setArtifactNode("N1");
+        submission.setArtifactTaskVersion("v1");
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(
+                results("[{\"status\":\"File Error\",\"files\":{}}]"), COMPILED, RUN_OK);
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verify(submissionRepository).updateArtifact("sub-1", null, null, null);
+        verify(submissionRepository).updateArtifact("sub-1", "A1", "N1", "v1");
+        verify(goJudgeClient, times(3)).run(eq("N1"), anyList());
+        // 丢失的也可能是测试用例输入，重新编译前重新上传任务文件
+        verify(judgeFileCacheService).invalidate("N1", "exp-1", "task-1");
+        verify(judgeFileCacheService, times(2)).getTaskFiles("N1", "exp-1", "task-1");
+        assertThat(evaluation.getScore()).isEqualByComparingTo("100");
+    }
+
+    @Test
+    void evaluate_WhenTestCaseInputLostAfterCompile_ShouldInvalidateTaskFiles() {
+        when(judgeFileCacheService.getTaskFiles("N1", "exp-1", "task-1")).thenReturn(JudgeTaskFilesDTO.builder()
+                .version("v1")
+                .files(Collections.emptyMap())
+                .testCases(List.of(testCase("1", 1, "I1")))
+                .build());
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED,
+                results("[{\"status\":\"File Error\",\"files\":{}}]"));
+
+        assertThatThrownBy(() -> codeEvaluationService.evaluate(task, submission, "user-1"))
+                .hasMessageContaining("缓存文件丢失");
+        verify(judgeFileCacheService).invalidate("N1", "exp-1", "task-1");
+        verify(evaluationRepository, never()).save(any(ExperimentEvaluation.class));
+    }
+
+    @Test
+    void evaluate_WhenCompilationFails_ShouldNotRun() throws Exception {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(
+                results("[{\"status\":\"Nonzero Exit Status\",\"files\":{\"stdout\":\"\",\"stderr\":\"main.c:1: error\"}}]"));
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verify(goJudgeClient, times(1)).run(eq("N1"), anyList());
+        verify(submissionRepository, never()).updateArtifact(anyString(), any(), any(), any());
+        assertThat(evaluation.getScore()).isEqualByComparingTo("0");
+        assertThat(evaluation.getErrorMessage()).isEqualTo("main.c:1: error");
+        assertThat(evaluation.getCacheable()).isTrue();
+    }
+
+    @Test
+    void evaluate_WhenCompileHitsInternalError_ShouldFailWithoutSavingVerdict() {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(
+                results("[{\"status\":\"Internal Error\",\"files\":{}}]"));
+
+        assertThatThrownBy(() -> codeEvaluationService.evaluate(task, submission, "user-1"))
+                .hasMessageContaining("Internal Error");
+        verify(evaluationRepository, never()).save(any(ExperimentEvaluation.class));
+    }
+
+    @Test
+    void evaluate_WhenFileErrorPersistsAfterRetry_ShouldFailWithoutSavingVerdict() {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(
+                results("[{\"status\":\"File Error\",\"files\":{}}]"));
+
+        assertThatThrownBy(() -> codeEvaluationService.evaluate(task, submission, "user-1"))
+                .hasMessageContaining("File Error");
+        verify(judgeFileCacheService).invalidate("N1", "exp-1", "task-1");
+        verify(goJudgeClient, times(2)).run(eq("N1"), anyList());
+        verify(evaluationRepository, never()).save(any(ExperimentEvaluation.class));
+    }
+
+    @Test
+    void evaluate_WhenCompileTimesOut_ShouldSaveUncacheableVerdict() throws Exception {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(
+                results("[{\"status\":\"Time Limit Exceeded\",\"files\":{\"stdout\":\"\",\"stderr\":\"\"}}]"));
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        assertThat(evaluation.getScore()).isEqualByComparingTo("0");
+        assertThat(evaluation.getErrorMessage()).isEqualTo("编译失败: Time Limit Exceeded");
+        assertThat(evaluation.getCacheable()).isFalse();
+    }
+
+    @Test
+    void evaluate_WithNewArtifact_ShouldReleaseOlderSubmissionArtifacts() throws Exception {
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED, RUN_OK);
+        when(submissionRepository.findByTaskIdAndUserIdAndArtifactFileIdIsNotNull("task-1", "user-1"))
+                .thenReturn(List.of(ExperimentSubmission.builder()
+                        .id("sub-0")
+                        .artifactFileId("OLD")
+                        .artifactNode("N0")
+                        .build()));
+
+        codeEvaluationService.evaluate(task, submission, "user-1");
+
+        verify(submissionRepository).updateArtifact("sub-0", null, null, null);
+        verify(goJudgeClient).deleteFile("N0", "OLD");
+    }
+
+    @Test
+    void evaluate_WithTestCases_ShouldRunInBatchesAndScoreByWeight() throws Exception {
+        judgeConfig.getTestCase().setParallelism(2);
+        when(judgeFileCacheService.getTaskFiles("N1", "exp-1", "task-1")).thenReturn(JudgeTaskFilesDTO.builder()
+                .version("v1")
+                .files(Collections.emptyMap())
+                .testCases(List.of(testCase("1", 1, "I1"), testCase("2", 1, "I2"), testCase("3", 2, "I3")))
+                .build());
+        when(minioUtil.downloadFile(startsWith("exp-1/experiment/task-1/testcases/")))
+                .thenAnswer(invocation -> new InputStreamResource(new ByteArrayInputStream(
+                        "ok\n".getBytes(StandardCharsets.UTF_8))));
+        when(goJudgeClient.run(eq("N1"), anyList())).thenReturn(COMPILED,
+                results("[{\"status\":\"Accepted\",\"time\":3000000,\"memory\":2048,\"files\":{\"stdout\":\"ok \\n\",\"stderr\":\"\"}},"
+                        + "{\"status\":\"Accepted\",\"files\":{\"stdout\":\"no\\n\",\"stderr\":\"\"}}]"),
+                results("[{\"status\":\"Time Limit Exceeded\",\"files\":{\"stdout\":\"\",\"stderr\":\"\"}}]"));
+
+        ExperimentEvaluation evaluation = codeEvaluationService.evaluate(task, submission, "user-1");
+
+        ArgumentCaptor<List<JudgeCommandDTO>> requests = commandCaptor();
+        verify(goJudgeClient, times(3)).run(eq("N1"), requests.capture());
+        assertThat(requests.getAllValues().get(1)).extracting(cmd -> cmd.getStdin().getFileId())
+                .containsExactly("I1", "I2");
+        assertThat(requests.getAllValues().get(2)).extracting(cmd -> cmd.getStdin().getFileId())
+                .containsExactly("I3");
+
+        assertThat(evaluation.getScore()).isEqualByComparingTo("25.00");
+        assertThat(evaluation.getErrorMessage()).startsWith("测试用例 2: Wrong Answer");
+        // 超时的用例可能受评测节点负载影响，结果不被相同内容的提交复用
+        assertThat(evaluation.getCacheable()).isFalse();
+        List<JudgeCaseResultDTO> caseResults = JsonUtils.parseList(evaluation.getCaseResults(),
+                JudgeCaseResultDTO.class);
+        assertThat(caseResults).extracting(JudgeCaseResultDTO::getStatus)
+                .containsExactly("Accepted", "Wrong Answer", "Time Limit Exceeded");
+        assertThat(caseResults.get(0).getTime()).isEqualTo(3L);
+        assertThat(caseResults.get(0).getMemory()).isEqualTo(2L);
+    }
+
+    private JudgeTaskFilesDTO.TestCase testCase(String name, int weight, String inputFileId) {
+        return JudgeTaskFilesDTO.TestCase.builder()
+                .name(name)
+                .weight(weight)
+                .input(JudgeTaskFilesDTO.CachedFile.builder().fileId(inputFileId).build())
+                .expectedObjectName("exp-1/experiment/task-1/testcases/" + name + ".out")
+                .build();
+    }
+
+    private static List<JudgeResultDTO> results(String json) {
+        return JsonUtils.parseList(json, JudgeResultDTO.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<JudgeCommandDTO>> commandCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.linghu.mybackend.domain.Experiment;
 import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.dto.CursorPageResult;
 import org.linghu.mybackend.dto.ExperimentDTO;
 import org.linghu.mybackend.dto.ExperimentRequestDTO;
 import org.linghu.mybackend.repository.ExperimentRepository;
@@ -127,6 +128,45 @@ class ExperimentServiceImplTest {
         assertEquals("Test Experiment", result.getContent().get(0).getName());
     }
 
+    @Test
+    void getExperimentsByCursor_ShouldFollowCursorWithoutCounting() {
+        // Given
+        Experiment older = Experiment.builder().id("experiment0").name("Older")
+                .createdAt(testExperiment.getCreatedAt().minusDays(1)).build();
+        when(experimentRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.of(0, 2)))
+                .thenReturn(List.of(testExperiment, older));
+        when(experimentRepository.findAfterCursor(testExperiment.getCreatedAt(), "experiment1", PageRequest.of(0, 2)))
+                .thenReturn(List.of(older));
+
+        // When
+        CursorPageResult<ExperimentDTO> first = experimentService.getExperimentsByCursor(null, 1, false);
+        CursorPageResult<ExperimentDTO> second = experimentService.getExperimentsByCursor(first.getNextCursor(), 1, false);
+
+        // Then
+        assertEquals(List.of("experiment1"), first.getList().stream().map(ExperimentDTO::getId).toList());
+        assertTrue(first.isHasMore());
+        assertNull(first.getTotal());
+        assertEquals(List.of("experiment0"), second.getList().stream().map(ExperimentDTO::getId).toList());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        verify(experimentRepository, never()).count();
+    }
+
+    @Test
+    void getExperimentsByCursor_WithTotal_ShouldCount() {
+        // Given
+        when(experimentRepository.findAllByOrderByCreatedAtDescIdDesc(any(Pageable.class)))
+                .thenReturn(List.of(testExperiment));
+        when(experimentRepository.count()).thenReturn(1L);
+
+        // When
+        CursorPageResult<ExperimentDTO> result = experimentService.getExperimentsByCursor(null, 10, true);
+
+        // Then
+        assertEquals(1L, result.getTotal());
+        assertFalse(result.isHasMore());
+    }
+
     @Test
     void getAllExperiments_WithInvalidPageParams_ShouldThrowException() {
         // When & Then - 测试负页数参数
@@ -0,0 +1,100 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * JudgeAdmissionServiceImpl 单元测试
+ */
+class JudgeAdmissionServiceImplTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private JudgeConfig judgeConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private JudgeAdmissionServiceImpl admissionService;
+
+    @BeforeEach
+    void setUp() {
+        judgeConfig = new JudgeConfig();
+        judgeConfig.getAdmission().setUserCapacity(2);
+        judgeConfig.getAdmission().setUserRefillPerMinute(6);
+        judgeConfig.getAdmission().setExperimentCapacity(3);
+        judgeConfig.getAdmission().setExperimentRefillPerMinute(60);
+        meterRegistry = new SimpleMeterRegistry();
+        admissionService = new JudgeAdmissionServiceImpl(judgeConfig, meterRegistry, clock::get);
+    }
+
+    @Test
+    void acquire_BeyondUserBurst_ShouldRejectWithRetryHint() {
+        admissionService.acquire("user-1", "exp-1");
+        admissionService.acquire("user-1", "exp-1");
+
+        // 每分钟补充6个令牌，下一个令牌10秒后可用
+        assertThatThrownBy(() -> admissionService.acquire("user-1", "exp-1"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .hasMessageContaining("10秒后重试")
+                .extracting("retryAfterSeconds").isEqualTo(10L);
+        assertThat(meterRegistry.get("judge.admission.rejected").tag("scope", "user").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("judge.admission.admitted").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void acquire_AfterRefill_ShouldAdmitAgain() {
+        admissionService.acquire("user-1", "exp-1");
+        admissionService.acquire("user-1", "exp-1");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        admissionService.acquire("user-1", "exp-1");
+        assertThatThrownBy(() -> admissionService.acquire("user-1", "exp-1"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void acquire_WhenExperimentExhausted_ShouldRejectAndRefundUserToken() {
+        admissionService.acquire("user-1", "exp-1");
+        admissionService.acquire("user-2", "exp-1");
+        admissionService.acquire("user-3", "exp-1");
+
+        assertThatThrownBy(() -> admissionService.acquire("user-4", "exp-1"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(1L);
+
+        // 实验预算不足时不扣减用户令牌，用户在其他实验中仍有完整的突发额度
+        admissionService.acquire("user-4", "exp-2");
+        admissionService.acquire("user-4", "exp-2");
+        assertThat(meterRegistry.get("judge.admission.rejected").tag("scope", "experiment").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void acquire_WhenDisabled_ShouldAlwaysAdmit() {
+        judgeConfig.getAdmission().setEnabled(false);
+
+        for (int i = 0; i < 10; i++) {
+            admissionService.acquire("user-1", "exp-1");
+        }
+        assertThat(admissionService.getBucketCount()).isZero();
+    }
+
+    @Test
+    void evictIdleBuckets_ShouldDropOnlyIdleBuckets() {
+        admissionService.acquire("user-1", "exp-1");
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(judgeConfig.getAdmission().getIdleMinutes()) + 1);
+        admissionService.acquire("user-2", null);
+
+        admissionService.evictIdleBuckets();
+
+        assertThat(admissionService.getBucketCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,185 @@
+package org.linghu.mybackend.service.impl;
+
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeTaskFilesDTO;
+import org.linghu.mybackend.util.GoJudgeClient;
+import org.linghu.mybackend.util.MinioUtil;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JudgeFileCacheServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class JudgeFileCacheServiceImplTest {
+
+    private static final String PREFIX = "exp-1/experiment/task-1/";
+    private static final String NODE = "http://judge-1:5050";
+
+    @Mock
+    private MinioUtil minioUtil;
+
+    @Mock
+    private GoJudgeClient goJudgeClient;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private JudgeFileCacheServiceImpl judgeFileCacheService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        judgeFileCacheService = new JudgeFileCacheServiceImpl(minioUtil, goJudgeClient, new JudgeConfig(), clock::get);
+        lenient().when(minioUtil.downloadFile(anyString())).thenAnswer(invocation ->
+                new InputStreamResource(new ByteArrayInputStream(
+                        ("content of " + invocation.getArgument(0)).getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void getTaskFiles_ShouldUploadOnceAndReuse() throws Exception {
+        stubObjects(object(PREFIX + "root/compile.sh", "e1"), object(PREFIX + "root/run.sh", "e2"),
+                object(PREFIX + "original/task.zip", "e3"));
+        when(goJudgeClient.uploadFile(NODE, "compile.sh", "content of exp-1/experiment/task-1/root/compile.sh"
+                .getBytes(StandardCharsets.UTF_8))).thenReturn("F1");
+        when(goJudgeClient.uploadFile(eq(NODE), eq("run.sh"), any())).thenReturn("F2");
+
+        JudgeTaskFilesDTO first = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+        JudgeTaskFilesDTO second = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        assertThat(first.getFiles()).containsOnlyKeys("compile.sh", "run.sh");
+        assertThat(first.getFiles().get("compile.sh").getFileId()).isEqualTo("F1");
+        assertThat(second).isSameAs(first);
+        verify(goJudgeClient, times(2)).uploadFile(anyString(), anyString(), any());
+        verify(minioUtil, never()).downloadFile(PREFIX + "original/task.zip");
+    }
+
+    @Test
+    void getTaskFiles_WhenFileChanged_ShouldReuploadOnlyChangedFile() throws Exception {
+        stubObjects(object(PREFIX + "root/compile.sh", "e1"), object(PREFIX + "root/run.sh", "e2"));
+        when(goJudgeClient.uploadFile(eq(NODE), eq("compile.sh"), any())).thenReturn("F1");
+        when(goJudgeClient.uploadFile(eq(NODE), eq("run.sh"), any())).thenReturn("F2", "F3");
+        JudgeTaskFilesDTO first = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        stubObjects(object(PREFIX + "root/compile.sh", "e1"), object(PREFIX + "root/run.sh", "e2-new"));
+        JudgeTaskFilesDTO second = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        assertThat(second.getVersion()).isNotEqualTo(first.getVersion());
+        assertThat(second.getFiles().get("compile.sh").getFileId()).isEqualTo("F1");
+        assertThat(second.getFiles().get("run.sh").getFileId()).isEqualTo("F3");
+        // 旧文件可能仍被正在进行的评测引用，宽限期内不删除
+        judgeFileCacheService.purgeRetiredFiles();
+        verify(goJudgeClient, never()).deleteFile(anyString(), anyString());
+
+        expireGracePeriod();
+        verify(goJudgeClient).deleteFile(NODE, "F2");
+        verify(goJudgeClient, never()).deleteFile(NODE, "F1");
+        assertThat(judgeFileCacheService.getRetiredFileCount()).isZero();
+    }
+
+    @Test
+    void getTaskFiles_WithTestCases_ShouldKeepThemOutOfSandbox() throws Exception {
+        stubObjects(object(PREFIX + "root/run.sh", "e1"), object(PREFIX + "testcases/1.in", "e2"),
+                object(PREFIX + "testcases/1.out", "e3"), object(PREFIX + "testcases/2.out", "e4"),
+                object(PREFIX + "testcases/3.in", "e5"), object(PREFIX + "testcases/cases.json", "e6"));
+        when(minioUtil.downloadFile(PREFIX + "testcases/cases.json")).thenReturn(new InputStreamResource(
+                new ByteArrayInputStream("{\"2\": 3}".getBytes(StandardCharsets.UTF_8))));
+        when(goJudgeClient.uploadFile(eq(NODE), eq("run.sh"), any())).thenReturn("F1");
+        when(goJudgeClient.uploadFile(eq(NODE), eq("1.in"), any())).thenReturn("I1");
+        when(goJudgeClient.uploadFile(eq(NODE), eq("3.in"), any())).thenReturn("I3");
+
+        JudgeTaskFilesDTO taskFiles = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        assertThat(taskFiles.getFiles()).containsOnlyKeys("run.sh");
+        assertThat(taskFiles.getTestCases()).extracting(JudgeTaskFilesDTO.TestCase::getName)
+                .containsExactly("1", "2");
+        assertThat(taskFiles.getTestCases().get(0).getInput().getFileId()).isEqualTo("I1");
+        assertThat(taskFiles.getTestCases().get(0).getWeight()).isEqualTo(1);
+        assertThat(taskFiles.getTestCases().get(1).getInput()).isNull();
+        assertThat(taskFiles.getTestCases().get(1).getWeight()).isEqualTo(3);
+        assertThat(taskFiles.getTestCases().get(1).getExpectedObjectName()).isEqualTo(PREFIX + "testcases/2.out");
+        // 没有期望输出的输入文件不会保留在评测服务中
+        expireGracePeriod();
+        verify(goJudgeClient).deleteFile(NODE, "I3");
+        verify(minioUtil, never()).downloadFile(PREFIX + "testcases/1.out");
+    }
+
+    @Test
+    void invalidateByObjectName_ShouldDropTaskCache() throws Exception {
+        stubObjects(object(PREFIX + "root/run.sh", "e1"));
+        when(goJudgeClient.uploadFile(eq(NODE), eq("run.sh"), any())).thenReturn("F1", "F2");
+        judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        judgeFileCacheService.invalidateByObjectName(PREFIX + "root/run.sh");
+        JudgeTaskFilesDTO reloaded = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+
+        verify(goJudgeClient, never()).deleteFile(anyString(), anyString());
+        expireGracePeriod();
+        verify(goJudgeClient).deleteFile(NODE, "F1");
+        assertThat(reloaded.getFiles().get("run.sh").getFileId()).isEqualTo("F2");
+    }
+
+    @Test
+    void getTaskFiles_ShouldCacheSeparatelyPerNode() throws Exception {
+        String otherNode = "http://judge-2:5050";
+        stubObjects(object(PREFIX + "root/run.sh", "e1"));
+        when(goJudgeClient.uploadFile(eq(NODE), eq("run.sh"), any())).thenReturn("F1");
+        when(goJudgeClient.uploadFile(eq(otherNode), eq("run.sh"), any())).thenReturn("G1");
+
+        JudgeTaskFilesDTO first = judgeFileCacheService.getTaskFiles(NODE, "exp-1", "task-1");
+        JudgeTaskFilesDTO second = judgeFileCacheService.getTaskFiles(otherNode, "exp-1", "task-1");
+        assertThat(first.getFiles().get("run.sh").getFileId()).isEqualTo("F1");
+        assertThat(second.getFiles().get("run.sh").getFileId()).isEqualTo("G1");
+        assertThat(judgeFileCacheService.getTaskVersion("exp-1", "task-1")).isEqualTo(first.getVersion());
+
+        // 任务资源变化时所有节点上的缓存都失效
+        judgeFileCacheService.invalidate("exp-1", "task-1");
+        expireGracePeriod();
+
+        verify(goJudgeClient).deleteFile(NODE, "F1");
+        verify(goJudgeClient).deleteFile(otherNode, "G1");
+    }
+
+    @Test
+    void invalidateByObjectName_WithLearningResource_ShouldIgnore() {
+        judgeFileCacheService.invalidateByObjectName("exp-1/resource/slides.pdf");
+
+        verifyNoInteractions(goJudgeClient);
+    }
+
+    private void expireGracePeriod() {
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(new JudgeConfig().getQueue().getStaleMinutes()));
+        judgeFileCacheService.purgeRetiredFiles();
+    }
+
+    private void stubObjects(Item... items) throws Exception {
+        List<Result<Item>> results = new ArrayList<>();
+        for (Item item : items) {
+            results.add(new Result<>(item));
+        }
+        when(minioUtil.listObjects(MinioUtil.getResourceBucket(), PREFIX)).thenReturn(results);
+    }
+
+    private Item object(String objectName, String etag) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        lenient().when(item.etag()).thenReturn(etag);
+        lenient().when(item.isDir()).thenReturn(false);
+        return item;
+    }
+}
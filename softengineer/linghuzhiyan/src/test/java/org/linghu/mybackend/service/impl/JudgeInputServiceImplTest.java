@@ -0,0 +1,122 @@
+package org.linghu.mybackend.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.exception.BusinessException;
+import org.linghu.mybackend.util.MinioUtil;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * JudgeInputServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class JudgeInputServiceImplTest {
+
+    private static final String PREFIX = "user-1/exp-1/task-1/20250101-000000/root/";
+
+    @Mock
+    private MinioUtil minioUtil;
+
+    private JudgeConfig judgeConfig;
+    private JudgeInputServiceImpl judgeInputService;
+
+    @BeforeEach
+    void setUp() {
+        judgeConfig = new JudgeConfig();
+        judgeConfig.getFetch().setParallelism(4);
+        judgeConfig.getFetch().setMaxTotalBytes(100);
+        judgeInputService = new JudgeInputServiceImpl(minioUtil, judgeConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        judgeInputService.shutdown();
+    }
+
+    @Test
+    void loadSubmissionFiles_ShouldKeepRawBytesAndRelativePaths() throws Exception {
+        byte[] script = "#!/bin/sh\r\n./main\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] binary = new byte[]{0, (byte) 0xFF, '\n', 'x'};
+        stubObject(PREFIX + "run.sh", script);
+        stubObject(PREFIX + "lib/data.bin", binary);
+
+        Map<String, byte[]> files = judgeInputService.loadSubmissionFiles(
+                List.of(PREFIX + "run.sh", PREFIX + "lib/data.bin"));
+
+        assertThat(files.keySet()).containsExactly("run.sh", "lib/data.bin");
+        assertThat(files.get("run.sh")).isEqualTo(script);
+        assertThat(files.get("lib/data.bin")).isEqualTo(binary);
+    }
+
+    @Test
+    void loadSubmissionFiles_ShouldFetchObjectsConcurrently() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        for (String name : List.of("a.c", "b.c", "c.c")) {
+            when(minioUtil.readObject(eq(PREFIX + name), anyLong())).thenAnswer(invocation -> {
+                allStarted.countDown();
+                // 串行读取时后续请求不会开始，等待会超时
+                if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("读取未并发执行");
+                }
+                return name.getBytes(StandardCharsets.UTF_8);
+            });
+        }
+
+        Map<String, byte[]> files = judgeInputService.loadSubmissionFiles(
+                List.of(PREFIX + "a.c", PREFIX + "b.c", PREFIX + "c.c"));
+
+        assertThat(files).hasSize(3);
+        assertThat(new String(files.get("c.c"), StandardCharsets.UTF_8)).isEqualTo("c.c");
+    }
+
+    @Test
+    void loadSubmissionFiles_WhenTotalSizeExceedsLimit_ShouldReject() throws Exception {
+        judgeConfig.getFetch().setParallelism(1);
+        judgeInputService.shutdown();
+        judgeInputService = new JudgeInputServiceImpl(minioUtil, judgeConfig);
+        stubObject(PREFIX + "a.c", new byte[60]);
+        stubObject(PREFIX + "b.c", new byte[60]);
+
+        assertThatThrownBy(() -> judgeInputService.loadSubmissionFiles(List.of(PREFIX + "a.c", PREFIX + "b.c")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("总大小超过限制");
+    }
+
+    @Test
+    void loadSubmissionFiles_WhenObjectMissing_ShouldFail() throws Exception {
+        when(minioUtil.readObject(eq(PREFIX + "a.c"), anyLong())).thenThrow(new RuntimeException("NoSuchKey"));
+
+        assertThatThrownBy(() -> judgeInputService.loadSubmissionFiles(List.of(PREFIX + "a.c")))
+                .hasMessageContaining("读取提交的代码文件失败")
+                .hasMessageContaining("NoSuchKey");
+    }
+
+    /**
+     * 模拟MinioUtil.readObject：对象大于允许读取的字节数时失败
+     */
+    private void stubObject(String objectName, byte[] content) throws Exception {
+        when(minioUtil.readObject(eq(objectName), anyLong())).thenAnswer(invocation -> {
+            long maxBytes = invocation.getArgument(1);
+            if (content.length > maxBytes) {
+                throw new BusinessException(413, "文件大小超过限制: " + objectName);
+            }
+            return content;
+        });
+    }
+}
@@ -0,0 +1,359 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.domain.*;
+import org.linghu.mybackend.dto.JudgeJobDTO;
+import org.linghu.mybackend.exception.ResourceNotFoundException;
+import org.linghu.mybackend.exception.TooManyRequestsException;
+import org.linghu.mybackend.exception.UnauthorizedException;
+import org.linghu.mybackend.repository.*;
+import org.linghu.mybackend.service.CodeEvaluationService;
+import org.linghu.mybackend.service.JudgeAdmissionService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JudgeQueueServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class JudgeQueueServiceImplTest {
+
+    @Mock
+    private JudgeJobRepository judgeJobRepository;
+
+    @Mock
+    private ExperimentSubmissionRepository submissionRepository;
+
+    @Mock
+    private ExperimentTaskRepository experimentTaskRepository;
+
+    @Mock
+    private ExperimentEvaluationRepository evaluationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CodeEvaluationService codeEvaluationService;
+
+    @Mock
+    private JudgeAdmissionService judgeAdmissionService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JudgeQueueServiceImpl judgeQueueService;
+
+    private ExperimentSubmission submission;
+    private ExperimentTask task;
+
+    @BeforeEach
+    void setUp() {
+        JudgeConfig judgeConfig = new JudgeConfig();
+        judgeConfig.getQueue().setWorkers(1);
+        judgeConfig.getQueue().setCapacity(4);
+        meterRegistry = new SimpleMeterRegistry();
+
+        judgeQueueService = new JudgeQueueServiceImpl(judgeJobRepository, submissionRepository,
+                experimentTaskRepository, evaluationRepository, userRepository, codeEvaluationService,
+                judgeAdmissionService, judgeConfig, meterRegistry);
+
+        submission = ExperimentSubmission.builder()
+                .id("sub-1")
+                .taskId("task-1")
+                .userId("user-1")
+                .userAnswer("{\"paths\":[\"user-1/exp-1/task-1/1/root/main.c\"]}")
+                .submitTime(LocalDateTime.now())
+                .build();
+
+        task = ExperimentTask.builder()
+                .id("task-1")
+                .experimentId("exp-1")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        judgeQueueService.shutdown();
+    }
+
+    @Test
+    void enqueue_WithActiveJob_ShouldReturnExistingJob() {
+        JudgeJob running = JudgeJob.builder()
+                .id("job-1")
+                .submissionId("sub-1")
+                .taskId("task-1")
+                .userId("user-1")
+                .status(JudgeJob.JobStatus.RUNNING)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1"))
+                .thenReturn(Optional.of(running));
+
+        JudgeJobDTO result = judgeQueueService.enqueue(submission);
+
+        assertThat(result.getId()).isEqualTo("job-1");
+        assertThat(result.getStatus()).isEqualTo("RUNNING");
+        verify(judgeJobRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueue_ShouldRunJobOnWorker() throws Exception {
+        stubJobLifecycle();
+        when(submissionRepository.findById("sub-1")).thenReturn(Optional.of(submission));
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        when(codeEvaluationService.evaluate(task, submission, "user-1")).thenReturn(
+                ExperimentEvaluation.builder()
+                        .id("eval-1")
+                        .submissionId("sub-1")
+                        .score(new BigDecimal("100"))
+                        .errorMessage("")
+                        .build());
+
+        JudgeJobDTO result = judgeQueueService.enqueue(submission);
+        assertThat(result.getStatus()).isEqualTo("QUEUED");
+
+        JudgeJob finished = awaitFinishedJob();
+        assertThat(finished.getStatus()).isEqualTo(JudgeJob.JobStatus.SUCCESS);
+        assertThat(finished.getEvaluationId()).isEqualTo("eval-1");
+        assertThat(finished.getFinishedAt()).isNotNull();
+        assertThat(meterRegistry.get("judge.queue.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void enqueue_WhenEvaluationFails_ShouldMarkJobError() throws Exception {
+        stubJobLifecycle();
+        when(submissionRepository.findById("sub-1")).thenReturn(Optional.of(submission));
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        when(codeEvaluationService.evaluate(task, submission, "user-1"))
+                .thenThrow(new RuntimeException("评测服务返回错误状态码: 500"));
+
+        judgeQueueService.enqueue(submission);
+
+        JudgeJob finished = awaitFinishedJob();
+        assertThat(finished.getStatus()).isEqualTo(JudgeJob.JobStatus.ERROR);
+        assertThat(finished.getErrorMessage()).contains("评测服务返回错误状态码: 500");
+    }
+
+    @Test
+    void requestEvaluation_WithFinishedJob_ShouldReturnEvaluation() {
+        JudgeJob finished = JudgeJob.builder()
+                .id("job-1")
+                .submissionId("sub-1")
+                .taskId("task-1")
+                .userId("user-1")
+                .status(JudgeJob.JobStatus.SUCCESS)
+                .evaluationId("eval-1")
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1"))
+                .thenReturn(Optional.of(finished));
+        when(evaluationRepository.findById("eval-1")).thenReturn(Optional.of(
+                ExperimentEvaluation.builder()
+                        .id("eval-1")
+                        .submissionId("sub-1")
+                        .score(new BigDecimal("100"))
+                        .additionalInfo("hello")
+                        .build()));
+        when(submissionRepository.findById("sub-1")).thenReturn(Optional.of(submission));
+
+        JudgeJobDTO result = judgeQueueService.requestEvaluation(submission);
+
+        assertThat(result.getEvaluation()).isNotNull();
+        assertThat(result.getEvaluation().getScore()).isEqualByComparingTo("100");
+        assertThat(result.getEvaluation().getJobId()).isEqualTo("job-1");
+        verify(judgeJobRepository, never()).save(any());
+    }
+
+    @Test
+    void requestEvaluation_WhileJobInFlight_ShouldCoalesceIntoSingleJob() {
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1")).thenReturn(Optional.empty());
+        when(judgeJobRepository.save(any(JudgeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        // 任务已由其他实例领取，本实例的工作线程不执行
+        lenient().when(judgeJobRepository.claim(anyString(), any(LocalDateTime.class))).thenReturn(0);
+        // 创建任务的事务尚未提交，数据库中还查不到
+        when(judgeJobRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        JudgeJobDTO first = judgeQueueService.requestEvaluation(submission);
+        JudgeJobDTO second = judgeQueueService.requestEvaluation(submission);
+
+        assertThat(second.getId()).isEqualTo(first.getId());
+        assertThat(second.getStatus()).isEqualTo("QUEUED");
+        verify(judgeJobRepository, times(1)).save(any());
+        verify(judgeAdmissionService, times(1)).acquire("user-1", "exp-1");
+        assertThat(meterRegistry.get("judge.requests.coalesced").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void requestEvaluation_OverBudget_ShouldRejectWithoutCreatingJob() {
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1")).thenReturn(Optional.empty());
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        doThrow(new TooManyRequestsException("评测请求过于频繁，请10秒后重试", 10))
+                .doNothing()
+                .when(judgeAdmissionService).acquire("user-1", "exp-1");
+        when(judgeJobRepository.save(any(JudgeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(judgeJobRepository.claim(anyString(), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> judgeQueueService.requestEvaluation(submission))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(10L);
+        verify(judgeJobRepository, never()).save(any());
+
+        // 被拒绝的请求不会留下合并记录，稍后重试可以正常创建任务
+        JudgeJobDTO retried = judgeQueueService.requestEvaluation(submission);
+        assertThat(retried.getStatus()).isEqualTo("QUEUED");
+        verify(judgeJobRepository, times(1)).save(any());
+    }
+
+    @Test
+    void enqueue_WhenJobReclaimedDuringRun_ShouldDiscardStaleResult() throws Exception {
+        // 任务执行期间超时被回收并由其他实例重新领取，本次领取已失效
+        stubJobLifecycle(0);
+        when(submissionRepository.findById("sub-1")).thenReturn(Optional.of(submission));
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        when(codeEvaluationService.evaluate(task, submission, "user-1")).thenReturn(
+                ExperimentEvaluation.builder()
+                        .id("eval-1")
+                        .submissionId("sub-1")
+                        .score(new BigDecimal("100"))
+                        .build());
+
+        judgeQueueService.enqueue(submission);
+
+        awaitFinishedJob();
+        verify(judgeJobRepository, times(1)).save(any());
+        assertThat(meterRegistry.find("judge.jobs.completed").counter()).isNull();
+    }
+
+    @Test
+    void enqueue_OverBudget_ShouldDispatchOnlyAfterTokensRefill() {
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1")).thenReturn(Optional.empty());
+        when(experimentTaskRepository.findById("task-1")).thenReturn(Optional.of(task));
+        doThrow(new TooManyRequestsException("评测请求过于频繁，请10秒后重试", 10))
+                .when(judgeAdmissionService).acquire("user-1", "exp-1");
+        when(judgeJobRepository.save(any(JudgeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // 准入令牌耗尽时提交照常完成，任务保持排队状态
+        JudgeJobDTO result = judgeQueueService.enqueue(submission);
+
+        assertThat(result.getStatus()).isEqualTo("QUEUED");
+        ArgumentCaptor<JudgeJob> captor = ArgumentCaptor.forClass(JudgeJob.class);
+        verify(judgeJobRepository).save(captor.capture());
+        assertThat(captor.getValue().getSubmissionId()).isEqualTo("sub-1");
+        assertThat(captor.getValue().isAdmitted()).isFalse();
+
+        // 令牌未补充前定时调度不派发该任务
+        when(judgeJobRepository.findByStatusAndAdmittedOrderByCreatedAtAsc(eq(JudgeJob.JobStatus.QUEUED), eq(true), any()))
+                .thenReturn(List.of());
+        when(judgeJobRepository.findByStatusAndAdmittedOrderByCreatedAtAsc(eq(JudgeJob.JobStatus.QUEUED), eq(false), any()))
+                .thenReturn(List.of(captor.getValue()));
+        judgeQueueService.sweep();
+
+        verify(judgeAdmissionService, times(2)).acquire("user-1", "exp-1");
+        verify(judgeJobRepository, never()).admit(anyString());
+        verify(judgeJobRepository, never()).claim(anyString(), any(LocalDateTime.class));
+
+        // 令牌补充后重新通过准入控制再派发
+        doNothing().when(judgeAdmissionService).acquire("user-1", "exp-1");
+        when(judgeJobRepository.admit(result.getId())).thenReturn(1);
+        when(judgeJobRepository.claim(eq(result.getId()), any(LocalDateTime.class))).thenReturn(0);
+        judgeQueueService.sweep();
+
+        verify(judgeJobRepository, timeout(5000)).claim(eq(result.getId()), any(LocalDateTime.class));
+        verify(judgeAdmissionService, times(3)).acquire("user-1", "exp-1");
+    }
+
+    @Test
+    void getJob_NotOwner_ShouldThrowUnauthorized() {
+        when(judgeJobRepository.findById("job-1")).thenReturn(Optional.of(JudgeJob.builder()
+                .id("job-1")
+                .userId("user-1")
+                .status(JudgeJob.JobStatus.QUEUED)
+                .build()));
+        User other = new User();
+        other.setId("user-2");
+        other.setUsername("other");
+        when(userRepository.findByUsername("other")).thenReturn(Optional.of(other));
+
+        assertThatThrownBy(() -> judgeQueueService.getJob("job-1", "other"))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void getJob_NotFound_ShouldThrow() {
+        when(judgeJobRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> judgeQueueService.getJob("missing", "student"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private void stubJobLifecycle() {
+        stubJobLifecycle(1);
+    }
+
+    /**
+     * 模拟任务入队、领取、读取和写回过程
+     *
+     * @param completed 写回结果时的更新行数，0表示领取已失效
+     */
+    private void stubJobLifecycle(int completed) {
+        AtomicReference<JudgeJob> queued = new AtomicReference<>();
+        when(judgeJobRepository.findFirstBySubmissionIdOrderByCreatedAtDesc("sub-1")).thenReturn(Optional.empty());
+        when(judgeJobRepository.save(any(JudgeJob.class))).thenAnswer(invocation -> {
+            JudgeJob job = invocation.getArgument(0);
+            queued.compareAndSet(null, job);
+            return job;
+        });
+        when(judgeJobRepository.claim(anyString(), any(LocalDateTime.class))).thenReturn(1);
+        when(judgeJobRepository.findById(anyString())).thenAnswer(invocation -> {
+            JudgeJob job = queued.get();
+            return Optional.of(JudgeJob.builder()
+                    .id(job.getId())
+                    .submissionId(job.getSubmissionId())
+                    .taskId(job.getTaskId())
+                    .userId(job.getUserId())
+                    .status(JudgeJob.JobStatus.RUNNING)
+                    .createdAt(job.getCreatedAt())
+                    .startedAt(LocalDateTime.now())
+                    .attempt(1)
+                    .build());
+        });
+        when(judgeJobRepository.complete(anyString(), eq(1), any(), any(), any(), any())).thenReturn(completed);
+    }
+
+    /**
+     * 等待工作线程写回任务的最终状态
+     */
+    private JudgeJob awaitFinishedJob() {
+        ArgumentCaptor<String> id = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<JudgeJob.JobStatus> status = ArgumentCaptor.forClass(JudgeJob.JobStatus.class);
+        ArgumentCaptor<String> evaluationId = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> errorMessage = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<LocalDateTime> finishedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(judgeJobRepository, timeout(5000)).complete(id.capture(), eq(1), status.capture(),
+                evaluationId.capture(), errorMessage.capture(), finishedAt.capture());
+        return JudgeJob.builder()
+                .id(id.getValue())
+                .status(status.getValue())
+                .evaluationId(evaluationId.getValue())
+                .errorMessage(errorMessage.getValue())
+                .finishedAt(finishedAt.getValue())
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.repository.LoginLogRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoginAttemptTracker 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LoginAttemptTrackerTest {
+
+    private static final long START = TimeUnit.MINUTES.toMillis(28_000_000L);
+
+    @Mock
+    private LoginLogRepository loginLogRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private LoginAttemptTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(START);
+        tracker = new LoginAttemptTracker(loginLogRepository, meterRegistry, 10, 3, now::get);
+    }
+
+    @Test
+    void countUserFailures_BeforeWarmUp_ShouldRequireFallback() {
+        tracker.recordFailure("user-1", "10.0.0.1");
+
+        assertThat(tracker.countUserFailures("user-1", 5)).isEqualTo(-1);
+        assertThat(tracker.findSuspiciousIps(1, 5)).isNull();
+    }
+
+    @Test
+    void countUserFailures_ShouldSlideWithTime() {
+        warmUp();
+        tracker.recordFailure("user-1", "10.0.0.1");
+        advanceMinutes(3);
+        tracker.recordFailure("user-1", "10.0.0.1");
+        tracker.recordFailure("user-1", "10.0.0.2");
+
+        assertThat(tracker.countUserFailures("user-1", 5)).isEqualTo(3);
+        assertThat(tracker.countUserFailures("user-1", 2)).isEqualTo(2);
+        assertThat(tracker.countUserFailures("user-2", 5)).isZero();
+
+        advanceMinutes(5);
+        assertThat(tracker.countUserFailures("user-1", 5)).isEqualTo(2);
+        advanceMinutes(3);
+        assertThat(tracker.countUserFailures("user-1", 5)).isZero();
+    }
+
+    @Test
+    void countUserFailures_BeyondWindow_ShouldRequireFallback() {
+        warmUp();
+
+        assertThat(tracker.countUserFailures("user-1", 11)).isEqualTo(-1);
+        assertThat(tracker.countUserFailures("user-1", 10)).isZero();
+    }
+
+    @Test
+    void findSuspiciousIps_ShouldReturnIpsAtThreshold() {
+        warmUp();
+        tracker.recordFailure("user-1", "10.0.0.1");
+        tracker.recordFailure("user-2", "10.0.0.1");
+        tracker.recordFailure("user-3", "10.0.0.2");
+
+        Map<String, Long> suspicious = tracker.findSuspiciousIps(2, 5);
+
+        assertThat(suspicious).containsOnly(Map.entry("10.0.0.1", 2L));
+    }
+
+    @Test
+    void warmUp_ShouldReplayFailuresBeforeStartup() {
+        LocalDateTime startedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(START), ZoneId.systemDefault());
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"user-1", "10.0.0.1", startedAt.minusMinutes(2)});
+        rows.add(new Object[]{"user-1", "10.0.0.1", startedAt.minusMinutes(8)});
+        when(loginLogRepository.findFailedAttemptsBetween(startedAt.minusMinutes(10), startedAt)).thenReturn(rows);
+
+        tracker.warmUp();
+        tracker.recordFailure("user-1", "10.0.0.1");
+
+        assertThat(tracker.isWarmedUp()).isTrue();
+        assertThat(tracker.countUserFailures("user-1", 5)).isEqualTo(2);
+        assertThat(tracker.countUserFailures("user-1", 10)).isEqualTo(3);
+    }
+
+    @Test
+    void warmUp_WhenQueryFails_ShouldRetryOnEviction() {
+        when(loginLogRepository.findFailedAttemptsBetween(any(), any()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(Collections.emptyList());
+
+        tracker.warmUp();
+        assertThat(tracker.isWarmedUp()).isFalse();
+
+        tracker.evictIdle();
+        assertThat(tracker.isWarmedUp()).isTrue();
+    }
+
+    @Test
+    void record_WhenKeyLimitReached_ShouldFallBackUntilWindowPasses() {
+        warmUp();
+        tracker.recordFailure("user-1", null);
+        tracker.recordFailure("user-2", null);
+        tracker.recordFailure("user-3", null);
+        tracker.recordFailure("user-4", null);
+
+        assertThat(tracker.countUserFailures("user-1", 5)).isEqualTo(-1);
+        assertThat(meterRegistry.get("login.attempts.untracked").counter().count()).isEqualTo(1.0);
+
+        advanceMinutes(11);
+        tracker.evictIdle();
+        assertThat(meterRegistry.get("login.attempts.tracked").tag("scope", "user").gauge().value()).isZero();
+        assertThat(tracker.countUserFailures("user-4", 5)).isZero();
+    }
+
+    @Test
+    void recordFailure_Concurrently_ShouldNotLoseCounts() throws Exception {
+        warmUp();
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    tracker.recordFailure("user-1", "10.0.0.1");
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(tracker.countUserFailures("user-1", 1)).isEqualTo((long) threads * perThread);
+    }
+
+    @Test
+    void recordFailure_WhileEvictingIdleKey_ShouldNotLoseCount() throws Exception {
+        warmUp();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 500; round++) {
+                // 每轮开始时该键已空闲，记录与清理并发进行
+                advanceMinutes(11);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> record = executor.submit(() -> {
+                    barrier.await();
+                    tracker.recordFailure("user-1", null);
+                    return null;
+                });
+                Future<?> evict = executor.submit(() -> {
+                    barrier.await();
+                    tracker.evictIdle();
+                    return null;
+                });
+                record.get(5, TimeUnit.SECONDS);
+                evict.get(5, TimeUnit.SECONDS);
+
+                assertThat(tracker.countUserFailures("user-1", 1)).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp() {
+        when(loginLogRepository.findFailedAttemptsBetween(any(), any())).thenReturn(Collections.emptyList());
+        tracker.warmUp();
+    }
+
+    private void advanceMinutes(int minutes) {
+        now.addAndGet(TimeUnit.MINUTES.toMillis(minutes));
+    }
+}
@@ -0,0 +1,150 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.domain.LoginLog;
+import org.linghu.mybackend.repository.LoginLogRepository;
+import org.linghu.mybackend.util.MinioUtil;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoginLogRetentionJob 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LoginLogRetentionJobTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private LoginLogRepository loginLogRepository;
+
+    @Mock
+    private MinioUtil minioUtil;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void purgeOlderThan_ShouldDeleteInChunksUntilExhausted() {
+        LoginLogRetentionJob job = newJob(false, 2);
+        when(loginLogRepository.findIdsByCreatedAtBefore(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        when(loginLogRepository.deleteByIdIn(anyList())).thenAnswer(invocation ->
+                invocation.<List<Long>>getArgument(0).size());
+
+        long deleted = job.purgeOlderThan(CUTOFF);
+
+        assertThat(deleted).isEqualTo(5);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(loginLogRepository, times(3)).findIdsByCreatedAtBefore(eq(CUTOFF), pageable.capture());
+        assertThat(pageable.getValue().getPageNumber()).isZero();
+        assertThat(pageable.getValue().getPageSize()).isEqualTo(2);
+        verify(loginLogRepository).deleteByIdIn(List.of(5L));
+        verify(loginLogRepository, never()).findByCreatedAtBeforeOrderByCreatedAtAsc(any(), any());
+        assertThat(meterRegistry.get("login.log.retention.deleted").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("login.log.retention.last.deleted").gauge().value()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("login.log.retention.chunk").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void purgeOlderThan_ShouldStopAtMaxChunksPerRun() {
+        LoginLogRetentionJob job = new LoginLogRetentionJob(loginLogRepository, minioUtil, meterRegistry,
+                true, 180, 2, 0, 2, false, "", "login-logs/");
+        when(loginLogRepository.findIdsByCreatedAtBefore(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L));
+        when(loginLogRepository.deleteByIdIn(anyList())).thenReturn(2);
+
+        assertThat(job.purgeOlderThan(CUTOFF)).isEqualTo(4);
+        verify(loginLogRepository, times(2)).deleteByIdIn(anyList());
+    }
+
+    @Test
+    void purgeOlderThan_WithArchive_ShouldUploadBeforeDelete() throws Exception {
+        LoginLogRetentionJob job = newJob(true, 10);
+        when(minioUtil.getBucketName()).thenReturn("linghuzhiyan");
+        when(loginLogRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(log(7L, "u1"), log(9L, "u2")));
+        when(loginLogRepository.deleteByIdIn(List.of(7L, 9L))).thenReturn(2);
+
+        assertThat(job.purgeOlderThan(CUTOFF)).isEqualTo(2);
+
+        ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        InOrder inOrder = inOrder(minioUtil, loginLogRepository);
+        inOrder.verify(minioUtil).uploadBytes(eq("linghuzhiyan"), eq("login-logs/2023/06/01/7-9.jsonl"),
+                content.capture(), eq("application/x-ndjson"));
+        inOrder.verify(loginLogRepository).deleteByIdIn(List.of(7L, 9L));
+        String[] lines = new String(content.getValue(), StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"userId\":\"u1\"").contains("\"createdAt\":\"2023-06-01T08:00:00\"");
+        assertThat(meterRegistry.get("login.log.retention.archived").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void purgeOlderThan_WhenArchiveFails_ShouldNotDelete() throws Exception {
+        LoginLogRetentionJob job = newJob(true, 10);
+        when(minioUtil.getBucketName()).thenReturn("linghuzhiyan");
+        when(loginLogRepository.findByCreatedAtBeforeOrderByCreatedAtAsc(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(List.of(log(7L, "u1")));
+        doThrow(new RuntimeException("minio down")).when(minioUtil)
+                .uploadBytes(anyString(), anyString(), any(), anyString());
+
+        assertThat(job.purgeOlderThan(CUTOFF)).isZero();
+
+        verify(loginLogRepository, never()).deleteByIdIn(anyList());
+        assertThat(meterRegistry.get("login.log.retention.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void purgeExpired_WhenDisabled_ShouldDoNothing() {
+        LoginLogRetentionJob job = new LoginLogRetentionJob(loginLogRepository, minioUtil, meterRegistry,
+                false, 180, 10, 0, 10, false, "", "login-logs/");
+
+        job.purgeExpired();
+
+        verifyNoInteractions(loginLogRepository);
+    }
+
+    @Test
+    void purgeOlderThan_WhenNothingExpired_ShouldReturnZero() {
+        LoginLogRetentionJob job = newJob(false, 10);
+        when(loginLogRepository.findIdsByCreatedAtBefore(eq(CUTOFF), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertThat(job.purgeOlderThan(CUTOFF)).isZero();
+        verify(loginLogRepository, never()).deleteByIdIn(anyList());
+    }
+
+    private LoginLogRetentionJob newJob(boolean archive, int chunkSize) {
+        return new LoginLogRetentionJob(loginLogRepository, minioUtil, meterRegistry,
+                true, 180, chunkSize, 0, 100, archive, "", "login-logs/");
+    }
+
+    private LoginLog log(Long id, String userId) {
+        return LoginLog.builder()
+                .id(id)
+                .userId(userId)
+                .ipAddress("127.0.0.1")
+                .status("SUCCESS")
+                .createdAt(LocalDateTime.of(2023, 6, 1, 8, 0))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.domain.LoginLog;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoginLogWriter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LoginLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginLogWriter loginLogWriter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loginLogWriter = new LoginLogWriter(jdbcTemplate, meterRegistry, 3, 2, 50, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        loginLogWriter.shutdown();
+    }
+
+    @Test
+    void flush_ShouldWriteInBatches() {
+        loginLogWriter.submit(log("user-1"));
+        loginLogWriter.submit(log("user-2"));
+        loginLogWriter.submit(log("user-3"));
+
+        int written = loginLogWriter.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO login_logs"), captor.capture());
+        assertThat(written).isEqualTo(3);
+        assertThat(captor.getAllValues().get(0)).hasSize(2);
+        assertThat(captor.getAllValues().get(0).get(0)[0]).isEqualTo("user-1");
+        assertThat(captor.getAllValues().get(0).get(0)[3]).isEqualTo("FAILED");
+        assertThat(meterRegistry.get("login.log.written").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void submit_WhenBufferFull_ShouldDropWithoutBlocking() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(loginLogWriter.submit(log("user-" + i))).isTrue();
+        }
+
+        assertThat(loginLogWriter.submit(log("user-3"))).isFalse();
+        assertThat(loginLogWriter.submit(log("user-4"))).isFalse();
+
+        assertThat(meterRegistry.get("login.log.dropped").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("login.log.buffer.size").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void flush_WhenBatchFails_ShouldCountAndContinue() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new RuntimeException("connection refused"))
+                .thenReturn(new int[]{1});
+        loginLogWriter.submit(log("user-1"));
+        loginLogWriter.submit(log("user-2"));
+        loginLogWriter.submit(log("user-3"));
+
+        loginLogWriter.flush();
+
+        assertThat(meterRegistry.get("login.log.write.failed").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("login.log.written").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void start_ShouldWriteInBackground() {
+        loginLogWriter.start();
+
+        loginLogWriter.submit(log("user-1"));
+
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(), anyList());
+    }
+
+    private LoginLog log(String userId) {
+        return LoginLog.builder()
+                .userId(userId)
+                .ipAddress("127.0.0.1")
+                .deviceType("Desktop")
+                .status("FAILED")
+                .failureReason("JWT令牌已失效")
+                .createdAt(LocalDateTime.now())
+                .loginInfo("{}")
+                .build();
+    }
+}
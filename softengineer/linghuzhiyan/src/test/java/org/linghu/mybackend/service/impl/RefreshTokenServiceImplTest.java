@@ -0,0 +1,172 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.domain.RefreshToken;
+import org.linghu.mybackend.exception.UserException;
+import org.linghu.mybackend.repository.RefreshTokenRepository;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * RefreshTokenServiceImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceImplTest {
+
+    private static final long START = Instant.parse("2024-03-01T00:00:00Z").toEpochMilli();
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private RefreshTokenServiceImpl refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(START);
+        refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, meterRegistry, 14, now::get);
+    }
+
+    @Test
+    void issue_ShouldStoreOnlyHashWithFamilyExpiry() {
+        String token = refreshTokenService.issue("user-1", "alice", 3);
+
+        RefreshToken saved = captureSaved();
+        assertThat(token).hasSize(43);
+        assertThat(saved.getTokenHash()).hasSize(64).isNotEqualTo(token);
+        assertThat(saved.getFamilyId()).isNotBlank();
+        assertThat(saved.getUserId()).isEqualTo("user-1");
+        assertThat(saved.getUsername()).isEqualTo("alice");
+        assertThat(saved.getTokenVersion()).isEqualTo(3);
+        assertThat(saved.getRevoked()).isFalse();
+        assertThat(saved.getExpiresAt()).isEqualTo(at(START).plusDays(14));
+        assertThat(meterRegistry.get("auth.refresh.issued").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void consume_ShouldMarkUsedAndRotateWithinFamily() {
+        String token = refreshTokenService.issue("user-1", "alice", 3);
+        RefreshToken saved = captureSaved();
+        saved.setId(10L);
+        when(refreshTokenRepository.findByTokenHash(saved.getTokenHash())).thenReturn(Optional.of(saved));
+        when(refreshTokenRepository.markUsed(10L)).thenReturn(1);
+
+        RefreshToken consumed = refreshTokenService.consume(token);
+        String rotated = refreshTokenService.rotate(consumed);
+
+        assertThat(rotated).isNotEqualTo(token);
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository, times(2)).save(captor.capture());
+        RefreshToken next = captor.getAllValues().get(1);
+        assertThat(next.getFamilyId()).isEqualTo(saved.getFamilyId());
+        assertThat(next.getExpiresAt()).isEqualTo(saved.getExpiresAt());
+        assertThat(next.getTokenHash()).isNotEqualTo(saved.getTokenHash());
+        assertThat(meterRegistry.get("auth.refresh.rotated").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void consume_WhenAlreadyUsed_ShouldRevokeFamily() {
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenReturn(Optional.of(record(true, at(START).plusDays(1))));
+
+        assertThatThrownBy(() -> refreshTokenService.consume("stolen"))
+                .isInstanceOf(UserException.class);
+
+        verify(refreshTokenRepository).revokeFamily("family-1");
+        verify(refreshTokenRepository, never()).markUsed(anyLong());
+        assertThat(meterRegistry.get("auth.refresh.reused").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void consume_WhenConcurrentlyUsed_ShouldRevokeFamily() {
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenReturn(Optional.of(record(false, at(START).plusDays(1))));
+        when(refreshTokenRepository.markUsed(10L)).thenReturn(0);
+
+        assertThatThrownBy(() -> refreshTokenService.consume("raced"))
+                .isInstanceOf(UserException.class);
+
+        verify(refreshTokenRepository).revokeFamily("family-1");
+    }
+
+    @Test
+    void consume_WhenExpired_ShouldReject() {
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenReturn(Optional.of(record(false, at(START))));
+
+        assertThatThrownBy(() -> refreshTokenService.consume("expired"))
+                .isInstanceOf(UserException.class);
+
+        verify(refreshTokenRepository, never()).markUsed(anyLong());
+        verify(refreshTokenRepository, never()).revokeFamily(anyString());
+    }
+
+    @Test
+    void consume_WhenUnknownOrBlank_ShouldReject() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> refreshTokenService.consume("unknown"))
+                .isInstanceOf(UserException.class);
+        assertThatThrownBy(() -> refreshTokenService.consume(" "))
+                .isInstanceOf(UserException.class);
+        verify(refreshTokenRepository, times(1)).findByTokenHash(anyString());
+    }
+
+    @Test
+    void revoke_ShouldRevokeWholeFamily() {
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenReturn(Optional.of(record(false, at(START).plusDays(1))));
+
+        refreshTokenService.revoke("token");
+
+        verify(refreshTokenRepository).revokeFamily("family-1");
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteBeforeNow() {
+        refreshTokenService.purgeExpired();
+
+        verify(refreshTokenRepository).deleteByExpiresAtBefore(at(START));
+    }
+
+    private RefreshToken captureSaved() {
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    private RefreshToken record(boolean revoked, LocalDateTime expiresAt) {
+        return RefreshToken.builder()
+                .id(10L)
+                .tokenHash("hash")
+                .familyId("family-1")
+                .userId("user-1")
+                .username("alice")
+                .tokenVersion(3)
+                .revoked(revoked)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -1,31 +1,45 @@
 package org.linghu.mybackend.service.impl;
 
+import io.minio.StatObjectResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.linghu.mybackend.domain.Resource;
 import org.linghu.mybackend.domain.Experiment;
+import org.linghu.mybackend.dto.ExtractedFileDTO;
+import org.linghu.mybackend.dto.PresignedUploadCompleteDTO;
+import org.linghu.mybackend.dto.PresignedUploadDTO;
+import org.linghu.mybackend.dto.PresignedUploadRequestDTO;
 import org.linghu.mybackend.dto.ResourceDTO;
+import org.linghu.mybackend.dto.ResourceDownloadDTO;
 import org.linghu.mybackend.dto.ResourceRequestDTO;
+import org.linghu.mybackend.exception.BusinessException;
 import org.linghu.mybackend.repository.ResourceRepository;
 import org.linghu.mybackend.repository.ExperimentRepository;
+import org.linghu.mybackend.service.JudgeFileCacheService;
 import org.linghu.mybackend.util.MinioUtil;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +49,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ResourceServiceImplTest {
 
+    private static final ZonedDateTime STAT_LAST_MODIFIED =
+            ZonedDateTime.of(2024, 3, 1, 8, 0, 0, 0, ZoneOffset.UTC);
+
     @Mock
     private ResourceRepository resourceRepository;
 
@@ -44,6 +61,9 @@ class ResourceServiceImplTest {
     @Mock
     private MinioUtil minioUtil;
 
+    @Mock
+    private JudgeFileCacheService judgeFileCacheService;
+
     @InjectMocks
     private ResourceServiceImpl resourceService;
 
@@ -125,7 +145,7 @@ class ResourceServiceImplTest {
         assertThat(result.getExperimentId()).isEqualTo("exp-001");
         
         verify(experimentRepository).findById("exp-001");
-        verify(minioUtil).ensureBucketExists();
+        verify(minioUtil, never()).ensureBucketExists();
         verify(minioUtil).uploadExperimentResource(
                 eq("exp-001"), 
                 eq("test.pdf"), 
@@ -136,6 +156,43 @@ class ResourceServiceImplTest {
         verify(resourceRepository).save(any(Resource.class));
     }
 
+    @Test
+    void uploadResource_AutoExtract_ShouldBatchInsertExtractedFilesWithActualSizes() throws Exception {
+        // Given
+        MultipartFile archive = new MockMultipartFile("file", "lab.zip", "application/zip", "zip".getBytes());
+        ResourceRequestDTO request = ResourceRequestDTO.builder()
+                .experimentId("exp-001")
+                .taskId("task-001")
+                .uploadType("experiment")
+                .autoExtract(true)
+                .build();
+        when(experimentRepository.findById("exp-001")).thenReturn(Optional.of(mockExperiment));
+        when(minioUtil.isCompressedFile("lab.zip")).thenReturn(true);
+        when(minioUtil.extractAndUploadCompressedFile(eq("exp-001"), eq("task-001"), any(), eq("lab.zip"),
+                eq("application/zip")))
+                .thenReturn(List.of(
+                        ExtractedFileDTO.builder().objectName("exp-001/experiment/task-001/Main.java").fileSize(300L).build(),
+                        ExtractedFileDTO.builder().objectName("exp-001/experiment/task-001/data/in.txt").fileSize(4096L).build(),
+                        ExtractedFileDTO.builder().objectName("exp-001/experiment/task-001/original/lab.zip").fileSize(3L).build()));
+        when(resourceRepository.save(any(Resource.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ResourceDTO result = resourceService.uploadResource(archive, request);
+
+        // Then
+        assertThat(result.getResourcePath()).isEqualTo("exp-001/experiment/task-001/Main.java");
+        verify(resourceRepository, times(1)).save(any(Resource.class));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Resource>> captor = ArgumentCaptor.forClass(List.class);
+        verify(resourceRepository).insertAll(captor.capture());
+        assertThat(captor.getValue())
+                .extracting(Resource::getFileName, Resource::getFileSize)
+                .containsExactly(
+                        tuple("in.txt", 4096L),
+                        tuple("lab.zip", 3L));
+        verify(judgeFileCacheService).invalidate("exp-001", "task-001");
+    }
+
     @Test
     void uploadResource_ShouldThrowException_WhenFileIsEmpty() {
         // Given
@@ -243,6 +300,7 @@ class ResourceServiceImplTest {
         // Then
         verify(resourceRepository).findById("test-resource-1");
         verify(minioUtil).deleteFile("/path/to/test.pdf");
+        verify(judgeFileCacheService).invalidateByObjectName("/path/to/test.pdf");
         verify(resourceRepository).delete(mockResource);
     }
 
@@ -418,6 +476,108 @@ class ResourceServiceImplTest {
         verify(minioUtil).downloadFile("/path/to/test.pdf");
     }
 
+    @Test
+    void downloadResourceWithHeaders_NoConditions_ShouldStreamWholeObject() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        InputStreamResource fileResource = new InputStreamResource(new ByteArrayInputStream(new byte[1000]));
+        when(minioUtil.downloadFile("/path/to/test.pdf", 0L, 1000L, "abc123")).thenReturn(fileResource);
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", new HttpHeaders());
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.FULL);
+        assertThat(result.getEtag()).isEqualTo("\"abc123\"");
+        assertThat(result.getLastModified()).isEqualTo(STAT_LAST_MODIFIED.toInstant());
+        assertThat(result.getContentLength()).isEqualTo(1000L);
+        assertThat(result.getBody()).isSameAs(fileResource);
+    }
+
+    @Test
+    void downloadResourceWithHeaders_Range_ShouldFetchOnlyRequestedBytes() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        InputStreamResource fileResource = new InputStreamResource(new ByteArrayInputStream(new byte[100]));
+        when(minioUtil.downloadFile("/path/to/test.pdf", 900L, 100L, "abc123")).thenReturn(fileResource);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=900-");
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", headers);
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.PARTIAL);
+        assertThat(result.getRangeStart()).isEqualTo(900L);
+        assertThat(result.getContentLength()).isEqualTo(100L);
+        assertThat(result.getTotalSize()).isEqualTo(1000L);
+    }
+
+    @Test
+    void downloadResourceWithHeaders_StaleIfRange_ShouldIgnoreRange() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        when(minioUtil.downloadFile("/path/to/test.pdf", 0L, 1000L, "abc123"))
+                .thenReturn(new InputStreamResource(new ByteArrayInputStream(new byte[1000])));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=0-99");
+        headers.set(HttpHeaders.IF_RANGE, "\"old-etag\"");
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", headers);
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.FULL);
+        assertThat(result.getContentLength()).isEqualTo(1000L);
+    }
+
+    @Test
+    void downloadResourceWithHeaders_RangeBeyondEnd_ShouldBeNotSatisfiable() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=1000-");
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", headers);
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.RANGE_NOT_SATISFIABLE);
+        assertThat(result.getBody()).isNull();
+        verify(minioUtil, never()).downloadFile(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void downloadResourceWithHeaders_MatchingETag_ShouldBeNotModified() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(List.of("\"other\"", "W/\"abc123\""));
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", headers);
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.NOT_MODIFIED);
+        verify(minioUtil, never()).downloadFile(anyString(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void downloadResourceWithHeaders_NotModifiedSince_ShouldBeNotModified() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        StatObjectResponse stat = mockStat(1000L);
+        when(minioUtil.getFileMetadata("/path/to/test.pdf")).thenReturn(stat);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfModifiedSince(STAT_LAST_MODIFIED);
+
+        ResourceDownloadDTO result = resourceService.downloadResource("test-resource-1", headers);
+
+        assertThat(result.getStatus()).isEqualTo(ResourceDownloadDTO.Status.NOT_MODIFIED);
+    }
+
+    private StatObjectResponse mockStat(long size) {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.etag()).thenReturn("abc123");
+        when(stat.lastModified()).thenReturn(STAT_LAST_MODIFIED.plusNanos(250_000_000));
+        when(stat.size()).thenReturn(size);
+        return stat;
+    }
+
     // ==================== generatePreviewUrl 测试 ====================
 
     @Test
@@ -470,7 +630,7 @@ class ResourceServiceImplTest {
         assertThat(result.getFileName()).isEqualTo("test.pdf");
 
         verify(experimentRepository).findById("exp-001");
-        verify(minioUtil).ensureBucketExists();
+        verify(minioUtil, never()).ensureBucketExists();
         verify(minioUtil).uploadStudentSubmission(eq("student1"), eq("exp-001"), eq("task1"), 
                 eq("test.pdf"), any(), eq(12L), eq("application/pdf"));
         verify(resourceRepository).save(any(Resource.class));
@@ -505,4 +665,130 @@ class ResourceServiceImplTest {
         verify(experimentRepository).findById("exp-001");
         verify(resourceRepository, never()).save(any(Resource.class));
     }
+
+    // ==================== 预签名直传 测试 ====================
+
+    @Test
+    void createPresignedUpload_Success() throws Exception {
+        PresignedUploadRequestDTO request = PresignedUploadRequestDTO.builder()
+                .experimentId("exp-001")
+                .fileName("../docs/test.pdf")
+                .contentType("application/pdf")
+                .fileSize(2048L)
+                .build();
+        when(experimentRepository.findById("exp-001")).thenReturn(Optional.of(mockExperiment));
+        when(minioUtil.newExperimentResourcePath("exp-001", "test.pdf", "resource"))
+                .thenReturn("exp-001/resource/abc_test.pdf");
+        when(minioUtil.presignUploadForm("exp-001/resource/abc_test.pdf", "application/pdf", 2048L, 600))
+                .thenReturn(Map.of("policy", "p", "x-amz-signature", "s"));
+        when(minioUtil.getUploadFormUrl("exp-001/resource/abc_test.pdf"))
+                .thenReturn("http://minio:9000/resource");
+
+        PresignedUploadDTO result = resourceService.createPresignedUpload(request);
+
+        assertThat(result.getUploadUrl()).isEqualTo("http://minio:9000/resource");
+        assertThat(result.getObjectName()).isEqualTo("exp-001/resource/abc_test.pdf");
+        assertThat(result.getMaxBytes()).isEqualTo(2048L);
+        assertThat(result.getExpiresIn()).isEqualTo(600L);
+        assertThat(result.getFormData()).containsEntry("policy", "p");
+        verify(resourceRepository, never()).save(any(Resource.class));
+    }
+
+    @Test
+    void createPresignedUpload_OversizedFile_ShouldRejectBeforeSigning() throws Exception {
+        PresignedUploadRequestDTO request = PresignedUploadRequestDTO.builder()
+                .experimentId("exp-001")
+                .fileName("big.zip")
+                .fileSize(3L * 1024 * 1024 * 1024)
+                .build();
+
+        assertThatThrownBy(() -> resourceService.createPresignedUpload(request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("文件大小超过上限");
+
+        verify(minioUtil, never()).presignUploadForm(anyString(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void completePresignedUpload_ShouldRecordActualObjectSize() throws Exception {
+        PresignedUploadCompleteDTO request = PresignedUploadCompleteDTO.builder()
+                .experimentId("exp-001")
+                .taskId("task-001")
+                .objectName("exp-001/experiment/abc_test.pdf")
+                .fileName("test.pdf")
+                .description("测试文档")
+                .build();
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn(4096L);
+        when(stat.contentType()).thenReturn("application/pdf");
+        when(resourceRepository.findByResourcePath(request.getObjectName())).thenReturn(List.of());
+        when(experimentRepository.findById("exp-001")).thenReturn(Optional.of(mockExperiment));
+        when(minioUtil.getFileMetadata(request.getObjectName())).thenReturn(stat);
+        when(resourceRepository.save(any(Resource.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ResourceDTO result = resourceService.completePresignedUpload(request);
+
+        ArgumentCaptor<Resource> captor = ArgumentCaptor.forClass(Resource.class);
+        verify(resourceRepository).save(captor.capture());
+        assertThat(captor.getValue().getFileSize()).isEqualTo(4096L);
+        assertThat(captor.getValue().getMimeType()).isEqualTo("application/pdf");
+        assertThat(result.getResourcePath()).isEqualTo("exp-001/experiment/abc_test.pdf");
+        verify(judgeFileCacheService).invalidate("exp-001", "task-001");
+    }
+
+    @Test
+    void completePresignedUpload_AlreadyRecorded_ShouldBeIdempotent() throws Exception {
+        mockResource.setResourcePath("exp-001/resource/abc_test.pdf");
+        PresignedUploadCompleteDTO request = PresignedUploadCompleteDTO.builder()
+                .experimentId("exp-001")
+                .objectName("exp-001/resource/abc_test.pdf")
+                .build();
+        when(resourceRepository.findByResourcePath(request.getObjectName())).thenReturn(List.of(mockResource));
+
+        ResourceDTO result = resourceService.completePresignedUpload(request);
+
+        assertThat(result.getId()).isEqualTo("test-resource-1");
+        verify(minioUtil, never()).getFileMetadata(anyString());
+        verify(resourceRepository, never()).save(any(Resource.class));
+    }
+
+    @Test
+    void completePresignedUpload_ObjectOutsideExperiment_ShouldThrowException() {
+        PresignedUploadCompleteDTO request = PresignedUploadCompleteDTO.builder()
+                .experimentId("exp-001")
+                .objectName("exp-002/resource/abc_test.pdf")
+                .build();
+
+        assertThatThrownBy(() -> resourceService.completePresignedUpload(request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("无效的对象路径");
+
+        verify(resourceRepository, never()).save(any(Resource.class));
+    }
+
+    @Test
+    void completePresignedUpload_ObjectMissing_ShouldThrowException() throws Exception {
+        PresignedUploadCompleteDTO request = PresignedUploadCompleteDTO.builder()
+                .experimentId("exp-001")
+                .objectName("exp-001/resource/abc_test.pdf")
+                .build();
+        when(resourceRepository.findByResourcePath(request.getObjectName())).thenReturn(List.of());
+        when(experimentRepository.findById("exp-001")).thenReturn(Optional.of(mockExperiment));
+        when(minioUtil.getFileMetadata(request.getObjectName())).thenThrow(new RuntimeException("NoSuchKey"));
+
+        assertThatThrownBy(() -> resourceService.completePresignedUpload(request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("文件尚未上传完成或不存在");
+    }
+
+    @Test
+    void createDownloadUrl_ShouldPresignWithOriginalFileName() throws Exception {
+        when(resourceRepository.findById("test-resource-1")).thenReturn(Optional.of(mockResource));
+        when(minioUtil.presignDownloadUrl("/path/to/test.pdf", "test.pdf", "application/pdf", 600))
+                .thenReturn("http://minio:9000/resource/test.pdf?X-Amz-Signature=s");
+
+        String url = resourceService.createDownloadUrl("test-resource-1");
+
+        assertThat(url).contains("X-Amz-Signature");
+    }
 }
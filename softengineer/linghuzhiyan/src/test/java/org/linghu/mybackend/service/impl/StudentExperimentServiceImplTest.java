@@ -7,6 +7,9 @@ import org.linghu.mybackend.constants.TaskType;
 import org.linghu.mybackend.domain.*;
 import org.linghu.mybackend.dto.*;
 import org.linghu.mybackend.repository.*;
+import org.linghu.mybackend.service.JudgeQueueService;
+import org.linghu.mybackend.util.MinioUtil;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,6 +19,10 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,6 +50,14 @@ class StudentExperimentServiceImplTest {
     @Mock
     private QuestionRepository questionRepository;
 
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MinioUtil minioUtil;
+
+    @Mock
+    private JudgeQueueService judgeQueueService;
 
     @InjectMocks
     private StudentExperimentServiceImpl studentExperimentService;
@@ -326,4 +341,73 @@ class StudentExperimentServiceImplTest {
         assertFalse(result.isPresent());
         verify(experimentRepository).findById("");
     }
+
+    @Test
+    void submitTask_WithSameContentAsPreviousSubmission_ShouldReuseUploadedFiles() throws Exception {
+        SubmissionRequestDTO request = codeSubmission("int main(){}");
+        String contentHash = MinioUtil.computeContentHash(request.getFiles());
+        ExperimentSubmission previous = ExperimentSubmission.builder()
+                .id("sub0")
+                .userAnswer("{\"paths\":[\"user1/experiment1/task1/t0/root/main.c\"]}")
+                .contentHash(contentHash)
+                .build();
+        stubCodeSubmission();
+        when(submissionRepository.findFirstByTaskIdAndUserIdAndContentHashOrderBySubmitTimeDesc("task1", "user1",
+                contentHash)).thenReturn(Optional.of(previous));
+        when(minioUtil.isFileExists("user1/experiment1/task1/t0/root/main.c")).thenReturn(true);
+
+        studentExperimentService.submitTask(request, "student");
+
+        ArgumentCaptor<ExperimentSubmission> saved = ArgumentCaptor.forClass(ExperimentSubmission.class);
+        verify(submissionRepository).save(saved.capture());
+        assertEquals(contentHash, saved.getValue().getContentHash());
+        assertTrue(saved.getValue().getUserAnswer().contains("user1/experiment1/task1/t0/root/main.c"));
+        verify(minioUtil, never()).uploadStudentCodeSubmission(anyString(), any());
+    }
+
+    @Test
+    void submitTask_WithNewContent_ShouldUploadFiles() throws Exception {
+        SubmissionRequestDTO request = codeSubmission("int main(){return 1;}");
+        stubCodeSubmission();
+        when(submissionRepository.findFirstByTaskIdAndUserIdAndContentHashOrderBySubmitTimeDesc(eq("task1"),
+                eq("user1"), anyString())).thenReturn(Optional.empty());
+        when(minioUtil.uploadStudentCodeSubmission("user1", request))
+                .thenReturn(List.of("user1/experiment1/task1/t1/root/main.c"));
+
+        studentExperimentService.submitTask(request, "student");
+
+        ArgumentCaptor<ExperimentSubmission> saved = ArgumentCaptor.forClass(ExperimentSubmission.class);
+        verify(submissionRepository).save(saved.capture());
+        assertEquals(MinioUtil.computeContentHash(request.getFiles()), saved.getValue().getContentHash());
+        assertTrue(saved.getValue().getUserAnswer().contains("t1/root/main.c"));
+    }
+
+    @Test
+    void computeContentHash_ShouldIgnoreFileOrder() {
+        SourceCodeFileDTO a = SourceCodeFileDTO.builder().fileName("root/a.c").content("a").build();
+        SourceCodeFileDTO b = SourceCodeFileDTO.builder().fileName("root/b.c").content("b").build();
+        SourceCodeFileDTO changed = SourceCodeFileDTO.builder().fileName("root/b.c").content("c").build();
+
+        assertEquals(MinioUtil.computeContentHash(List.of(a, b)), MinioUtil.computeContentHash(List.of(b, a)));
+        assertNotEquals(MinioUtil.computeContentHash(List.of(a, b)), MinioUtil.computeContentHash(List.of(a, changed)));
+    }
+
+    private SubmissionRequestDTO codeSubmission(String content) {
+        return SubmissionRequestDTO.builder()
+                .experimentId("experiment1")
+                .taskId("task1")
+                .files(List.of(SourceCodeFileDTO.builder().fileName("root/main.c").content(content).build()))
+                .build();
+    }
+
+    private void stubCodeSubmission() {
+        User user = new User();
+        user.setId("user1");
+        user.setUsername("student");
+        when(userRepository.findByUsername("student")).thenReturn(Optional.of(user));
+        when(experimentTaskRepository.findById("task1")).thenReturn(Optional.of(testTask));
+        when(submissionRepository.save(any(ExperimentSubmission.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(judgeQueueService.enqueue(any(ExperimentSubmission.class)))
+                .thenReturn(JudgeJobDTO.builder().id("job1").build());
+    }
 }
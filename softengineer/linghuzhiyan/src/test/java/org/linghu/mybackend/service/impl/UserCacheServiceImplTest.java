@@ -0,0 +1,147 @@
+package org.linghu.mybackend.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.domain.User;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * UserCacheServiceImpl 单元测试
+ */
+class UserCacheServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserCacheServiceImpl userCacheService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCacheService = new UserCacheServiceImpl(meterRegistry, 300, 100);
+
+        user = new User();
+        user.setId("user-1");
+        user.setUsername("student");
+        user.setEmail("student@example.com");
+    }
+
+    @Test
+    void getUserById_ShouldLoadOnceAndRecordHits() {
+        AtomicInteger loads = new AtomicInteger();
+
+        userCacheService.getUserById("user-1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(user);
+        });
+        Optional<User> cached = userCacheService.getUserById("user-1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(user);
+        });
+
+        assertThat(cached).map(User::getUsername).contains("student");
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users.byId").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users.byId").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getUserById_ShouldReturnIsolatedCopies() {
+        User first = userCacheService.getUserById("user-1", id -> Optional.of(user)).orElseThrow();
+        first.setEmail("changed@example.com");
+        user.setEmail("changed-source@example.com");
+
+        User second = userCacheService.getUserById("user-1", id -> Optional.of(user)).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getEmail()).isEqualTo("student@example.com");
+    }
+
+    @Test
+    void getUserByUsername_WithMissingUser_ShouldNotCacheMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        userCacheService.getUserByUsername("nobody", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        Optional<User> result = userCacheService.getUserByUsername("nobody", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        assertThat(result).isEmpty();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void evictUser_ShouldDropEntriesUnderOldUsername() {
+        userCacheService.getUserByUsername("student", name -> Optional.of(user));
+        userCacheService.getUserById("user-1", id -> Optional.of(user));
+
+        userCacheService.evictUser("user-1");
+
+        AtomicInteger loads = new AtomicInteger();
+        userCacheService.getUserByUsername("student", name -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        userCacheService.getUserById("user-1", id -> {
+            loads.incrementAndGet();
+            return Optional.of(user);
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void getRoleIds_ShouldCacheUntilEvicted() {
+        Set<String> roles = new HashSet<>(Set.of("ROLE_STUDENT"));
+        AtomicInteger loads = new AtomicInteger();
+
+        Set<String> first = userCacheService.getRoleIds("user-1", id -> {
+            loads.incrementAndGet();
+            return roles;
+        });
+        userCacheService.getRoleIds("user-1", id -> {
+            loads.incrementAndGet();
+            return roles;
+        });
+        assertThat(loads).hasValue(1);
+        assertThatThrownBy(() -> first.add("ROLE_ADMIN")).isInstanceOf(UnsupportedOperationException.class);
+
+        userCacheService.evictRoles("user-1");
+        userCacheService.getRoleIds("user-1", id -> {
+            loads.incrementAndGet();
+            return roles;
+        });
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void getRoleIdsInBulk_ShouldLoadOnlyMissingUsers() {
+        userCacheService.getRoleIds("user-1", id -> Set.of("ROLE_ADMIN"));
+        List<Set<String>> requested = new ArrayList<>();
+
+        Map<String, Set<String>> roles = userCacheService.getRoleIds(List.of("user-1", "user-2", "user-3"), missing -> {
+            requested.add(missing);
+            return Map.of("user-2", Set.of("ROLE_STUDENT"), "user-3", Set.of());
+        });
+
+        assertThat(requested).containsExactly(Set.of("user-2", "user-3"));
+        assertThat(roles).containsOnlyKeys("user-1", "user-2", "user-3");
+        assertThat(roles.get("user-1")).containsExactly("ROLE_ADMIN");
+        assertThat(userCacheService.getRoleIds("user-3", id -> Set.of("ROLE_TEACHER"))).isEmpty();
+    }
+}
@@ -1,15 +1,27 @@
 package org.linghu.mybackend.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.linghu.mybackend.constants.SystemConstants;
+import org.linghu.mybackend.domain.RefreshToken;
 import org.linghu.mybackend.domain.User;
+import org.linghu.mybackend.dto.CursorPageResult;
+import org.linghu.mybackend.dto.LoginRequestDTO;
+import org.linghu.mybackend.dto.LoginResponseDTO;
 import org.linghu.mybackend.dto.UserDTO;
 import org.linghu.mybackend.dto.UserRegistrationDTO;
 import org.linghu.mybackend.dto.ProfileUpdateDTO;
+import org.linghu.mybackend.exception.BusinessException;
 import org.linghu.mybackend.exception.UserException;
 import org.linghu.mybackend.repository.UserRepository;
+import org.linghu.mybackend.security.BoundedPasswordEncoder;
+import org.linghu.mybackend.security.JwtTokenUtil;
+import org.linghu.mybackend.security.TokenVersionCache;
+import org.linghu.mybackend.service.LoginLogService;
+import org.linghu.mybackend.service.RefreshTokenService;
+import org.linghu.mybackend.service.UserCacheService;
 import org.linghu.mybackend.service.impl.UserServiceImpl;
 import org.linghu.mybackend.util.MinioUtil;
 import org.linghu.mybackend.repository.UserRoleRepository;
@@ -17,16 +29,24 @@ import org.linghu.mybackend.domain.UserRoleRelation;
 import org.linghu.mybackend.domain.UserRoleId;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,6 +71,24 @@ class UserServiceImplTest {
     @Mock
     private UserRoleRepository userRoleRepository;
 
+    @Mock
+    private TokenVersionCache tokenVersionCache;
+
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private LoginLogService loginLogService;
+
+    @Spy
+    private UserCacheService userCacheService = new UserCacheServiceImpl(new SimpleMeterRegistry(), 300, 1000);
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -130,6 +168,90 @@ class UserServiceImplTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+    // ===== 刷新令牌测试 =====
+    @Test
+    void refreshToken_Success_ShouldRotateWithoutLoadingUser() {
+        // Given
+        ReflectionTestUtils.setField(userService, "tokenHead", "Bearer");
+        ReflectionTestUtils.setField(userService, "expiration", 900000L);
+        RefreshToken record = refreshRecord();
+        when(refreshTokenService.consume("old-refresh")).thenReturn(record);
+        when(tokenVersionCache.isCurrent("user-123", 2)).thenReturn(true);
+        when(userRoleRepository.findByIdUserId("user-123")).thenReturn(List.of(
+                new UserRoleRelation(new UserRoleId("user-123", SystemConstants.ROLE_STUDENT), new Date())));
+        when(jwtTokenUtil.generateToken("testuser", "user-123", Set.of(SystemConstants.ROLE_STUDENT), 2))
+                .thenReturn("new-access");
+        when(refreshTokenService.rotate(record)).thenReturn("new-refresh");
+
+        // When
+        LoginResponseDTO result = userService.refreshToken("old-refresh");
+
+        // Then
+        assertEquals("new-access", result.getToken());
+        assertEquals("new-refresh", result.getRefreshToken());
+        assertEquals(900, result.getExpiresIn());
+        assertNull(result.getUser());
+        verifyNoInteractions(userRepository, passwordEncoder);
+    }
+
+    @Test
+    void login_WithOutdatedHash_ShouldUpgradeInBackgroundWithoutBlockingLogin() {
+        // Given
+        BoundedPasswordEncoder boundedEncoder = mock(BoundedPasswordEncoder.class);
+        ReflectionTestUtils.setField(userService, "passwordEncoder", boundedEncoder);
+        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername("testuser")
+                .password("encoded-password")
+                .authorities(Collections.emptyList())
+                .build();
+        when(authenticationManager.authenticate(any())).thenReturn(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(boundedEncoder.tryUpgrade(eq("secret"), eq("encoded-password"), any())).thenAnswer(invocation -> {
+            Consumer<String> onEncoded = invocation.getArgument(2);
+            onEncoded.accept("rehashed-password");
+            return true;
+        });
+        when(userRepository.upgradePassword("user-123", "encoded-password", "rehashed-password")).thenReturn(1);
+
+        // When
+        LoginResponseDTO result = userService.login(LoginRequestDTO.builder()
+                .username("testuser")
+                .password("secret")
+                .build());
+
+        // Then
+        assertNotNull(result);
+        // 只按旧哈希条件替换，不整行保存用户
+        verify(userRepository).upgradePassword("user-123", "encoded-password", "rehashed-password");
+        verify(userRepository, never()).save(any(User.class));
+        verify(userCacheService).evictUser("user-123");
+    }
+
+    @Test
+    void refreshToken_Failure_TokenVersionChanged() {
+        // Given
+        RefreshToken record = refreshRecord();
+        when(refreshTokenService.consume("old-refresh")).thenReturn(record);
+        when(tokenVersionCache.isCurrent("user-123", 2)).thenReturn(false);
+
+        // When & Then
+        UserException exception = assertThrows(UserException.class,
+                () -> userService.refreshToken("old-refresh"));
+        assertEquals(UserException.INVALID_REFRESH_TOKEN, exception.getCode());
+        verify(refreshTokenService).revokeFamily("family-1");
+        verify(refreshTokenService, never()).rotate(any());
+        verifyNoInteractions(jwtTokenUtil);
+    }
+
+    @Test
+    void logout_ShouldRevokeRefreshToken() {
+        // When
+        userService.logout("old-refresh");
+
+        // Then
+        verify(refreshTokenService).revoke("old-refresh");
+    }
+
     // ===== 删除用户测试 =====
     @Test
     void deleteUser_Success() {
@@ -221,7 +343,6 @@ class UserServiceImplTest {
     void changePassword_Success() {
         // Given
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("oldpass", "encoded-password")).thenReturn(true);
         when(passwordEncoder.encode("newpass")).thenReturn("new-encoded-password");
 
@@ -233,10 +354,94 @@ class UserServiceImplTest {
     }
 
     @Test
-    void changePassword_Failure_WrongOldPassword() {
+    void changePassword_ShouldRevokeIssuedTokens() {
         // Given
+        testUser.setTokenVersion(3);
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("oldpass", "encoded-password")).thenReturn(true);
+        when(passwordEncoder.encode("newpass")).thenReturn("new-encoded-password");
+
+        // When
+        userService.changePassword("testuser", "oldpass", "newpass");
+
+        // Then
+        verify(userRepository).save(argThat(user -> user.getTokenVersion() == 4));
+        verify(tokenVersionCache).evict("user-123");
+    }
+
+    @Test
+    void changePassword_ShouldNotWriteBackStaleCachedUser() {
+        // Given: 缓存中是令牌版本号为3的旧副本，其他实例已把版本号更新为5
+        testUser.setTokenVersion(3);
+        User current = new User();
+        BeanUtils.copyProperties(testUser, current);
+        current.setTokenVersion(5);
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser), Optional.of(current));
+        userService.findByUsername("testuser");
+        when(passwordEncoder.matches("oldpass", "encoded-password")).thenReturn(true);
+        when(passwordEncoder.encode("newpass")).thenReturn("new-encoded-password");
+
+        // When
+        userService.changePassword("testuser", "oldpass", "newpass");
+
+        // Then
+        verify(userRepository).save(argThat(user -> user.getTokenVersion() == 6));
+    }
+
+    @Test
+    void assignRoleToUser_ShouldRevokeIssuedTokens() {
+        // Given
+        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
+        when(userRoleRepository.existsById(new UserRoleId("user-123", SystemConstants.ROLE_TEACHER))).thenReturn(false);
+
+        // When
+        User result = userService.assignRoleToUser("user-123", SystemConstants.ROLE_TEACHER);
+
+        // Then
+        assertEquals(1, result.getTokenVersion());
+        verify(tokenVersionCache).evict("user-123");
+    }
+
+    @Test
+    void getUserRoleIds_ShouldBeCachedUntilRolesChange() {
+        // Given
+        when(userRoleRepository.findByIdUserId("user-123"))
+                .thenReturn(List.of(new UserRoleRelation("user-123", SystemConstants.ROLE_STUDENT)))
+                .thenReturn(List.of(new UserRoleRelation("user-123", SystemConstants.ROLE_STUDENT),
+                        new UserRoleRelation("user-123", SystemConstants.ROLE_TEACHER)));
         when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
+
+        // When
+        userService.getUserRoleIds("user-123");
+        Set<String> cached = userService.getUserRoleIds("user-123");
+        userService.assignRoleToUser("user-123", SystemConstants.ROLE_TEACHER);
+        Set<String> reloaded = userService.getUserRoleIds("user-123");
+
+        // Then
+        assertEquals(Set.of(SystemConstants.ROLE_STUDENT), cached);
+        assertEquals(Set.of(SystemConstants.ROLE_STUDENT, SystemConstants.ROLE_TEACHER), reloaded);
+        verify(userRoleRepository, times(2)).findByIdUserId("user-123");
+    }
+
+    @Test
+    void removeRoleFromUser_WithoutRole_ShouldKeepIssuedTokens() {
+        // Given
+        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
+        when(userRoleRepository.findById(new UserRoleId("user-123", SystemConstants.ROLE_TEACHER)))
+                .thenReturn(Optional.empty());
+
+        // When
+        User result = userService.removeRoleFromUser("user-123", SystemConstants.ROLE_TEACHER);
+
+        // Then
+        assertEquals(0, result.getTokenVersion());
+        verify(tokenVersionCache, never()).evict(anyString());
+    }
+
+    @Test
+    void changePassword_Failure_WrongOldPassword() {
+        // Given
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches("wrongpass", "encoded-password")).thenReturn(false);
 
         // When & Then
@@ -260,7 +465,7 @@ class UserServiceImplTest {
         List<User> users = Arrays.asList(testUser);
         Page<User> userPage = new PageImpl<>(users);
         when(userRepository.findByIsDeletedFalse(any(Pageable.class))).thenReturn(userPage);
-        when(userRoleRepository.findByIdUserId("user-123")).thenReturn(new ArrayList<>());
+        when(userRoleRepository.findByIdUserIdIn(anyCollection())).thenReturn(new ArrayList<>());
 
         // When
         Page<UserDTO> result = userService.listUsers(1, 10);
@@ -269,6 +474,71 @@ class UserServiceImplTest {
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals("testuser", result.getContent().get(0).getUsername());
+        assertNotNull(result.getContent().get(0).getProfile());
+    }
+
+    @Test
+    void listUsers_ShouldLoadRolesForWholePageOnce() {
+        // Given
+        User otherUser = new User();
+        otherUser.setId("user-456");
+        otherUser.setUsername("otheruser");
+        otherUser.setProfile("{\"nickname\":\"other\"}");
+        otherUser.setCreatedAt(new Date());
+        otherUser.setUpdatedAt(new Date());
+        when(userRepository.findByIsDeletedFalse(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(testUser, otherUser)));
+        when(userRoleRepository.findByIdUserIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new UserRoleRelation("user-123", SystemConstants.ROLE_STUDENT),
+                new UserRoleRelation("user-456", SystemConstants.ROLE_TEACHER),
+                new UserRoleRelation("user-456", SystemConstants.ROLE_ASSISTANT)));
+
+        // When
+        Page<UserDTO> result = userService.listUsers(1, 10, false);
+        userService.listUsers(1, 10, false);
+
+        // Then
+        assertEquals(Set.of(SystemConstants.ROLE_STUDENT), result.getContent().get(0).getRoles());
+        assertEquals(Set.of(SystemConstants.ROLE_TEACHER, SystemConstants.ROLE_ASSISTANT),
+                result.getContent().get(1).getRoles());
+        assertNull(result.getContent().get(1).getProfile());
+        assertNotNull(result.getContent().get(1).getCreatedAt());
+        // 第二次查询命中角色缓存
+        verify(userRoleRepository, times(1)).findByIdUserIdIn(anyCollection());
+        verify(userRoleRepository, never()).findByIdUserId(anyString());
+    }
+
+    @Test
+    void listUsersByCursor_ShouldReturnNextCursorAndSkipCount() {
+        // Given
+        User olderUser = new User();
+        olderUser.setId("user-100");
+        olderUser.setUsername("older");
+        olderUser.setProfile("{}");
+        olderUser.setCreatedAt(new Date(testUser.getCreatedAt().getTime() - 1000));
+        olderUser.setUpdatedAt(new Date());
+        when(userRepository.findByIsDeletedFalseOrderByCreatedAtDescIdDesc(PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(testUser, olderUser));
+        when(userRepository.findActiveUsersAfterCursor(new Timestamp(testUser.getCreatedAt().getTime()), "user-123",
+                PageRequest.of(0, 2))).thenReturn(Arrays.asList(olderUser));
+        when(userRoleRepository.findByIdUserIdIn(anyCollection())).thenReturn(new ArrayList<>());
+
+        // When
+        CursorPageResult<UserDTO> first = userService.listUsersByCursor(null, 1, false, false);
+        CursorPageResult<UserDTO> second = userService.listUsersByCursor(first.getNextCursor(), 1, false, false);
+
+        // Then
+        assertEquals("testuser", first.getList().get(0).getUsername());
+        assertTrue(first.isHasMore());
+        assertNull(first.getTotal());
+        assertEquals("older", second.getList().get(0).getUsername());
+        assertFalse(second.isHasMore());
+        verify(userRepository, never()).countByIsDeletedFalse();
+    }
+
+    @Test
+    void listUsersByCursor_WithInvalidCursor_ShouldThrow() {
+        assertThrows(BusinessException.class, () -> userService.listUsersByCursor("not a cursor", 10, true, false));
     }
 
     // ===== 更新个人资料测试 =====
@@ -277,7 +547,6 @@ class UserServiceImplTest {
         // Given
         profileUpdateDTO.setAvatar("new-avatar.jpg");
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(userRoleRepository.findByIdUserId("user-123")).thenReturn(new ArrayList<>());
 
@@ -303,7 +572,6 @@ class UserServiceImplTest {
     void updateUserAvatar_Success() throws Exception {
         // Given
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
         when(minioUtil.uploadUserAvatar(mockFile, "user-123")).thenReturn("avatars/user-123.jpg");
         when(minioUtil.getAvatarPreviewUrl("avatars/user-123.jpg", 3600)).thenReturn("http://example.com/avatar.jpg");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
@@ -331,7 +599,6 @@ class UserServiceImplTest {
     void updateUserAvatar_Failure_UploadException() throws Exception {
         // Given
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(userRepository.findById("user-123")).thenReturn(Optional.of(testUser));
         when(minioUtil.uploadUserAvatar(mockFile, "user-123")).thenThrow(new RuntimeException("Upload failed"));
 
         // When & Then
@@ -474,4 +741,15 @@ class UserServiceImplTest {
         // Then
         assertFalse(result.isPresent());
     }
+
+    private RefreshToken refreshRecord() {
+        return RefreshToken.builder()
+                .id(1L)
+                .familyId("family-1")
+                .userId("user-123")
+                .username("testuser")
+                .tokenVersion(2)
+                .revoked(true)
+                .build();
+    }
 }
@@ -0,0 +1,77 @@
+package org.linghu.mybackend.util;
+
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.exception.BusinessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ArchiveExtractionGuard 单元测试
+ */
+class ArchiveExtractionGuardTest {
+
+    @Test
+    void nextEntry_WithinLimits_ShouldCountBytes() throws Exception {
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(10, 100, 1000);
+
+        assertThat(guard.nextEntry("a.txt", stream(60)).readAllBytes()).hasSize(60);
+        assertThat(guard.nextEntry("dir/b.txt", stream(100)).readAllBytes()).hasSize(100);
+
+        assertThat(guard.getEntries()).isEqualTo(2);
+        assertThat(guard.getTotalBytes()).isEqualTo(160L);
+    }
+
+    @Test
+    void nextEntry_EntryTooLarge_ShouldFailWhileReading() {
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(10, 100, 1000);
+        InputStream entry = guard.nextEntry("bomb.bin", stream(101));
+
+        assertThatThrownBy(entry::readAllBytes)
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("bomb.bin")
+                .extracting("code").isEqualTo(413);
+    }
+
+    @Test
+    void nextEntry_TotalTooLarge_ShouldFailAcrossEntries() throws Exception {
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(10, 100, 150);
+        guard.nextEntry("a.bin", stream(100)).readAllBytes();
+        InputStream second = guard.nextEntry("b.bin", stream(100));
+
+        assertThatThrownBy(second::readAllBytes)
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("总大小");
+    }
+
+    @Test
+    void nextEntry_TooManyEntries_ShouldFail() {
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(2, 100, 1000);
+        guard.nextEntry("a.txt", stream(1));
+        guard.nextEntry("b.txt", stream(1));
+
+        assertThatThrownBy(() -> guard.nextEntry("c.txt", stream(1)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("数量");
+    }
+
+    @Test
+    void nextEntry_TraversalPath_ShouldFail() {
+        ArchiveExtractionGuard guard = new ArchiveExtractionGuard(10, 100, 1000);
+
+        assertThatThrownBy(() -> guard.nextEntry("../../etc/passwd", stream(1)))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> guard.nextEntry("/abs.txt", stream(1)))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> guard.nextEntry("a\\..\\..\\b.txt", stream(1)))
+                .isInstanceOf(BusinessException.class);
+        assertThat(guard.getEntries()).isZero();
+    }
+
+    private InputStream stream(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+}
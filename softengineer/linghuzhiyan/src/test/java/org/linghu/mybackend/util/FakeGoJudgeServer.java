@@ -0,0 +1,176 @@
+package org.linghu.mybackend.util;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Empty;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.StreamObserver;
+import io.grpc.health.v1.HealthCheckResponse;
+import org.linghu.mybackend.judge.pb.ExecutorGrpc;
+import org.linghu.mybackend.judge.pb.FileContent;
+import org.linghu.mybackend.judge.pb.FileID;
+import org.linghu.mybackend.judge.pb.FileListType;
+import org.linghu.mybackend.judge.pb.Request;
+import org.linghu.mybackend.judge.pb.Response;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地模拟的go-judge gRPC服务，用于测试
+ * 每条命令把标准输入原样写到标准输出，copyIn引用不存在的缓存文件时返回File Error，
+ * copyOutCached的文件以copyIn中同名文件的内容缓存
+ */
+class FakeGoJudgeServer implements AutoCloseable {
+
+    private final Map<String, ByteString> files = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final HealthStatusManager health = new HealthStatusManager();
+    private final Server server;
+    private final String target;
+    private volatile long execDelayMillis;
+
+    FakeGoJudgeServer() throws IOException {
+        server = ServerBuilder.forPort(0)
+                .addService(new ExecutorService())
+                .addService(health.getHealthService())
+                .build()
+                .start();
+        target = "localhost:" + server.getPort();
+    }
+
+    String getTarget() {
+        return target;
+    }
+
+    Map<String, ByteString> getFiles() {
+        return files;
+    }
+
+    /**
+     * 同时处理中的Exec请求数的最大值
+     */
+    int getMaxRunning() {
+        return maxRunning.get();
+    }
+
+    void setExecDelayMillis(long execDelayMillis) {
+        this.execDelayMillis = execDelayMillis;
+    }
+
+    void setServing(boolean serving) {
+        health.setStatus("", serving ? HealthCheckResponse.ServingStatus.SERVING
+                : HealthCheckResponse.ServingStatus.NOT_SERVING);
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+
+    private class ExecutorService extends ExecutorGrpc.ExecutorImplBase {
+
+        @Override
+        public void exec(Request request, StreamObserver<Response> responseObserver) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                if (execDelayMillis > 0) {
+                    Thread.sleep(execDelayMillis);
+                }
+                Response.Builder response = Response.newBuilder().setRequestID(request.getRequestID());
+                for (Request.CmdType cmd : request.getCmdList()) {
+                    response.addResults(execute(cmd));
+                }
+                responseObserver.onNext(response.build());
+                responseObserver.onCompleted();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                responseObserver.onError(Status.CANCELLED.asRuntimeException());
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void fileList(Empty request, StreamObserver<FileListType> responseObserver) {
+            FileListType.Builder list = FileListType.newBuilder();
+            files.keySet().forEach(fileId -> list.putFileIDs(fileId, fileId));
+            responseObserver.onNext(list.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void fileGet(FileID request, StreamObserver<FileContent> responseObserver) {
+            ByteString content = files.get(request.getFileID());
+            if (content == null) {
+                responseObserver.onError(Status.NOT_FOUND.asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(FileContent.newBuilder().setContent(content).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void fileAdd(FileContent request, StreamObserver<FileID> responseObserver) {
+            String fileId = UUID.randomUUID().toString();
+            files.put(fileId, request.getContent());
+            responseObserver.onNext(FileID.newBuilder().setFileID(fileId).build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void fileDelete(FileID request, StreamObserver<Empty> responseObserver) {
+            if (files.remove(request.getFileID()) == null) {
+                responseObserver.onError(Status.NOT_FOUND.asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(Empty.getDefaultInstance());
+            responseObserver.onCompleted();
+        }
+
+        private Response.Result execute(Request.CmdType cmd) {
+            Map<String, ByteString> sandbox = new ConcurrentHashMap<>();
+            for (Map.Entry<String, Request.File> entry : cmd.getCopyInMap().entrySet()) {
+                ByteString content = read(entry.getValue());
+                if (content == null) {
+                    return Response.Result.newBuilder().setStatus(Response.Result.StatusType.FileError).build();
+                }
+                sandbox.put(entry.getKey(), content);
+            }
+            ByteString stdin = read(cmd.getFiles(0));
+            if (stdin == null) {
+                return Response.Result.newBuilder().setStatus(Response.Result.StatusType.FileError).build();
+            }
+
+            Response.Result.Builder result = Response.Result.newBuilder()
+                    .setStatus(Response.Result.StatusType.Accepted)
+                    .setTime(1_000_000L)
+                    .setMemory(1024L)
+                    .putFiles("stdout", stdin)
+                    .putFiles("stderr", ByteString.EMPTY);
+            for (Request.CmdCopyOutFile copyOut : cmd.getCopyOutCachedList()) {
+                String fileId = UUID.randomUUID().toString();
+                files.put(fileId, sandbox.getOrDefault(copyOut.getName(), ByteString.EMPTY));
+                result.putFileIDs(copyOut.getName(), fileId);
+            }
+            return result.build();
+        }
+
+        private ByteString read(Request.File file) {
+            switch (file.getFileCase()) {
+                case MEMORY:
+                    return file.getMemory().getContent();
+                case CACHED:
+                    return files.get(file.getCached().getFileID());
+                default:
+                    return ByteString.EMPTY;
+            }
+        }
+    }
+}
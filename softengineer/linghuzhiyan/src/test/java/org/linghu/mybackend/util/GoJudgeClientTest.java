@@ -0,0 +1,341 @@
+package org.linghu.mybackend.util;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+import org.linghu.mybackend.exception.BusinessException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * GoJudgeClient 单元测试 - 使用本地HTTP服务模拟go-judge
+ */
+class GoJudgeClientTest {
+
+    private HttpServer server;
+    private JudgeConfig judgeConfig;
+    private SimpleMeterRegistry meterRegistry;
+    private final Queue<Integer> statusCodes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicReference<String> uploadedBody = new AtomicReference<>();
+    private final AtomicReference<byte[]> uploadedBytes = new AtomicReference<>();
+    private final Queue<String> deletedFiles = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<String> runBody = new AtomicReference<>();
+    private final AtomicBoolean versionFailing = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/run", exchange -> {
+            requestCount.incrementAndGet();
+            runBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            Integer status = statusCodes.poll();
+            int code = status != null ? status : 200;
+            byte[] body = "[{\"status\":\"Accepted\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/file", exchange -> {
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                deletedFiles.add(exchange.getRequestURI().getPath());
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            byte[] upload = exchange.getRequestBody().readAllBytes();
+            uploadedBytes.set(upload);
+            uploadedBody.set(new String(upload, StandardCharsets.UTF_8));
+            byte[] body = "\"FILE123\"".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/version", exchange -> {
+            int code = versionFailing.get() ? 500 : 200;
+            byte[] body = "{\"buildVersion\":\"test\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+
+        judgeConfig = new JudgeConfig();
+        judgeConfig.setUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        judgeConfig.setMaxRetries(2);
+        judgeConfig.setRetryBackoff(1);
+        judgeConfig.getCircuitBreaker().setFailureThreshold(3);
+        judgeConfig.getCircuitBreaker().setOpenSeconds(60);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void run_ShouldReturnResponseBody() {
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        List<JudgeResultDTO> response = client.run(List.of(command()));
+
+        assertThat(response).extracting(JudgeResultDTO::getStatus).containsExactly("Accepted");
+        assertThat(requestCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void run_ShouldWriteCommandsInGoJudgeFormat() {
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+        Map<String, JudgeCommandDTO.File> copyIn = new LinkedHashMap<>();
+        copyIn.put("src/", JudgeCommandDTO.File.memory(new byte[0]));
+        copyIn.put("src/main.c", JudgeCommandDTO.File.memory("int main(){}".getBytes(StandardCharsets.UTF_8)));
+        copyIn.put("run.sh", JudgeCommandDTO.File.cached("F1"));
+        JudgeCommandDTO cmd = command();
+        cmd.setCopyIn(copyIn);
+        cmd.setCopyOutCached(List.of("out.tar"));
+
+        client.run(List.of(cmd));
+
+        assertThat(runBody.get()).isEqualTo("{\"cmd\":[{\"args\":[\"/bin/sh\",\"-c\",\"./run.sh\"],"
+                + "\"env\":[\"PATH=/usr/bin:/bin\"],"
+                + "\"files\":[{\"content\":\"\"},{\"name\":\"stdout\",\"max\":10240},{\"name\":\"stderr\",\"max\":10240}],"
+                + "\"cpuLimit\":1000000000,\"memoryLimit\":268435456,\"procLimit\":50,"
+                + "\"copyIn\":{\"src/\":{\"content\":\"\"},\"src/main.c\":{\"content\":\"int main(){}\"},"
+                + "\"run.sh\":{\"fileId\":\"F1\"}},"
+                + "\"copyOut\":[\"stdout\",\"stderr\"],\"copyOutCached\":[\"out.tar\"]}]}");
+    }
+
+    @Test
+    void run_WithBinaryFile_ShouldUploadAndReferenceByFileId() {
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+        byte[] binary = {0x7f, 'E', 'L', 'F', (byte) 0xff, (byte) 0xfe, 0x00, (byte) 0x80};
+        Map<String, JudgeCommandDTO.File> copyIn = new LinkedHashMap<>();
+        copyIn.put("bin/data.bin", JudgeCommandDTO.File.memory(binary));
+        copyIn.put("main.c", JudgeCommandDTO.File.memory("int main(){}".getBytes(StandardCharsets.UTF_8)));
+        JudgeCommandDTO cmd = command();
+        cmd.setCopyIn(copyIn);
+
+        client.run(List.of(cmd));
+
+        // 二进制内容原样上传，请求体中按文件ID引用，文本文件仍内联
+        assertThat(uploadedBody.get()).contains("filename=\"data.bin\"");
+        assertThat(containsBytes(uploadedBytes.get(), binary)).isTrue();
+        assertThat(runBody.get())
+                .contains("\"bin/data.bin\":{\"fileId\":\"FILE123\"}")
+                .contains("\"main.c\":{\"content\":\"int main(){}\"}");
+        assertThat(deletedFiles).containsExactly("/file/FILE123");
+    }
+
+    @Test
+    void run_WithServerError_ShouldRetryUntilSuccess() {
+        statusCodes.add(500);
+        statusCodes.add(503);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        List<JudgeResultDTO> response = client.run(List.of(command()));
+
+        assertThat(response.get(0).getStatus()).isEqualTo("Accepted");
+        assertThat(requestCount.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("judge.client.retries").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void run_WithClientError_ShouldNotRetry() {
+        statusCodes.add(400);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        assertThatThrownBy(() -> client.run(List.of(command())))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("400");
+        assertThat(requestCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void run_WhenServiceKeepsFailing_ShouldOpenCircuit() {
+        for (int i = 0; i < 3; i++) {
+            statusCodes.add(500);
+        }
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        assertThatThrownBy(() -> client.run(List.of(command())))
+                .hasMessageContaining("500");
+        assertThat(client.isCircuitOpen()).isTrue();
+
+        // 熔断期间不再访问评测服务
+        assertThatThrownBy(() -> client.run(List.of(command())))
+                .isInstanceOf(BusinessException.class);
+        assertThat(requestCount.get()).isEqualTo(3);
+    }
+
+    @Test
+    void run_AfterOpenPeriod_ShouldCloseCircuitOnSuccessfulProbe() {
+        for (int i = 0; i < 3; i++) {
+            statusCodes.add(500);
+        }
+        judgeConfig.getCircuitBreaker().setOpenSeconds(0);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        assertThatThrownBy(() -> client.run(List.of(command())));
+
+        assertThat(client.run(List.of(command())).get(0).getStatus()).isEqualTo("Accepted");
+        assertThat(client.isCircuitOpen()).isFalse();
+    }
+
+    @Test
+    void run_WhenServiceUnreachable_ShouldFailAfterRetries() {
+        server.stop(0);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        assertThatThrownBy(() -> client.run(List.of(command())))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("评测服务请求失败");
+        assertThat(meterRegistry.get("judge.client.retries").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void uploadFile_ShouldSendMultipartAndReturnFileId() {
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        String fileId = client.uploadFile(judgeConfig.getUrl(), "run.sh", "./main".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(fileId).isEqualTo("FILE123");
+        assertThat(uploadedBody.get())
+                .contains("name=\"file\"; filename=\"run.sh\"")
+                .contains("./main");
+    }
+
+    @Test
+    void acquireNode_ShouldPickNodeWithFewestOutstandingEvaluations() {
+        judgeConfig.setUrls(List.of("http://judge-a:5050", "http://judge-b:5050/"));
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        String first = client.acquireNode();
+        String second = client.acquireNode();
+        client.releaseNode(first);
+        String third = client.acquireNode();
+
+        assertThat(first).isEqualTo("http://judge-a:5050");
+        assertThat(second).isEqualTo("http://judge-b:5050");
+        assertThat(third).isEqualTo("http://judge-a:5050");
+        assertThat(meterRegistry.get("judge.node.outstanding").tag("node", "http://judge-b:5050").gauge().value())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void acquireNode_WithPreferredNode_ShouldUseItWhileItHasCapacity() {
+        judgeConfig.setUrls(List.of("http://judge-a:5050", "http://judge-b:5050"));
+        judgeConfig.getPool().setMaxConcurrent(1);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        assertThat(client.acquireNode("http://judge-b:5050")).isEqualTo("http://judge-b:5050");
+        assertThat(client.acquireNode("http://judge-b:5050")).isEqualTo("http://judge-a:5050");
+    }
+
+    @Test
+    void acquireNode_WhenAllNodesAreFull_ShouldRejectAfterTimeout() {
+        judgeConfig.getPool().setMaxConcurrent(1);
+        judgeConfig.getPool().setAcquireTimeout(0);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+        client.acquireNode();
+
+        assertThatThrownBy(client::acquireNode)
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("繁忙");
+    }
+
+    @Test
+    void acquireNode_WhenAllNodesAreFull_ShouldWaitForRelease() throws Exception {
+        judgeConfig.getPool().setMaxConcurrent(1);
+        judgeConfig.getPool().setAcquireTimeout(5);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+        String node = client.acquireNode();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            client.releaseNode(node);
+        });
+        releaser.start();
+
+        assertThat(client.acquireNode()).isEqualTo(node);
+        releaser.join();
+    }
+
+    @Test
+    void probeNodes_ShouldEjectFailingNodeAndReadmitAfterRecovery() {
+        String liveNode = judgeConfig.getUrl();
+        judgeConfig.setUrls(List.of(liveNode, "http://127.0.0.1:1"));
+        judgeConfig.setConnectTimeout(1);
+        judgeConfig.getCircuitBreaker().setFailureThreshold(1);
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, meterRegistry);
+
+        // 不可达的节点被摘除，分配只落在健康节点上
+        client.probeNodes();
+        String first = client.acquireNode();
+        String second = client.acquireNode();
+        assertThat(first).isEqualTo(liveNode);
+        assertThat(second).isEqualTo(liveNode);
+        assertThat(client.isCircuitOpen()).isFalse();
+
+        // 健康节点检查失败后也被摘除，所有节点不可用时直接拒绝
+        versionFailing.set(true);
+        client.probeNodes();
+        assertThat(client.isCircuitOpen()).isTrue();
+        assertThatThrownBy(client::acquireNode).isInstanceOf(BusinessException.class);
+
+        // 恢复后下一次健康检查重新加入
+        versionFailing.set(false);
+        client.probeNodes();
+        assertThat(client.acquireNode()).isEqualTo(liveNode);
+        assertThat(meterRegistry.get("judge.node.healthy").tag("node", liveNode).gauge().value()).isEqualTo(1);
+    }
+
+    private JudgeCommandDTO command() {
+        return JudgeCommandDTO.builder()
+                .args(List.of("/bin/sh", "-c", "./run.sh"))
+                .env(List.of("PATH=/usr/bin:/bin"))
+                .stdin(JudgeCommandDTO.File.memory(new byte[0]))
+                .stdoutMax(10240)
+                .stderrMax(10240)
+                .cpuLimit(1_000_000_000L)
+                .memoryLimit(268_435_456L)
+                .procLimit(50)
+                .copyOut(List.of("stdout", "stderr"))
+                .build();
+    }
+
+    private boolean containsBytes(byte[] data, byte[] part) {
+        for (int i = 0; i + part.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + part.length, part, 0, part.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
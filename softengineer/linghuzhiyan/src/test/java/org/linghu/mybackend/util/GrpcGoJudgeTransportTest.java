@@ -0,0 +1,179 @@
+package org.linghu.mybackend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.config.JudgeConfig;
+import org.linghu.mybackend.dto.JudgeCommandDTO;
+import org.linghu.mybackend.dto.JudgeResultDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * GrpcGoJudgeTransport 单元测试 - 使用本地模拟的go-judge gRPC服务
+ */
+class GrpcGoJudgeTransportTest {
+
+    private FakeGoJudgeServer server;
+    private JudgeConfig judgeConfig;
+    private GrpcGoJudgeTransport transport;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeGoJudgeServer();
+        judgeConfig = new JudgeConfig();
+        judgeConfig.setTransport("grpc");
+        judgeConfig.getGrpc().setUrl(server.getTarget());
+        judgeConfig.setMaxRetries(1);
+        judgeConfig.setRetryBackoff(1);
+        transport = new GrpcGoJudgeTransport(judgeConfig);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+        server.close();
+    }
+
+    @Test
+    void run_ShouldSendBytesAndMapResults() {
+        byte[] input = new byte[]{'o', 'k', 0, (byte) 0xE4, (byte) 0xBD, (byte) 0xA0};
+
+        List<JudgeResultDTO> results = transport.run(server.getTarget(),
+                List.of(command(JudgeCommandDTO.File.memory(input), new HashMap<>())));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getStatus()).isEqualTo("Accepted");
+        assertThat(results.get(0).getFiles().get("stdout")).isEqualTo(new String(input, StandardCharsets.UTF_8));
+        assertThat(results.get(0).getTime()).isEqualTo(1_000_000L);
+        assertThat(results.get(0).getMemory()).isEqualTo(1024L);
+    }
+
+    @Test
+    void run_WithCachedFiles_ShouldReferenceUploadedContent() {
+        String fileId = transport.uploadFile(server.getTarget(), "1.in", "3 4\n".getBytes(StandardCharsets.UTF_8));
+        Map<String, JudgeCommandDTO.File> copyIn = new HashMap<>();
+        copyIn.put("main.c", JudgeCommandDTO.File.memory("int main(){}".getBytes(StandardCharsets.UTF_8)));
+        JudgeCommandDTO cmd = command(JudgeCommandDTO.File.cached(fileId), copyIn);
+        cmd.setCopyOutCached(List.of("main.c"));
+
+        JudgeResultDTO result = transport.run(server.getTarget(), List.of(cmd)).get(0);
+
+        assertThat(result.getFiles().get("stdout")).isEqualTo("3 4\n");
+        String artifactId = result.getFileIds().get("main.c");
+        assertThat(server.getFiles().get(artifactId).toStringUtf8()).isEqualTo("int main(){}");
+    }
+
+    @Test
+    void run_WithMissingCachedFile_ShouldReturnFileError() {
+        Map<String, JudgeCommandDTO.File> copyIn = new HashMap<>();
+        copyIn.put(".judge-build.tar", JudgeCommandDTO.File.cached("missing"));
+
+        JudgeResultDTO result = transport.run(server.getTarget(),
+                List.of(command(JudgeCommandDTO.File.memory(new byte[0]), copyIn))).get(0);
+
+        assertThat(result.getStatus()).isEqualTo("File Error");
+    }
+
+    @Test
+    void deleteFile_ShouldRemoveCachedFile() {
+        String fileId = transport.uploadFile(server.getTarget(), "run.sh", "./main".getBytes(StandardCharsets.UTF_8));
+
+        transport.deleteFile(server.getTarget(), fileId);
+
+        assertThat(server.getFiles()).doesNotContainKey(fileId);
+        assertThatThrownBy(() -> transport.deleteFile(server.getTarget(), fileId))
+                .isInstanceOf(GoJudgeTransportException.class)
+                .extracting(e -> ((GoJudgeTransportException) e).getKind())
+                .isEqualTo(GoJudgeTransportException.Kind.REJECTED);
+    }
+
+    @Test
+    void run_WithConcurrentRequests_ShouldMultiplexOverOneChannel() throws Exception {
+        server.setExecDelayMillis(200);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<JudgeResultDTO>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                byte[] input = ("case " + i).getBytes(StandardCharsets.UTF_8);
+                futures.add(executor.submit(() -> transport.run(server.getTarget(),
+                        List.of(command(JudgeCommandDTO.File.memory(input), new HashMap<>())))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get().get(0).getFiles().get("stdout")).isEqualTo("case " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(transport.getChannelCount()).isEqualTo(1);
+        assertThat(server.getMaxRunning()).isGreaterThan(1);
+    }
+
+    @Test
+    void checkHealth_ShouldFollowServingStatus() {
+        transport.checkHealth(server.getTarget());
+
+        server.setServing(false);
+
+        assertThatThrownBy(() -> transport.checkHealth(server.getTarget()))
+                .isInstanceOf(GoJudgeTransportException.class);
+    }
+
+    @Test
+    void run_WhenServerDown_ShouldFailAsUnavailable() {
+        server.close();
+
+        assertThatThrownBy(() -> transport.run(server.getTarget(),
+                List.of(command(JudgeCommandDTO.File.memory(new byte[0]), new HashMap<>()))))
+                .isInstanceOf(GoJudgeTransportException.class)
+                .extracting(e -> ((GoJudgeTransportException) e).getKind())
+                .isEqualTo(GoJudgeTransportException.Kind.UNAVAILABLE);
+    }
+
+    @Test
+    void goJudgeClient_WithGrpcTransport_ShouldUseGrpcNodes() {
+        GoJudgeClient client = new GoJudgeClient(judgeConfig, new SimpleMeterRegistry());
+        try {
+            assertThat(client.getNodeUrls()).containsExactly(server.getTarget());
+
+            String node = client.acquireNode();
+            String fileId = client.uploadFile(node, "1.in", "42".getBytes(StandardCharsets.UTF_8));
+            JudgeResultDTO result = client.run(node,
+                    List.of(command(JudgeCommandDTO.File.cached(fileId), new HashMap<>()))).get(0);
+            client.releaseNode(node);
+
+            assertThat(result.getFiles().get("stdout")).isEqualTo("42");
+            client.probeNodes();
+            assertThat(client.isCircuitOpen()).isFalse();
+        } finally {
+            client.close();
+        }
+    }
+
+    private JudgeCommandDTO command(JudgeCommandDTO.File stdin, Map<String, JudgeCommandDTO.File> copyIn) {
+        return JudgeCommandDTO.builder()
+                .args(List.of("/bin/sh", "-c", "./run.sh"))
+                .env(List.of("PATH=/usr/bin:/bin"))
+                .stdin(stdin)
+                .stdoutMax(10240)
+                .stderrMax(10240)
+                .cpuLimit(1_000_000_000L)
+                .memoryLimit(268_435_456L)
+                .procLimit(50)
+                .copyIn(copyIn)
+                .copyOut(List.of("stdout", "stderr"))
+                .build();
+    }
+}
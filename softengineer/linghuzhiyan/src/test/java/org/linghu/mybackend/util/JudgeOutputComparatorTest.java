@@ -0,0 +1,40 @@
+package org.linghu.mybackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JudgeOutputComparator 单元测试
+ */
+class JudgeOutputComparatorTest {
+
+    @Test
+    void matches_WithSameOutput_ShouldReturnTrue() throws Exception {
+        assertThat(matches("1 2\n3\n", "1 2\n3\n")).isTrue();
+    }
+
+    @Test
+    void matches_ShouldIgnoreTrailingWhitespaceAndBlankLines() throws Exception {
+        assertThat(matches("1 2\n3\n", "1 2  \r\n3\n\n\n")).isTrue();
+        assertThat(matches("1 2\n3\n\n", "1 2\n3")).isTrue();
+    }
+
+    @Test
+    void matches_WithDifferentLine_ShouldReturnFalse() throws Exception {
+        assertThat(matches("1 2\n3\n", "1 2\n4\n")).isFalse();
+        assertThat(matches("1 2\n", " 1 2\n")).isFalse();
+    }
+
+    @Test
+    void matches_WithMissingOrExtraLines_ShouldReturnFalse() throws Exception {
+        assertThat(matches("1\n2\n", "1\n")).isFalse();
+        assertThat(matches("1\n", "1\n2\n")).isFalse();
+    }
+
+    private boolean matches(String expected, String actual) throws Exception {
+        return JudgeOutputComparator.matches(new StringReader(expected), new StringReader(actual));
+    }
+}
@@ -0,0 +1,110 @@
+package org.linghu.mybackend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.MinioConfig;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * MinioBucketRegistry 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MinioBucketRegistryTest {
+
+    @Mock
+    private MinioClient minioClient;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MinioBucketRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setBucketName("linghuzhiyan");
+        registry = new MinioBucketRegistry(minioClient, minioConfig, meterRegistry);
+    }
+
+    @Test
+    void bootstrap_ShouldCreateMissingBucketsOnce() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true, false, true);
+
+        registry.bootstrap();
+        registry.ensureDefaults();
+
+        verify(minioClient, times(3)).bucketExists(any(BucketExistsArgs.class));
+        verify(minioClient).makeBucket(any(MakeBucketArgs.class));
+        assertThat(registry.isKnown("submission")).isTrue();
+        assertThat(meterRegistry.get("minio.buckets.known").gauge().value()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("minio.round.trips").tag("operation", "bucket_exists").counter().count())
+                .isEqualTo(3.0);
+    }
+
+    @Test
+    void ensure_KnownBucket_ShouldNotCallMinio() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+
+        assertThat(registry.ensure("resource")).isEqualTo(1);
+        assertThat(registry.ensure("resource")).isZero();
+
+        verify(minioClient, times(1)).bucketExists(any(BucketExistsArgs.class));
+    }
+
+    @Test
+    void bootstrap_WhenMinioUnavailable_ShouldRetryOnFirstUse() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class)))
+                .thenThrow(new IOException("connection refused"))
+                .thenThrow(new IOException("connection refused"))
+                .thenThrow(new IOException("connection refused"))
+                .thenReturn(true);
+
+        registry.bootstrap();
+        assertThat(registry.isKnown("linghuzhiyan")).isFalse();
+
+        assertThat(registry.ensure("linghuzhiyan")).isEqualTo(1);
+        assertThat(registry.isKnown("linghuzhiyan")).isTrue();
+    }
+
+    @Test
+    void ensure_WhenCreatedConcurrently_ShouldTreatAsExisting() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(false);
+        doThrow(errorResponse("BucketAlreadyOwnedByYou")).when(minioClient).makeBucket(any(MakeBucketArgs.class));
+
+        assertThat(registry.ensure("resource")).isEqualTo(2);
+        assertThat(registry.isKnown("resource")).isTrue();
+    }
+
+    @Test
+    void onError_NoSuchBucket_ShouldForgetBucket() throws Exception {
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        registry.ensure("resource");
+
+        registry.onError("resource", new IOException("timeout"));
+        assertThat(registry.isKnown("resource")).isTrue();
+
+        registry.onError("resource", errorResponse("NoSuchBucket"));
+        assertThat(registry.isKnown("resource")).isFalse();
+    }
+
+    private ErrorResponseException errorResponse(String code) {
+        ErrorResponse response = mock(ErrorResponse.class);
+        when(response.code()).thenReturn(code);
+        ErrorResponseException exception = mock(ErrorResponseException.class);
+        when(exception.errorResponse()).thenReturn(response);
+        return exception;
+    }
+}
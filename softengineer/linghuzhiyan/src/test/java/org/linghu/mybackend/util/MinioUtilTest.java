@@ -0,0 +1,190 @@
+package org.linghu.mybackend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.linghu.mybackend.config.MinioConfig;
+import org.linghu.mybackend.dto.ExtractedFileDTO;
+import org.linghu.mybackend.exception.BusinessException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * MinioUtil 压缩包解压单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MinioUtilTest {
+
+    @Mock
+    private MinioClient minioClient;
+
+    private MinioUtil minioUtil;
+    private final Map<String, Long> storedSizes = new ConcurrentHashMap<>();
+    private final Map<String, String> uploadThreads = new ConcurrentHashMap<>();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger maxActiveUploads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setBucketName("linghuzhiyan");
+        MinioBucketRegistry registry = new MinioBucketRegistry(minioClient, minioConfig, new SimpleMeterRegistry());
+        minioUtil = new MinioUtil(minioClient, minioClient, minioConfig, registry, 2);
+
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        // 模拟MinIO读取上传流的全部内容，并记录同时进行的上传数
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenAnswer(invocation -> {
+            PutObjectArgs args = invocation.getArgument(0);
+            maxActiveUploads.accumulateAndGet(activeUploads.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+                storedSizes.put(args.object(), (long) args.stream().readAllBytes().length);
+                uploadThreads.put(args.object(), Thread.currentThread().getName());
+                if (args.object().endsWith("broken.bin")) {
+                    throw new IOException("connection reset");
+                }
+                return null;
+            } finally {
+                activeUploads.decrementAndGet();
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        minioUtil.shutdown();
+    }
+
+    @Test
+    void extractAndUploadCompressedFile_Zip_ShouldRecordActualSizes() throws Exception {
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        entries.put("src/Main.java", 300);
+        entries.put("data/large.bin", 3 * 1024 * 1024);
+        entries.put("README.md", 20);
+        byte[] zip = zip(entries);
+
+        List<ExtractedFileDTO> uploaded = minioUtil.extractAndUploadCompressedFile("exp-001", "task-001",
+                new ByteArrayInputStream(zip), "lab.zip", "application/zip");
+
+        assertThat(uploaded).hasSize(4);
+        assertThat(uploaded.subList(0, 3))
+                .extracting(ExtractedFileDTO::getObjectName, ExtractedFileDTO::getFileSize)
+                .containsExactly(
+                        tuple("exp-001/experiment/task-001/src/Main.java", 300L),
+                        tuple("exp-001/experiment/task-001/data/large.bin", 3L * 1024 * 1024),
+                        tuple("exp-001/experiment/task-001/README.md", 20L));
+        assertThat(uploaded.get(3).getObjectName()).startsWith("exp-001/experiment/task-001/original/");
+        assertThat(uploaded.get(3).getFileSize()).isEqualTo(zip.length);
+
+        ArgumentCaptor<PutObjectArgs> captor = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient, times(4)).putObject(captor.capture());
+        assertThat(captor.getAllValues())
+                .allMatch(args -> args.objectSize() == storedSizes.get(args.object()));
+    }
+
+    @Test
+    void extractAndUploadCompressedFile_ManyEntries_ShouldUploadInBoundedParallel() throws Exception {
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            entries.put("case" + i + ".in", 10 + i);
+        }
+
+        List<ExtractedFileDTO> uploaded = minioUtil.extractAndUploadCompressedFile("exp-001", null,
+                new ByteArrayInputStream(zip(entries)), "cases.zip", "application/zip");
+
+        assertThat(uploaded.subList(0, 20))
+                .extracting(ExtractedFileDTO::getObjectName)
+                .containsExactlyElementsOf(entries.keySet().stream()
+                        .map(name -> "exp-001/experiment/" + name)
+                        .toList());
+        assertThat(maxActiveUploads.get()).isBetween(1, 2);
+        assertThat(uploadThreads.get("exp-001/experiment/case0.in")).startsWith("archive-upload-");
+    }
+
+    @Test
+    void extractAndUploadCompressedFile_UploadFails_ShouldDeleteUploadedEntries() throws Exception {
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        entries.put("a.txt", 10);
+        entries.put("broken.bin", 10);
+        byte[] zip = zip(entries);
+
+        assertThatThrownBy(() -> minioUtil.extractAndUploadCompressedFile("exp-001", null,
+                new ByteArrayInputStream(zip), "lab.zip", "application/zip"))
+                .hasMessageContaining("解压文件失败")
+                .hasMessageContaining("connection reset");
+
+        ArgumentCaptor<RemoveObjectArgs> captor = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(captor.capture());
+        assertThat(captor.getValue().object()).isEqualTo("exp-001/experiment/a.txt");
+    }
+
+    @Test
+    void extractAndUploadCompressedFile_ExceedsTotalLimit_ShouldDeleteUploadedEntries() throws Exception {
+        ReflectionTestUtils.setField(minioUtil, "maxExtractTotalBytes", 500L);
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        entries.put("a.bin", 400);
+        entries.put("b.bin", 400);
+        byte[] zip = zip(entries);
+
+        assertThatThrownBy(() -> minioUtil.extractAndUploadCompressedFile("exp-001", null,
+                new ByteArrayInputStream(zip), "bomb.zip", "application/zip"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("总大小");
+
+        assertThat(storedSizes).containsOnlyKeys("exp-001/experiment/a.bin");
+        ArgumentCaptor<RemoveObjectArgs> captor = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(captor.capture());
+        assertThat(captor.getValue().object()).isEqualTo("exp-001/experiment/a.bin");
+    }
+
+    @Test
+    void extractAndUploadCompressedFile_TooManyEntries_ShouldFail() throws Exception {
+        ReflectionTestUtils.setField(minioUtil, "maxExtractEntries", 1);
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        entries.put("a.txt", 1);
+        entries.put("b.txt", 1);
+        byte[] zip = zip(entries);
+
+        assertThatThrownBy(() -> minioUtil.extractAndUploadCompressedFile("exp-001", null,
+                new ByteArrayInputStream(zip), "many.zip", "application/zip"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("数量");
+    }
+
+    private byte[] zip(Map<String, Integer> entries) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(buffer)) {
+            for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+                zos.putArchiveEntry(new ZipArchiveEntry(entry.getKey()));
+                zos.write(new byte[entry.getValue()]);
+                zos.closeArchiveEntry();
+            }
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,39 @@
+package org.linghu.mybackend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SpooledEntry 单元测试
+ */
+class SpooledEntryTest {
+
+    @Test
+    void read_SmallEntry_ShouldStayInMemory() throws Exception {
+        try (SpooledEntry entry = SpooledEntry.read(new ByteArrayInputStream(new byte[100]), 100)) {
+            assertThat(entry.isInMemory()).isTrue();
+            assertThat(entry.size()).isEqualTo(100L);
+            try (InputStream stream = entry.open()) {
+                assertThat(stream.readAllBytes()).hasSize(100);
+            }
+        }
+    }
+
+    @Test
+    void read_LargeEntry_ShouldSpillToTempFile() throws Exception {
+        byte[] content = new byte[1000];
+        content[999] = 7;
+
+        try (SpooledEntry entry = SpooledEntry.read(new ByteArrayInputStream(content), 100)) {
+            assertThat(entry.isInMemory()).isFalse();
+            assertThat(entry.size()).isEqualTo(1000L);
+            try (InputStream stream = entry.open()) {
+                assertThat(stream.readAllBytes()).isEqualTo(content);
+            }
+        }
+    }
+}
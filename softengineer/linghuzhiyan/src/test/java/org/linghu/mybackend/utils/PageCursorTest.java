@@ -0,0 +1,58 @@
+package org.linghu.mybackend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.linghu.mybackend.dto.CursorPageResult;
+import org.linghu.mybackend.exception.BusinessException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PageCursor 单元测试
+ */
+class PageCursorTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000);
+
+    @Test
+    void encodeAndDecode_ShouldRoundTrip() {
+        String cursor = PageCursor.encode(TIME, "id|with|separators");
+
+        PageCursor decoded = PageCursor.decode(cursor);
+
+        assertThat(cursor).doesNotContain("=", "+", "/");
+        assertThat(decoded.getCreatedAt()).isEqualTo(TIME);
+        assertThat(decoded.getId()).isEqualTo("id|with|separators");
+    }
+
+    @Test
+    void decode_WithEmptyCursor_ShouldReturnNull() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+    }
+
+    @Test
+    void decode_WithMalformedCursor_ShouldThrow() {
+        assertThatThrownBy(() -> PageCursor.decode("%%%")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> PageCursor.decode(PageCursor.encode(TIME, "").substring(2)))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void toResult_ShouldTrimExtraRowAndPointCursorAtLastReturnedRow() {
+        List<String> rows = List.of("a", "b", "c");
+
+        CursorPageResult<String> result = PageCursor.toResult(rows, 2, row -> TIME, Function.identity(),
+                page -> page.stream().map(String::toUpperCase).toList(), null);
+
+        assertThat(result.getList()).containsExactly("A", "B");
+        assertThat(result.isHasMore()).isTrue();
+        assertThat(PageCursor.decode(result.getNextCursor()).getId()).isEqualTo("b");
+        assertThat(PageCursor.limit(2).getPageSize()).isEqualTo(3);
+        assertThat(PageCursor.limit(1000).getPageSize()).isEqualTo(101);
+    }
+}
@@ -32,7 +32,8 @@ CREATE TABLE users (
     profile VARCHAR(255),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    is_deleted BOOLEAN DEFAULT FALSE
+    is_deleted BOOLEAN DEFAULT FALSE,
+    token_version INT DEFAULT 0 NOT NULL
 );
 
 -- 创建实验表
@@ -83,6 +84,10 @@ CREATE TABLE experiment_submission (
     grader_id VARCHAR(36),
     graded_time TIMESTAMP,
     time_spent INT,
+    content_hash VARCHAR(64),
+    artifact_file_id VARCHAR(64),
+    artifact_node VARCHAR(255),
+    artifact_task_version VARCHAR(64),
     submit_time TIMESTAMP NOT NULL,
     created_time TIMESTAMP NOT NULL,
     updated_time TIMESTAMP,
@@ -98,6 +103,10 @@ CREATE TABLE experiment_evaluation (
     score DECIMAL(5,2),
     error_message TEXT,
     additional_info TEXT,
+    case_results TEXT,
+    content_hash VARCHAR(64),
+    task_version VARCHAR(64),
+    cacheable BOOLEAN,
     status VARCHAR(20) DEFAULT 'PENDING',
     feedback TEXT,
     stdout TEXT,
@@ -138,4 +147,5 @@ CREATE INDEX idx_assignment_user ON experiment_assignment(user_id);
 CREATE INDEX idx_submission_user ON experiment_submission(user_id);
 CREATE INDEX idx_submission_task ON experiment_submission(task_id);
 CREATE INDEX idx_evaluation_submission ON experiment_evaluation(submission_id);
-CREATE INDEX idx_evaluation_user ON experiment_evaluation(user_id);
\ No newline at end of file
+CREATE INDEX idx_evaluation_user ON experiment_evaluation(user_id);
+CREATE INDEX idx_evaluation_content ON experiment_evaluation(task_id, content_hash);
\ No newline at end of file